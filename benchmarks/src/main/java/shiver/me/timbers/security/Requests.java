@@ -0,0 +1,84 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security;
+
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import javax.servlet.http.Cookie;
+
+/**
+ * Builds the requests that are used in the benchmarks. The requests carry the same number of unrelated cookies that a
+ * browser with a few analytics scripts would send.
+ *
+ * @author Karl Bennett
+ */
+public final class Requests {
+
+    private static final String X_AUTH_TOKEN = "X-AUTH-TOKEN";
+    private static final int OTHER_COOKIES = 20;
+
+    private Requests() {
+    }
+
+    public static MockHttpServletRequest headerRequest(String token) {
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/resource");
+        request.addHeader(X_AUTH_TOKEN, token);
+        request.setCookies(otherCookies());
+        return request;
+    }
+
+    public static MockHttpServletRequest anonymousRequest() {
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/resource");
+        request.setCookies(otherCookies());
+        return request;
+    }
+
+    public static MockHttpServletRequest cookieRequest(String token) {
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/resource");
+        final Cookie[] otherCookies = otherCookies();
+        final Cookie[] cookies = new Cookie[otherCookies.length + 1];
+        System.arraycopy(otherCookies, 0, cookies, 0, otherCookies.length);
+        // Put the token at the end so that the cookie lookup has to scan past all the other cookies.
+        cookies[otherCookies.length] = new Cookie(X_AUTH_TOKEN, token);
+        request.setCookies(cookies);
+        return request;
+    }
+
+    /**
+     * A cookie request as a container would present it, with the raw "Cookie" header still available.
+     */
+    public static MockHttpServletRequest rawCookieRequest(String token) {
+        final MockHttpServletRequest request = cookieRequest(token);
+        final StringBuilder header = new StringBuilder();
+        for (Cookie cookie : request.getCookies()) {
+            if (header.length() > 0) {
+                header.append("; ");
+            }
+            header.append(cookie.getName()).append('=').append(cookie.getValue());
+        }
+        request.addHeader("Cookie", header.toString());
+        return request;
+    }
+
+    private static Cookie[] otherCookies() {
+        final Cookie[] cookies = new Cookie[OTHER_COOKIES];
+        for (int i = 0; i < cookies.length; i++) {
+            cookies[i] = new Cookie("_analytics_" + i, "GA1.2.1234567890.1234567890-" + i);
+        }
+        return cookies;
+    }
+}
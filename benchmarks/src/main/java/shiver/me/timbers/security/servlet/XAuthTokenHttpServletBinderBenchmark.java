@@ -0,0 +1,85 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.servlet;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import shiver.me.timbers.security.token.JwtTokenParser;
+
+import javax.servlet.http.HttpServletRequest;
+
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static shiver.me.timbers.security.Requests.cookieRequest;
+import static shiver.me.timbers.security.Requests.headerRequest;
+import static shiver.me.timbers.security.Requests.rawCookieRequest;
+import static shiver.me.timbers.security.token.JwtTokenParserBenchmark.SECRET;
+import static shiver.me.timbers.security.token.JwtTokenParserBenchmark.USERNAME;
+
+/**
+ * The raw cookie benchmark finds the token by scanning the "Cookie" header, the plain cookie benchmark only has the
+ * parsed cookies to search, though the mock request parses them up front so that cost is not included.
+ *
+ * @author Karl Bennett
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class XAuthTokenHttpServletBinderBenchmark {
+
+    private XAuthTokenHttpServletBinder<String> binder;
+    private HttpServletRequest headerRequest;
+    private HttpServletRequest cookieRequest;
+    private HttpServletRequest rawCookieRequest;
+
+    @Setup
+    public void setUp() {
+        final JwtTokenParser<String> tokenParser = new JwtTokenParser<>(String.class, SECRET)
+            .willExpireAfter(1L, HOURS);
+        final String token = tokenParser.create(USERNAME);
+        binder = new XAuthTokenHttpServletBinder<>(tokenParser);
+        headerRequest = headerRequest(token);
+        cookieRequest = cookieRequest(token);
+        rawCookieRequest = rawCookieRequest(token);
+    }
+
+    @Benchmark
+    public String retrieveFromHeader() throws Exception {
+        return binder.retrieve(headerRequest);
+    }
+
+    @Benchmark
+    public String retrieveFromCookie() throws Exception {
+        return binder.retrieve(cookieRequest);
+    }
+
+    @Benchmark
+    public String retrieveFromRawCookieHeader() throws Exception {
+        return binder.retrieve(rawCookieRequest);
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package shiver.me.timbers.security.spring;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextImpl;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Measures how long it takes to hand a request's authentication to a thousand tasks that each run on their own new
+ * thread, all of them alive at once, and wait for them all to read it. That is the shape of work virtual threads are
+ * used for, there are none on the Java versions this library supports so each task is given a platform thread
+ * instead. The holder that carries the context is compared with Spring's static holder.
+ *
+ * @author Karl Bennett
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SecurityContextExecutorServiceBenchmark {
+
+    private static final int TASKS = 1000;
+
+    @Param({"static", "carrier"})
+    private String holder;
+
+    private MutableSecurityContextHolder contextHolder;
+    private ExecutorService executor;
+
+    @Setup
+    public void setUp() {
+        contextHolder = "carrier".equals(holder)
+            ? new CarrierSecurityContextHolder()
+            : new StaticSecurityContextHolder();
+        final SecurityContextImpl context = new SecurityContextImpl();
+        context.setAuthentication(new TestingAuthenticationToken("user", "password"));
+        contextHolder.setContext(context);
+        executor = new SecurityContextExecutorService(new ThreadPerTaskExecutorService(), contextHolder);
+    }
+
+    @TearDown
+    public void tearDown() {
+        contextHolder.clearContext();
+    }
+
+    @Benchmark
+    public int threadPerTask() throws InterruptedException {
+        final CountDownLatch done = new CountDownLatch(TASKS);
+        final Reader reader = new Reader(contextHolder, done);
+        for (int i = 0; i < TASKS; i++) {
+            executor.execute(reader);
+        }
+        done.await();
+        return reader.authenticated;
+    }
+
+    private static class Reader implements Runnable {
+
+        private final SecurityContextHolder contextHolder;
+        private final CountDownLatch done;
+        private volatile int authenticated;
+
+        private Reader(SecurityContextHolder contextHolder, CountDownLatch done) {
+            this.contextHolder = contextHolder;
+            this.done = done;
+        }
+
+        @Override
+        public void run() {
+            if (contextHolder.getContext().getAuthentication() != null) {
+                authenticated = 1;
+            }
+            done.countDown();
+        }
+    }
+
+    private static class ThreadPerTaskExecutorService extends AbstractExecutorService {
+
+        @Override
+        public void execute(Runnable command) {
+            new Thread(command).start();
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return false;
+        }
+    }
+}
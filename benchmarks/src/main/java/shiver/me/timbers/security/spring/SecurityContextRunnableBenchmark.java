@@ -0,0 +1,84 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.spring;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+import org.springframework.security.core.context.SecurityContextImpl;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+/**
+ * Compares the cost of carrying the security context into a task, through either Spring's static holder or the carrier
+ * holder, with Spring's own delegating runnable.
+ *
+ * @author Karl Bennett
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SecurityContextRunnableBenchmark {
+
+    private static final Runnable NO_OP = new Runnable() {
+        @Override
+        public void run() {
+        }
+    };
+
+    private final MutableSecurityContextHolder contextHolder = new StaticSecurityContextHolder();
+    private final CarrierSecurityContextHolder carrierContextHolder = new CarrierSecurityContextHolder();
+
+    @Setup
+    public void setUp() {
+        contextHolder.setContext(new SecurityContextImpl());
+        carrierContextHolder.setContext(new SecurityContextImpl());
+    }
+
+    @TearDown
+    public void tearDown() {
+        org.springframework.security.core.context.SecurityContextHolder.clearContext();
+        carrierContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public void securityContextRunnable() {
+        new SecurityContextRunnable(NO_OP, contextHolder).run();
+    }
+
+    @Benchmark
+    public void carrierSecurityContextRunnable() {
+        new SecurityContextRunnable(NO_OP, carrierContextHolder).run();
+    }
+
+    @Benchmark
+    public void delegatingSecurityContextRunnable() {
+        new DelegatingSecurityContextRunnable(NO_OP).run();
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.spring;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletResponse;
+import shiver.me.timbers.security.servlet.AuthenticationHttpServletBinder;
+import shiver.me.timbers.security.servlet.XAuthTokenHttpServletBinder;
+import shiver.me.timbers.security.token.JwtTokenParser;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static shiver.me.timbers.security.Requests.anonymousRequest;
+import static shiver.me.timbers.security.Requests.cookieRequest;
+import static shiver.me.timbers.security.Requests.headerRequest;
+import static shiver.me.timbers.security.token.JwtTokenParserBenchmark.SECRET;
+import static shiver.me.timbers.security.token.JwtTokenParserBenchmark.USERNAME;
+
+/**
+ * Measures the complete per request cost of the stateless authentication with the default configuration.
+ *
+ * @author Karl Bennett
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatelessAuthenticationFilterBenchmark {
+
+    private static final FilterChain NO_OP_CHAIN = new FilterChain() {
+        @Override
+        public void doFilter(ServletRequest request, ServletResponse response) {
+        }
+    };
+
+    private StatelessAuthenticationFilter filter;
+    private HttpServletRequest headerRequest;
+    private HttpServletRequest cookieRequest;
+    private HttpServletRequest anonymousRequest;
+    private HttpServletResponse response;
+
+    @Setup
+    public void setUp() {
+        final JwtTokenParser<String> tokenParser = new JwtTokenParser<>(String.class, SECRET)
+            .willExpireAfter(1L, HOURS);
+        filter = new StatelessAuthenticationFilter(
+            new AuthenticationHttpServletBinder<>(
+                new XAuthTokenHttpServletBinder<>(tokenParser),
+                new AuthenticatedAuthenticationConverter()
+            ),
+            new StaticSecurityContextHolder(),
+            new ServletExceptionMapper()
+        );
+        final String token = tokenParser.create(USERNAME);
+        headerRequest = headerRequest(token);
+        cookieRequest = cookieRequest(token);
+        anonymousRequest = anonymousRequest();
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public void doFilterWithHeader() throws Exception {
+        filter.doFilter(headerRequest, response, NO_OP_CHAIN);
+    }
+
+    @Benchmark
+    public void doFilterWithCookie() throws Exception {
+        filter.doFilter(cookieRequest, response, NO_OP_CHAIN);
+    }
+
+    @Benchmark
+    public void doFilterAnonymous() throws Exception {
+        filter.doFilter(anonymousRequest, response, NO_OP_CHAIN);
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Compares the {@link DataConverterBase64} with the {@link UrlSafeBase64} for a payload the size of a typical token
+ * entity.
+ *
+ * @author Karl Bennett
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Base64Benchmark {
+
+    private DataConverterBase64 dataConverterBase64;
+    private UrlSafeBase64 urlSafeBase64;
+    private byte[] bytes;
+    private String dataConverterEncoded;
+    private String urlSafeEncoded;
+    private byte[] decoded;
+
+    @Setup
+    public void setUp() {
+        dataConverterBase64 = new DataConverterBase64();
+        urlSafeBase64 = new UrlSafeBase64();
+        bytes = "a.benchmark.user@some.long.domain.example.com".getBytes();
+        dataConverterEncoded = dataConverterBase64.encode(bytes);
+        urlSafeEncoded = urlSafeBase64.encode(bytes);
+        decoded = new byte[bytes.length];
+    }
+
+    @Benchmark
+    public String dataConverterEncode() {
+        return dataConverterBase64.encode(bytes);
+    }
+
+    @Benchmark
+    public String urlSafeEncode() {
+        return urlSafeBase64.encode(bytes);
+    }
+
+    @Benchmark
+    public byte[] dataConverterDecode() {
+        return dataConverterBase64.decode(dataConverterEncoded);
+    }
+
+    @Benchmark
+    public byte[] urlSafeDecode() {
+        return urlSafeBase64.decode(urlSafeEncoded);
+    }
+
+    @Benchmark
+    public byte[] urlSafeDecodeIntoBuffer() {
+        urlSafeBase64.decode(urlSafeEncoded, 0, urlSafeEncoded.length(), decoded, 0);
+        return decoded;
+    }
+}
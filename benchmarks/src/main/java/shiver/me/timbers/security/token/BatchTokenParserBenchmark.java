@@ -0,0 +1,107 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static shiver.me.timbers.security.token.JwtTokenParserBenchmark.SECRET;
+import static shiver.me.timbers.security.token.JwtTokenParserBenchmark.USERNAME;
+
+/**
+ * Compares creating a thousand tokens one after the other with creating them as a single batch, and the same for
+ * parsing the handful of tokens that a gateway request might carry.
+ *
+ * @author Karl Bennett
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchTokenParserBenchmark {
+
+    private static final int BATCH_SIZE = 1000;
+    private static final int GATEWAY_SIZE = 4;
+
+    private JwtSubjectTokenParser tokenParser;
+    private ForkJoinPool pool;
+    private BatchTokenParser<String> batchTokenParser;
+    private List<String> usernames;
+    private List<String> tokens;
+
+    @Setup
+    public void setUp() {
+        tokenParser = new JwtSubjectTokenParser(SECRET).willExpireAfter(1L, HOURS);
+        pool = new ForkJoinPool();
+        batchTokenParser = new BatchTokenParser<>(tokenParser, pool);
+        usernames = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            usernames.add(USERNAME + i);
+        }
+        tokens = createOneAtATime().subList(0, GATEWAY_SIZE);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public List<String> createOneAtATime() {
+        final List<String> tokens = new ArrayList<>(BATCH_SIZE);
+        for (String username : usernames) {
+            tokens.add(tokenParser.create(username));
+        }
+        return tokens;
+    }
+
+    @Benchmark
+    public List<String> createBatch() throws Exception {
+        return batchTokenParser.create(usernames);
+    }
+
+    @Benchmark
+    public List<String> parseOneAtATime() {
+        final List<String> usernames = new ArrayList<>(GATEWAY_SIZE);
+        for (String token : tokens) {
+            usernames.add(tokenParser.parse(token));
+        }
+        return usernames;
+    }
+
+    @Benchmark
+    public List<TokenResult<String>> parseBatch() {
+        return batchTokenParser.parse(tokens);
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static shiver.me.timbers.security.token.JwtTokenParserBenchmark.SECRET;
+import static shiver.me.timbers.security.token.JwtTokenParserBenchmark.USERNAME;
+
+/**
+ * The same benchmark as the {@link JwtTokenParserBenchmark} so that the two token formats can be compared.
+ *
+ * @author Karl Bennett
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BinaryTokenParserBenchmark {
+
+    private BinaryTokenParser<String> tokenParser;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        tokenParser = new BinaryTokenParser<>(String.class, SECRET).willExpireAfter(1L, HOURS);
+        token = tokenParser.create(USERNAME);
+    }
+
+    @Benchmark
+    public String create() {
+        return tokenParser.create(USERNAME);
+    }
+
+    @Benchmark
+    public String parse() {
+        return tokenParser.parse(token);
+    }
+}
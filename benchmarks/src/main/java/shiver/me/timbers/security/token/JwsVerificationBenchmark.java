@@ -0,0 +1,125 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+
+import static io.jsonwebtoken.SignatureAlgorithm.ES256;
+import static io.jsonwebtoken.SignatureAlgorithm.HS512;
+import static io.jsonwebtoken.SignatureAlgorithm.RS256;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static shiver.me.timbers.security.token.JwtTokenParserBenchmark.SECRET;
+import static shiver.me.timbers.security.token.JwtTokenParserBenchmark.USERNAME;
+
+/**
+ * Compares the jjwt signature verification, that re-derives the key and creates a new {@link javax.crypto.Mac} for
+ * every token, with the {@link MacJwsVerifier} that does both only once. The {@link SignatureJwsVerifier} is included
+ * to show the cost of verifying RS256 and ES256 tokens with only a public key.
+ *
+ * @author Karl Bennett
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwsVerificationBenchmark {
+
+    private String token;
+    private JwtParser jwtParser;
+    private MacJwsVerifier macJwsVerifier;
+    private JwtTokenParser<String> jwtTokenParser;
+    private String rsaToken;
+    private SignatureJwsVerifier rsaJwsVerifier;
+    private String ecToken;
+    private SignatureJwsVerifier ecJwsVerifier;
+
+    @Setup
+    public void setUp() throws GeneralSecurityException {
+        jwtTokenParser = new JwtTokenParser<>(String.class, SECRET);
+        token = jwtTokenParser.create(USERNAME);
+        jwtParser = Jwts.parser();
+        macJwsVerifier = new MacJwsVerifier(
+            new SecretKeySpec(new DataConverterBase64().decode(SECRET), HS512.getJcaName())
+        );
+
+        final KeyPair rsaKeyPair = keyPair("RSA", 2048);
+        rsaToken = Jwts.builder().setSubject(USERNAME).signWith(RS256, rsaKeyPair.getPrivate()).compact();
+        rsaJwsVerifier = new SignatureJwsVerifier(rsaKeyPair.getPublic());
+
+        final KeyPair ecKeyPair = keyPair("EC", 256);
+        ecToken = Jwts.builder().setSubject(USERNAME).signWith(ES256, ecKeyPair.getPrivate()).compact();
+        ecJwsVerifier = new SignatureJwsVerifier(ecKeyPair.getPublic());
+    }
+
+    /**
+     * The verification that {@link JwtTokenParser#parse(String)} used to do for every request.
+     */
+    @Benchmark
+    public Jws<Claims> jjwtParseClaimsJws() {
+        return jwtParser.setSigningKey(SECRET).parseClaimsJws(token);
+    }
+
+    @Benchmark
+    public boolean macJwsVerifier() {
+        return macJwsVerifier.verify(token);
+    }
+
+    /**
+     * The full parse including the claims and entity deserialisation, for comparison with
+     * {@link #jjwtParseClaimsJws()}.
+     */
+    @Benchmark
+    public String jwtTokenParser() {
+        return jwtTokenParser.parse(token);
+    }
+
+    @Benchmark
+    public boolean rs256JwsVerifier() {
+        return rsaJwsVerifier.verify(rsaToken);
+    }
+
+    @Benchmark
+    public boolean es256JwsVerifier() {
+        return ecJwsVerifier.verify(ecToken);
+    }
+
+    private static KeyPair keyPair(String algorithm, int size) throws GeneralSecurityException {
+        final KeyPairGenerator generator = KeyPairGenerator.getInstance(algorithm);
+        generator.initialize(size);
+        return generator.generateKeyPair();
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package shiver.me.timbers.security.reactive;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.web.server.ServerWebExchange;
+import shiver.me.timbers.security.spring.AuthenticationConverter;
+
+/**
+ * @author Karl Bennett
+ */
+public class AuthenticationServerWebExchangeBinder<T> implements ServerWebExchangeBinder<Authentication> {
+
+    private final ServerWebExchangeBinder<T> exchangeBinder;
+    private final AuthenticationConverter<T> authenticationConverter;
+
+    public AuthenticationServerWebExchangeBinder(
+        ServerWebExchangeBinder<T> exchangeBinder,
+        AuthenticationConverter<T> authenticationConverter
+    ) {
+        this.exchangeBinder = exchangeBinder;
+        this.authenticationConverter = authenticationConverter;
+    }
+
+    @Override
+    public void add(ServerWebExchange exchange, Authentication authentication) throws Exception {
+        exchangeBinder.add(exchange, authenticationConverter.convert(authentication));
+    }
+
+    @Override
+    public Authentication retrieve(ServerWebExchange exchange) throws Exception {
+        return authenticationConverter.convert(exchangeBinder.retrieve(exchange));
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package shiver.me.timbers.security.reactive;
+
+import org.springframework.web.server.ServerWebExchange;
+
+/**
+ * This binder will retrieve given value from an exchange's request or add it to the exchange's response. It is the
+ * reactive counterpart of {@link shiver.me.timbers.security.servlet.HttpServletBinder}.
+ *
+ * @author Karl Bennett
+ */
+public interface ServerWebExchangeBinder<T> {
+
+    /**
+     * @return the value that this binder is responsible for from the supplied exchange's request.
+     */
+    T retrieve(ServerWebExchange exchange) throws Exception;
+
+    /**
+     * Add the supplied value to the supplied exchange's response.
+     */
+    void add(ServerWebExchange exchange, T value) throws Exception;
+}
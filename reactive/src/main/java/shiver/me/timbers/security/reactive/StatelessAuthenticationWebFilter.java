@@ -0,0 +1,75 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package shiver.me.timbers.security.reactive;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * This filter will check every exchange for the authorised token and if it finds it authorise the exchange by adding
+ * its authentication to the {@link ReactiveSecurityContextHolder} of the rest of the chain. It is the reactive
+ * counterpart of {@link shiver.me.timbers.security.spring.StatelessAuthenticationFilter}.
+ * <p>
+ * Verifying a token is CPU bound, so if a {@link Scheduler} is supplied the token will be verified on it instead of
+ * on the event loop. The rest of the chain then carries on from the scheduler's thread. A parser that is cheap for
+ * most tokens, e.g. a caching parser with a high hit rate, can be run without a scheduler.
+ *
+ * @author Karl Bennett
+ */
+public class StatelessAuthenticationWebFilter implements WebFilter {
+
+    private final ServerWebExchangeBinder<Authentication> exchangeBinder;
+    private final Scheduler verifier;
+
+    public StatelessAuthenticationWebFilter(ServerWebExchangeBinder<Authentication> exchangeBinder) {
+        this(exchangeBinder, null);
+    }
+
+    /**
+     * @param verifier the scheduler that tokens are verified on, or null to verify them on the calling thread.
+     */
+    public StatelessAuthenticationWebFilter(
+        ServerWebExchangeBinder<Authentication> exchangeBinder,
+        Scheduler verifier
+    ) {
+        this.exchangeBinder = exchangeBinder;
+        this.verifier = verifier;
+    }
+
+    @Override
+    public Mono<Void> filter(final ServerWebExchange exchange, final WebFilterChain chain) {
+        return retrieve(exchange)
+            .switchIfEmpty(Mono.defer(() -> chain.filter(exchange)).then(Mono.empty()))
+            .flatMap(authentication -> chain.filter(exchange)
+                .subscriberContext(ReactiveSecurityContextHolder.withAuthentication(authentication)));
+    }
+
+    private Mono<Authentication> retrieve(final ServerWebExchange exchange) {
+        // An exchange without a token produces an empty Mono because fromCallable treats a null result as empty.
+        final Mono<Authentication> authentication = Mono.fromCallable(() -> exchangeBinder.retrieve(exchange));
+        if (verifier == null) {
+            return authentication;
+        }
+        return authentication.subscribeOn(verifier);
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package shiver.me.timbers.security.reactive;
+
+import io.jsonwebtoken.MalformedJwtException;
+import org.springframework.http.HttpCookie;
+import org.springframework.http.ResponseCookie;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import shiver.me.timbers.security.token.TokenParser;
+import shiver.me.timbers.security.token.TokenRejection;
+import shiver.me.timbers.security.token.TokenShapeCheck;
+
+import static java.lang.String.format;
+
+/**
+ * Binds a token to the "X-AUTH-TOKEN" header and cookie, the header is looked in first. This is the reactive
+ * counterpart of {@link shiver.me.timbers.security.servlet.XAuthTokenHttpServletBinder} so tokens can be shared
+ * between servlet and reactive applications.
+ *
+ * @author Karl Bennett
+ */
+public class XAuthTokenServerWebExchangeBinder<T> implements ServerWebExchangeBinder<T> {
+
+    static final String X_AUTH_TOKEN = "X-AUTH-TOKEN";
+
+    private final TokenParser<T> tokenParser;
+    private String cookiePath = "/";
+    private TokenShapeCheck shapeCheck;
+
+    public XAuthTokenServerWebExchangeBinder(TokenParser<T> tokenParser) {
+        this.tokenParser = tokenParser;
+    }
+
+    @Override
+    public void add(ServerWebExchange exchange, T subject) throws Exception {
+
+        final String token = tokenParser.create(subject);
+
+        final ServerHttpResponse response = exchange.getResponse();
+        response.getHeaders().add(X_AUTH_TOKEN, token);
+        response.addCookie(ResponseCookie.from(X_AUTH_TOKEN, token).path(cookiePath).build());
+    }
+
+    @Override
+    public T retrieve(ServerWebExchange exchange) throws Exception {
+
+        final String token = token(exchange.getRequest());
+
+        if (token == null) {
+            return null;
+        }
+
+        if (shapeCheck != null) {
+            final TokenRejection rejection = shapeCheck.check(token);
+            if (rejection != null) {
+                throw new MalformedJwtException(format("The token failed the shape check (%s).", rejection));
+            }
+        }
+
+        return tokenParser.parse(token);
+    }
+
+    /**
+     * Set the path of the cookie that a token is added to.
+     */
+    public XAuthTokenServerWebExchangeBinder<T> withCookiePath(String path) {
+        this.cookiePath = path;
+        return this;
+    }
+
+    /**
+     * Reject any token that fails the supplied check with a {@link MalformedJwtException} without parsing it.
+     */
+    public XAuthTokenServerWebExchangeBinder<T> withShapeCheck(TokenShapeCheck shapeCheck) {
+        this.shapeCheck = shapeCheck;
+        return this;
+    }
+
+    private static String token(ServerHttpRequest request) {
+
+        final String header = request.getHeaders().getFirst(X_AUTH_TOKEN);
+        if (header != null) {
+            return header;
+        }
+
+        final HttpCookie cookie = request.getCookies().getFirst(X_AUTH_TOKEN);
+        if (cookie != null) {
+            return cookie.getValue();
+        }
+
+        return null;
+    }
+}
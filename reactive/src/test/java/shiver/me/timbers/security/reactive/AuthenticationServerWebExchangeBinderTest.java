@@ -0,0 +1,83 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package shiver.me.timbers.security.reactive;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.server.ServerWebExchange;
+import shiver.me.timbers.security.spring.AuthenticationConverter;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static shiver.me.timbers.data.random.RandomStrings.someString;
+
+public class AuthenticationServerWebExchangeBinderTest {
+
+    private ServerWebExchangeBinder<Object> exchangeBinder;
+    private AuthenticationConverter<Object> authenticationConverter;
+    private ServerWebExchangeBinder<Authentication> binder;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        exchangeBinder = mock(ServerWebExchangeBinder.class);
+        authenticationConverter = mock(AuthenticationConverter.class);
+        binder = new AuthenticationServerWebExchangeBinder<>(exchangeBinder, authenticationConverter);
+    }
+
+    @Test
+    public void Can_add_an_authentication_to_an_exchange() throws Exception {
+
+        final Authentication authentication = mock(Authentication.class);
+        final ServerWebExchange exchange = mock(ServerWebExchange.class);
+
+        final Object subject = new Object();
+
+        // Given
+        given(authenticationConverter.convert(authentication)).willReturn(subject);
+
+        // When
+        binder.add(exchange, authentication);
+
+        // Then
+        verify(exchangeBinder).add(exchange, subject);
+    }
+
+    @Test
+    public void Can_retrieve_an_authentication_from_an_exchange() throws Exception {
+
+        final ServerWebExchange exchange = mock(ServerWebExchange.class);
+        final String subject = someString();
+
+        final Authentication expected = mock(Authentication.class);
+
+        // Given
+        given(exchangeBinder.retrieve(exchange)).willReturn(subject);
+        given(authenticationConverter.convert(subject)).willReturn(expected);
+
+        // When
+        final Authentication actual = binder.retrieve(exchange);
+
+        // Then
+        assertThat(actual, equalTo(expected));
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package shiver.me.timbers.security.reactive;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+public class StatelessAuthenticationWebFilterTest {
+
+    private ServerWebExchangeBinder<Authentication> exchangeBinder;
+    private ServerWebExchange exchange;
+    private AtomicReference<Authentication> authentication;
+    private AtomicReference<String> thread;
+    private AtomicInteger calls;
+    private WebFilterChain chain;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        exchangeBinder = mock(ServerWebExchangeBinder.class);
+        exchange = mock(ServerWebExchange.class);
+        authentication = new AtomicReference<>();
+        thread = new AtomicReference<>();
+        calls = new AtomicInteger();
+        chain = exchange -> {
+            calls.incrementAndGet();
+            thread.set(Thread.currentThread().getName());
+            return ReactiveSecurityContextHolder.getContext()
+                .map(SecurityContext::getAuthentication)
+                .doOnNext(authentication::set)
+                .then();
+        };
+    }
+
+    @Test
+    public void Can_authenticate_an_exchange() throws Exception {
+
+        final Authentication expected = mock(Authentication.class);
+
+        // Given
+        given(exchangeBinder.retrieve(exchange)).willReturn(expected);
+
+        // When
+        new StatelessAuthenticationWebFilter(exchangeBinder).filter(exchange, chain).block();
+
+        // Then
+        assertThat(authentication.get(), equalTo(expected));
+        assertThat(calls.get(), equalTo(1));
+    }
+
+    @Test
+    public void Can_pass_an_exchange_without_a_token_down_the_chain_once() throws Exception {
+
+        // Given
+        given(exchangeBinder.retrieve(exchange)).willReturn(null);
+
+        // When
+        new StatelessAuthenticationWebFilter(exchangeBinder).filter(exchange, chain).block();
+
+        // Then
+        assertThat(authentication.get(), nullValue());
+        assertThat(calls.get(), equalTo(1));
+    }
+
+    @Test
+    public void Can_verify_the_token_on_the_supplied_scheduler() throws Exception {
+
+        final Scheduler verifier = Schedulers.newSingle("verifier");
+
+        // Given
+        given(exchangeBinder.retrieve(exchange)).willReturn(mock(Authentication.class));
+
+        // When
+        try {
+            new StatelessAuthenticationWebFilter(exchangeBinder, verifier).filter(exchange, chain).block();
+        } finally {
+            verifier.dispose();
+        }
+
+        // Then
+        assertThat(thread.get(), startsWith("verifier"));
+    }
+
+    @Test
+    public void Cannot_authenticate_an_exchange_with_an_invalid_token() throws Exception {
+
+        final IllegalStateException exception = new IllegalStateException();
+
+        // Given
+        given(exchangeBinder.retrieve(exchange)).willThrow(exception);
+
+        // When
+        final Mono<Void> actual = new StatelessAuthenticationWebFilter(exchangeBinder).filter(exchange, chain);
+
+        // Then
+        try {
+            actual.block();
+            fail("The invalid token should have failed the exchange.");
+        } catch (IllegalStateException e) {
+            assertThat(e, equalTo(exception));
+        }
+        assertThat(calls.get(), equalTo(0));
+    }
+}
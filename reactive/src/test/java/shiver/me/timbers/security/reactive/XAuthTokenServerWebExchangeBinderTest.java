@@ -0,0 +1,131 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package shiver.me.timbers.security.reactive;
+
+import io.jsonwebtoken.MalformedJwtException;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpCookie;
+import org.springframework.http.ResponseCookie;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import shiver.me.timbers.security.token.TokenParser;
+import shiver.me.timbers.security.token.TokenShapeCheck;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static shiver.me.timbers.data.random.RandomStrings.someAlphaNumericString;
+import static shiver.me.timbers.security.reactive.XAuthTokenServerWebExchangeBinder.X_AUTH_TOKEN;
+
+public class XAuthTokenServerWebExchangeBinderTest {
+
+    private TokenParser<Object> tokenParser;
+    private XAuthTokenServerWebExchangeBinder<Object> binder;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        tokenParser = mock(TokenParser.class);
+        binder = new XAuthTokenServerWebExchangeBinder<>(tokenParser);
+    }
+
+    @Test
+    public void Can_retrieve_a_subject_from_the_header() throws Exception {
+
+        final String token = someAlphaNumericString(20);
+        final Object expected = new Object();
+
+        // Given
+        given(tokenParser.parse(token)).willReturn(expected);
+
+        // When
+        final Object actual = binder.retrieve(
+            MockServerWebExchange.from(MockServerHttpRequest.get("/").header(X_AUTH_TOKEN, token))
+        );
+
+        // Then
+        assertThat(actual, equalTo(expected));
+    }
+
+    @Test
+    public void Can_retrieve_a_subject_from_the_cookie() throws Exception {
+
+        final String token = someAlphaNumericString(20);
+        final Object expected = new Object();
+
+        // Given
+        given(tokenParser.parse(token)).willReturn(expected);
+
+        // When
+        final Object actual = binder.retrieve(
+            MockServerWebExchange.from(MockServerHttpRequest.get("/").cookie(new HttpCookie(X_AUTH_TOKEN, token)))
+        );
+
+        // Then
+        assertThat(actual, equalTo(expected));
+    }
+
+    @Test
+    public void Can_retrieve_nothing_from_an_exchange_without_a_token() throws Exception {
+
+        // When
+        final Object actual = binder.retrieve(MockServerWebExchange.from(MockServerHttpRequest.get("/")));
+
+        // Then
+        assertThat(actual, nullValue());
+        verifyZeroInteractions(tokenParser);
+    }
+
+    @Test(expected = MalformedJwtException.class)
+    public void Cannot_retrieve_a_subject_from_a_token_that_fails_the_shape_check() throws Exception {
+
+        // Given
+        binder.withShapeCheck(new TokenShapeCheck(10));
+
+        // When
+        binder.retrieve(MockServerWebExchange.from(
+            MockServerHttpRequest.get("/").header(X_AUTH_TOKEN, someAlphaNumericString(11))
+        ));
+    }
+
+    @Test
+    public void Can_add_a_subject_to_the_header_and_cookie() throws Exception {
+
+        final Object subject = new Object();
+        final String token = someAlphaNumericString(20);
+        final String path = "/" + someAlphaNumericString(5);
+
+        final MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/"));
+
+        // Given
+        given(tokenParser.create(subject)).willReturn(token);
+
+        // When
+        binder.withCookiePath(path).add(exchange, subject);
+
+        // Then
+        assertThat(exchange.getResponse().getHeaders().getFirst(X_AUTH_TOKEN), equalTo(token));
+        final ResponseCookie cookie = exchange.getResponse().getCookies().getFirst(X_AUTH_TOKEN);
+        assertThat(cookie.getValue(), equalTo(token));
+        assertThat(cookie.getPath(), equalTo(path));
+    }
+}
@@ -22,10 +22,15 @@ import shiver.me.timbers.security.spring.AuthenticationConverter;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import static java.lang.String.format;
+
 /**
+ * Converts between the authentication and the value bound by the supplied binder. Creating a token on its own is only
+ * supported if the supplied binder is a {@link TokenHttpServletBinder}.
+ *
  * @author Karl Bennett
  */
-public class AuthenticationHttpServletBinder<T> implements HttpServletBinder<Authentication> {
+public class AuthenticationHttpServletBinder<T> implements TokenHttpServletBinder<Authentication> {
 
     private final HttpServletBinder<T> httpServletBinder;
     private final AuthenticationConverter<T> authenticationConverter;
@@ -43,8 +48,28 @@ public class AuthenticationHttpServletBinder<T> implements HttpServletBinder<Aut
         httpServletBinder.add(response, authenticationConverter.convert(authentication));
     }
 
+    @Override
+    public String createToken(Authentication authentication) throws Exception {
+        return tokenBinder().createToken(authenticationConverter.convert(authentication));
+    }
+
+    @Override
+    public void addToken(HttpServletResponse response, String token) {
+        tokenBinder().addToken(response, token);
+    }
+
     @Override
     public Authentication retrieve(HttpServletRequest request) throws Exception {
         return authenticationConverter.convert(httpServletBinder.retrieve(request));
     }
+
+    @SuppressWarnings("unchecked")
+    private TokenHttpServletBinder<T> tokenBinder() {
+        if (httpServletBinder instanceof TokenHttpServletBinder) {
+            return (TokenHttpServletBinder<T>) httpServletBinder;
+        }
+        throw new UnsupportedOperationException(
+            format("The binder (%s) can't create a token on its own.", httpServletBinder.getClass().getName())
+        );
+    }
 }
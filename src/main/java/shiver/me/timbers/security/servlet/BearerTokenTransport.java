@@ -0,0 +1,63 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.servlet;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Finds the token in an "Authorization: Bearer" header. Any other kind of "Authorization" header is ignored.
+ * "Authorization" is a request header that clients don't read from responses, so a new token is added to the response
+ * in the "X-AUTH-TOKEN" header by default, which the client then sends back as a bearer token.
+ *
+ * @author Karl Bennett
+ */
+public class BearerTokenTransport implements TokenTransport {
+
+    private static final String AUTHORIZATION = "Authorization";
+    private static final String BEARER = "Bearer ";
+
+    private final String responseHeader;
+
+    public BearerTokenTransport() {
+        this(XAuthTokenHttpServletTokens.X_AUTH_TOKEN);
+    }
+
+    /**
+     * @param responseHeader the name of the response header that new tokens are added to.
+     */
+    public BearerTokenTransport(String responseHeader) {
+        this.responseHeader = responseHeader;
+    }
+
+    @Override
+    public String retrieve(HttpServletRequest request) {
+
+        final String header = request.getHeader(AUTHORIZATION);
+
+        if (header != null && header.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+            return header.substring(BEARER.length()).trim();
+        }
+
+        return null;
+    }
+
+    @Override
+    public void add(HttpServletResponse response, String token) {
+        response.addHeader(responseHeader, token);
+    }
+}
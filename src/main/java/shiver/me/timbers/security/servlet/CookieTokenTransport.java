@@ -0,0 +1,54 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.servlet;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Carries the token in a cookie. The cookie is sliced straight out of the raw "Cookie" header so that the container
+ * doesn't have to parse every other cookie the browser sent.
+ *
+ * @author Karl Bennett
+ */
+public class CookieTokenTransport implements TokenTransport {
+
+    private final String name;
+    private String path = "/";
+
+    public CookieTokenTransport(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public String retrieve(HttpServletRequest request) {
+        return RawCookies.find(request, name);
+    }
+
+    @Override
+    public void add(HttpServletResponse response, String token) {
+        final Cookie cookie = new Cookie(name, token);
+        cookie.setPath(path);
+        response.addCookie(cookie);
+    }
+
+    public CookieTokenTransport withPath(String path) {
+        this.path = path;
+        return this;
+    }
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.servlet;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Finds the raw token that was sent with a request.
+ *
+ * @author Karl Bennett
+ */
+public interface HttpServletTokens {
+
+    /**
+     * @return the token from the supplied request or {@code null} if it doesn't have one.
+     */
+    String retrieve(HttpServletRequest request);
+}
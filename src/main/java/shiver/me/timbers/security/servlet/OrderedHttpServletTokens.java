@@ -0,0 +1,93 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.servlet;
+
+import shiver.me.timbers.security.token.TokenMetrics;
+import shiver.me.timbers.security.token.TokenSource;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Looks for the token in each of the supplied places in order and returns the first one that is found. Where each
+ * token was found can be recorded with {@link TokenMetrics}, the {@link TokenSource} of each place is worked out once
+ * up front so recording it costs nothing extra per request.
+ *
+ * @author Karl Bennett
+ */
+public class OrderedHttpServletTokens implements HttpServletTokens {
+
+    private final List<HttpServletTokens> tokens;
+    private final TokenSource[] sources;
+    private TokenMetrics metrics;
+
+    public OrderedHttpServletTokens(List<? extends HttpServletTokens> tokens) {
+        this.tokens = new ArrayList<>(tokens);
+        this.sources = new TokenSource[this.tokens.size()];
+        for (int i = 0; i < sources.length; i++) {
+            sources[i] = source(this.tokens.get(i));
+        }
+    }
+
+    @Override
+    public String retrieve(HttpServletRequest request) {
+
+        final long start = metrics == null ? 0 : System.nanoTime();
+
+        for (int i = 0; i < sources.length; i++) {
+            final String token = tokens.get(i).retrieve(request);
+            if (token != null) {
+                record(sources[i], start);
+                return token;
+            }
+        }
+
+        record(TokenSource.MISSING, start);
+        return null;
+    }
+
+    private void record(TokenSource source, long start) {
+        if (metrics != null) {
+            metrics.retrieved(source, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Record where each token was found and how long it took to find.
+     */
+    public OrderedHttpServletTokens withMetrics(TokenMetrics metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
+    private static TokenSource source(HttpServletTokens tokens) {
+        if (tokens instanceof BearerTokenTransport) {
+            return TokenSource.BEARER;
+        }
+        if (tokens instanceof HeaderTokenTransport) {
+            return TokenSource.HEADER;
+        }
+        if (tokens instanceof CookieTokenTransport) {
+            return TokenSource.COOKIE;
+        }
+        if (tokens instanceof QueryParameterTokenTransport) {
+            return TokenSource.QUERY;
+        }
+        return TokenSource.OTHER;
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.servlet;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+
+/**
+ * Finds the token in a query parameter, this is useful for clients that can't set headers e.g. browser WebSockets or
+ * {@code EventSource}. Tokens in URLs end up in access logs and browser history so this transport should only ever be
+ * used for retrieval and never before the other transports. A token is never added to a response.
+ * <p>
+ * Only the query string is read, never the request body, so the body of a form POST is left for the application.
+ *
+ * @author Karl Bennett
+ */
+public class QueryParameterTokenTransport implements TokenTransport {
+
+    private final String name;
+
+    public QueryParameterTokenTransport(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public String retrieve(HttpServletRequest request) {
+
+        final String query = request.getQueryString();
+
+        if (query == null) {
+            return null;
+        }
+
+        for (String parameter : query.split("&")) {
+            final int equals = parameter.indexOf('=');
+            if (equals > 0 && matches(parameter.substring(0, equals))) {
+                final String token = decode(parameter.substring(equals + 1));
+                if (token != null) {
+                    return token;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Does nothing, a token must never be sent back in a URL.
+     */
+    @Override
+    public void add(HttpServletResponse response, String token) {
+    }
+
+    /**
+     * Only a name that has been encoded is decoded, so the other parameters in the query string are almost never
+     * decoded at all.
+     */
+    private boolean matches(String parameterName) {
+        if (name.equals(parameterName)) {
+            return true;
+        }
+        return (parameterName.indexOf('%') >= 0 || parameterName.indexOf('+') >= 0)
+            && name.equals(decode(parameterName));
+    }
+
+    /**
+     * @return the decoded value or {@code null} if it isn't validly encoded, in which case it is skipped the same as
+     * any other parameter that doesn't hold a token.
+     */
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value, "UTF-8");
+        } catch (IllegalArgumentException e) {
+            return null;
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.servlet;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import java.util.Enumeration;
+
+/**
+ * Finds a cookie by slicing it straight out of the raw "Cookie" header so that the container doesn't have to parse
+ * every other cookie the browser sent. The parsed cookies are only used when the container doesn't make the raw header
+ * available.
+ *
+ * @author Karl Bennett
+ */
+final class RawCookies {
+
+    private static final String COOKIE = "Cookie";
+
+    private RawCookies() {
+    }
+
+    /**
+     * @return the value of the named cookie or {@code null} if the request doesn't have it.
+     */
+    static String find(HttpServletRequest request, String name) {
+        final Enumeration<String> cookieHeaders = request.getHeaders(COOKIE);
+        if (cookieHeaders == null || !cookieHeaders.hasMoreElements()) {
+            return find(request.getCookies(), name);
+        }
+        return find(cookieHeaders, name);
+    }
+
+    private static String find(Cookie[] cookies, String name) {
+        if (cookies != null) {
+            for (Cookie cookie : cookies) {
+                if (name.equals(cookie.getName())) {
+                    return cookie.getValue();
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String find(Enumeration<String> cookieHeaders, String name) {
+        while (cookieHeaders.hasMoreElements()) {
+            final String value = cookieValue(cookieHeaders.nextElement(), name);
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Scan a raw "Cookie" header for the named cookie and slice out just its value, any surrounding quotes are removed.
+     */
+    static String cookieValue(String header, String name) {
+        final int length = header.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && (header.charAt(i) == ' ' || header.charAt(i) == '\t')) {
+                i++;
+            }
+            final int end = nextSeparator(header, i);
+            if (header.startsWith(name, i)) {
+                int equals = i + name.length();
+                while (equals < end && header.charAt(equals) == ' ') {
+                    equals++;
+                }
+                if (equals < end && header.charAt(equals) == '=') {
+                    return unquote(header, equals + 1, end);
+                }
+            }
+            i = end + 1;
+        }
+        return null;
+    }
+
+    private static int nextSeparator(String header, int start) {
+        final int semicolon = header.indexOf(';', start);
+        return semicolon < 0 ? header.length() : semicolon;
+    }
+
+    private static String unquote(String header, int start, int end) {
+        while (start < end && header.charAt(start) == ' ') {
+            start++;
+        }
+        while (end > start && header.charAt(end - 1) == ' ') {
+            end--;
+        }
+        if (end - start >= 2 && header.charAt(start) == '"' && header.charAt(end - 1) == '"') {
+            return header.substring(start + 1, end - 1);
+        }
+        return header.substring(start, end);
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.servlet;
+
+import shiver.me.timbers.security.token.Clock;
+import shiver.me.timbers.security.token.Digests;
+import shiver.me.timbers.security.token.Expiries;
+import shiver.me.timbers.security.token.FnvDigests;
+import shiver.me.timbers.security.token.SystemDates;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.String.format;
+
+/**
+ * Decides when the token sent with a request should be replaced with a fresh one so that users who are still active
+ * never have to sign in again. A token is only refreshed once it is within the refresh window of its expiry, and then
+ * only once, even if many requests are made with it before the client starts using the fresh token.
+ * <p>
+ * The token is the one the {@link XAuthTokenHttpServletBinder} already retrieved and parsed for the request, so it is
+ * found however the binder's transports were configured and never looked up twice.
+ *
+ * @author Karl Bennett
+ */
+public class SlidingTokenRefresh {
+
+    private static final int DEFAULT_MAXIMUM_REFRESHED = 10000;
+
+    private final Expiries expiries;
+    private final long window;
+    private final Digests digests;
+    private final Clock clock;
+    private final Map<Long, Long> refreshed;
+
+    public SlidingTokenRefresh(Expiries expiries, Long window, TimeUnit unit) {
+        this(expiries, window, unit, DEFAULT_MAXIMUM_REFRESHED, new FnvDigests(), new SystemDates());
+    }
+
+    /**
+     * @param maximumRefreshed the number of recently refreshed tokens to remember so that they are not refreshed again.
+     */
+    public SlidingTokenRefresh(
+        Expiries expiries,
+        Long window,
+        TimeUnit unit,
+        final int maximumRefreshed,
+        Digests digests,
+        Clock clock
+    ) {
+        if (window == null || unit == null) {
+            throw new IllegalArgumentException(
+                format("The refresh window must have both its duration (%s) and unit (%s) set.", window, unit)
+            );
+        }
+        this.expiries = expiries;
+        this.window = unit.toMillis(window);
+        this.digests = digests;
+        this.clock = clock;
+        this.refreshed = new LinkedHashMap<Long, Long>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+                return size() > maximumRefreshed;
+            }
+        };
+    }
+
+    /**
+     * @return true if a fresh token should be added to the response for this request.
+     */
+    public boolean shouldRefresh(HttpServletRequest request) {
+        return shouldRefresh((String) request.getAttribute(XAuthTokenHttpServletBinder.TOKEN_ATTRIBUTE));
+    }
+
+    /**
+     * @return true if a fresh token should be added to the response of a request made with the supplied token.
+     */
+    public boolean shouldRefresh(String token) {
+        if (token == null) {
+            return false;
+        }
+
+        final Date expiry = expiries.expiry(token);
+        if (expiry == null) {
+            return false;
+        }
+
+        final long now = clock.now().getTime();
+        final long expires = expiry.getTime();
+        if (expires <= now || expires - now > window) {
+            return false;
+        }
+
+        final long digest = digests.digest(token);
+        synchronized (refreshed) {
+            final Long until = refreshed.get(digest);
+            if (until != null && until > now) {
+                return false;
+            }
+            // The token will never need refreshing again after it has expired so it only needs to be remembered until
+            // then.
+            refreshed.put(digest, expires);
+        }
+        return true;
+    }
+}
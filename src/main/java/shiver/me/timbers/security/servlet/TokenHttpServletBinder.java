@@ -0,0 +1,39 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package shiver.me.timbers.security.servlet;
+
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * A binder that can split adding a value to a response into creating its token, which is the expensive part, and then
+ * writing that token to the response. So the token can be created on one thread and written by another.
+ *
+ * @author Karl Bennett
+ */
+public interface TokenHttpServletBinder<T> extends HttpServletBinder<T> {
+
+    /**
+     * @return the token for the supplied value, this never touches a response.
+     */
+    String createToken(T value) throws Exception;
+
+    /**
+     * Add a token that was created by {@link #createToken(Object)} to the supplied response.
+     */
+    void addToken(HttpServletResponse response, String token);
+}
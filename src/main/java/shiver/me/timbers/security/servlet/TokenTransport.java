@@ -0,0 +1,33 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.servlet;
+
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * A single place that a token can travel in, e.g. a header or a cookie. A transport can both find a token in a request
+ * and write a token to a response.
+ *
+ * @author Karl Bennett
+ */
+public interface TokenTransport extends HttpServletTokens {
+
+    /**
+     * Write the supplied token to the response.
+     */
+    void add(HttpServletResponse response, String token);
+}
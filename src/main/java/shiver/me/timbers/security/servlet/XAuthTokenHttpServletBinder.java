@@ -16,71 +16,124 @@
 
 package shiver.me.timbers.security.servlet;
 
+import io.jsonwebtoken.MalformedJwtException;
 import shiver.me.timbers.security.token.TokenParser;
+import shiver.me.timbers.security.token.TokenRejection;
+import shiver.me.timbers.security.token.TokenShapeCheck;
 
-import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.lang.String.format;
+import static java.util.Arrays.asList;
 
 /**
+ * Binds a token to the "X-AUTH-TOKEN" header and cookie by default. The places a token is looked for, and the order
+ * they are looked in, can be changed by supplying {@link TokenTransport}s e.g. API clients might only need an
+ * "Authorization: Bearer" header while browsers only need a cookie.
+ *
  * @author Karl Bennett
  */
-public class XAuthTokenHttpServletBinder<T> implements HttpServletBinder<T> {
+public class XAuthTokenHttpServletBinder<T> implements TokenHttpServletBinder<T> {
 
-    private static final String X_AUTH_TOKEN = "X-AUTH-TOKEN";
+    /**
+     * The request attribute that the token of a successfully retrieved subject is stored under.
+     */
+    public static final String TOKEN_ATTRIBUTE = XAuthTokenHttpServletBinder.class.getName() + ".TOKEN";
+
+    private static final String X_AUTH_TOKEN = XAuthTokenHttpServletTokens.X_AUTH_TOKEN;
     private final TokenParser<T> tokenParser;
-    private String path = "/";
+    private final HttpServletTokens tokens;
+    private final List<TokenTransport> transports;
+    private TokenShapeCheck shapeCheck;
 
     public XAuthTokenHttpServletBinder(TokenParser<T> tokenParser) {
-        this.tokenParser = tokenParser;
+        this(tokenParser, new XAuthTokenHttpServletTokens());
     }
 
-    @Override
-    public void add(HttpServletResponse response, T subject) throws Exception {
+    public XAuthTokenHttpServletBinder(TokenParser<T> tokenParser, HttpServletTokens tokens) {
+        this(
+            tokenParser,
+            tokens,
+            asList(new HeaderTokenTransport(X_AUTH_TOKEN), new CookieTokenTransport(X_AUTH_TOKEN))
+        );
+    }
 
-        final String token = tokenParser.create(subject);
+    /**
+     * Look for the token in each of the transports in the order supplied and add a new token to every one of them.
+     */
+    public XAuthTokenHttpServletBinder(TokenParser<T> tokenParser, List<? extends TokenTransport> transports) {
+        this(tokenParser, new OrderedHttpServletTokens(transports), transports);
+    }
 
-        response.addHeader(X_AUTH_TOKEN, token);
-        final Cookie cookie = new Cookie(X_AUTH_TOKEN, token);
-        cookie.setPath(path);
-        response.addCookie(cookie);
+    public XAuthTokenHttpServletBinder(
+        TokenParser<T> tokenParser,
+        HttpServletTokens tokens,
+        List<? extends TokenTransport> transports
+    ) {
+        this.tokenParser = tokenParser;
+        this.tokens = tokens;
+        this.transports = new ArrayList<>(transports);
     }
 
     @Override
-    public T retrieve(HttpServletRequest request) throws Exception {
+    public void add(HttpServletResponse response, T subject) throws Exception {
+        addToken(response, createToken(subject));
+    }
 
-        final String cookieToken = findToken(request);
+    @Override
+    public String createToken(T subject) throws Exception {
+        return tokenParser.create(subject);
+    }
 
-        if (cookieToken != null) {
-            return tokenParser.parse(cookieToken);
+    @Override
+    public void addToken(HttpServletResponse response, String token) {
+        for (TokenTransport transport : transports) {
+            transport.add(response, token);
         }
-
-        return null;
     }
 
-    public XAuthTokenHttpServletBinder<T> withCookiePath(String path) {
-        this.path = path;
-        return this;
-    }
+    @Override
+    public T retrieve(HttpServletRequest request) throws Exception {
 
-    private static String findToken(HttpServletRequest request) {
+        final String token = tokens.retrieve(request);
 
-        final String headerToken = request.getHeader(X_AUTH_TOKEN);
+        if (token == null) {
+            return null;
+        }
 
-        if (headerToken != null) {
-            return headerToken;
+        if (shapeCheck != null) {
+            final TokenRejection rejection = shapeCheck.check(token);
+            if (rejection != null) {
+                throw new MalformedJwtException(format("The token failed the shape check (%s).", rejection));
+            }
         }
 
-        final Cookie[] cookies = request.getCookies();
+        final T subject = tokenParser.parse(token);
+        request.setAttribute(TOKEN_ATTRIBUTE, token);
+        return subject;
+    }
 
-        if (cookies != null) {
-            for (Cookie cookie : cookies) {
-                if (X_AUTH_TOKEN.equals(cookie.getName())) {
-                    return cookie.getValue();
-                }
+    /**
+     * Set the path of every cookie that a token is added to.
+     */
+    public XAuthTokenHttpServletBinder<T> withCookiePath(String path) {
+        for (TokenTransport transport : transports) {
+            if (transport instanceof CookieTokenTransport) {
+                ((CookieTokenTransport) transport).withPath(path);
             }
         }
+        return this;
+    }
 
-        return null;
+    /**
+     * Reject any token that fails the supplied check with a {@link MalformedJwtException} without parsing it, which is
+     * the same exception a parser would throw for a token of the wrong shape.
+     */
+    public XAuthTokenHttpServletBinder<T> withShapeCheck(TokenShapeCheck shapeCheck) {
+        this.shapeCheck = shapeCheck;
+        return this;
     }
 }
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.servlet;
+
+import shiver.me.timbers.security.token.TokenMetrics;
+import shiver.me.timbers.security.token.TokenSource;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Finds the token in the "X-AUTH-TOKEN" header, or if there isn't one the "X-AUTH-TOKEN" cookie. The cookie is sliced
+ * straight out of the raw "Cookie" header so that the container doesn't have to parse every other cookie the browser
+ * sent. The parsed cookies are only used when the container doesn't make the raw header available.
+ *
+ * @author Karl Bennett
+ */
+public class XAuthTokenHttpServletTokens implements HttpServletTokens {
+
+    static final String X_AUTH_TOKEN = "X-AUTH-TOKEN";
+
+    private TokenMetrics metrics;
+
+    @Override
+    public String retrieve(HttpServletRequest request) {
+
+        final long start = metrics == null ? 0 : System.nanoTime();
+
+        final String headerToken = request.getHeader(X_AUTH_TOKEN);
+
+        if (headerToken != null) {
+            record(TokenSource.HEADER, start);
+            return headerToken;
+        }
+
+        final String cookieToken = RawCookies.find(request, X_AUTH_TOKEN);
+
+        record(cookieToken == null ? TokenSource.MISSING : TokenSource.COOKIE, start);
+        return cookieToken;
+    }
+
+    private void record(TokenSource source, long start) {
+        if (metrics != null) {
+            metrics.retrieved(source, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Record where each token was found and how long it took to find.
+     */
+    public XAuthTokenHttpServletTokens withMetrics(TokenMetrics metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package shiver.me.timbers.security.spring;
+
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolderStrategy;
+import org.springframework.security.core.context.SecurityContextImpl;
+
+/**
+ * A security context holder that keeps each thread's context in its own small carrier instead of using Spring's thread
+ * local strategy. A thread is only ever given one carrier, so replacing or clearing its context is a single field
+ * write that never adds or removes entries in the thread's thread local map. {@link #run(SecurityContext, Runnable)}
+ * binds a context for just the duration of a task and always puts the previous one back, the way a scoped value would,
+ * so a finished task can never leave its authentication behind on a pooled thread.
+ * <p>
+ * Spring Security's own filters read its static holder, so this class should also be installed as that holder's
+ * strategy, which is why it has a public no argument constructor, to have them see the same context:
+ * {@code SecurityContextHolder.setStrategyName(CarrierSecurityContextHolder.class.getName())}.
+ *
+ * @author Karl Bennett
+ */
+public class CarrierSecurityContextHolder implements MutableSecurityContextHolder, SecurityContextHolderStrategy {
+
+    private static final ThreadLocal<Carrier> CARRIERS = new ThreadLocal<Carrier>() {
+        @Override
+        protected Carrier initialValue() {
+            return new Carrier();
+        }
+    };
+
+    @Override
+    public SecurityContext getContext() {
+        final Carrier carrier = CARRIERS.get();
+        if (carrier.context == null) {
+            carrier.context = createEmptyContext();
+        }
+        return carrier.context;
+    }
+
+    @Override
+    public void setContext(SecurityContext context) {
+        if (context == null) {
+            throw new IllegalArgumentException("Only non-null security contexts can be carried.");
+        }
+        CARRIERS.get().context = context;
+    }
+
+    @Override
+    public void clearContext() {
+        CARRIERS.get().context = null;
+    }
+
+    @Override
+    public SecurityContext createEmptyContext() {
+        return new SecurityContextImpl();
+    }
+
+    /**
+     * Run the supplied task with the supplied context, the thread's previous context is put back once it has finished.
+     */
+    public void run(SecurityContext context, Runnable task) {
+        final Carrier carrier = CARRIERS.get();
+        final SecurityContext previous = carrier.context;
+        carrier.context = context;
+        try {
+            task.run();
+        } finally {
+            carrier.context = previous;
+        }
+    }
+
+    private static class Carrier {
+        private SecurityContext context;
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.spring;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import shiver.me.timbers.security.servlet.HttpServletBinder;
+import shiver.me.timbers.security.servlet.SlidingTokenRefresh;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * A security context that doesn't retrieve the request's authentication until it is first asked for it, so that a
+ * request that never looks at its authentication never has its token parsed. The result is remembered for the rest of
+ * the request. If the token could not be parsed then the failure is passed to the same {@link ExceptionMapper} the
+ * eager filter uses every time the authentication is asked for, so a bad token fails the request in the same way in
+ * both modes. A checked exception can't be thrown from {@link #getAuthentication()} so the mapped
+ * {@link ServletException} is wrapped in an {@link IllegalStateException}.
+ *
+ * @author Karl Bennett
+ */
+class DeferredSecurityContext implements SecurityContext {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient HttpServletBinder<Authentication> httpServletBinder;
+    private final transient HttpServletRequest request;
+    private final transient HttpServletResponse response;
+    private final transient ExceptionMapper<ServletException> exceptionMapper;
+    private final transient SlidingTokenRefresh tokenRefresh;
+    private boolean resolved;
+    private Authentication authentication;
+    private transient Throwable failure;
+
+    DeferredSecurityContext(
+        HttpServletBinder<Authentication> httpServletBinder,
+        HttpServletRequest request,
+        HttpServletResponse response,
+        ExceptionMapper<ServletException> exceptionMapper,
+        SlidingTokenRefresh tokenRefresh
+    ) {
+        this.httpServletBinder = httpServletBinder;
+        this.request = request;
+        this.response = response;
+        this.exceptionMapper = exceptionMapper;
+        this.tokenRefresh = tokenRefresh;
+    }
+
+    @Override
+    public synchronized Authentication getAuthentication() {
+        if (!resolved) {
+            resolve();
+        }
+        if (failure != null) {
+            throwMapped(failure);
+        }
+        return authentication;
+    }
+
+    private void resolve() {
+        resolved = true;
+        try {
+            authentication = httpServletBinder.retrieve(request);
+            // Unlike the eager filter this could be running after the response has been committed, in which case it is
+            // too late to add a fresh token.
+            if (authentication != null && tokenRefresh != null && !response.isCommitted()
+                && tokenRefresh.shouldRefresh(request)) {
+                httpServletBinder.add(response, authentication);
+            }
+        } catch (Throwable e) {
+            authentication = null;
+            failure = e;
+        }
+    }
+
+    private void throwMapped(Throwable failure) {
+        try {
+            exceptionMapper.throwMapped(failure);
+        } catch (ServletException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public synchronized void setAuthentication(Authentication authentication) {
+        this.resolved = true;
+        this.authentication = authentication;
+        this.failure = null;
+    }
+}
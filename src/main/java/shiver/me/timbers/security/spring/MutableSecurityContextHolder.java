@@ -0,0 +1,38 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.spring;
+
+import org.springframework.security.core.context.SecurityContext;
+
+/**
+ * A {@link SecurityContextHolder} that can also replace the current context, which is needed to defer the
+ * authentication of a request and to carry a context onto another thread.
+ *
+ * @author Karl Bennett
+ */
+public interface MutableSecurityContextHolder extends SecurityContextHolder {
+
+    /**
+     * Replace the current Spring Security context.
+     */
+    void setContext(SecurityContext context);
+
+    /**
+     * Remove the current Spring Security context.
+     */
+    void clearContext();
+}
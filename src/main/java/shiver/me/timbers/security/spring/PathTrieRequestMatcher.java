@@ -0,0 +1,176 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.spring;
+
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RegexRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A request matcher for large sets of Ant path patterns, e.g. all the static resource and public paths of an
+ * application. The patterns that are just a literal path, or a literal path followed by {@code /**}, are compiled into
+ * a character trie so that a request is matched with a single walk of its path, no matter how many patterns there are.
+ * Any other Ant patterns, and all regular expressions, are matched with Spring's own request matchers after the trie.
+ * <p>
+ * All the patterns are case sensitive, and can optionally be limited to a set of HTTP methods.
+ *
+ * @author Karl Bennett
+ */
+public class PathTrieRequestMatcher implements RequestMatcher {
+
+    private static final String ALL_PATHS = "/**";
+
+    private final Node root = new Node();
+    private final List<RequestMatcher> fallbacks = new ArrayList<>();
+
+    /**
+     * Match the supplied Ant path patterns for any HTTP method.
+     */
+    public PathTrieRequestMatcher(String... antPatterns) {
+        antPaths(null, antPatterns);
+    }
+
+    /**
+     * Match the supplied Ant path patterns, but only for the supplied HTTP method, or any method if it is {@code null}.
+     */
+    public PathTrieRequestMatcher antPaths(String method, String... antPatterns) {
+        for (String pattern : antPatterns) {
+            if (ALL_PATHS.equals(pattern)) {
+                root.prefix.add(method);
+            } else if (pattern.endsWith(ALL_PATHS) && isLiteral(pattern, pattern.length() - ALL_PATHS.length())) {
+                root.find(pattern, pattern.length() - ALL_PATHS.length()).prefix.add(method);
+            } else if (isLiteral(pattern, pattern.length())) {
+                root.find(pattern, pattern.length()).exact.add(method);
+            } else {
+                fallbacks.add(new AntPathRequestMatcher(pattern, method, true));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Match the supplied regular expression, but only for the supplied HTTP method, or any method if it is
+     * {@code null}.
+     */
+    public PathTrieRequestMatcher regex(String method, String regex) {
+        fallbacks.add(new RegexRequestMatcher(regex, method));
+        return this;
+    }
+
+    @Override
+    public boolean matches(HttpServletRequest request) {
+        final String method = request.getMethod();
+        if (matches(request.getServletPath(), request.getPathInfo(), method)) {
+            return true;
+        }
+        for (RequestMatcher fallback : fallbacks) {
+            if (fallback.matches(request)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Walk the trie along the servlet path followed by the path info, without joining them into a new string.
+     */
+    private boolean matches(String servletPath, String pathInfo, String method) {
+        final int servletLength = servletPath == null ? 0 : servletPath.length();
+        final int length = servletLength + (pathInfo == null ? 0 : pathInfo.length());
+        Node node = root;
+        for (int i = 0; i < length; i++) {
+            final char c = i < servletLength ? servletPath.charAt(i) : pathInfo.charAt(i - servletLength);
+            if (c == '/' && node.prefix.matches(method)) {
+                return true;
+            }
+            node = node.child(c);
+            if (node == null) {
+                return false;
+            }
+        }
+        return node.exact.matches(method) || node.prefix.matches(method);
+    }
+
+    private static boolean isLiteral(String pattern, int end) {
+        for (int i = 0; i < end; i++) {
+            final char c = pattern.charAt(i);
+            if (c == '*' || c == '?' || c == '{') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static class Node {
+
+        private char[] chars = new char[0];
+        private Node[] children = new Node[0];
+        private final Methods exact = new Methods();
+        private final Methods prefix = new Methods();
+
+        private Node child(char c) {
+            for (int i = 0; i < chars.length; i++) {
+                if (chars[i] == c) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        private Node find(String path, int end) {
+            Node node = this;
+            for (int i = 0; i < end; i++) {
+                final char c = path.charAt(i);
+                Node child = node.child(c);
+                if (child == null) {
+                    child = new Node();
+                    node.chars = Arrays.copyOf(node.chars, node.chars.length + 1);
+                    node.children = Arrays.copyOf(node.children, node.children.length + 1);
+                    node.chars[node.chars.length - 1] = c;
+                    node.children[node.children.length - 1] = child;
+                }
+                node = child;
+            }
+            return node;
+        }
+    }
+
+    private static class Methods {
+
+        private boolean any;
+        private final Set<String> methods = new HashSet<>();
+
+        private void add(String method) {
+            if (method == null) {
+                any = true;
+            } else {
+                methods.add(method);
+            }
+        }
+
+        private boolean matches(String method) {
+            return any || (!methods.isEmpty() && methods.contains(method));
+        }
+    }
+}
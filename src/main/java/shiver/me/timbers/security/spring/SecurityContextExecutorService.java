@@ -0,0 +1,74 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.spring;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wraps every task that is handed to the supplied executor in a {@link SecurityContextRunnable} so that it runs with
+ * the authentication of the thread that submitted it. Unlike an inheritable thread local this doesn't copy anything
+ * when a thread is created, which matters when new threads are created for every task.
+ *
+ * @author Karl Bennett
+ */
+public class SecurityContextExecutorService extends AbstractExecutorService {
+
+    private final ExecutorService executor;
+    private final MutableSecurityContextHolder contextHolder;
+
+    public SecurityContextExecutorService(ExecutorService executor) {
+        this(executor, new StaticSecurityContextHolder());
+    }
+
+    public SecurityContextExecutorService(ExecutorService executor, MutableSecurityContextHolder contextHolder) {
+        this.executor = executor;
+        this.contextHolder = contextHolder;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        executor.execute(new SecurityContextRunnable(command, contextHolder));
+    }
+
+    @Override
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return executor.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return executor.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return executor.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return executor.awaitTermination(timeout, unit);
+    }
+}
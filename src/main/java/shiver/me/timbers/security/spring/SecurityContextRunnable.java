@@ -0,0 +1,75 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.spring;
+
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+
+/**
+ * Runs a task with the authentication of the thread that created it. The authentication is copied into a new context
+ * when the task is created, so a lazily authenticated request is authenticated then, while its request can still be
+ * read. The worker's own context is put back once the task has finished, or cleared if it didn't have one, so that
+ * pooled threads never hold onto a finished request's authentication. A {@link CarrierSecurityContextHolder} binds the
+ * context for the task itself, without creating an empty context for the worker first.
+ *
+ * @author Karl Bennett
+ */
+public class SecurityContextRunnable implements Runnable {
+
+    private final Runnable task;
+    private final MutableSecurityContextHolder contextHolder;
+    private final SecurityContext context;
+
+    public SecurityContextRunnable(Runnable task, MutableSecurityContextHolder contextHolder) {
+        this(task, contextHolder, contextHolder.getContext());
+    }
+
+    public SecurityContextRunnable(Runnable task, MutableSecurityContextHolder contextHolder, SecurityContext context) {
+        this.task = task;
+        this.contextHolder = contextHolder;
+        this.context = snapshot(context);
+    }
+
+    @Override
+    public void run() {
+
+        if (contextHolder instanceof CarrierSecurityContextHolder) {
+            ((CarrierSecurityContextHolder) contextHolder).run(context, task);
+            return;
+        }
+
+        // Asking for the context creates an empty one if there wasn't one, so an empty context is cleared afterwards.
+        final SecurityContext previous = contextHolder.getContext();
+
+        contextHolder.setContext(context);
+        try {
+            task.run();
+        } finally {
+            if (previous.getAuthentication() == null) {
+                contextHolder.clearContext();
+            } else {
+                contextHolder.setContext(previous);
+            }
+        }
+    }
+
+    private static SecurityContext snapshot(SecurityContext context) {
+        final SecurityContext snapshot = new SecurityContextImpl();
+        snapshot.setAuthentication(context.getAuthentication());
+        return snapshot;
+    }
+}
@@ -17,18 +17,31 @@
 package shiver.me.timbers.security.spring;
 
 import org.springframework.security.core.Authentication;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.web.filter.GenericFilterBean;
 import shiver.me.timbers.security.servlet.HttpServletBinder;
+import shiver.me.timbers.security.servlet.SlidingTokenRefresh;
 
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 
 /**
- * This filter will check every request for the authorised token and if it finds it authorise the request.
+ * This filter will check every request for the authorised token and if it finds it authorise the request. If a
+ * {@link SlidingTokenRefresh} is supplied then a fresh token will also be added to the response whenever the request's
+ * token is close to expiring. If a skip {@link RequestMatcher} is supplied then the requests that it matches, e.g.
+ * those for static resources, are passed straight down the filter chain without looking for a token at all.
+ * <p>
+ * In lazy mode the filter doesn't look for the token itself, instead it installs a security context that only parses
+ * the token the first time the request's authentication is asked for. So the requests that never look at their
+ * authentication never pay for parsing their token. Note that some of Spring Security's own filters, e.g. the
+ * anonymous authentication filter, look at the authentication of every request. A token that can't be parsed is
+ * passed to the {@link ExceptionMapper} in both modes, lazily it happens when the authentication is asked for. Lazy
+ * mode needs a {@link MutableSecurityContextHolder} so that the security context can be replaced.
  *
  * @author Karl Bennett
  */
@@ -37,22 +50,84 @@ public class StatelessAuthenticationFilter extends GenericFilterBean {
     private final HttpServletBinder<Authentication> httpServletBinder;
     private final SecurityContextHolder contextHolder;
     private final ExceptionMapper<ServletException> exceptionMapper;
+    private final SlidingTokenRefresh tokenRefresh;
+    private final RequestMatcher skip;
+    private final boolean lazy;
 
     public StatelessAuthenticationFilter(
         HttpServletBinder<Authentication> httpServletBinder,
         SecurityContextHolder contextHolder,
         ExceptionMapper<ServletException> exceptionMapper
     ) {
+        this(httpServletBinder, contextHolder, exceptionMapper, null);
+    }
+
+    public StatelessAuthenticationFilter(
+        HttpServletBinder<Authentication> httpServletBinder,
+        SecurityContextHolder contextHolder,
+        ExceptionMapper<ServletException> exceptionMapper,
+        SlidingTokenRefresh tokenRefresh
+    ) {
+        this(httpServletBinder, contextHolder, exceptionMapper, tokenRefresh, null);
+    }
+
+    public StatelessAuthenticationFilter(
+        HttpServletBinder<Authentication> httpServletBinder,
+        SecurityContextHolder contextHolder,
+        ExceptionMapper<ServletException> exceptionMapper,
+        SlidingTokenRefresh tokenRefresh,
+        RequestMatcher skip
+    ) {
+        this(httpServletBinder, contextHolder, exceptionMapper, tokenRefresh, skip, false);
+    }
+
+    /**
+     * @param lazy true if the token should only be parsed when the request's authentication is first asked for.
+     */
+    public StatelessAuthenticationFilter(
+        HttpServletBinder<Authentication> httpServletBinder,
+        SecurityContextHolder contextHolder,
+        ExceptionMapper<ServletException> exceptionMapper,
+        SlidingTokenRefresh tokenRefresh,
+        RequestMatcher skip,
+        boolean lazy
+    ) {
+        if (lazy && !(contextHolder instanceof MutableSecurityContextHolder)) {
+            throw new IllegalArgumentException(
+                "The security context holder must be a MutableSecurityContextHolder to defer the authentication."
+            );
+        }
         this.httpServletBinder = httpServletBinder;
         this.contextHolder = contextHolder;
         this.exceptionMapper = exceptionMapper;
+        this.tokenRefresh = tokenRefresh;
+        this.skip = skip;
+        this.lazy = lazy;
     }
 
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain filterChain)
         throws IOException, ServletException {
+        final HttpServletRequest httpRequest = (HttpServletRequest) request;
+        if (skip != null && skip.matches(httpRequest)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        if (lazy) {
+            final HttpServletResponse httpResponse = (HttpServletResponse) response;
+            ((MutableSecurityContextHolder) contextHolder).setContext(
+                new DeferredSecurityContext(httpServletBinder, httpRequest, httpResponse, exceptionMapper, tokenRefresh)
+            );
+            filterChain.doFilter(request, response);
+            return;
+        }
         try {
-            contextHolder.getContext().setAuthentication(httpServletBinder.retrieve((HttpServletRequest) request));
+            final Authentication authentication = httpServletBinder.retrieve(httpRequest);
+            contextHolder.getContext().setAuthentication(authentication);
+            // The fresh token must be added before the rest of the chain has a chance to commit the response.
+            if (authentication != null && tokenRefresh != null && tokenRefresh.shouldRefresh(httpRequest)) {
+                httpServletBinder.add((HttpServletResponse) response, authentication);
+            }
         } catch (Throwable e) {
             exceptionMapper.throwMapped(e);
         }
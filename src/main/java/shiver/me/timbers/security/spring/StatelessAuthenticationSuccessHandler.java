@@ -16,41 +16,116 @@
 
 package shiver.me.timbers.security.spring;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.authentication.AuthenticationServiceException;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.web.authentication.AuthenticationFailureHandler;
 import org.springframework.security.web.authentication.AuthenticationSuccessHandler;
 import org.springframework.security.web.authentication.SimpleUrlAuthenticationSuccessHandler;
 import shiver.me.timbers.security.servlet.HttpServletBinder;
+import shiver.me.timbers.security.servlet.TokenHttpServletBinder;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.RequestDispatcher;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static javax.servlet.http.HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+import static javax.servlet.http.HttpServletResponse.SC_SERVICE_UNAVAILABLE;
 
 /**
  * After a successful sign in this handler will add an authorised token to the response that can then be used to
  * authorise subsequent requests.
+ * <p>
+ * A signing executor can be supplied so that a burst of sign ins can't use up every request thread. Only the token is
+ * created on the executor, it is written to the response either by the request thread once it has stopped waiting for
+ * it, or, when the request supports it, asynchronously inside its {@link AsyncContext}. Either way a sign in waits no
+ * longer than the signing timeout. Bound the executor's queue, any sign in that it rejects or that times out gets a
+ * "503 Service Unavailable" response and its token, if it is ever created, is thrown away. An asynchronous sign in that
+ * fails is logged and handed to the failure handler if one was supplied, otherwise it is sent to the container's error
+ * page.
  *
  * @author Karl Bennett
  */
 public class StatelessAuthenticationSuccessHandler implements AuthenticationSuccessHandler {
 
+    private static final Logger log = LoggerFactory.getLogger(StatelessAuthenticationSuccessHandler.class);
+
     private final HttpServletBinder<Authentication> httpServletBinder;
+    private final TokenHttpServletBinder<Authentication> tokenBinder;
     private final SimpleUrlAuthenticationSuccessHandler delegate;
     private final ExceptionMapper<ServletException> exceptionMapper;
+    private final ExecutorService signingExecutor;
+    private AuthenticationFailureHandler failureHandler;
+    private long signingTimeout = 30;
+    private TimeUnit signingTimeoutUnit = SECONDS;
 
     public StatelessAuthenticationSuccessHandler(
         HttpServletBinder<Authentication> httpServletBinder,
         SimpleUrlAuthenticationSuccessHandler delegate,
         ExceptionMapper<ServletException> exceptionMapper
+    ) {
+        this(httpServletBinder, null, delegate, exceptionMapper, null);
+    }
+
+    /**
+     * @param signingExecutor the executor that the tokens are created on, the binder must be able to create a token
+     *                        without writing it so that only the request's own thread ever writes to its response.
+     */
+    public StatelessAuthenticationSuccessHandler(
+        TokenHttpServletBinder<Authentication> tokenBinder,
+        SimpleUrlAuthenticationSuccessHandler delegate,
+        ExceptionMapper<ServletException> exceptionMapper,
+        ExecutorService signingExecutor
+    ) {
+        this(tokenBinder, tokenBinder, delegate, exceptionMapper, signingExecutor);
+    }
+
+    private StatelessAuthenticationSuccessHandler(
+        HttpServletBinder<Authentication> httpServletBinder,
+        TokenHttpServletBinder<Authentication> tokenBinder,
+        SimpleUrlAuthenticationSuccessHandler delegate,
+        ExceptionMapper<ServletException> exceptionMapper,
+        ExecutorService signingExecutor
     ) {
         this.httpServletBinder = httpServletBinder;
+        this.tokenBinder = tokenBinder;
         this.delegate = delegate;
         this.exceptionMapper = exceptionMapper;
+        this.signingExecutor = signingExecutor;
     }
 
     @Override
     public void onAuthenticationSuccess(HttpServletRequest request, HttpServletResponse response,
                                         Authentication authentication) throws IOException, ServletException {
+        if (signingExecutor == null) {
+            succeed(request, response, authentication);
+            return;
+        }
+
+        if (request.isAsyncSupported()) {
+            succeedAsynchronously(request, response, authentication);
+            return;
+        }
+
+        succeedOnSigningExecutor(request, response, authentication);
+    }
+
+    private void succeed(HttpServletRequest request, HttpServletResponse response, Authentication authentication)
+        throws IOException, ServletException {
         try {
             httpServletBinder.add(response, authentication);
         } catch (Throwable e) {
@@ -59,4 +134,206 @@ public class StatelessAuthenticationSuccessHandler implements AuthenticationSucc
 
         delegate.onAuthenticationSuccess(request, response, authentication);
     }
+
+    private void succeedAsynchronously(
+        final HttpServletRequest request,
+        final HttpServletResponse response,
+        final Authentication authentication
+    ) {
+
+        // The request must be put into asynchronous mode before the task is submitted otherwise the task could complete
+        // it first.
+        final AsyncContext asyncContext = request.startAsync();
+        final AsyncSignIn signIn = new AsyncSignIn(request, response, asyncContext);
+        asyncContext.setTimeout(signingTimeoutUnit.toMillis(signingTimeout));
+        asyncContext.addListener(signIn);
+
+        try {
+            signingExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    signIn.signed(authentication);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            signIn.turnAway();
+        }
+    }
+
+    private void succeedOnSigningExecutor(
+        HttpServletRequest request,
+        HttpServletResponse response,
+        final Authentication authentication
+    ) throws IOException, ServletException {
+
+        final Future<String> signed;
+        try {
+            signed = signingExecutor.submit(new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                    return tokenBinder.createToken(authentication);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            sendError(response, SC_SERVICE_UNAVAILABLE);
+            return;
+        }
+
+        final String token;
+        try {
+            token = signed.get(signingTimeout, signingTimeoutUnit);
+        } catch (TimeoutException e) {
+            // The task only ever creates the token, so even if it can't be stopped it will never touch the response.
+            signed.cancel(true);
+            log.warn("Timed out waiting for a token to be signed.");
+            sendError(response, SC_SERVICE_UNAVAILABLE);
+            return;
+        } catch (ExecutionException e) {
+            exceptionMapper.throwMapped(e.getCause());
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exceptionMapper.throwMapped(e);
+            return;
+        }
+
+        tokenBinder.addToken(response, token);
+        delegate.onAuthenticationSuccess(request, response, authentication);
+    }
+
+    private String createToken(Authentication authentication) throws ServletException {
+        try {
+            return tokenBinder.createToken(authentication);
+        } catch (Throwable e) {
+            exceptionMapper.throwMapped(e);
+            return null;
+        }
+    }
+
+    /**
+     * Hand any exception thrown while asynchronously signing in to the supplied failure handler.
+     */
+    public StatelessAuthenticationSuccessHandler withFailureHandler(AuthenticationFailureHandler failureHandler) {
+        this.failureHandler = failureHandler;
+        return this;
+    }
+
+    /**
+     * Set how long a sign in waits for its token to be signed before it is turned away.
+     */
+    public StatelessAuthenticationSuccessHandler withSigningTimeout(long timeout, TimeUnit unit) {
+        this.signingTimeout = timeout;
+        this.signingTimeoutUnit = unit;
+        return this;
+    }
+
+    private void fail(HttpServletRequest request, HttpServletResponse response, Throwable throwable) {
+
+        log.error("Failed to sign a token asynchronously.", throwable);
+
+        if (failureHandler == null) {
+            request.setAttribute(RequestDispatcher.ERROR_EXCEPTION, throwable);
+            sendError(response, SC_INTERNAL_SERVER_ERROR);
+            return;
+        }
+
+        try {
+            failureHandler.onAuthenticationFailure(
+                request,
+                response,
+                new AuthenticationServiceException("Failed to sign the token.", throwable)
+            );
+        } catch (Exception e) {
+            log.error("The failure handler failed.", e);
+            sendError(response, SC_INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    private static void sendError(HttpServletResponse response, int status) {
+        if (response.isCommitted()) {
+            return;
+        }
+        try {
+            response.sendError(status);
+        } catch (IOException e) {
+            // The client has gone so there is no one left to tell.
+        }
+    }
+
+    /**
+     * Writes the response of an asynchronous sign in exactly once, either with the signed token or, if the async
+     * context times out first, with a "503 Service Unavailable". The lock is held for the whole write so a timeout that
+     * fires while the token is being written waits for it to finish instead of writing over it.
+     */
+    private class AsyncSignIn implements AsyncListener {
+
+        private final HttpServletRequest request;
+        private final HttpServletResponse response;
+        private final AsyncContext asyncContext;
+        private boolean finished;
+
+        private AsyncSignIn(HttpServletRequest request, HttpServletResponse response, AsyncContext asyncContext) {
+            this.request = request;
+            this.response = response;
+            this.asyncContext = asyncContext;
+        }
+
+        private void signed(Authentication authentication) {
+            String token = null;
+            Throwable failure = null;
+            try {
+                token = createToken(authentication);
+            } catch (Throwable e) {
+                failure = e;
+            }
+
+            synchronized (this) {
+                if (finished) {
+                    return;
+                }
+                finished = true;
+                try {
+                    if (failure != null) {
+                        fail(request, response, failure);
+                        return;
+                    }
+                    tokenBinder.addToken(response, token);
+                    delegate.onAuthenticationSuccess(request, response, authentication);
+                } catch (Throwable e) {
+                    fail(request, response, e);
+                } finally {
+                    asyncContext.complete();
+                }
+            }
+        }
+
+        private synchronized void turnAway() {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            sendError(response, SC_SERVICE_UNAVAILABLE);
+            asyncContext.complete();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            log.warn("Timed out waiting for a token to be signed.");
+            turnAway();
+        }
+
+        @Override
+        public synchronized void onError(AsyncEvent event) {
+            // The container has given up on the request so there is nothing left to write to.
+            finished = true;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
 }
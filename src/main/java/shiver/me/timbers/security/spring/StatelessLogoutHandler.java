@@ -0,0 +1,61 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.spring;
+
+import io.jsonwebtoken.JwtException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.authentication.logout.LogoutHandler;
+import shiver.me.timbers.security.servlet.HttpServletTokens;
+import shiver.me.timbers.security.token.RevocableTokenParser;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * On logout this handler will revoke the token that was used to authorise the request so that it can't be used again,
+ * even if a copy of it was kept somewhere. Requests without a token, or with a token that is already invalid, are
+ * ignored because there is nothing to revoke.
+ *
+ * @author Karl Bennett
+ */
+public class StatelessLogoutHandler implements LogoutHandler {
+
+    private final HttpServletTokens tokens;
+    private final RevocableTokenParser<?> tokenParser;
+
+    public StatelessLogoutHandler(HttpServletTokens tokens, RevocableTokenParser<?> tokenParser) {
+        this.tokens = tokens;
+        this.tokenParser = tokenParser;
+    }
+
+    @Override
+    public void logout(HttpServletRequest request, HttpServletResponse response, Authentication authentication) {
+        final String token = tokens.retrieve(request);
+        if (token == null) {
+            return;
+        }
+        try {
+            tokenParser.revoke(token);
+        } catch (JwtException e) {
+            // The token is already unusable so there is nothing left to revoke.
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
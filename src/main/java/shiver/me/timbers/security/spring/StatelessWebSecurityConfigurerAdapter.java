@@ -17,18 +17,37 @@
 package shiver.me.timbers.security.spring;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
 import org.springframework.security.config.annotation.web.servlet.configuration.EnableWebMvcSecurity;
 import org.springframework.security.web.authentication.SimpleUrlAuthenticationSuccessHandler;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import shiver.me.timbers.security.servlet.AuthenticationHttpServletBinder;
+import shiver.me.timbers.security.servlet.SlidingTokenRefresh;
+import shiver.me.timbers.security.servlet.TokenTransport;
 import shiver.me.timbers.security.servlet.XAuthTokenHttpServletBinder;
+import shiver.me.timbers.security.token.CachingTokenParser;
+import shiver.me.timbers.security.token.JwtSubjectTokenParser;
+import shiver.me.timbers.security.token.JwtTokenIds;
 import shiver.me.timbers.security.token.JwtTokenParser;
+import shiver.me.timbers.security.token.Keyring;
+import shiver.me.timbers.security.token.KeyringLoader;
+import shiver.me.timbers.security.token.RevocableTokenParser;
+import shiver.me.timbers.security.token.Revocations;
 import shiver.me.timbers.security.token.TokenParser;
+import shiver.me.timbers.security.token.TokenShapeCheck;
 
 import javax.servlet.ServletException;
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
 
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.springframework.security.config.http.SessionCreationPolicy.STATELESS;
 
 /**
@@ -40,16 +59,30 @@ import static org.springframework.security.config.http.SessionCreationPolicy.STA
 @EnableWebMvcSecurity
 public class StatelessWebSecurityConfigurerAdapter<T> extends WebSecurityConfigurerAdapter {
 
-    @Value("${spring.stateless.security.secret}")
+    @Value("${spring.stateless.security.secret:}")
     private String secret;
 
+    @Value("${spring.stateless.security.keyring:}")
+    private String keyringFile;
+
+    @Value("${spring.stateless.security.keyring.reload:60}")
+    private long keyringReload;
+
+    @Value("${spring.stateless.security.cache.size:0}")
+    private int cacheSize;
+
     private boolean customTokenParser = true;
     private boolean customXAuthTokenHttpServletBinder = true;
 
     @Override
     protected final void configure(HttpSecurity http) throws Exception {
 
-        final TokenParser<T> tokenParser = tokenParser(secret);
+        final Keyring keyring = keyring(keyringFile, keyringReload);
+        final TokenParser<T> signingTokenParser = keyring == null ? tokenParser(secret) : tokenParser(keyring);
+        if (!customTokenParser) {
+            configure((JwtTokenParser) signingTokenParser);
+        }
+        final TokenParser<T> tokenParser = cachingTokenParser(signingTokenParser, cacheSize);
         final XAuthTokenHttpServletBinder<T> xAuthTokenHttpServletBinder = xAuthTokenHttpServletBinder(tokenParser);
         final AuthenticationHttpServletBinder<T> authenticationHttpServletBinder = authenticationHttpServletBinder(
             xAuthTokenHttpServletBinder,
@@ -57,9 +90,6 @@ public class StatelessWebSecurityConfigurerAdapter<T> extends WebSecurityConfigu
         );
         final ExceptionMapper<ServletException> exceptionMapper = servletExceptionExceptionMapper();
 
-        if (!customTokenParser) {
-            configure((JwtTokenParser) tokenParser);
-        }
         if (!customXAuthTokenHttpServletBinder) {
             configure(xAuthTokenHttpServletBinder);
         }
@@ -119,7 +149,8 @@ public class StatelessWebSecurityConfigurerAdapter<T> extends WebSecurityConfigu
         return new StatelessAuthenticationSuccessHandler(
             httpServletBinder,
             simpleUrlAuthenticationSuccessHandler,
-            exceptionMapper
+            exceptionMapper,
+            signingExecutor()
         );
     }
 
@@ -130,7 +161,40 @@ public class StatelessWebSecurityConfigurerAdapter<T> extends WebSecurityConfigu
         AuthenticationHttpServletBinder<T> httpServletBinder,
         ExceptionMapper<ServletException> exceptionMapper
     ) {
-        return new StatelessAuthenticationFilter(httpServletBinder, contextHolder(), exceptionMapper);
+        return new StatelessAuthenticationFilter(
+            httpServletBinder,
+            contextHolder(),
+            exceptionMapper,
+            tokenRefresh(),
+            skipRequestMatcher(),
+            lazyAuthentication()
+        );
+    }
+
+    /**
+     * Developers should override this method to have the {@link StatelessAuthenticationFilter} only parse a request's
+     * token when its authentication is first asked for. The default is {@code false} which means every token is
+     * parsed before the request is handled.
+     */
+    protected boolean lazyAuthentication() {
+        return false;
+    }
+
+    /**
+     * Developers should override this method to have the {@link StatelessAuthenticationFilter} skip the requests that
+     * never need to be authenticated, e.g. those for static resources. The {@link PathTrieRequestMatcher} can match
+     * any number of paths quickly. The default is {@code null} which means the token is checked on every request.
+     */
+    protected RequestMatcher skipRequestMatcher() {
+        return null;
+    }
+
+    /**
+     * Developers should override this method to have the {@link StatelessAuthenticationFilter} refresh tokens that are
+     * close to expiring. The default is {@code null} which means tokens are never refreshed.
+     */
+    protected SlidingTokenRefresh tokenRefresh() {
+        return null;
     }
 
     /**
@@ -138,19 +202,106 @@ public class StatelessWebSecurityConfigurerAdapter<T> extends WebSecurityConfigu
      */
     protected XAuthTokenHttpServletBinder<T> xAuthTokenHttpServletBinder(TokenParser<T> tokenParser) {
         customXAuthTokenHttpServletBinder = false;
-        return new XAuthTokenHttpServletBinder<>(tokenParser);
+        final List<TokenTransport> tokenTransports = tokenTransports();
+        final XAuthTokenHttpServletBinder<T> binder = tokenTransports == null
+            ? new XAuthTokenHttpServletBinder<>(tokenParser)
+            : new XAuthTokenHttpServletBinder<>(tokenParser, tokenTransports);
+        return binder.withShapeCheck(tokenShapeCheck());
+    }
+
+    /**
+     * Developers should override this method to change where the default {@link XAuthTokenHttpServletBinder} looks for
+     * tokens and where it adds them, the transports are searched in the order they are listed. The default is
+     * {@code null} which means the "X-AUTH-TOKEN" header and cookie are used.
+     */
+    protected List<TokenTransport> tokenTransports() {
+        return null;
+    }
+
+    /**
+     * Developers should override this method to have the default {@link XAuthTokenHttpServletBinder} reject tokens
+     * that could never be valid before they are parsed. The default is {@code null} which means every token is parsed.
+     */
+    protected TokenShapeCheck tokenShapeCheck() {
+        return null;
     }
 
     /**
      * Developers should override this method when changing the instance of {@link TokenParser}.
-     * The default instance is {@link JwtTokenParser}.
+     * The default instance is {@link JwtTokenParser}, though a {@link JwtSubjectTokenParser} is quicker when the
+     * principal is just a username. The default fails if the "spring.stateless.security.secret" property hasn't been
+     * set.
      */
     @SuppressWarnings("unchecked")
     protected TokenParser<T> tokenParser(String secret) {
         customTokenParser = false;
+        if (secret == null || secret.isEmpty()) {
+            throw new IllegalStateException(
+                "Either the spring.stateless.security.secret or spring.stateless.security.keyring property must be set."
+            );
+        }
         return (TokenParser<T>) new JwtTokenParser<>(String.class, secret);
     }
 
+    /**
+     * Developers should override this method when changing the instance of {@link TokenParser} that is used with a
+     * {@link Keyring}. The default instance is {@link JwtTokenParser}.
+     */
+    @SuppressWarnings("unchecked")
+    protected TokenParser<T> tokenParser(Keyring keyring) {
+        customTokenParser = false;
+        return (TokenParser<T>) new JwtTokenParser<>(String.class, keyring);
+    }
+
+    /**
+     * Developers should override this method when changing how the {@link Keyring} is loaded. The default loads the
+     * keys from the file set by the "spring.stateless.security.keyring" property with a {@link KeyringLoader} and then
+     * checks the file for changes every "spring.stateless.security.keyring.reload" seconds. The default of no file
+     * means no keyring is used and tokens are signed with the "spring.stateless.security.secret" instead.
+     */
+    protected Keyring keyring(String keyringFile, long reloadSeconds) {
+        if (keyringFile == null || keyringFile.isEmpty()) {
+            return null;
+        }
+        final Keyring keyring = new Keyring();
+        final KeyringLoader loader = new KeyringLoader(keyring, new File(keyringFile));
+        loader.load();
+        if (reloadSeconds > 0) {
+            keyringReloadExecutor().scheduleWithFixedDelay(loader, reloadSeconds, reloadSeconds, SECONDS);
+        }
+        return keyring;
+    }
+
+    /**
+     * The executor that reloads the {@link Keyring}. It is a bean so that it is shut down with the application context,
+     * no thread is started unless a keyring file is configured.
+     */
+    @Bean(destroyMethod = "shutdown")
+    protected ScheduledExecutorService keyringReloadExecutor() {
+        return newSingleThreadScheduledExecutor(new KeyringThreadFactory());
+    }
+
+    /**
+     * Developers should override this method when changing how verified tokens are cached. The default caches up to
+     * the number of tokens set by the "spring.stateless.security.cache.size" property in a {@link CachingTokenParser},
+     * the default size of {@code 0} turns the cache off. Only turn the cache on if the token entities are immutable.
+     * If the token parser is a {@link RevocableTokenParser} with revocations then revoked tokens are not served from
+     * the cache.
+     */
+    protected TokenParser<T> cachingTokenParser(TokenParser<T> tokenParser, int cacheSize) {
+        if (cacheSize < 1) {
+            return tokenParser;
+        }
+        final CachingTokenParser<T> cachingTokenParser = new CachingTokenParser<>(tokenParser, cacheSize);
+        if (tokenParser instanceof RevocableTokenParser) {
+            final Revocations revocations = ((RevocableTokenParser<T>) tokenParser).getRevocations();
+            if (revocations != null) {
+                cachingTokenParser.withRevocations(revocations, new JwtTokenIds());
+            }
+        }
+        return cachingTokenParser;
+    }
+
     /**
      * Developers should override this method when changing the instance of {@link AuthenticationConverter}.
      * The default instance is {@link AuthenticatedAuthenticationConverter}.
@@ -183,6 +334,15 @@ public class StatelessWebSecurityConfigurerAdapter<T> extends WebSecurityConfigu
         return new StaticSecurityContextHolder();
     }
 
+    /**
+     * Developers should override this method to have new tokens signed on a dedicated executor so that a burst of sign
+     * ins can't use up every request thread. The executor should have a bounded queue so that sign ins are turned away
+     * once it is full. The default is {@code null} which means tokens are signed on the request thread.
+     */
+    protected ExecutorService signingExecutor() {
+        return null;
+    }
+
     /**
      * Override this method to configure the default {@link JwtTokenParser} instance.
      */
@@ -203,4 +363,15 @@ public class StatelessWebSecurityConfigurerAdapter<T> extends WebSecurityConfigu
      */
     protected void configureFurther(HttpSecurity http) throws Exception {
     }
+
+    private static class KeyringThreadFactory implements ThreadFactory {
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            final Thread thread = new Thread(runnable, "keyring-loader");
+            // The reloads must never stop the application from shutting down.
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
 }
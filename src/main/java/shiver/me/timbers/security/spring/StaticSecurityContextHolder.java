@@ -21,10 +21,20 @@ import org.springframework.security.core.context.SecurityContext;
 /**
  * @author Karl Bennett
  */
-public class StaticSecurityContextHolder implements SecurityContextHolder {
+public class StaticSecurityContextHolder implements MutableSecurityContextHolder {
 
     @Override
     public SecurityContext getContext() {
         return org.springframework.security.core.context.SecurityContextHolder.getContext();
     }
+
+    @Override
+    public void setContext(SecurityContext context) {
+        org.springframework.security.core.context.SecurityContextHolder.setContext(context);
+    }
+
+    @Override
+    public void clearContext() {
+        org.springframework.security.core.context.SecurityContextHolder.clearContext();
+    }
 }
@@ -0,0 +1,296 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.lang.String.format;
+import static java.util.Arrays.asList;
+
+/**
+ * Creates or parses a whole batch of tokens at once by spreading the batch across a fork/join pool. The batch is split
+ * into chunks that are each handled by a single worker so that the per thread keys and buffers of the wrapped parser
+ * are reused for the whole chunk, and idle workers steal chunks from busy ones. Small batches are split all the way
+ * down to a token per chunk so that a batch only takes as long as its slowest token.
+ * <p>
+ * Closing the parser shuts down its pool only if the parser created it, a supplied pool is left for its owner to shut
+ * down.
+ *
+ * @author Karl Bennett
+ */
+public class BatchTokenParser<T> implements Closeable {
+
+    private static final int DEFAULT_CHUNK_SIZE = 64;
+    private static final byte NEW_LINE = '\n';
+
+    private final TokenParser<T> tokenParser;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+    private final Expiries expiries;
+    private final Clock clock;
+    private final boolean ownsPool;
+
+    /**
+     * A new pool with a worker for each processor will be created, it is shut down when this parser is closed.
+     */
+    public BatchTokenParser(TokenParser<T> tokenParser) {
+        this(tokenParser, new ForkJoinPool(), DEFAULT_CHUNK_SIZE, new JwtExpiries(), new SystemDates(), true);
+    }
+
+    public BatchTokenParser(TokenParser<T> tokenParser, ForkJoinPool pool) {
+        this(tokenParser, pool, DEFAULT_CHUNK_SIZE);
+    }
+
+    public BatchTokenParser(TokenParser<T> tokenParser, ForkJoinPool pool, int chunkSize) {
+        this(tokenParser, pool, chunkSize, new JwtExpiries(), new SystemDates());
+    }
+
+    /**
+     * The expiries are used to tell an expired token from a rejected one when it parses to {@code null}, e.g. the
+     * {@link BinaryTokenParser} would be used with the {@link BinaryExpiries}.
+     */
+    public BatchTokenParser(
+        TokenParser<T> tokenParser,
+        ForkJoinPool pool,
+        int chunkSize,
+        Expiries expiries,
+        Clock clock
+    ) {
+        this(tokenParser, pool, chunkSize, expiries, clock, false);
+    }
+
+    private BatchTokenParser(
+        TokenParser<T> tokenParser,
+        ForkJoinPool pool,
+        int chunkSize,
+        Expiries expiries,
+        Clock clock,
+        boolean ownsPool
+    ) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException(format("The chunk size (%d) must be greater than zero.", chunkSize));
+        }
+        this.tokenParser = tokenParser;
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+        this.expiries = expiries;
+        this.clock = clock;
+        this.ownsPool = ownsPool;
+    }
+
+    /**
+     * @return a token for each of the supplied entities in the same order. If any token can't be created the first
+     * failure is thrown.
+     */
+    public List<String> create(List<? extends T> entities) throws Exception {
+        final String[] tokens = new String[entities.size()];
+        create(entities instanceof RandomAccess ? entities : new ArrayList<>(entities), tokens);
+        return asList(tokens);
+    }
+
+    /**
+     * Write a token for each of the supplied entities to the output, one token per line and in the same order. Only
+     * enough entities to keep every worker busy are held in memory at a time so any number of tokens can be created.
+     */
+    public void create(Iterable<? extends T> entities, OutputStream output) throws Exception {
+
+        final int windowSize = chunkSize * pool.getParallelism();
+        final List<T> window = new ArrayList<>(windowSize);
+        final String[] tokens = new String[windowSize];
+        byte[] buffer = new byte[0];
+
+        final Iterator<? extends T> iterator = entities.iterator();
+        while (iterator.hasNext()) {
+            window.clear();
+            while (iterator.hasNext() && window.size() < windowSize) {
+                window.add(iterator.next());
+            }
+
+            create(window, tokens);
+
+            for (int i = 0; i < window.size(); i++) {
+                buffer = write(output, tokens[i], buffer);
+            }
+        }
+
+        output.flush();
+    }
+
+    /**
+     * @return the result of parsing each of the supplied tokens in the same order. Nothing is thrown for a token that
+     * can't be parsed, instead its result says why it was rejected.
+     */
+    public List<TokenResult<T>> parse(List<String> tokens) {
+        final List<String> randomAccessTokens = tokens instanceof RandomAccess ? tokens : new ArrayList<>(tokens);
+        @SuppressWarnings("unchecked")
+        final TokenResult<T>[] results = new TokenResult[tokens.size()];
+        pool.invoke(new Parsing(randomAccessTokens, results, 0, results.length, threshold(results.length)));
+        return asList(results);
+    }
+
+    @Override
+    public void close() {
+        if (ownsPool) {
+            pool.shutdown();
+        }
+    }
+
+    private void create(List<? extends T> entities, String[] tokens) throws Exception {
+
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+
+        final int size = entities.size();
+        pool.invoke(new Creation(entities, tokens, failure, 0, size, threshold(size)));
+
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
+
+    // Split the batch finely enough that every worker gets a share, but never into chunks bigger than the chunk size.
+    private int threshold(int size) {
+        return Math.max(1, Math.min(chunkSize, size / pool.getParallelism()));
+    }
+
+    private TokenResult<T> parse(String token) {
+        try {
+            final T entity = tokenParser.parse(token);
+            if (entity == null) {
+                return new TokenResult<>(null, TokenOutcomes.rejected(token, expiries, clock), null);
+            }
+            return new TokenResult<>(entity, TokenOutcome.VALID, null);
+        } catch (Exception e) {
+            return new TokenResult<>(null, TokenOutcomes.failed(e), e);
+        }
+    }
+
+    // Tokens are always ASCII so they can be copied straight into the buffer without an encoder.
+    private static byte[] write(OutputStream output, String token, byte[] buffer) throws IOException {
+
+        final int length = token.length();
+        final byte[] line = buffer.length > length ? buffer : new byte[length * 2 + 1];
+
+        for (int i = 0; i < length; i++) {
+            line[i] = (byte) token.charAt(i);
+        }
+        line[length] = NEW_LINE;
+        output.write(line, 0, length + 1);
+
+        return line;
+    }
+
+    private static abstract class Chunk extends RecursiveAction {
+
+        private final int start;
+        private final int end;
+        private final int threshold;
+
+        private Chunk(int start, int end, int threshold) {
+            this.start = start;
+            this.end = end;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+
+            if (end - start > threshold) {
+                final int middle = (start + end) >>> 1;
+                invokeAll(chunk(start, middle, threshold), chunk(middle, end, threshold));
+                return;
+            }
+
+            for (int i = start; i < end; i++) {
+                compute(i);
+            }
+        }
+
+        protected abstract Chunk chunk(int start, int end, int threshold);
+
+        protected abstract void compute(int index);
+    }
+
+    private class Creation extends Chunk {
+
+        private final List<? extends T> entities;
+        private final String[] tokens;
+        private final AtomicReference<Exception> failure;
+
+        private Creation(
+            List<? extends T> entities,
+            String[] tokens,
+            AtomicReference<Exception> failure,
+            int start,
+            int end,
+            int threshold
+        ) {
+            super(start, end, threshold);
+            this.entities = entities;
+            this.tokens = tokens;
+            this.failure = failure;
+        }
+
+        @Override
+        protected Chunk chunk(int start, int end, int threshold) {
+            return new Creation(entities, tokens, failure, start, end, threshold);
+        }
+
+        @Override
+        protected void compute(int index) {
+            // Once one token has failed the rest of the batch is pointless.
+            if (failure.get() != null) {
+                return;
+            }
+            try {
+                tokens[index] = tokenParser.create(entities.get(index));
+            } catch (Exception e) {
+                failure.compareAndSet(null, e);
+            }
+        }
+    }
+
+    private class Parsing extends Chunk {
+
+        private final List<String> tokens;
+        private final TokenResult<T>[] results;
+
+        private Parsing(List<String> tokens, TokenResult<T>[] results, int start, int end, int threshold) {
+            super(start, end, threshold);
+            this.tokens = tokens;
+            this.results = results;
+        }
+
+        @Override
+        protected Chunk chunk(int start, int end, int threshold) {
+            return new Parsing(tokens, results, start, end, threshold);
+        }
+
+        @Override
+        protected void compute(int index) {
+            results[index] = parse(tokens.get(index));
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import java.util.Date;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Reads the expiry out of a token that was created by the {@link BinaryTokenParser}. Only the start of the token that
+ * holds the version and expiry is decoded.
+ *
+ * @author Karl Bennett
+ */
+public class BinaryExpiries implements Expiries {
+
+    // The version byte and the longest possible varint fit into the first 16 characters.
+    private static final int PREFIX_LENGTH = 16;
+
+    private final UrlSafeBase64 base64;
+
+    public BinaryExpiries() {
+        this(new UrlSafeBase64());
+    }
+
+    public BinaryExpiries(UrlSafeBase64 base64) {
+        this.base64 = base64;
+    }
+
+    @Override
+    public Date expiry(String token) {
+        final int end = Math.min(token.length(), PREFIX_LENGTH);
+        final byte[] prefix = new byte[UrlSafeBase64.decodedLength(token, 0, end)];
+        final int length = base64.decode(token, 0, end, prefix, 0);
+
+        final long expiry = BinaryTokenParser.readVarint(prefix, 1, length);
+        if (expiry == 0) {
+            return null;
+        }
+        return new Date(SECONDS.toMillis(expiry));
+    }
+}
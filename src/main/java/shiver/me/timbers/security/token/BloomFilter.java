@@ -0,0 +1,94 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static java.lang.Math.ceil;
+import static java.lang.Math.log;
+import static java.lang.Math.max;
+import static java.lang.Math.round;
+
+/**
+ * A lock free Bloom filter that answers "definitely not added" without ever looking at the added values. The bit
+ * positions are derived from a single 64 bit digest by splitting it into two 32 bit hashes and combining them, which
+ * means a probe costs one digest and {@code hashes} bit reads.
+ *
+ * @author Karl Bennett
+ */
+class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bits;
+    private final int hashes;
+    private final Digests digests;
+
+    /**
+     * @param expected                   the number of values that will be added before the false positive rate starts
+     *                                   to climb above the requested probability.
+     * @param falsePositiveProbability the chance that a value that was never added will be reported as possibly added.
+     */
+    BloomFilter(int expected, double falsePositiveProbability, Digests digests) {
+        final long size = max(64, (long) ceil(-expected * log(falsePositiveProbability) / (log(2) * log(2))));
+        this.words = new AtomicLongArray((int) ((size + 63) / 64));
+        this.bits = words.length() * 64L;
+        this.hashes = max(1, (int) round((double) bits / max(1, expected) * log(2)));
+        this.digests = digests;
+    }
+
+    void add(String value) {
+        final long digest = mix(digests.digest(value));
+        final int first = (int) digest;
+        final int second = (int) (digest >>> 32);
+        for (int i = 0; i < hashes; i++) {
+            final long bit = index(first, second, i);
+            final int word = (int) (bit >>> 6);
+            final long mask = 1L << bit;
+            long current;
+            do {
+                current = words.get(word);
+            } while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    boolean mightContain(String value) {
+        final long digest = mix(digests.digest(value));
+        final int first = (int) digest;
+        final int second = (int) (digest >>> 32);
+        for (int i = 0; i < hashes; i++) {
+            final long bit = index(first, second, i);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long index(int first, int second, int i) {
+        return ((first + (long) i * second) & Long.MAX_VALUE) % bits;
+    }
+
+    // The MurmurHash3 finaliser, used so that both halves of the digest are well distributed.
+    private static long mix(long digest) {
+        digest ^= digest >>> 33;
+        digest *= 0xff51afd7ed558ccdL;
+        digest ^= digest >>> 33;
+        digest *= 0xc4ceb9fe1a85ec53L;
+        digest ^= digest >>> 33;
+        return digest;
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.lang.Math.max;
+
+/**
+ * Revocations that keep every revoked id in memory behind a Bloom filter. Almost every token that is checked will not
+ * have been revoked, so the filter lets those checks finish after a handful of bit reads without touching the exact
+ * set of ids. Only the rare ids that the filter thinks might be revoked are then looked up in that exact set to rule
+ * out a false positive.
+ * <p>
+ * Revocations are written through to a {@link RevocationStore} so that they can be shared with other processes. Call
+ * {@link #reload()}, or schedule this class as a {@link Runnable}, to pick up the ids revoked by those other
+ * processes. A reload also drops any ids whose tokens have since expired.
+ * <p>
+ * Ids that another node has already revoked, e.g. those received by {@link BroadcastRevocations}, can be
+ * {@link #remember(String, Date) remembered} instead. They are only added to memory, so a shared store isn't appended
+ * to again by every node that hears about them, and are kept across reloads until their tokens expire.
+ *
+ * @author Karl Bennett
+ */
+public class BloomRevocations implements Revocations, Runnable {
+
+    private static final int DEFAULT_EXPECTED = 10000;
+    private static final double DEFAULT_FALSE_POSITIVE_PROBABILITY = 0.01;
+    private static final long NEVER = Long.MAX_VALUE;
+
+    private final RevocationStore store;
+    private final int expected;
+    private final double falsePositiveProbability;
+    private final Digests digests;
+    private final Clock clock;
+
+    private final Map<String, Long> remembered = new ConcurrentHashMap<>();
+
+    private volatile Index index;
+
+    public BloomRevocations(RevocationStore store) {
+        this(store, DEFAULT_EXPECTED, DEFAULT_FALSE_POSITIVE_PROBABILITY, new FnvDigests(), new SystemDates());
+    }
+
+    /**
+     * @param expected                 the number of revoked ids that are expected to be live at any one time, the
+     *                                 filter is rebuilt larger if this is exceeded.
+     * @param falsePositiveProbability the chance that an id that hasn't been revoked will need to be looked up in the
+     *                                 exact set of revoked ids.
+     */
+    public BloomRevocations(
+        RevocationStore store,
+        int expected,
+        double falsePositiveProbability,
+        Digests digests,
+        Clock clock
+    ) {
+        this.store = store;
+        this.expected = expected;
+        this.falsePositiveProbability = falsePositiveProbability;
+        this.digests = digests;
+        this.clock = clock;
+        reload();
+    }
+
+    @Override
+    public void revoke(String id, Date expiry) {
+        store.add(id, expiry);
+        synchronized (this) {
+            if (!index.add(id, expiry == null ? NEVER : expiry.getTime())) {
+                reload();
+            }
+        }
+    }
+
+    /**
+     * Treat the token with the supplied id as revoked without writing it to the {@link RevocationStore}.
+     */
+    public synchronized void remember(String id, Date expiry) {
+        final long expires = expiry == null ? NEVER : expiry.getTime();
+        remembered.put(id, expires);
+        if (!index.add(id, expires)) {
+            reload();
+        }
+    }
+
+    @Override
+    public boolean isRevoked(String id) {
+        final Index index = this.index;
+        if (!index.filter.mightContain(id)) {
+            return false;
+        }
+        final Long expiry = index.expiries.get(id);
+        return expiry != null && clock.now().getTime() < expiry;
+    }
+
+    /**
+     * Rebuild the in memory revocations from the {@link RevocationStore}.
+     */
+    public synchronized void reload() {
+        final Map<String, Date> revocations = store.load();
+        final int size = revocations.size() + remembered.size();
+        final Index index = new Index(max(expected, size * 2), falsePositiveProbability, digests);
+        for (Map.Entry<String, Date> revocation : revocations.entrySet()) {
+            final Date expiry = revocation.getValue();
+            index.add(revocation.getKey(), expiry == null ? NEVER : expiry.getTime());
+        }
+        if (!remembered.isEmpty()) {
+            addRemembered(index, revocations.keySet());
+        }
+        this.index = index;
+    }
+
+    private void addRemembered(Index index, Set<String> stored) {
+        final long now = clock.now().getTime();
+        for (Iterator<Map.Entry<String, Long>> iterator = remembered.entrySet().iterator(); iterator.hasNext(); ) {
+            final Map.Entry<String, Long> revocation = iterator.next();
+            if (revocation.getValue() <= now || stored.contains(revocation.getKey())) {
+                // Either the token has expired or the store now has the revocation, so it needn't be remembered.
+                iterator.remove();
+            } else {
+                index.add(revocation.getKey(), revocation.getValue());
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        reload();
+    }
+
+    private static class Index {
+
+        private final BloomFilter filter;
+        private final Map<String, Long> expiries;
+        private final int capacity;
+
+        private Index(int capacity, double falsePositiveProbability, Digests digests) {
+            this.filter = new BloomFilter(capacity, falsePositiveProbability, digests);
+            this.expiries = new ConcurrentHashMap<>();
+            this.capacity = capacity;
+        }
+
+        /**
+         * @return false if the index has grown past its capacity and should be rebuilt.
+         */
+        private boolean add(String id, long expiry) {
+            // The exact entry must be visible before the filter bit so a reader never sees the bit without the entry.
+            expiries.put(id, expiry);
+            filter.add(id);
+            return expiries.size() <= capacity;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Revocations that propagate every revoked id to the other nodes in the cluster. A revocation is applied to the local
+ * revocations straight away and queued, then all the queued revocations are published to the {@link RevocationChannel}
+ * in a single batch every time this class is run. So scheduling it with a fixed delay bounds how long the other nodes
+ * will keep accepting a revoked token. Checking whether a token has been revoked only ever looks at the local
+ * revocations, it never touches the network.
+ * <p>
+ * The revocations received from the other nodes are applied straight to the local revocations without being queued,
+ * so they are never published a second time. If the local revocations are {@link BloomRevocations} then the received
+ * revocations are only {@link BloomRevocations#remember(String, Date) remembered}, because the node that revoked them
+ * has already written them to the store.
+ * <p>
+ * At most {@code maximumPending} revocations are kept while the channel is failing, after that the oldest are dropped
+ * and are left for the other nodes to pick up from a shared {@link RevocationStore}.
+ *
+ * @author Karl Bennett
+ */
+public class BroadcastRevocations implements Revocations, Runnable, RevocationSubscriber {
+
+    private static final int DEFAULT_MAXIMUM_PENDING = 10000;
+
+    private final Revocations revocations;
+    private final RevocationChannel channel;
+    private final int maximumPending;
+    private final ConcurrentLinkedDeque<Revocation> pending = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger pendingSize = new AtomicInteger();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public BroadcastRevocations(Revocations revocations, RevocationChannel channel) {
+        this(revocations, channel, DEFAULT_MAXIMUM_PENDING);
+    }
+
+    public BroadcastRevocations(Revocations revocations, RevocationChannel channel, int maximumPending) {
+        this.revocations = revocations;
+        this.channel = channel;
+        this.maximumPending = maximumPending;
+        channel.subscribe(this);
+    }
+
+    @Override
+    public void revoke(String id, Date expiry) {
+        revocations.revoke(id, expiry);
+        pending.addLast(new Revocation(id, expiry));
+        pendingSize.incrementAndGet();
+        dropOldest();
+    }
+
+    @Override
+    public boolean isRevoked(String id) {
+        return revocations.isRevoked(id);
+    }
+
+    @Override
+    public void received(List<Revocation> revocations) {
+        for (Revocation revocation : revocations) {
+            if (this.revocations.isRevoked(revocation.getId())) {
+                continue;
+            }
+            if (this.revocations instanceof BloomRevocations) {
+                ((BloomRevocations) this.revocations).remember(revocation.getId(), revocation.getExpiry());
+            } else {
+                this.revocations.revoke(revocation.getId(), revocation.getExpiry());
+            }
+        }
+    }
+
+    /**
+     * Publish all the revocations that have been queued since the last run.
+     */
+    @Override
+    public void run() {
+        final List<Revocation> batch = new ArrayList<>();
+        for (Revocation revocation = pending.pollFirst(); revocation != null; revocation = pending.pollFirst()) {
+            pendingSize.decrementAndGet();
+            batch.add(revocation);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            channel.publish(batch);
+        } catch (RuntimeException e) {
+            // Throwing would stop a scheduled executor from ever running this again, so the batch is retried instead.
+            // It goes back on the front of the queue because it is older than anything revoked since it was taken.
+            for (ListIterator<Revocation> iterator = batch.listIterator(batch.size()); iterator.hasPrevious(); ) {
+                pending.addFirst(iterator.previous());
+                pendingSize.incrementAndGet();
+            }
+            dropOldest();
+            failures.incrementAndGet();
+        }
+    }
+
+    private void dropOldest() {
+        while (pendingSize.get() > maximumPending && pending.pollFirst() != null) {
+            pendingSize.decrementAndGet();
+            dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return the number of times a batch of revocations could not be published and had to be queued again.
+     */
+    public long getFailures() {
+        return failures.get();
+    }
+
+    /**
+     * @return the number of revocations that were never published because too many were waiting to be published.
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import java.util.Date;
+
+/**
+ * This token parser decorator will cache the entities of previously verified tokens so that a token that is presented
+ * repeatedly only has to be verified once. The cache is bounded and will evict the least recently used token once it
+ * is full. A cached entity will never be returned after its token has expired, or after it has been revoked if the
+ * cache has been given the {@link Revocations}.
+ * <p>
+ * The same cached entity instance is returned to every caller on every thread, so only cache the tokens of entities
+ * that are immutable, e.g. a username {@link String}. A mutable entity would leak any change one request made to it
+ * into every other request that presents the same token.
+ *
+ * @author Karl Bennett
+ */
+public class CachingTokenParser<T> implements TokenParser<T> {
+
+    private final TokenParser<T> tokenParser;
+    private final TokenCache<Entry<T>> cache;
+    private final Digests digests;
+    private final Expiries expiries;
+    private final Clock clock;
+    private Revocations revocations;
+    private TokenIds tokenIds;
+
+    public CachingTokenParser(TokenParser<T> tokenParser, int maximumSize) {
+        this(tokenParser, maximumSize, new JwtExpiries());
+    }
+
+    /**
+     * Use this constructor when decorating a token parser that doesn't produce JWT tokens, e.g. the
+     * {@link BinaryTokenParser} would be decorated with the {@link BinaryExpiries}.
+     */
+    public CachingTokenParser(TokenParser<T> tokenParser, int maximumSize, Expiries expiries) {
+        this(tokenParser, maximumSize, new FnvDigests(), expiries, new SystemDates());
+    }
+
+    public CachingTokenParser(
+        TokenParser<T> tokenParser,
+        int maximumSize,
+        Digests digests,
+        Expiries expiries,
+        Clock clock
+    ) {
+        this.tokenParser = tokenParser;
+        this.cache = new TokenCache<>(maximumSize);
+        this.digests = digests;
+        this.expiries = expiries;
+        this.clock = clock;
+    }
+
+    @Override
+    public String create(T entity) throws Exception {
+        return tokenParser.create(entity);
+    }
+
+    @Override
+    public T parse(String token) throws Exception {
+
+        final Long key = digests.digest(token);
+
+        final Entry<T> entry = cache.get(key);
+
+        if (entry != null && entry.token.equals(token)) {
+            if (entry.isValid(clock.now()) && !isRevoked(entry)) {
+                cache.hit();
+                return entry.entity;
+            }
+            cache.remove(key);
+        }
+
+        cache.miss();
+
+        final T entity = tokenParser.parse(token);
+
+        if (entity != null) {
+            final String id = tokenIds == null ? null : tokenIds.id(token);
+            cache.put(key, new Entry<>(token, entity, expiries.expiry(token), id));
+        }
+
+        return entity;
+    }
+
+    private boolean isRevoked(Entry<T> entry) {
+        return revocations != null && entry.id != null && revocations.isRevoked(entry.id);
+    }
+
+    /**
+     * Stop serving cached entities for tokens that have been revoked. The token parser that is being decorated should
+     * be checking the same revocations so that a revoked token is also rejected once it has been evicted.
+     */
+    public CachingTokenParser<T> withRevocations(Revocations revocations, TokenIds tokenIds) {
+        this.revocations = revocations;
+        this.tokenIds = tokenIds;
+        return this;
+    }
+
+    /**
+     * @return the number of parses that were served from the cache.
+     */
+    public long getHits() {
+        return cache.getHits();
+    }
+
+    /**
+     * @return the number of parses that had to be delegated to the decorated token parser.
+     */
+    public long getMisses() {
+        return cache.getMisses();
+    }
+
+    /**
+     * @return the number of entries that have been evicted because the cache was full.
+     */
+    public long getEvictions() {
+        return cache.getEvictions();
+    }
+
+    /**
+     * @return the number of entries currently in the cache.
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    private static class Entry<T> {
+
+        private final String token;
+        private final T entity;
+        private final Date expiry;
+        private final String id;
+
+        private Entry(String token, T entity, Date expiry, String id) {
+            this.token = token;
+            this.entity = entity;
+            this.expiry = expiry;
+            this.id = id;
+        }
+
+        private boolean isValid(Date now) {
+            return expiry == null || now.before(expiry);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import java.util.Date;
+
+/**
+ * Supplies the current date as well as future dates. This is kept separate from {@link Dates} so that the existing
+ * {@link Dates} implementations don't have to change.
+ *
+ * @author Karl Bennett
+ */
+public interface Clock extends Dates {
+
+    Date now();
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+/**
+ * Encodes with the standard padded Base64 alphabet that older versions of this library can read, but decodes both the
+ * standard and the URL safe alphabets. This is the default for the JWT "entity" claim for one release so that during a
+ * rolling deploy the new nodes never issue a token the old nodes can't read. The {@link UrlSafeBase64} will become the
+ * default once no nodes older than this release are left.
+ *
+ * @author Karl Bennett
+ */
+public class CompatibleBase64 implements Base64 {
+
+    private final Base64 encoder;
+    private final Base64 decoder;
+
+    public CompatibleBase64() {
+        this(new DataConverterBase64(), new UrlSafeBase64());
+    }
+
+    public CompatibleBase64(Base64 encoder, Base64 decoder) {
+        this.encoder = encoder;
+        this.decoder = decoder;
+    }
+
+    @Override
+    public String encode(byte[] bytes) {
+        return encoder.encode(bytes);
+    }
+
+    @Override
+    public byte[] decode(String base64) {
+        return decoder.decode(base64);
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Token metrics that keep lock free counts and total times for every outcome and source, along with histograms of the
+ * token lengths. The length histograms have a bucket for each power of two, so bucket {@code n} counts the tokens
+ * whose length was less than {@code 2^n} but not less than {@code 2^(n-1)}.
+ *
+ * @author Karl Bennett
+ */
+public class CountingTokenMetrics implements TokenMetrics {
+
+    private static final int BUCKETS = 32;
+
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong createdNanos = new AtomicLong();
+    private final AtomicLongArray createdLengths = new AtomicLongArray(BUCKETS);
+    private final AtomicLongArray parsedCounts = new AtomicLongArray(TokenOutcome.values().length);
+    private final AtomicLongArray parsedNanos = new AtomicLongArray(TokenOutcome.values().length);
+    private final AtomicLongArray parsedLengths = new AtomicLongArray(BUCKETS);
+    private final AtomicLongArray retrievedCounts = new AtomicLongArray(TokenSource.values().length);
+    private final AtomicLongArray retrievedNanos = new AtomicLongArray(TokenSource.values().length);
+
+    @Override
+    public void created(long nanos, int length) {
+        createdCount.incrementAndGet();
+        createdNanos.addAndGet(nanos);
+        createdLengths.incrementAndGet(bucket(length));
+    }
+
+    @Override
+    public void parsed(TokenOutcome outcome, long nanos, int length) {
+        parsedCounts.incrementAndGet(outcome.ordinal());
+        parsedNanos.addAndGet(outcome.ordinal(), nanos);
+        parsedLengths.incrementAndGet(bucket(length));
+    }
+
+    @Override
+    public void retrieved(TokenSource source, long nanos) {
+        retrievedCounts.incrementAndGet(source.ordinal());
+        retrievedNanos.addAndGet(source.ordinal(), nanos);
+    }
+
+    public long getCreatedCount() {
+        return createdCount.get();
+    }
+
+    public long getCreatedNanos() {
+        return createdNanos.get();
+    }
+
+    public long getParsedCount(TokenOutcome outcome) {
+        return parsedCounts.get(outcome.ordinal());
+    }
+
+    public long getParsedNanos(TokenOutcome outcome) {
+        return parsedNanos.get(outcome.ordinal());
+    }
+
+    public long getRetrievedCount(TokenSource source) {
+        return retrievedCounts.get(source.ordinal());
+    }
+
+    public long getRetrievedNanos(TokenSource source) {
+        return retrievedNanos.get(source.ordinal());
+    }
+
+    /**
+     * @return the number of created tokens that fell into each length bucket.
+     */
+    public long[] getCreatedLengths() {
+        return snapshot(createdLengths);
+    }
+
+    /**
+     * @return the number of parsed tokens that fell into each length bucket.
+     */
+    public long[] getParsedLengths() {
+        return snapshot(parsedLengths);
+    }
+
+    static int bucket(int length) {
+        return Math.min(BUCKETS - 1, 32 - Integer.numberOfLeadingZeros(length));
+    }
+
+    private static long[] snapshot(AtomicLongArray array) {
+        final long[] values = new long[array.length()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = array.get(i);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+/**
+ * Implementations of this interface produce a cheap fixed size digest of a token that can be used as a lookup key.
+ * The digest is not expected to be collision free so it must never be used on its own to decide that two tokens are
+ * the same.
+ *
+ * @author Karl Bennett
+ */
+public interface Digests {
+
+    long digest(String token);
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import java.util.Date;
+
+/**
+ * Implementations of this interface can find the expiry date of a token without verifying it. They should only ever be
+ * used on tokens that have already been verified.
+ *
+ * @author Karl Bennett
+ */
+public interface Expiries {
+
+    /**
+     * @return the date the token expires or {@code null} if it never expires.
+     */
+    Date expiry(String token);
+}
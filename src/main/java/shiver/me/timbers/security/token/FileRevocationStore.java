@@ -0,0 +1,176 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Stores the revoked token ids in a file that can be shared between processes, e.g. on a shared volume. Each line of
+ * the file holds a token id followed by the time its token expires in milliseconds, or 0 if it never expires.
+ * <p>
+ * Every revocation is appended to the file while holding a lock on a sibling ".lock" file, so any number of stores,
+ * in this or other processes, can add to the same file. After a number of revocations have been appended the file is
+ * compacted by writing the ids that haven't expired to a temporary file in the same directory and then moving it over
+ * the old one, so readers never see a partially written file. The lock is an operating system file lock so the file
+ * should be on a file system that supports them, copying the file to each node is also fine as long as only one node
+ * adds to it.
+ *
+ * @author Karl Bennett
+ */
+public class FileRevocationStore implements RevocationStore {
+
+    private static final long NEVER = 0;
+    private static final int DEFAULT_COMPACT_AFTER = 1000;
+
+    // File locks are held by the whole JVM so stores for the same file must also take turns within this JVM.
+    private static final ConcurrentMap<Path, Object> MONITORS = new ConcurrentHashMap<>();
+
+    private final Path file;
+    private final Path lock;
+    private final Clock clock;
+    private final int compactAfter;
+    private int appended;
+
+    public FileRevocationStore(File file) {
+        this(file, new SystemDates());
+    }
+
+    public FileRevocationStore(File file, Clock clock) {
+        this(file, clock, DEFAULT_COMPACT_AFTER);
+    }
+
+    /**
+     * @param compactAfter the number of revocations this store appends to the file before it compacts it.
+     */
+    public FileRevocationStore(File file, Clock clock, int compactAfter) {
+        this.file = file.toPath().toAbsolutePath().normalize();
+        this.lock = this.file.resolveSibling(this.file.getFileName() + ".lock");
+        this.clock = clock;
+        this.compactAfter = compactAfter;
+    }
+
+    @Override
+    public void add(String id, Date expiry) {
+        if (id.indexOf(' ') >= 0 || id.indexOf('\n') >= 0 || id.indexOf('\r') >= 0) {
+            throw new IllegalArgumentException(format("The token id (%s) cannot contain spaces or new lines.", id));
+        }
+
+        final byte[] line = format("%s %d%n", id, expiry == null ? NEVER : expiry.getTime()).getBytes(UTF_8);
+        synchronized (monitor()) {
+            try (
+                FileChannel channel = FileChannel.open(lock, CREATE, WRITE);
+                FileLock ignored = channel.lock()
+            ) {
+                Files.write(file, line, CREATE, WRITE, APPEND);
+                if (++appended >= compactAfter) {
+                    compact();
+                    appended = 0;
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException(format("Could not write the revocation file (%s).", file), e);
+            }
+        }
+    }
+
+    @Override
+    public Map<String, Date> load() {
+        final long now = clock.now().getTime();
+        final Map<String, Date> revocations = new HashMap<>();
+        try (BufferedReader reader = new BufferedReader(new StringReader(completeLines()))) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                final int space = line.indexOf(' ');
+                if (space < 0) {
+                    continue;
+                }
+                final long expiry = Long.parseLong(line.substring(space + 1).trim());
+                if (expiry == NEVER) {
+                    revocations.put(line.substring(0, space), null);
+                } else if (expiry > now) {
+                    revocations.put(line.substring(0, space), new Date(expiry));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            throw new IllegalStateException(format("Could not read the revocation file (%s).", file), e);
+        }
+        return revocations;
+    }
+
+    private Object monitor() {
+        final Object monitor = new Object();
+        final Object existing = MONITORS.putIfAbsent(file, monitor);
+        return existing == null ? monitor : existing;
+    }
+
+    /**
+     * Another process could be appending to the file while it is read, so any unfinished last line is ignored.
+     */
+    private String completeLines() throws IOException {
+        final byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            return "";
+        }
+        int end = bytes.length;
+        while (end > 0 && bytes[end - 1] != '\n') {
+            end--;
+        }
+        return new String(bytes, 0, end, UTF_8);
+    }
+
+    private void compact() throws IOException {
+        final Map<String, Date> revocations = load();
+        final File directory = file.getParent().toFile();
+        final Path temporary = File.createTempFile(file.getFileName().toString(), ".tmp", directory).toPath();
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(temporary, UTF_8)) {
+                for (Map.Entry<String, Date> revocation : revocations.entrySet()) {
+                    final Date date = revocation.getValue();
+                    writer.write(revocation.getKey());
+                    writer.write(' ');
+                    writer.write(Long.toString(date == null ? NEVER : date.getTime()));
+                    writer.newLine();
+                }
+            }
+            Files.move(temporary, file, REPLACE_EXISTING, ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+}
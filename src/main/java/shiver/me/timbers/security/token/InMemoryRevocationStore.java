@@ -0,0 +1,60 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Stores the revoked token ids in memory so they are only shared within the one process.
+ *
+ * @author Karl Bennett
+ */
+public class InMemoryRevocationStore implements RevocationStore {
+
+    private final Map<String, Date> revocations;
+    private final Clock clock;
+
+    public InMemoryRevocationStore() {
+        this(new SystemDates());
+    }
+
+    public InMemoryRevocationStore(Clock clock) {
+        this.revocations = new HashMap<>();
+        this.clock = clock;
+    }
+
+    @Override
+    public synchronized void add(String id, Date expiry) {
+        revocations.put(id, expiry);
+    }
+
+    @Override
+    public synchronized Map<String, Date> load() {
+        final Date now = clock.now();
+        final Iterator<Date> expiries = revocations.values().iterator();
+        while (expiries.hasNext()) {
+            final Date expiry = expiries.next();
+            if (expiry != null && !now.before(expiry)) {
+                expiries.remove();
+            }
+        }
+        return new HashMap<>(revocations);
+    }
+}
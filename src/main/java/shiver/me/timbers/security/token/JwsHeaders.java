@@ -0,0 +1,83 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.SignatureAlgorithm;
+
+import java.io.IOException;
+import java.util.Map;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+
+/**
+ * Nearly every token will have the exact same header so the encoded versions of the most likely headers are
+ * pre-computed, this allows the verifiers to find the signing algorithm and key without having to decode the header.
+ *
+ * @author Karl Bennett
+ */
+final class JwsHeaders {
+
+    static final String ALGORITHM = "alg";
+    static final String KEY_ID = "kid";
+
+    private JwsHeaders() {
+    }
+
+    /**
+     * @return the encoded headers that jjwt, and most other JWT libraries, would produce for the algorithm and key id.
+     */
+    static Iterable<String> encode(
+        UrlSafeBase64 base64,
+        ObjectMapper objectMapper,
+        SignatureAlgorithm algorithm,
+        String keyId
+    ) {
+        final String alg = format("\"alg\":\"%s\"", algorithm.getValue());
+        if (keyId == null) {
+            return singletonList(encode(base64, "{" + alg + "}"));
+        }
+
+        final String kid = format("\"kid\":%s", quote(objectMapper, keyId));
+        return asList(encode(base64, "{" + kid + "," + alg + "}"), encode(base64, "{" + alg + "," + kid + "}"));
+    }
+
+    static Map read(UrlSafeBase64 base64, ObjectMapper objectMapper, String header) {
+        try {
+            return objectMapper.readValue(base64.decode(header), Map.class);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new MalformedJwtException("Unable to read the JWT header.", e);
+        }
+    }
+
+    private static String encode(UrlSafeBase64 base64, String header) {
+        return base64.encode(header.getBytes(UTF_8));
+    }
+
+    private static String quote(ObjectMapper objectMapper, String value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+}
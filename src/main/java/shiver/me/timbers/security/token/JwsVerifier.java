@@ -0,0 +1,32 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+/**
+ * Implementations of this interface verify the signature of a compact JWS token.
+ *
+ * @author Karl Bennett
+ */
+public interface JwsVerifier {
+
+    /**
+     * @return true only if the signature of the supplied token was generated from its header and payload.
+     * @throws io.jsonwebtoken.MalformedJwtException if the token is not made up of three segments.
+     * @throws io.jsonwebtoken.UnsupportedJwtException if the token was signed with an unsupported algorithm.
+     */
+    boolean verify(String token);
+}
@@ -0,0 +1,30 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import io.jsonwebtoken.JwtBuilder;
+
+/**
+ * Implementations of this interface must supply a new {@link JwtBuilder} every time one is requested, this is because
+ * a {@link JwtBuilder} is mutable and so cannot be shared between concurrent token creations.
+ *
+ * @author Karl Bennett
+ */
+public interface JwtBuilders {
+
+    JwtBuilder create();
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.Map;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Reads the "exp" claim straight out of the payload of a JWT token.
+ *
+ * @author Karl Bennett
+ */
+public class JwtExpiries implements Expiries {
+
+    private static final String EXPIRATION = "exp";
+
+    private final UrlSafeBase64 base64;
+    private final ObjectMapper objectMapper;
+
+    public JwtExpiries() {
+        this(new UrlSafeBase64(), new ObjectMapper());
+    }
+
+    public JwtExpiries(UrlSafeBase64 base64, ObjectMapper objectMapper) {
+        this.base64 = base64;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public Date expiry(String token) {
+        final int start = token.indexOf('.');
+        final int end = token.indexOf('.', start + 1);
+        if (start < 0 || end < 0) {
+            throw new IllegalArgumentException("The token must be a JWT token made up of three segments.");
+        }
+
+        try {
+            final byte[] payload = new byte[UrlSafeBase64.decodedLength(token, start + 1, end)];
+            base64.decode(token, start + 1, end, payload, 0);
+            final Map claims = objectMapper.readValue(payload, Map.class);
+            final Object expiration = claims.get(EXPIRATION);
+            if (expiration instanceof Number) {
+                return new Date(SECONDS.toMillis(((Number) expiration).longValue()));
+            }
+            return null;
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+}
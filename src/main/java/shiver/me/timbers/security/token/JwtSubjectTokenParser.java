@@ -0,0 +1,281 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.PrematureJwtException;
+import io.jsonwebtoken.SignatureException;
+
+import java.io.IOException;
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.PublicKey;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import static io.jsonwebtoken.SignatureAlgorithm.HS512;
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * A JWT token implementation for principals that are just a username. The username is stored directly in the standard
+ * "sub" claim so that, unlike the {@link JwtTokenParser}, it never has to be framed by MessagePack or Base64 encoded a
+ * second time. When parsing, only the "sub", "exp", "nbf", and "jti" claims are streamed out of the payload so that no
+ * claims map is ever built.
+ *
+ * @author Karl Bennett
+ */
+public class JwtSubjectTokenParser implements RevocableTokenParser<String> {
+
+    private static final String SUBJECT = "sub";
+    private static final String EXPIRATION = "exp";
+    private static final String NOT_BEFORE = "nbf";
+    private static final String ID = "jti";
+    private static final String KEY_ID = "kid";
+    private static final String INVALID_SIGNATURE = "JWT signature does not match locally computed signature. " +
+        "JWT validity cannot be asserted and should not be trusted.";
+
+    private final SigningKeys signingKeys;
+    private final JwtBuilders jwtBuilders;
+    private final JwsVerifier jwsVerifier;
+    private final UrlSafeBase64 base64;
+    private final JsonFactory jsonFactory;
+    private final Clock clock;
+    private Long duration;
+    private TimeUnit unit;
+    private Revocations revocations;
+
+    public JwtSubjectTokenParser(String secret) {
+        this(SecretKeys.hmacKey(secret, HS512));
+    }
+
+    /**
+     * Create a token parser that signs and verifies tokens with the same HMAC key.
+     */
+    public JwtSubjectTokenParser(Key signingKey) {
+        this(
+            new StaticSigningKeys(HS512, SecretKeys.require(signingKey)),
+            new MacJwsVerifier(signingKey)
+        );
+    }
+
+    /**
+     * Create a token parser that signs tokens with the private key and verifies them with the public key.
+     */
+    public JwtSubjectTokenParser(KeyPair keyPair) {
+        this(
+            new StaticSigningKeys(SignatureAlgorithms.forKey(keyPair.getPrivate()), keyPair.getPrivate()),
+            new SignatureJwsVerifier(keyPair.getPublic())
+        );
+    }
+
+    /**
+     * Create a token parser that can only verify tokens, it will fail if it is used to create a token. This allows the
+     * nodes that only need to authenticate requests to do so without having access to the private signing key.
+     */
+    public JwtSubjectTokenParser(PublicKey verifyingKey) {
+        this(new StaticSigningKeys(null, null), new SignatureJwsVerifier(verifyingKey));
+    }
+
+    /**
+     * Create a token parser that signs tokens with the keyring's current key and verifies them with the key named by
+     * their "kid" header.
+     */
+    public JwtSubjectTokenParser(Keyring keyring) {
+        this(keyring, keyring);
+    }
+
+    private JwtSubjectTokenParser(SigningKeys signingKeys, JwsVerifier jwsVerifier) {
+        this(
+            signingKeys,
+            new DefaultJwtBuilders(),
+            jwsVerifier,
+            new UrlSafeBase64(),
+            new JsonFactory(),
+            new SystemDates()
+        );
+    }
+
+    public JwtSubjectTokenParser(
+        SigningKeys signingKeys,
+        JwtBuilders jwtBuilders,
+        JwsVerifier jwsVerifier,
+        UrlSafeBase64 base64,
+        JsonFactory jsonFactory,
+        Clock clock
+    ) {
+        this.signingKeys = signingKeys;
+        this.jwtBuilders = jwtBuilders;
+        this.jwsVerifier = jwsVerifier;
+        this.base64 = base64;
+        this.jsonFactory = jsonFactory;
+        this.clock = clock;
+    }
+
+    @Override
+    public String create(String subject) {
+        final SigningKey signingKey = signingKeys.current();
+        if (signingKey == null) {
+            throw new UnsupportedOperationException("This token parser has no signing key so it cannot create tokens.");
+        }
+        final JwtBuilder builder = configure(jwtBuilders.create())
+            .setSubject(subject)
+            .signWith(signingKey.getAlgorithm(), signingKey.getKey());
+
+        if (signingKey.getId() != null) {
+            builder.setHeaderParam(KEY_ID, signingKey.getId());
+        }
+        if (duration != null) {
+            builder.setExpiration(clock.nowPlus(duration, unit));
+        }
+        if (revocations != null) {
+            builder.setId(JwtTokenIds.randomId());
+        }
+        return builder
+            .compact();
+    }
+
+    /**
+     * Override this method to add extra configuration to the {@link JwtBuilder}. A new {@link JwtBuilder} is supplied
+     * for every token that is created.
+     */
+    protected JwtBuilder configure(JwtBuilder jwtBuilder) {
+        return jwtBuilder;
+    }
+
+    /**
+     * The signature of the token is verified first, then the claims are read straight out of the decoded payload.
+     */
+    @Override
+    public String parse(String token) {
+        final Payload payload = read(token);
+
+        final long now = clock.now().getTime();
+        if (payload.notBefore != null && now < SECONDS.toMillis(payload.notBefore)) {
+            throw new PrematureJwtException(
+                null,
+                null,
+                format("The JWT must not be accepted before %s.", payload.notBefore)
+            );
+        }
+        if (payload.isExpired(now)) {
+            return null;
+        }
+        if (revocations != null && payload.id != null && revocations.isRevoked(payload.id)) {
+            return null;
+        }
+        return payload.subject;
+    }
+
+    @Override
+    public void revoke(String token) {
+        if (revocations == null) {
+            throw new IllegalStateException("This token parser has not been configured with any revocations.");
+        }
+        final Payload payload = read(token);
+        if (payload.isExpired(clock.now().getTime())) {
+            return;
+        }
+        // Tokens that were created before the revocations were configured have no id so they can't be revoked.
+        if (payload.id == null) {
+            return;
+        }
+        final Long expiration = payload.expiration;
+        revocations.revoke(payload.id, expiration == null ? null : new Date(SECONDS.toMillis(expiration)));
+    }
+
+    private Payload read(String token) {
+        if (!jwsVerifier.verify(token)) {
+            throw new SignatureException(INVALID_SIGNATURE);
+        }
+
+        final int start = token.indexOf('.') + 1;
+        final int end = token.indexOf('.', start);
+        if (start == 0 || end < 0) {
+            throw new MalformedJwtException("JWT strings must contain exactly 2 period characters.");
+        }
+
+        final byte[] bytes = new byte[UrlSafeBase64.decodedLength(token, start, end)];
+        final Payload payload = new Payload();
+        try {
+            base64.decode(token, start, end, bytes, 0);
+            final JsonParser parser = jsonFactory.createParser(bytes);
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new MalformedJwtException("The JWT payload must be a JSON object.");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String name = parser.getCurrentName();
+                parser.nextToken();
+                if (SUBJECT.equals(name)) {
+                    payload.subject = parser.getValueAsString();
+                } else if (EXPIRATION.equals(name)) {
+                    payload.expiration = parser.getValueAsLong();
+                } else if (NOT_BEFORE.equals(name)) {
+                    payload.notBefore = parser.getValueAsLong();
+                } else if (ID.equals(name)) {
+                    payload.id = parser.getValueAsString();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            parser.close();
+        } catch (IOException | IllegalArgumentException e) {
+            throw new MalformedJwtException("Unable to read the JWT payload.", e);
+        }
+        return payload;
+    }
+
+    public JwtSubjectTokenParser willExpireAfter(Long duration, TimeUnit unit) {
+        if (duration == null || unit == null) {
+            throw new IllegalArgumentException(
+                format("The token expiration must have both its duration (%s) and unit (%s) set.", duration, unit)
+            );
+        }
+        this.duration = duration;
+        this.unit = unit;
+        return this;
+    }
+
+    /**
+     * Give every new token a random "jti" claim and reject any token whose "jti" has been revoked.
+     */
+    public JwtSubjectTokenParser withRevocations(Revocations revocations) {
+        this.revocations = revocations;
+        return this;
+    }
+
+    @Override
+    public Revocations getRevocations() {
+        return revocations;
+    }
+
+    private static class Payload {
+
+        private String subject;
+        private Long expiration;
+        private Long notBefore;
+        private String id;
+
+        private boolean isExpired(long now) {
+            return expiration != null && now >= SECONDS.toMillis(expiration);
+        }
+    }
+}
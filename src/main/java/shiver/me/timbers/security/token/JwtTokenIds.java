@@ -0,0 +1,89 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Reads the "jti" claim straight out of the payload of a JWT token.
+ *
+ * @author Karl Bennett
+ */
+public class JwtTokenIds implements TokenIds {
+
+    private static final String ID = "jti";
+    private static final int ID_BYTES = 16;
+    private static final UrlSafeBase64 ID_BASE64 = new UrlSafeBase64();
+
+    private final UrlSafeBase64 base64;
+    private final JsonFactory jsonFactory;
+
+    public JwtTokenIds() {
+        this(new UrlSafeBase64(), new JsonFactory());
+    }
+
+    public JwtTokenIds(UrlSafeBase64 base64, JsonFactory jsonFactory) {
+        this.base64 = base64;
+        this.jsonFactory = jsonFactory;
+    }
+
+    /**
+     * @return a new random 128 bit token id.
+     */
+    public static String randomId() {
+        final byte[] bytes = new byte[ID_BYTES];
+        ThreadLocalRandom.current().nextBytes(bytes);
+        return ID_BASE64.encode(bytes);
+    }
+
+    @Override
+    public String id(String token) {
+        final int start = token.indexOf('.');
+        final int end = token.indexOf('.', start + 1);
+        if (start < 0 || end < 0) {
+            throw new IllegalArgumentException("The token must be a JWT token made up of three segments.");
+        }
+
+        try {
+            final byte[] payload = new byte[UrlSafeBase64.decodedLength(token, start + 1, end)];
+            base64.decode(token, start + 1, end, payload, 0);
+            final JsonParser parser = jsonFactory.createParser(payload);
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("The JWT payload must be a JSON object.");
+            }
+            String id = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String name = parser.getCurrentName();
+                parser.nextToken();
+                if (ID.equals(name)) {
+                    id = parser.getValueAsString();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            parser.close();
+            return id;
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+}
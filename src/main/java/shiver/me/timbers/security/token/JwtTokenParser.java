@@ -16,50 +16,112 @@
 
 package shiver.me.timbers.security.token;
 
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtBuilder;
 import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureException;
 import org.msgpack.MessagePack;
+import org.msgpack.template.Template;
 
 import java.io.IOException;
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.PublicKey;
 import java.util.concurrent.TimeUnit;
 
 import static io.jsonwebtoken.SignatureAlgorithm.HS512;
 import static java.lang.String.format;
 
 /**
- * This is a very basic JWT token implementation, it doesn't even set an expiration date for the token so it will be
- * valid for ever.
+ * Creates JWT tokens that hold the entity as a MessagePack encoded "entity" claim. The tokens are signed with an HMAC
+ * secret, a key pair, or a {@link Keyring}, and can be given an expiry with {@link #willExpireAfter(Long, TimeUnit)}
+ * and made revocable with {@link #withRevocations(Revocations)}.
  *
  * @author Karl Bennett
  */
-public class JwtTokenParser<T> implements TokenParser<T> {
+public class JwtTokenParser<T> implements RevocableTokenParser<T> {
 
     private static final String ENTITY = "entity";
+    private static final String KEY_ID = "kid";
+    private static final String INVALID_SIGNATURE = "JWT signature does not match locally computed signature. " +
+        "JWT validity cannot be asserted and should not be trusted.";
 
     private final Class<T> type;
-    private final String secret;
-    private final JwtBuilder jwtBuilder;
+    private final SigningKeys signingKeys;
+    private final JwtBuilders jwtBuilders;
+    private final JwsVerifier jwsVerifier;
     private final JwtParser jwtParser;
     private final MessagePack messagePack;
+    private final Template<T> template;
     private final Base64 base64;
     private final Dates dates;
     private Long duration;
     private TimeUnit unit;
+    private Revocations revocations;
 
     public JwtTokenParser(Class<T> type, String secret) {
+        this(type, SecretKeys.hmacKey(secret, HS512));
+    }
+
+    /**
+     * Create a token parser that signs and verifies tokens with the same HMAC key.
+     */
+    public JwtTokenParser(Class<T> type, Key signingKey) {
+        this(
+            type,
+            new StaticSigningKeys(HS512, SecretKeys.require(signingKey)),
+            new MacJwsVerifier(signingKey)
+        );
+    }
+
+    /**
+     * Create a token parser that signs tokens with the private key and verifies them with the public key.
+     */
+    public JwtTokenParser(Class<T> type, KeyPair keyPair) {
         this(
             type,
-            secret,
-            Jwts.builder(),
+            new StaticSigningKeys(SignatureAlgorithms.forKey(keyPair.getPrivate()), keyPair.getPrivate()),
+            new SignatureJwsVerifier(keyPair.getPublic())
+        );
+    }
+
+    /**
+     * Create a token parser that can only verify tokens, it will fail if it is used to create a token. This allows the
+     * nodes that only need to authenticate requests to do so without having access to the private signing key.
+     */
+    public JwtTokenParser(Class<T> type, PublicKey verifyingKey) {
+        this(type, new StaticSigningKeys(null, null), new SignatureJwsVerifier(verifyingKey));
+    }
+
+    /**
+     * Create a token parser that signs tokens with the keyring's current key and verifies them with the key named by
+     * their "kid" header.
+     */
+    public JwtTokenParser(Class<T> type, Keyring keyring) {
+        this(type, keyring, keyring);
+    }
+
+    private JwtTokenParser(Class<T> type, SigningKeys signingKeys, JwsVerifier jwsVerifier) {
+        this(
+            type,
+            signingKeys,
+            new DefaultJwtBuilders(),
+            jwsVerifier,
             Jwts.parser(),
             new MessagePack(),
-            new DataConverterBase64(),
+            new CompatibleBase64(),
             new SystemDates()
         );
     }
 
+    /**
+     * @deprecated the supplied {@link JwtBuilder} is shared by every token so they can only be created one at a time,
+     * override {@link #configure(JwtBuilder)} to customise a new builder for every token instead. Use
+     * {@link #JwtTokenParser(Class, SigningKeys, JwtBuilders, JwsVerifier, JwtParser, MessagePack, Base64, Dates)}.
+     */
+    @Deprecated
     public JwtTokenParser(
         Class<T> type,
         String secret,
@@ -68,26 +130,81 @@ public class JwtTokenParser<T> implements TokenParser<T> {
         MessagePack messagePack,
         Base64 base64,
         Dates dates
+    ) {
+        this(type, SecretKeys.hmacKey(secret, HS512), jwtBuilder, jwtParser, messagePack, base64, dates);
+    }
+
+    private JwtTokenParser(
+        Class<T> type,
+        Key signingKey,
+        JwtBuilder jwtBuilder,
+        JwtParser jwtParser,
+        MessagePack messagePack,
+        Base64 base64,
+        Dates dates
+    ) {
+        this(
+            type,
+            new StaticSigningKeys(HS512, SecretKeys.require(signingKey)),
+            new SharedJwtBuilders(jwtBuilder),
+            new MacJwsVerifier(signingKey),
+            jwtParser,
+            messagePack,
+            base64,
+            dates
+        );
+    }
+
+    public JwtTokenParser(
+        Class<T> type,
+        SigningKeys signingKeys,
+        JwtBuilders jwtBuilders,
+        JwsVerifier jwsVerifier,
+        JwtParser jwtParser,
+        MessagePack messagePack,
+        Base64 base64,
+        Dates dates
     ) {
         this.type = type;
-        this.secret = secret;
-        this.jwtBuilder = jwtBuilder;
+        this.signingKeys = signingKeys;
+        this.jwtBuilders = jwtBuilders;
+        this.jwsVerifier = jwsVerifier;
         this.jwtParser = jwtParser;
         this.messagePack = messagePack;
+        this.template = MessagePackTemplates.lookup(messagePack, type);
         this.base64 = base64;
         this.dates = dates;
     }
 
     @Override
     public String create(T entity) {
+        if (jwtBuilders instanceof SharedJwtBuilders) {
+            synchronized (jwtBuilders) {
+                return createToken(entity);
+            }
+        }
+        return createToken(entity);
+    }
+
+    private String createToken(T entity) {
+        final SigningKey signingKey = signingKeys.current();
+        if (signingKey == null) {
+            throw new UnsupportedOperationException("This token parser has no signing key so it cannot create tokens.");
+        }
         try {
-            final JwtBuilder builder = configure(this.jwtBuilder)
-                .claim(ENTITY, base64.encode(messagePack.write(entity)))
-                .signWith(HS512, secret);
+            final JwtBuilder builder = configure(jwtBuilders.create())
+                .claim(ENTITY, base64.encode(write(entity)))
+                .signWith(signingKey.getAlgorithm(), signingKey.getKey());
 
+            if (signingKey.getId() != null) {
+                builder.setHeaderParam(KEY_ID, signingKey.getId());
+            }
             if (duration != null) {
                 builder.setExpiration(dates.nowPlus(duration, unit));
             }
+            if (revocations != null) {
+                builder.setId(JwtTokenIds.randomId());
+            }
             return builder
                 .compact();
         } catch (IOException e) {
@@ -96,19 +213,28 @@ public class JwtTokenParser<T> implements TokenParser<T> {
     }
 
     /**
-     * Override this method to add extra configuration to the {@link JwtBuilder}.
+     * Override this method to add extra configuration to the {@link JwtBuilder}. A new {@link JwtBuilder} is supplied
+     * for every token that is created, unless the deprecated constructor was used.
      */
     protected JwtBuilder configure(JwtBuilder jwtBuilder) {
         return jwtBuilder;
     }
 
+    /**
+     * The signature of the token is verified first, then only its header and payload are handed to the
+     * {@link JwtParser} so that it doesn't have to verify the signature a second time.
+     */
     @Override
     public T parse(String token) {
+        if (!jwsVerifier.verify(token)) {
+            throw new SignatureException(INVALID_SIGNATURE);
+        }
         try {
-            return messagePack.read(
-                base64.decode(jwtParser.setSigningKey(secret).parseClaimsJws(token).getBody().get(ENTITY).toString()),
-                type
-            );
+            final Claims claims = claims(token);
+            if (revocations != null && claims.getId() != null && revocations.isRevoked(claims.getId())) {
+                return null;
+            }
+            return read(base64.decode(claims.get(ENTITY).toString()));
         } catch (IOException e) {
             throw new IllegalArgumentException(e);
         } catch (ExpiredJwtException e) {
@@ -116,6 +242,49 @@ public class JwtTokenParser<T> implements TokenParser<T> {
         }
     }
 
+    @Override
+    public void revoke(String token) {
+        if (revocations == null) {
+            throw new IllegalStateException("This token parser has not been configured with any revocations.");
+        }
+        if (!jwsVerifier.verify(token)) {
+            throw new SignatureException(INVALID_SIGNATURE);
+        }
+        final Claims claims;
+        try {
+            claims = claims(token);
+        } catch (ExpiredJwtException e) {
+            return;
+        }
+        // Tokens that were created before the revocations were configured have no id so they can't be revoked.
+        if (claims.getId() == null) {
+            return;
+        }
+        revocations.revoke(claims.getId(), claims.getExpiration());
+    }
+
+    private Claims claims(String token) {
+        final String unsigned = token.substring(0, token.lastIndexOf('.') + 1);
+        return jwtParser.parseClaimsJwt(unsigned).getBody();
+    }
+
+    /**
+     * The pre-built template is used whenever there is one, otherwise MessagePack must look the template up itself.
+     */
+    private byte[] write(T entity) throws IOException {
+        if (template == null) {
+            return messagePack.write(entity);
+        }
+        return messagePack.write(entity, template);
+    }
+
+    private T read(byte[] bytes) throws IOException {
+        if (template == null) {
+            return messagePack.read(bytes, type);
+        }
+        return messagePack.read(bytes, template);
+    }
+
     public JwtTokenParser<T> willExpireAfter(Long duration, TimeUnit unit) {
         if (duration == null || unit == null) {
             throw new IllegalArgumentException(
@@ -126,4 +295,17 @@ public class JwtTokenParser<T> implements TokenParser<T> {
         this.unit = unit;
         return this;
     }
+
+    /**
+     * Give every new token a random "jti" claim and reject any token whose "jti" has been revoked.
+     */
+    public JwtTokenParser<T> withRevocations(Revocations revocations) {
+        this.revocations = revocations;
+        return this;
+    }
+
+    @Override
+    public Revocations getRevocations() {
+        return revocations;
+    }
 }
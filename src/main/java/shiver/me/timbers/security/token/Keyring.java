@@ -0,0 +1,312 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.SignatureAlgorithm;
+
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.PublicKey;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static io.jsonwebtoken.SignatureAlgorithm.HS256;
+import static io.jsonwebtoken.SignatureAlgorithm.HS384;
+import static io.jsonwebtoken.SignatureAlgorithm.HS512;
+import static java.lang.String.format;
+
+/**
+ * A set of keys that allows the signing key to be rotated without invalidating the tokens that have already been
+ * created. Every token is created with the current key and a "kid" header that holds its id, when it is parsed that id
+ * is used to look up the exact key that it was signed with so no matter how many keys are in the keyring only one
+ * signature is ever checked.
+ * <p>
+ * Keys can be added, used, and retired at any time. Each change replaces an immutable snapshot of the keys so tokens
+ * can continue to be verified without any locking while the keys are being rotated.
+ *
+ * @author Karl Bennett
+ */
+public class Keyring implements SigningKeys, JwsVerifier {
+
+    private static final SignatureAlgorithm[] HMAC_ALGORITHMS = {HS256, HS384, HS512};
+
+    private final UrlSafeBase64 base64;
+    private final ObjectMapper objectMapper;
+    private volatile Keys keys;
+    private volatile long version;
+
+    public Keyring() {
+        this(new UrlSafeBase64(), new ObjectMapper());
+    }
+
+    public Keyring(UrlSafeBase64 base64, ObjectMapper objectMapper) {
+        this.base64 = base64;
+        this.objectMapper = objectMapper;
+        this.keys = new Keys(Collections.<String, Entry>emptyMap(), null, null);
+    }
+
+    /**
+     * Add an HMAC secret, it is decoded in the same way as the "spring.stateless.security.secret" property.
+     */
+    public Keyring add(String id, String secret) {
+        final Key key = SecretKeys.hmacKey(secret, HS512);
+        if (key == null) {
+            throw new IllegalArgumentException(format("The secret for key (%s) must not be empty.", id));
+        }
+        return add(id, key);
+    }
+
+    /**
+     * Add an HMAC key that can both sign and verify tokens.
+     */
+    public Keyring add(String id, Key key) {
+        return add(id, new SigningKey(id, HS512, key), key, HMAC_ALGORITHMS);
+    }
+
+    /**
+     * Add a key pair, the private key signs the tokens and the public key verifies them.
+     */
+    public Keyring add(String id, KeyPair keyPair) {
+        return add(
+            id,
+            new SigningKey(id, SignatureAlgorithms.forKey(keyPair.getPrivate()), keyPair.getPrivate()),
+            keyPair.getPublic(),
+            SignatureAlgorithms.verifiable(keyPair.getPublic())
+        );
+    }
+
+    /**
+     * Add a public key that can only be used to verify tokens.
+     */
+    public Keyring add(String id, PublicKey key) {
+        return add(id, null, key, SignatureAlgorithms.verifiable(key));
+    }
+
+    /**
+     * Sign all new tokens with the key that has the supplied id.
+     */
+    public synchronized Keyring use(String id) {
+        final Entry entry = find(id);
+        if (entry.signingKey == null) {
+            throw new IllegalArgumentException(format("The key (%s) can only verify tokens so cannot sign them.", id));
+        }
+        update(new Keys(keys.entries, id, keys.fallbackId));
+        return this;
+    }
+
+    /**
+     * Verify any tokens that do not have a "kid" header, e.g. those created before the keyring was used, with the key
+     * that has the supplied id.
+     */
+    public synchronized Keyring fallback(String id) {
+        update(new Keys(keys.entries, keys.currentId, id == null ? null : find(id).id));
+        return this;
+    }
+
+    /**
+     * Remove a key so that any tokens signed by it will no longer be valid.
+     */
+    public synchronized Keyring retire(String id) {
+        if (id.equals(keys.currentId)) {
+            throw new IllegalStateException(
+                format("The key (%s) is currently signing tokens so another key must be used before it is retired.", id)
+            );
+        }
+        final Map<String, Entry> entries = new HashMap<>(keys.entries);
+        entries.remove(id);
+        update(new Keys(entries, keys.currentId, id.equals(keys.fallbackId) ? null : keys.fallbackId));
+        return this;
+    }
+
+    /**
+     * @return a number that changes every time the keys in the keyring change.
+     */
+    public long version() {
+        return version;
+    }
+
+    public Set<String> ids() {
+        return keys.entries.keySet();
+    }
+
+    public String currentId() {
+        return keys.currentId;
+    }
+
+    @Override
+    public SigningKey current() {
+        final Keys current = keys;
+        return current.currentId == null ? null : current.entries.get(current.currentId).signingKey;
+    }
+
+    @Override
+    public boolean verify(String token) {
+        final Keys current = keys;
+
+        final int headerEnd = token.indexOf('.');
+        if (headerEnd < 0) {
+            throw new MalformedJwtException("JWT strings must contain exactly 2 period characters.");
+        }
+
+        final String header = token.substring(0, headerEnd);
+        final JwsVerifier verifier = current.headers.get(header);
+        if (verifier != null) {
+            return verifier.verify(token);
+        }
+
+        final Object keyId = JwsHeaders.read(base64, objectMapper, header).get(JwsHeaders.KEY_ID);
+        if (keyId == null) {
+            return current.fallback != null && current.fallback.verify(token);
+        }
+        final Entry entry = current.entries.get(keyId.toString());
+        return entry != null && entry.verifier.verify(token);
+    }
+
+    /**
+     * Replace every key in the keyring in one change so that tokens are never verified against a partially loaded set
+     * of keys. A {@code null} current id keeps the key that is currently signing tokens.
+     */
+    synchronized Keyring replace(
+        Map<String, Key> secrets,
+        Map<String, PublicKey> publicKeys,
+        String currentId,
+        String fallbackId
+    ) {
+        final Map<String, Entry> entries = new HashMap<>();
+        for (Map.Entry<String, Key> secret : secrets.entrySet()) {
+            final String id = secret.getKey();
+            final Key key = secret.getValue();
+            entries.put(id, entry(id, new SigningKey(id, HS512, key), key, HMAC_ALGORITHMS));
+        }
+        for (Map.Entry<String, PublicKey> publicKey : publicKeys.entrySet()) {
+            final String id = publicKey.getKey();
+            final PublicKey key = publicKey.getValue();
+            entries.put(id, entry(id, null, key, SignatureAlgorithms.verifiable(key)));
+        }
+
+        final String current = currentId == null ? keys.currentId : currentId;
+        if (current != null && (!entries.containsKey(current) || entries.get(current).signingKey == null)) {
+            throw new IllegalArgumentException(format("The key (%s) must be able to sign tokens.", current));
+        }
+        if (fallbackId != null && !entries.containsKey(fallbackId)) {
+            throw new IllegalArgumentException(format("The key (%s) is not in the keyring.", fallbackId));
+        }
+        update(new Keys(entries, current, fallbackId));
+        return this;
+    }
+
+    private synchronized Keyring add(String id, SigningKey signingKey, Key key, SignatureAlgorithm[] algorithms) {
+        final Entry entry = entry(id, signingKey, key, algorithms);
+        if (entry == keys.entries.get(id)) {
+            return this;
+        }
+        final Map<String, Entry> entries = new HashMap<>(keys.entries);
+        entries.put(id, entry);
+        update(new Keys(entries, keys.currentId, keys.fallbackId));
+        return this;
+    }
+
+    private void update(Keys keys) {
+        this.keys = keys;
+        // The version is only changed after the keys so anything that sees the new version will also see the new keys.
+        version++;
+    }
+
+    private Entry entry(String id, SigningKey signingKey, Key key, SignatureAlgorithm[] algorithms) {
+        final Entry existing = keys.entries.get(id);
+        // Re-adding the same key reuses its entry so that its verifier, and the Macs or Signatures it has already
+        // initialised, can continue to be used.
+        if (existing != null && existing.key.equals(key) && (existing.signingKey == null) == (signingKey == null)) {
+            return existing;
+        }
+        return new Entry(id, signingKey, key, algorithms);
+    }
+
+    private Entry find(String id) {
+        final Entry entry = keys.entries.get(id);
+        if (entry == null) {
+            throw new IllegalArgumentException(format("The key (%s) is not in the keyring.", id));
+        }
+        return entry;
+    }
+
+    private JwsVerifier verifier(Key key, String id) {
+        if (key instanceof PublicKey) {
+            return new SignatureJwsVerifier((PublicKey) key, id, base64, objectMapper);
+        }
+        return new MacJwsVerifier(key, id, base64, objectMapper);
+    }
+
+    private class Entry {
+
+        private final String id;
+        private final SigningKey signingKey;
+        private final Key key;
+        private final SignatureAlgorithm[] algorithms;
+        private final JwsVerifier verifier;
+        private JwsVerifier fallbackVerifier;
+
+        private Entry(String id, SigningKey signingKey, Key key, SignatureAlgorithm[] algorithms) {
+            this.id = id;
+            this.signingKey = signingKey;
+            this.key = key;
+            this.algorithms = algorithms;
+            this.verifier = verifier(key, id);
+        }
+
+        private synchronized JwsVerifier fallbackVerifier() {
+            if (fallbackVerifier == null) {
+                fallbackVerifier = verifier(key, null);
+            }
+            return fallbackVerifier;
+        }
+    }
+
+    private class Keys {
+
+        private final Map<String, Entry> entries;
+        private final String currentId;
+        private final String fallbackId;
+        private final JwsVerifier fallback;
+        private final Map<String, JwsVerifier> headers;
+
+        private Keys(Map<String, Entry> entries, String currentId, String fallbackId) {
+            this.entries = Collections.unmodifiableMap(entries);
+            this.currentId = currentId;
+            this.fallbackId = fallbackId;
+            this.fallback = fallbackId == null ? null : entries.get(fallbackId).fallbackVerifier();
+            this.headers = new HashMap<>();
+
+            for (Entry entry : entries.values()) {
+                for (SignatureAlgorithm algorithm : entry.algorithms) {
+                    for (String header : JwsHeaders.encode(base64, objectMapper, algorithm, entry.id)) {
+                        headers.put(header, entry.verifier);
+                    }
+                    if (fallback != null && entry.id.equals(fallbackId)) {
+                        for (String header : JwsHeaders.encode(base64, objectMapper, algorithm, null)) {
+                            headers.put(header, fallback);
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import static io.jsonwebtoken.SignatureAlgorithm.HS512;
+import static java.lang.String.format;
+
+/**
+ * Loads the keys for a {@link Keyring} from properties so that they can be rotated without restarting the application.
+ * The properties should be in the following format.
+ * <pre>
+ * current=2016-02
+ * fallback=2016-01
+ * secret.2016-01=&lt;Base64 encoded HMAC secret&gt;
+ * secret.2016-02=&lt;Base64 encoded HMAC secret&gt;
+ * public.2016-03=&lt;Base64 encoded X.509 RSA or EC public key&gt;
+ * </pre>
+ * The "current" key is used to sign all new tokens, and the optional "fallback" key is used to verify any tokens that
+ * were created without a "kid" header. Any key that is removed from the properties is retired from the keyring.
+ * <p>
+ * This class is a {@link Runnable} so that it can be scheduled to check the file for changes, it will only reload the
+ * keys when the file's content has changed. The content is compared instead of the modified time because a rewrite
+ * within the file system's timestamp granularity would not change the time.
+ *
+ * @author Karl Bennett
+ */
+public class KeyringLoader implements Runnable {
+
+    private static final String CURRENT = "current";
+    private static final String FALLBACK = "fallback";
+    private static final String SECRET = "secret.";
+    private static final String PUBLIC = "public.";
+    private static final String[] PUBLIC_KEY_ALGORITHMS = {"RSA", "EC"};
+
+    private static final Logger log = LoggerFactory.getLogger(KeyringLoader.class);
+
+    private final Keyring keyring;
+    private final File file;
+    private byte[] digest;
+
+    public KeyringLoader(Keyring keyring, File file) {
+        this.keyring = keyring;
+        this.file = file;
+    }
+
+    /**
+     * Load the keys from the file if it has changed since they were last loaded.
+     *
+     * @return true if the keys were loaded.
+     */
+    public synchronized boolean load() {
+        final byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(file.toPath());
+        } catch (IOException e) {
+            throw new IllegalStateException(format("Could not read the keyring file (%s).", file), e);
+        }
+
+        final byte[] contentDigest = sha256(bytes);
+        if (Arrays.equals(contentDigest, digest)) {
+            return false;
+        }
+
+        final Properties properties = new Properties();
+        try {
+            properties.load(new ByteArrayInputStream(bytes));
+        } catch (IOException e) {
+            throw new IllegalStateException(format("Could not read the keyring file (%s).", file), e);
+        }
+        load(properties);
+        digest = contentDigest;
+        return true;
+    }
+
+    /**
+     * Replace the keys in the keyring with those in the properties. Every key is decoded and checked before the keyring
+     * is changed, then they all replace the existing keys at once so that invalid properties leave the keyring
+     * untouched.
+     */
+    public synchronized void load(Properties properties) {
+        final Map<String, Key> secrets = new HashMap<>();
+        final Map<String, PublicKey> publicKeys = new HashMap<>();
+        for (String name : properties.stringPropertyNames()) {
+            if (name.startsWith(SECRET)) {
+                secrets.put(name.substring(SECRET.length()), secret(name, properties.getProperty(name).trim()));
+            }
+            if (name.startsWith(PUBLIC)) {
+                publicKeys.put(name.substring(PUBLIC.length()), publicKey(name, properties.getProperty(name).trim()));
+            }
+        }
+
+        final String current = trim(properties.getProperty(CURRENT));
+        if (current != null && !secrets.containsKey(current)) {
+            throw new IllegalArgumentException(format("The current key (%s) must be a secret.", current));
+        }
+        final String currentId = keyring.currentId();
+        if (current == null && currentId != null && !secrets.containsKey(currentId)) {
+            throw new IllegalArgumentException(
+                format("The key (%s) that is currently signing tokens cannot be removed without a new current key.",
+                    currentId)
+            );
+        }
+        final String fallback = trim(properties.getProperty(FALLBACK));
+        if (fallback != null && !secrets.containsKey(fallback) && !publicKeys.containsKey(fallback)) {
+            throw new IllegalArgumentException(format("The fallback key (%s) is not in the properties.", fallback));
+        }
+
+        keyring.replace(secrets, publicKeys, current, fallback);
+    }
+
+    /**
+     * Reload the keys if the file has changed. Any error is logged instead of thrown so that a bad edit to the file
+     * doesn't stop it from being checked again, the keyring keeps its current keys until the file is fixed.
+     */
+    @Override
+    public void run() {
+        try {
+            load();
+        } catch (RuntimeException e) {
+            log.error("Could not reload the keyring file ({}).", file, e);
+        }
+    }
+
+    private static byte[] sha256(byte[] bytes) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String trim(String value) {
+        return value == null ? null : value.trim();
+    }
+
+    private static Key secret(String name, String value) {
+        final Key key = SecretKeys.hmacKey(value, HS512);
+        if (key == null) {
+            throw new IllegalArgumentException(format("The secret (%s) must not be empty.", name));
+        }
+        return key;
+    }
+
+    private static PublicKey publicKey(String name, String value) {
+        final X509EncodedKeySpec spec = new X509EncodedKeySpec(new DataConverterBase64().decode(value));
+        for (String algorithm : PUBLIC_KEY_ALGORITHMS) {
+            try {
+                return KeyFactory.getInstance(algorithm).generatePublic(spec);
+            } catch (GeneralSecurityException e) {
+                // Try the next algorithm.
+            }
+        }
+        throw new IllegalArgumentException(format("The public key (%s) is not an RSA or EC key.", name));
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A channel that hands every published batch straight to the subscribers within the same JVM. This is useful for
+ * tests, or for running several nodes within the one process.
+ *
+ * @author Karl Bennett
+ */
+public class LoopbackRevocationChannel implements RevocationChannel {
+
+    private final List<RevocationSubscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(List<Revocation> revocations) {
+        for (RevocationSubscriber subscriber : subscribers) {
+            subscriber.received(revocations);
+        }
+    }
+
+    @Override
+    public void subscribe(RevocationSubscriber subscriber) {
+        subscribers.add(subscriber);
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.UnsupportedJwtException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.util.HashMap;
+import java.util.Map;
+
+import static io.jsonwebtoken.SignatureAlgorithm.HS256;
+import static io.jsonwebtoken.SignatureAlgorithm.HS384;
+import static io.jsonwebtoken.SignatureAlgorithm.HS512;
+import static java.lang.String.format;
+
+/**
+ * This verifier checks the HMAC signature of a JWS token. The key is derived once when the verifier is created and
+ * every thread keeps its own initialised {@link Mac} for each of the HS256, HS384, and HS512 algorithms so the only
+ * work done per token is the hashing of its header and payload.
+ *
+ * @author Karl Bennett
+ */
+public class MacJwsVerifier implements JwsVerifier {
+
+    private static final SignatureAlgorithm[] ALGORITHMS = {HS256, HS384, HS512};
+
+    private final Map<String, ThreadLocalMac> headerMacs;
+    private final Map<String, ThreadLocalMac> algorithmMacs;
+    private final UrlSafeBase64 base64;
+    private final ObjectMapper objectMapper;
+    private final ThreadLocal<byte[][]> buffers;
+
+    public MacJwsVerifier(Key key) {
+        this(key, null);
+    }
+
+    /**
+     * @param keyId the "kid" header that the tokens signed by this key will have, or {@code null} if they have none.
+     */
+    public MacJwsVerifier(Key key, String keyId) {
+        this(key, keyId, new UrlSafeBase64(), new ObjectMapper());
+    }
+
+    public MacJwsVerifier(Key key, String keyId, UrlSafeBase64 base64, ObjectMapper objectMapper) {
+        this.headerMacs = new HashMap<>();
+        this.algorithmMacs = new HashMap<>();
+        this.base64 = base64;
+        this.objectMapper = objectMapper;
+        this.buffers = new ThreadLocal<byte[][]>() {
+            @Override
+            protected byte[][] initialValue() {
+                return new byte[][]{new byte[512], new byte[64], new byte[64]};
+            }
+        };
+
+        final byte[] secret = key.getEncoded();
+        for (SignatureAlgorithm algorithm : ALGORITHMS) {
+            final ThreadLocalMac mac = new ThreadLocalMac(new SecretKeySpec(secret, algorithm.getJcaName()));
+            for (String header : JwsHeaders.encode(base64, objectMapper, algorithm, keyId)) {
+                headerMacs.put(header, mac);
+            }
+            algorithmMacs.put(algorithm.getValue(), mac);
+        }
+    }
+
+    @Override
+    public boolean verify(String token) {
+
+        final int headerEnd = token.indexOf('.');
+        final int payloadEnd = token.lastIndexOf('.');
+        if (headerEnd < 0 || headerEnd == payloadEnd || token.indexOf('.', headerEnd + 1) != payloadEnd) {
+            throw new MalformedJwtException("JWT strings must contain exactly 2 period characters.");
+        }
+
+        if (payloadEnd == token.length() - 1) {
+            return false;
+        }
+
+        final Mac mac = findMac(token.substring(0, headerEnd)).get();
+        final int macLength = mac.getMacLength();
+        final byte[][] buffers = signingBuffers(payloadEnd, macLength);
+        final byte[] input = buffers[0];
+        final byte[] digest = buffers[1];
+        final byte[] signature = buffers[2];
+
+        try {
+            if (UrlSafeBase64.decodedLength(token, payloadEnd + 1, token.length()) != macLength) {
+                return false;
+            }
+            base64.decodeCanonical(token, payloadEnd + 1, token.length(), signature, 0);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+
+        for (int i = 0; i < payloadEnd; i++) {
+            final char character = token.charAt(i);
+            // A valid token is only ever made up of ASCII characters.
+            if (character > 0x7f) {
+                return false;
+            }
+            input[i] = (byte) character;
+        }
+
+        try {
+            mac.update(input, 0, payloadEnd);
+            mac.doFinal(digest, 0);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+
+        return isEqual(signature, digest, macLength);
+    }
+
+    private ThreadLocalMac findMac(String header) {
+        final ThreadLocalMac mac = headerMacs.get(header);
+        if (mac != null) {
+            return mac;
+        }
+
+        final Object algorithm = JwsHeaders.read(base64, objectMapper, header).get(JwsHeaders.ALGORITHM);
+        final ThreadLocalMac algorithmMac = algorithmMacs.get(algorithm);
+        if (algorithmMac == null) {
+            throw new UnsupportedJwtException(format("The JWT signature algorithm (%s) is not supported.", algorithm));
+        }
+        return algorithmMac;
+    }
+
+    private byte[][] signingBuffers(int inputLength, int digestLength) {
+        final byte[][] current = buffers.get();
+        if (current[0].length < inputLength) {
+            current[0] = new byte[inputLength];
+        }
+        if (current[1].length < digestLength) {
+            current[1] = new byte[digestLength];
+            current[2] = new byte[digestLength];
+        }
+        return current;
+    }
+
+    /**
+     * A constant time comparison, in the same vein as {@link java.security.MessageDigest#isEqual(byte[], byte[])}, that
+     * only compares the start of the digest buffer.
+     */
+    private static boolean isEqual(byte[] signature, byte[] digest, int length) {
+        int result = 0;
+        for (int i = 0; i < length; i++) {
+            result |= signature[i] ^ digest[i];
+        }
+        return result == 0;
+    }
+
+    private static class ThreadLocalMac extends ThreadLocal<Mac> {
+
+        private final SecretKeySpec key;
+
+        private ThreadLocalMac(SecretKeySpec key) {
+            this.key = key;
+        }
+
+        @Override
+        protected Mac initialValue() {
+            try {
+                final Mac mac = Mac.getInstance(key.getAlgorithm());
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+/**
+ * This token parser decorator records how long every token takes to create and parse, and why any tokens were
+ * rejected. A token that parses to {@code null} is recorded as {@link TokenOutcome#EXPIRED} if the supplied
+ * {@link Expiries} show that it has expired, otherwise it is recorded as {@link TokenOutcome#REJECTED}. The expiry is
+ * only read for rejected tokens so accepted tokens cost no more than two clock reads.
+ *
+ * @author Karl Bennett
+ */
+public class MeasuredTokenParser<T> implements TokenParser<T> {
+
+    private final TokenParser<T> tokenParser;
+    private final TokenMetrics metrics;
+    private final Expiries expiries;
+    private final Clock clock;
+
+    public MeasuredTokenParser(TokenParser<T> tokenParser, TokenMetrics metrics) {
+        this(tokenParser, metrics, new JwtExpiries());
+    }
+
+    /**
+     * Use this constructor when decorating a token parser that doesn't produce JWT tokens, e.g. the
+     * {@link BinaryTokenParser} would be decorated with the {@link BinaryExpiries}.
+     */
+    public MeasuredTokenParser(TokenParser<T> tokenParser, TokenMetrics metrics, Expiries expiries) {
+        this(tokenParser, metrics, expiries, new SystemDates());
+    }
+
+    public MeasuredTokenParser(TokenParser<T> tokenParser, TokenMetrics metrics, Expiries expiries, Clock clock) {
+        this.tokenParser = tokenParser;
+        this.metrics = metrics;
+        this.expiries = expiries;
+        this.clock = clock;
+    }
+
+    @Override
+    public String create(T entity) throws Exception {
+        final long start = System.nanoTime();
+        final String token = tokenParser.create(entity);
+        metrics.created(System.nanoTime() - start, token.length());
+        return token;
+    }
+
+    @Override
+    public T parse(String token) throws Exception {
+        final long start = System.nanoTime();
+        final T entity;
+        try {
+            entity = tokenParser.parse(token);
+        } catch (Exception e) {
+            metrics.parsed(TokenOutcomes.failed(e), System.nanoTime() - start, token.length());
+            throw e;
+        }
+        final long nanos = System.nanoTime() - start;
+        final TokenOutcome outcome = entity == null
+            ? TokenOutcomes.rejected(token, expiries, clock)
+            : TokenOutcome.VALID;
+        metrics.parsed(outcome, nanos, token.length());
+        return entity;
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import org.msgpack.MessagePack;
+import org.msgpack.MessageTypeException;
+import org.msgpack.template.Template;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.HashSet;
+import java.util.Set;
+
+import static java.lang.reflect.Modifier.isStatic;
+import static java.lang.reflect.Modifier.isTransient;
+
+/**
+ * Resolves the MessagePack {@link Template} for a type once so that it doesn't have to be looked up for every token.
+ * Types that have not been annotated with {@link org.msgpack.annotation.Message} are registered along with the types of
+ * all their fields, which causes MessagePack to generate a specialised template for each of them.
+ *
+ * @author Karl Bennett
+ */
+public final class MessagePackTemplates {
+
+    private MessagePackTemplates() {
+    }
+
+    /**
+     * @return the template for the supplied type or {@code null} if one could not be built.
+     */
+    public static <T> Template<T> lookup(MessagePack messagePack, Class<T> type) {
+        try {
+            register(messagePack, type, new HashSet<Class<?>>());
+            return messagePack.lookup(type);
+        } catch (MessageTypeException e) {
+            return null;
+        }
+    }
+
+    private static void register(MessagePack messagePack, Class<?> type, Set<Class<?>> visited) {
+        if (!visited.add(type) || isBuiltIn(type) || hasTemplate(messagePack, type)) {
+            return;
+        }
+
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                if (!isStatic(field.getModifiers()) && !isTransient(field.getModifiers())) {
+                    registerAll(messagePack, field.getGenericType(), visited);
+                }
+            }
+        }
+
+        messagePack.register(type);
+    }
+
+    private static void registerAll(MessagePack messagePack, Type type, Set<Class<?>> visited) {
+        if (type instanceof Class) {
+            final Class<?> clazz = (Class<?>) type;
+            register(messagePack, clazz.isArray() ? clazz.getComponentType() : clazz, visited);
+        }
+        if (type instanceof ParameterizedType) {
+            for (Type argument : ((ParameterizedType) type).getActualTypeArguments()) {
+                registerAll(messagePack, argument, visited);
+            }
+        }
+    }
+
+    private static boolean isBuiltIn(Class<?> type) {
+        return type.isPrimitive() || type.isInterface() || type.getName().startsWith("java.");
+    }
+
+    private static boolean hasTemplate(MessagePack messagePack, Class<?> type) {
+        try {
+            return messagePack.lookup(type) != null;
+        } catch (MessageTypeException e) {
+            return false;
+        }
+    }
+}
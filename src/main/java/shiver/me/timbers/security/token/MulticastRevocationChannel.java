@@ -0,0 +1,239 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.crypto.Mac;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.MulticastSocket;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static io.jsonwebtoken.SignatureAlgorithm.HS256;
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A channel that sends the revocations to every node on the local network with UDP multicast. Each batch is written
+ * as lines of a token id followed by the time its token expires in milliseconds, or 0 if it never expires, and is
+ * split across as many datagrams as it takes to keep each one small enough not to be fragmented.
+ * <p>
+ * Every datagram starts with an HMAC-SHA256 tag of its revocations and any datagram without a valid tag is dropped.
+ * Anyone who has the secret can revoke any token on every node, so it should only be shared with the nodes in the
+ * cluster and should not be the same secret that signs the tokens.
+ * <p>
+ * UDP gives no guarantee of delivery, so a node that must never miss a revocation should also reload from a shared
+ * {@link RevocationStore} on a schedule.
+ *
+ * @author Karl Bennett
+ */
+public class MulticastRevocationChannel implements RevocationChannel, Closeable {
+
+    static final int MAXIMUM_DATAGRAM_SIZE = 1200;
+    static final int TAG_LENGTH = 32;
+    private static final long NEVER = 0;
+
+    private static final Logger log = LoggerFactory.getLogger(MulticastRevocationChannel.class);
+
+    private final InetAddress group;
+    private final int port;
+    private final ThreadLocal<Mac> macs;
+    private final MulticastSocket socket;
+    private final List<RevocationSubscriber> subscribers = new CopyOnWriteArrayList<>();
+    private Thread receiver;
+
+    /**
+     * @param secret a Base64 encoded secret that is shared by all the nodes in the cluster.
+     */
+    public MulticastRevocationChannel(InetAddress group, int port, String secret) {
+        this(group, port, SecretKeys.hmacKey(secret, HS256));
+    }
+
+    public MulticastRevocationChannel(InetAddress group, int port, final Key key) {
+        if (key == null) {
+            throw new IllegalArgumentException("The revocations must be signed with a secret key.");
+        }
+        this.group = group;
+        this.port = port;
+        this.macs = macs(key);
+        try {
+            this.socket = new MulticastSocket(port);
+            socket.joinGroup(group);
+        } catch (IOException e) {
+            throw new IllegalStateException(format("Could not join the multicast group (%s:%d).", group, port), e);
+        }
+    }
+
+    @Override
+    public void publish(List<Revocation> revocations) {
+        try {
+            for (byte[] payload : encode(revocations, MAXIMUM_DATAGRAM_SIZE - TAG_LENGTH)) {
+                final byte[] datagram = sign(macs.get(), payload);
+                socket.send(new DatagramPacket(datagram, datagram.length, group, port));
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(format("Could not publish the revocations to (%s:%d).", group, port), e);
+        }
+    }
+
+    /**
+     * The first subscription starts a daemon thread that receives the datagrams for as long as this channel is open.
+     */
+    @Override
+    public synchronized void subscribe(RevocationSubscriber subscriber) {
+        subscribers.add(subscriber);
+        if (receiver == null) {
+            receiver = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    receive();
+                }
+            }, "revocation-channel-" + port);
+            receiver.setDaemon(true);
+            receiver.start();
+        }
+    }
+
+    private void receive() {
+        final byte[] buffer = new byte[MAXIMUM_DATAGRAM_SIZE];
+        while (!socket.isClosed()) {
+            final DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+            final List<Revocation> revocations;
+            try {
+                socket.receive(packet);
+                revocations = verify(macs.get(), packet.getData(), packet.getOffset(), packet.getLength());
+            } catch (IOException e) {
+                // The socket has been closed.
+                continue;
+            } catch (IllegalArgumentException e) {
+                log.debug("Dropped a datagram from ({}) that was not a signed batch of revocations.",
+                    packet.getSocketAddress());
+                continue;
+            }
+            for (RevocationSubscriber subscriber : subscribers) {
+                // One failing subscriber must not stop this thread, otherwise no more revocations would be received.
+                try {
+                    subscriber.received(revocations);
+                } catch (RuntimeException e) {
+                    log.error("Could not apply the revocations received from ({}).", packet.getSocketAddress(), e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        socket.close();
+    }
+
+    static List<byte[]> encode(List<Revocation> revocations, int maximumSize) {
+        final List<byte[]> datagrams = new ArrayList<>();
+        final ByteArrayOutputStream datagram = new ByteArrayOutputStream(maximumSize);
+        for (Revocation revocation : revocations) {
+            final Date expiry = revocation.getExpiry();
+            final byte[] line = format("%s %d\n", revocation.getId(), expiry == null ? NEVER : expiry.getTime())
+                .getBytes(UTF_8);
+            if (line.length > maximumSize) {
+                throw new IllegalArgumentException(
+                    format("The token id (%s) is too long to fit in a datagram.", revocation.getId())
+                );
+            }
+            if (datagram.size() + line.length > maximumSize) {
+                datagrams.add(datagram.toByteArray());
+                datagram.reset();
+            }
+            datagram.write(line, 0, line.length);
+        }
+        if (datagram.size() > 0) {
+            datagrams.add(datagram.toByteArray());
+        }
+        return datagrams;
+    }
+
+    static List<Revocation> decode(byte[] bytes, int offset, int length) {
+        final List<Revocation> revocations = new ArrayList<>();
+        for (String line : new String(bytes, offset, length, UTF_8).split("\n")) {
+            final int space = line.indexOf(' ');
+            if (space <= 0) {
+                throw new IllegalArgumentException(format("The revocation (%s) must be an id and an expiry.", line));
+            }
+            final long expiry = Long.parseLong(line.substring(space + 1));
+            revocations.add(new Revocation(line.substring(0, space), expiry == NEVER ? null : new Date(expiry)));
+        }
+        return revocations;
+    }
+
+    /**
+     * @return the payload with its tag in front of it.
+     */
+    static byte[] sign(Mac mac, byte[] payload) {
+        final byte[] datagram = new byte[TAG_LENGTH + payload.length];
+        try {
+            mac.update(payload);
+            mac.doFinal(datagram, 0);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+        System.arraycopy(payload, 0, datagram, TAG_LENGTH, payload.length);
+        return datagram;
+    }
+
+    /**
+     * @return the revocations from a datagram that has a valid tag.
+     * @throws IllegalArgumentException if the datagram has not been signed with the same secret.
+     */
+    static List<Revocation> verify(Mac mac, byte[] bytes, int offset, int length) {
+        if (length <= TAG_LENGTH) {
+            throw new IllegalArgumentException("The datagram is too short to have been signed.");
+        }
+        mac.update(bytes, offset + TAG_LENGTH, length - TAG_LENGTH);
+        final byte[] tag = mac.doFinal();
+        int result = 0;
+        for (int i = 0; i < TAG_LENGTH; i++) {
+            result |= bytes[offset + i] ^ tag[i];
+        }
+        if (result != 0) {
+            throw new IllegalArgumentException("The datagram has not been signed with the cluster's secret.");
+        }
+        return decode(bytes, offset + TAG_LENGTH, length - TAG_LENGTH);
+    }
+
+    private static ThreadLocal<Mac> macs(final Key key) {
+        return new ThreadLocal<Mac>() {
+            @Override
+            protected Mac initialValue() {
+                try {
+                    final Mac mac = Mac.getInstance(HS256.getJcaName());
+                    mac.init(key);
+                    return mac;
+                } catch (GeneralSecurityException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.SignatureException;
+import io.jsonwebtoken.UnsupportedJwtException;
+
+import java.util.concurrent.TimeUnit;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * This token parser decorator will remember the tokens that were recently rejected so that a client that keeps
+ * retrying with a stale or tampered token only has its token verified once. A remembered token is rejected in the same
+ * way it was the first time, either by returning {@code null} or by throwing a new exception of the same type with the
+ * same message. Only the failures that are caused by the token itself are remembered, any other failure is left to be
+ * retried. A token that is not valid yet is never remembered because it could become valid before it would be
+ * forgotten.
+ * <p>
+ * A token signed by a key that hasn't been loaded into a {@link Keyring} yet is rejected in the same way as a tampered
+ * token. So if the parser verifies tokens with a keyring then supply it with {@link #withKeyring(Keyring)} and every
+ * rejection remembered before the keys last changed will be forgotten.
+ * <p>
+ * The rejected tokens are kept in their own small bounded cache, separate from any {@link CachingTokenParser}, so that
+ * a flood of bad tokens can never evict the tokens of the users that are signed in. Decorate the
+ * {@link NegativeCachingTokenParser} with the {@link CachingTokenParser}, not the other way round, so that valid
+ * tokens never have to look in this cache.
+ *
+ * @author Karl Bennett
+ */
+public class NegativeCachingTokenParser<T> implements TokenParser<T> {
+
+    private static final long DEFAULT_DURATION = 30;
+
+    private final TokenParser<T> tokenParser;
+    private final TokenCache<Rejection> cache;
+    private final long durationMillis;
+    private final Digests digests;
+    private final Clock clock;
+    private Keyring keyring;
+
+    /**
+     * Rejected tokens will be remembered for 30 seconds.
+     */
+    public NegativeCachingTokenParser(TokenParser<T> tokenParser, int maximumSize) {
+        this(tokenParser, maximumSize, DEFAULT_DURATION, SECONDS);
+    }
+
+    public NegativeCachingTokenParser(TokenParser<T> tokenParser, int maximumSize, long duration, TimeUnit unit) {
+        this(tokenParser, maximumSize, duration, unit, new FnvDigests(), new SystemDates());
+    }
+
+    public NegativeCachingTokenParser(
+        TokenParser<T> tokenParser,
+        int maximumSize,
+        long duration,
+        TimeUnit unit,
+        Digests digests,
+        Clock clock
+    ) {
+        this.tokenParser = tokenParser;
+        this.cache = new TokenCache<>(maximumSize);
+        this.durationMillis = unit.toMillis(duration);
+        this.digests = digests;
+        this.clock = clock;
+    }
+
+    @Override
+    public String create(T entity) throws Exception {
+        return tokenParser.create(entity);
+    }
+
+    @Override
+    public T parse(String token) throws Exception {
+
+        final Long key = digests.digest(token);
+
+        final Rejection rejection = cache.get(key);
+
+        // The keyring version must be read before parsing so that a rejection from keys that changed mid parse is never
+        // remembered as if it came from the new keys.
+        final long version = version();
+
+        if (rejection != null && rejection.token.equals(token)) {
+            if (rejection.version == version && clock.now().getTime() < rejection.expires) {
+                cache.hit();
+                if (rejection.exception != null) {
+                    throw copy(rejection.exception);
+                }
+                return null;
+            }
+            cache.remove(key);
+        }
+
+        cache.miss();
+
+        final T entity;
+        try {
+            entity = tokenParser.parse(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            if (remembers(e)) {
+                remember(key, token, e, version);
+            }
+            throw e;
+        }
+
+        if (entity == null) {
+            remember(key, token, null, version);
+        }
+
+        return entity;
+    }
+
+    /**
+     * Forget any rejections that were remembered before the keys in the supplied keyring last changed.
+     */
+    public NegativeCachingTokenParser<T> withKeyring(Keyring keyring) {
+        this.keyring = keyring;
+        return this;
+    }
+
+    private long version() {
+        return keyring == null ? 0 : keyring.version();
+    }
+
+    private void remember(Long key, String token, RuntimeException exception, long version) {
+        cache.put(key, new Rejection(token, exception, clock.now().getTime() + durationMillis, version));
+    }
+
+    /**
+     * @return true if the exception is one that {@link #copy(RuntimeException)} can recreate, so it can be remembered.
+     */
+    private static boolean remembers(RuntimeException e) {
+        final Class<?> type = e.getClass();
+        return type == ExpiredJwtException.class
+            || type == SignatureException.class
+            || type == MalformedJwtException.class
+            || type == UnsupportedJwtException.class
+            || type == IllegalArgumentException.class;
+    }
+
+    /**
+     * A cached exception is never thrown again, a new one is created for every rejection so that no two requests ever
+     * share an exception that could be changed by either of them, e.g. by adding a suppressed exception.
+     *
+     * @return a new exception of the same type with the same message, or {@code null} if the exception is not one that
+     * is remembered.
+     */
+    private static RuntimeException copy(RuntimeException e) {
+        final Class<?> type = e.getClass();
+        if (type == ExpiredJwtException.class) {
+            final ExpiredJwtException expired = (ExpiredJwtException) e;
+            return new ExpiredJwtException(expired.getHeader(), expired.getClaims(), e.getMessage());
+        }
+        if (type == SignatureException.class) {
+            return new SignatureException(e.getMessage());
+        }
+        if (type == MalformedJwtException.class) {
+            return new MalformedJwtException(e.getMessage());
+        }
+        if (type == UnsupportedJwtException.class) {
+            return new UnsupportedJwtException(e.getMessage());
+        }
+        if (type == IllegalArgumentException.class) {
+            return new IllegalArgumentException(e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * @return the number of parses that were rejected straight from the cache.
+     */
+    public long getHits() {
+        return cache.getHits();
+    }
+
+    /**
+     * @return the number of parses that had to be delegated to the decorated token parser.
+     */
+    public long getMisses() {
+        return cache.getMisses();
+    }
+
+    /**
+     * @return the number of rejected tokens that have been evicted because the cache was full.
+     */
+    public long getEvictions() {
+        return cache.getEvictions();
+    }
+
+    /**
+     * @return the number of rejected tokens currently in the cache.
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    private static class Rejection {
+
+        private final String token;
+        private final RuntimeException exception;
+        private final long expires;
+        private final long version;
+
+        private Rejection(String token, RuntimeException exception, long expires, long version) {
+            this.token = token;
+            this.exception = exception;
+            this.expires = expires;
+            this.version = version;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+/**
+ * A token parser that can revoke the tokens it has created so that they are no longer accepted even though they have
+ * not yet expired, e.g. on logout or when a token is known to have been compromised.
+ *
+ * @author Karl Bennett
+ */
+public interface RevocableTokenParser<T> extends TokenParser<T> {
+
+    /**
+     * Revoke the supplied token, it will fail to parse from now on. Tokens that have already expired, or that
+     * have no "jti" claim, are ignored.
+     */
+    void revoke(String token) throws Exception;
+
+    /**
+     * @return the revocations that the parsed tokens are checked against, or {@code null} if there are none.
+     */
+    Revocations getRevocations();
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import java.util.Date;
+
+/**
+ * The id of a revoked token along with the date the token would have expired.
+ *
+ * @author Karl Bennett
+ */
+public class Revocation {
+
+    private final String id;
+    private final Date expiry;
+
+    /**
+     * @param expiry the date the token would have expired, or {@code null} if it never expires.
+     */
+    public Revocation(String id, Date expiry) {
+        this.id = id;
+        this.expiry = expiry;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Date getExpiry() {
+        return expiry;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (this == object) {
+            return true;
+        }
+        if (object == null || getClass() != object.getClass()) {
+            return false;
+        }
+        final Revocation that = (Revocation) object;
+        return id.equals(that.id) && (expiry == null ? that.expiry == null : expiry.equals(that.expiry));
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * id.hashCode() + (expiry == null ? 0 : expiry.hashCode());
+    }
+
+    @Override
+    public String toString() {
+        return "Revocation{id='" + id + "', expiry=" + expiry + "}";
+    }
+}
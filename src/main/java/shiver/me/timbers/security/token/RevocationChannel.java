@@ -0,0 +1,38 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import java.util.List;
+
+/**
+ * The transport that carries revocations from the node that revoked a token to all the other nodes. A channel is only
+ * ever used in the background, never while a request is being authenticated.
+ *
+ * @author Karl Bennett
+ */
+public interface RevocationChannel {
+
+    /**
+     * Send a batch of revocations to all the nodes that are subscribed to this channel.
+     */
+    void publish(List<Revocation> revocations);
+
+    /**
+     * Register a subscriber that will be handed every batch of revocations that is received.
+     */
+    void subscribe(RevocationSubscriber subscriber);
+}
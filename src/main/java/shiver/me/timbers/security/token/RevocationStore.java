@@ -0,0 +1,39 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * Stores the revoked token ids so that they can be shared between processes or survive a restart.
+ *
+ * @author Karl Bennett
+ */
+public interface RevocationStore {
+
+    /**
+     * Store the id of a revoked token along with the date the token would have expired, which may be {@code null}.
+     */
+    void add(String id, Date expiry);
+
+    /**
+     * @return all the revoked token ids mapped to the dates their tokens would have expired, any that have already
+     * expired may be left out.
+     */
+    Map<String, Date> load();
+}
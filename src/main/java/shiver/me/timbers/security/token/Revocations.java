@@ -0,0 +1,40 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import java.util.Date;
+
+/**
+ * Keeps track of the ids ("jti" claims) of the tokens that have been revoked before they expired.
+ *
+ * @author Karl Bennett
+ */
+public interface Revocations {
+
+    /**
+     * Revoke the token with the supplied id.
+     *
+     * @param expiry the date the token would have expired, after which it no longer needs to be remembered. A
+     *               {@code null} expiry means that the token never expires so must be remembered forever.
+     */
+    void revoke(String id, Date expiry);
+
+    /**
+     * @return true if the token with the supplied id has been revoked.
+     */
+    boolean isRevoked(String id);
+}
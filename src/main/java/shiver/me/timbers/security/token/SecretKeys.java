@@ -0,0 +1,60 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.security.Key;
+
+/**
+ * Derives HMAC keys from a secret {@link String}. The secret is decoded in the same way that the jjwt
+ * {@link io.jsonwebtoken.JwtBuilder} and {@link io.jsonwebtoken.JwtParser} would decode it so that the same secret
+ * will always produce the same key.
+ *
+ * @author Karl Bennett
+ */
+public final class SecretKeys {
+
+    private SecretKeys() {
+    }
+
+    /**
+     * @return the key for the supplied secret, or {@code null} if no secret was supplied.
+     */
+    public static Key hmacKey(String secret, SignatureAlgorithm algorithm) {
+        if (secret == null || secret.isEmpty()) {
+            return null;
+        }
+        final byte[] bytes = new DataConverterBase64().decode(secret);
+        if (bytes.length == 0) {
+            return null;
+        }
+        return new SecretKeySpec(bytes, algorithm.getJcaName());
+    }
+
+    /**
+     * @return the supplied key.
+     * @throws IllegalArgumentException if no key was supplied, e.g. because the secret it was derived from was empty.
+     */
+    static Key require(Key key) {
+        if (key == null) {
+            throw new IllegalArgumentException("A signing key is required, check that the secret is not empty.");
+        }
+        return key;
+    }
+}
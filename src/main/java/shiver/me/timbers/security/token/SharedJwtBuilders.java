@@ -0,0 +1,41 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package shiver.me.timbers.security.token;
+
+import io.jsonwebtoken.JwtBuilder;
+
+/**
+ * Supplies the same {@link JwtBuilder} every time so that a builder that was customised before it was handed to the
+ * deprecated {@link JwtTokenParser} constructor is still used. The {@link JwtTokenParser} creates its tokens one at a
+ * time when it is given these builders because the builder can't be shared between concurrent token creations.
+ *
+ * @author Karl Bennett
+ */
+class SharedJwtBuilders implements JwtBuilders {
+
+    private final JwtBuilder jwtBuilder;
+
+    SharedJwtBuilders(JwtBuilder jwtBuilder) {
+        this.jwtBuilder = jwtBuilder;
+    }
+
+    @Override
+    public JwtBuilder create() {
+        return jwtBuilder;
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+
+import java.security.Key;
+import java.security.interfaces.ECKey;
+import java.security.interfaces.RSAKey;
+
+import static io.jsonwebtoken.SignatureAlgorithm.ES256;
+import static io.jsonwebtoken.SignatureAlgorithm.ES384;
+import static io.jsonwebtoken.SignatureAlgorithm.ES512;
+import static io.jsonwebtoken.SignatureAlgorithm.HS512;
+import static io.jsonwebtoken.SignatureAlgorithm.RS256;
+import static io.jsonwebtoken.SignatureAlgorithm.RS384;
+import static io.jsonwebtoken.SignatureAlgorithm.RS512;
+import static java.lang.String.format;
+
+/**
+ * Chooses the JWS signature algorithm that should be used with a key.
+ *
+ * @author Karl Bennett
+ */
+public final class SignatureAlgorithms {
+
+    private SignatureAlgorithms() {
+    }
+
+    /**
+     * @return RS256 for RSA keys, the ECDSA algorithm that matches the curve size of elliptic curve keys, or HS512 for
+     * any other key which is then assumed to be an HMAC secret.
+     */
+    public static SignatureAlgorithm forKey(Key key) {
+        if (key instanceof RSAKey) {
+            return RS256;
+        }
+        if (key instanceof ECKey) {
+            final int fieldSize = ((ECKey) key).getParams().getCurve().getField().getFieldSize();
+            if (fieldSize <= 256) {
+                return ES256;
+            }
+            if (fieldSize <= 384) {
+                return ES384;
+            }
+            return ES512;
+        }
+        return HS512;
+    }
+
+    /**
+     * @return the algorithms that can be verified with the supplied public key.
+     */
+    static SignatureAlgorithm[] verifiable(Key key) {
+        if (key instanceof RSAKey) {
+            return new SignatureAlgorithm[]{RS256, RS384, RS512};
+        }
+        if (key instanceof ECKey) {
+            return new SignatureAlgorithm[]{forKey(key)};
+        }
+        throw new IllegalArgumentException(
+            format("Only RSA and elliptic curve public keys can be used to verify signatures, not %s.", key)
+        );
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.UnsupportedJwtException;
+
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.security.interfaces.ECKey;
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.lang.String.format;
+
+/**
+ * This verifier checks the RSA or ECDSA signature of a JWS token with a public key, so it can be used by nodes that
+ * only ever need to verify tokens and must never be able to create them. Every thread keeps its own {@link Signature}
+ * that has already been initialised with the public key for each of the algorithms that the key supports.
+ * <p>
+ * ECDSA signatures are accepted both in the standard JWS format, which is the concatenated R and S values, and in the
+ * DER format that is produced by the version of jjwt that is used to create tokens.
+ *
+ * @author Karl Bennett
+ */
+public class SignatureJwsVerifier implements JwsVerifier {
+
+    private final Map<String, ThreadLocalSignature> headerSignatures;
+    private final Map<String, ThreadLocalSignature> algorithmSignatures;
+    private final int ecdsaLength;
+    private final UrlSafeBase64 base64;
+    private final ObjectMapper objectMapper;
+    private final ThreadLocal<byte[][]> buffers;
+
+    public SignatureJwsVerifier(PublicKey key) {
+        this(key, null);
+    }
+
+    /**
+     * @param keyId the "kid" header that the tokens signed by this key will have, or {@code null} if they have none.
+     */
+    public SignatureJwsVerifier(PublicKey key, String keyId) {
+        this(key, keyId, new UrlSafeBase64(), new ObjectMapper());
+    }
+
+    public SignatureJwsVerifier(PublicKey key, String keyId, UrlSafeBase64 base64, ObjectMapper objectMapper) {
+        this.headerSignatures = new HashMap<>();
+        this.algorithmSignatures = new HashMap<>();
+        this.ecdsaLength = key instanceof ECKey ?
+            (((ECKey) key).getParams().getCurve().getField().getFieldSize() + 7) / 8 * 2 : 0;
+        this.base64 = base64;
+        this.objectMapper = objectMapper;
+        this.buffers = new ThreadLocal<byte[][]>() {
+            @Override
+            protected byte[][] initialValue() {
+                return new byte[][]{new byte[512], new byte[512]};
+            }
+        };
+
+        for (SignatureAlgorithm algorithm : SignatureAlgorithms.verifiable(key)) {
+            final ThreadLocalSignature signature = new ThreadLocalSignature(key, algorithm.getJcaName());
+            for (String header : JwsHeaders.encode(base64, objectMapper, algorithm, keyId)) {
+                headerSignatures.put(header, signature);
+            }
+            algorithmSignatures.put(algorithm.getValue(), signature);
+        }
+    }
+
+    @Override
+    public boolean verify(String token) {
+
+        final int headerEnd = token.indexOf('.');
+        final int payloadEnd = token.lastIndexOf('.');
+        if (headerEnd < 0 || headerEnd == payloadEnd || token.indexOf('.', headerEnd + 1) != payloadEnd) {
+            throw new MalformedJwtException("JWT strings must contain exactly 2 period characters.");
+        }
+
+        if (payloadEnd == token.length() - 1) {
+            return false;
+        }
+
+        final ThreadLocalSignature threadSignature = findSignature(token.substring(0, headerEnd));
+        final int signatureLength;
+        final byte[][] buffers;
+        try {
+            signatureLength = UrlSafeBase64.decodedLength(token, payloadEnd + 1, token.length());
+            buffers = signingBuffers(payloadEnd, signatureLength);
+            base64.decodeCanonical(token, payloadEnd + 1, token.length(), buffers[1], 0);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        final byte[] input = buffers[0];
+
+        for (int i = 0; i < payloadEnd; i++) {
+            final char character = token.charAt(i);
+            // A valid token is only ever made up of ASCII characters.
+            if (character > 0x7f) {
+                return false;
+            }
+            input[i] = (byte) character;
+        }
+
+        byte[] signatureBytes = buffers[1];
+        int signatureBytesLength = signatureLength;
+        if (signatureLength == ecdsaLength) {
+            signatureBytes = toDer(buffers[1], ecdsaLength);
+            signatureBytesLength = signatureBytes.length;
+        }
+
+        final Signature signature = threadSignature.get();
+        try {
+            signature.update(input, 0, payloadEnd);
+            return signature.verify(signatureBytes, 0, signatureBytesLength);
+        } catch (SignatureException e) {
+            // The signature is left in an unknown state after a failure so it is replaced before it is used again.
+            threadSignature.remove();
+            return false;
+        }
+    }
+
+    private ThreadLocalSignature findSignature(String header) {
+        final ThreadLocalSignature signature = headerSignatures.get(header);
+        if (signature != null) {
+            return signature;
+        }
+
+        final Object algorithm = JwsHeaders.read(base64, objectMapper, header).get(JwsHeaders.ALGORITHM);
+        final ThreadLocalSignature algorithmSignature = algorithmSignatures.get(algorithm);
+        if (algorithmSignature == null) {
+            throw new UnsupportedJwtException(format("The JWT signature algorithm (%s) is not supported.", algorithm));
+        }
+        return algorithmSignature;
+    }
+
+    private byte[][] signingBuffers(int inputLength, int signatureLength) {
+        final byte[][] current = buffers.get();
+        if (current[0].length < inputLength) {
+            current[0] = new byte[inputLength];
+        }
+        if (current[1].length < signatureLength) {
+            current[1] = new byte[signatureLength];
+        }
+        return current;
+    }
+
+    /**
+     * Convert a JWS ECDSA signature, which is the R and S values concatenated together, into the DER sequence that
+     * the JCA expects.
+     */
+    static byte[] toDer(byte[] concatenated, int length) {
+        final int half = length / 2;
+        final int rStart = integerStart(concatenated, 0, half);
+        final int sStart = integerStart(concatenated, half, length);
+        final int rLength = half - rStart + (concatenated[rStart] < 0 ? 1 : 0);
+        final int sLength = length - sStart + (concatenated[sStart] < 0 ? 1 : 0);
+        final int sequenceLength = 2 + rLength + 2 + sLength;
+        final int headerLength = sequenceLength < 128 ? 2 : 3;
+
+        final byte[] der = new byte[headerLength + sequenceLength];
+        int index = 0;
+        der[index++] = 0x30;
+        if (headerLength == 3) {
+            der[index++] = (byte) 0x81;
+        }
+        der[index++] = (byte) sequenceLength;
+        index = writeInteger(der, index, concatenated, rStart, half, rLength);
+        writeInteger(der, index, concatenated, sStart, length, sLength);
+        return der;
+    }
+
+    private static int integerStart(byte[] bytes, int start, int end) {
+        int index = start;
+        // Leading zeros are dropped, though at least one byte must always remain.
+        while (index < end - 1 && bytes[index] == 0) {
+            index++;
+        }
+        return index;
+    }
+
+    private static int writeInteger(byte[] der, int index, byte[] bytes, int start, int end, int length) {
+        der[index++] = 0x02;
+        der[index++] = (byte) length;
+        if (bytes[start] < 0) {
+            // A leading zero stops the integer from being read as negative.
+            der[index++] = 0;
+        }
+        System.arraycopy(bytes, start, der, index, end - start);
+        return index + end - start;
+    }
+
+    private static class ThreadLocalSignature extends ThreadLocal<Signature> {
+
+        private final PublicKey key;
+        private final String algorithm;
+
+        private ThreadLocalSignature(PublicKey key, String algorithm) {
+            this.key = key;
+            this.algorithm = algorithm;
+        }
+
+        @Override
+        protected Signature initialValue() {
+            try {
+                final Signature signature = Signature.getInstance(algorithm);
+                signature.initVerify(key);
+                return signature;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+
+import java.security.Key;
+
+/**
+ * The key that new tokens are signed with, along with the algorithm to sign them with and the id that is added to
+ * their "kid" header.
+ *
+ * @author Karl Bennett
+ */
+public class SigningKey {
+
+    private final String id;
+    private final SignatureAlgorithm algorithm;
+    private final Key key;
+
+    /**
+     * @param id the id of the key, or {@code null} if the tokens should not have a "kid" header.
+     */
+    public SigningKey(String id, SignatureAlgorithm algorithm, Key key) {
+        this.id = id;
+        this.algorithm = algorithm;
+        this.key = key;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public SignatureAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    public Key getKey() {
+        return key;
+    }
+}
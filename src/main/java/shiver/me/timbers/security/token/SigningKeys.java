@@ -0,0 +1,30 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+/**
+ * Supplies the key that new tokens should be signed with, this can change over time if the keys are rotated.
+ *
+ * @author Karl Bennett
+ */
+public interface SigningKeys {
+
+    /**
+     * @return the key to sign the next token with, or {@code null} if tokens cannot be created.
+     */
+    SigningKey current();
+}
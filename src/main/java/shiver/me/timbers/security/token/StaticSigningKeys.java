@@ -0,0 +1,43 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+
+import java.security.Key;
+
+/**
+ * Always signs tokens with the same key.
+ *
+ * @author Karl Bennett
+ */
+public class StaticSigningKeys implements SigningKeys {
+
+    private final SigningKey signingKey;
+
+    /**
+     * @param key the key that will sign every token, or {@code null} if tokens cannot be created.
+     */
+    public StaticSigningKeys(SignatureAlgorithm algorithm, Key key) {
+        this.signingKey = key == null ? null : new SigningKey(null, algorithm, key);
+    }
+
+    @Override
+    public SigningKey current() {
+        return signingKey;
+    }
+}
@@ -6,7 +6,12 @@ import java.util.concurrent.TimeUnit;
 /**
  * @author Karl Bennett
  */
-public class SystemDates implements Dates {
+public class SystemDates implements Clock {
+
+    @Override
+    public Date now() {
+        return new Date();
+    }
 
     @Override
     public Date nowPlus(Long duration, TimeUnit unit) {
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.lang.String.format;
+
+/**
+ * A bounded cache of token digests that evicts entries that haven't been used recently once it is full and counts how
+ * well it is doing. The entries should hold the token they were created for because different tokens can have the same
+ * digest.
+ * <p>
+ * The least recently used entry is approximated with the CLOCK algorithm so that a lookup never takes a lock, it only
+ * marks the entry as referenced. Adding and removing entries takes a lock, but they only happen after a token has been
+ * fully parsed.
+ *
+ * @author Karl Bennett
+ */
+class TokenCache<V> {
+
+    private final ConcurrentMap<Long, Node<V>> entries;
+    private final Long[] slots;
+    private final int[] free;
+    private int freeCount;
+    private int hand;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    TokenCache(int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException(format("The cache size (%d) must be greater than zero.", maximumSize));
+        }
+        this.entries = new ConcurrentHashMap<>();
+        this.slots = new Long[maximumSize];
+        this.free = new int[maximumSize];
+    }
+
+    V get(Long key) {
+        final Node<V> node = entries.get(key);
+        if (node == null) {
+            return null;
+        }
+        // Only write the flag when it changes so that a popular entry isn't written to on every lookup.
+        if (!node.referenced) {
+            node.referenced = true;
+        }
+        return node.value;
+    }
+
+    void put(Long key, V value) {
+        synchronized (slots) {
+            final Node<V> existing = entries.get(key);
+            final int slot = existing == null ? claimSlot() : existing.slot;
+            slots[slot] = key;
+            entries.put(key, new Node<>(value, slot));
+        }
+    }
+
+    void remove(Long key) {
+        synchronized (slots) {
+            final Node<V> node = entries.remove(key);
+            if (node != null) {
+                slots[node.slot] = null;
+                free[freeCount++] = node.slot;
+            }
+        }
+    }
+
+    // Must be called while holding the slots lock.
+    private int claimSlot() {
+        if (freeCount > 0) {
+            return free[--freeCount];
+        }
+        // Sweep the hand round the slots giving every referenced entry a second chance, so an unreferenced entry is
+        // always found within two turns.
+        while (true) {
+            final int slot = hand;
+            hand = (hand + 1) % slots.length;
+            final Long key = slots[slot];
+            if (key == null) {
+                return slot;
+            }
+            final Node<V> node = entries.get(key);
+            if (node.referenced) {
+                node.referenced = false;
+                continue;
+            }
+            entries.remove(key);
+            evictions.incrementAndGet();
+            return slot;
+        }
+    }
+
+    void hit() {
+        hits.incrementAndGet();
+    }
+
+    void miss() {
+        misses.incrementAndGet();
+    }
+
+    long getHits() {
+        return hits.get();
+    }
+
+    long getMisses() {
+        return misses.get();
+    }
+
+    long getEvictions() {
+        return evictions.get();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private static class Node<V> {
+
+        private final V value;
+        private final int slot;
+        private volatile boolean referenced;
+
+        private Node(V value, int slot) {
+            this.value = value;
+            this.slot = slot;
+        }
+    }
+}
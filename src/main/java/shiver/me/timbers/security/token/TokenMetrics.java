@@ -0,0 +1,44 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+/**
+ * Implementations of this interface record how long the token operations take and what their outcomes were. They are
+ * called on every request so must be cheap and must not allocate. Implement this interface to bridge the measurements
+ * into a metrics library, or use the {@link CountingTokenMetrics}.
+ *
+ * @author Karl Bennett
+ */
+public interface TokenMetrics {
+
+    /**
+     * @param nanos  how long it took to create the token.
+     * @param length the number of characters in the token.
+     */
+    void created(long nanos, int length);
+
+    /**
+     * @param nanos  how long it took to parse the token.
+     * @param length the number of characters in the token.
+     */
+    void parsed(TokenOutcome outcome, long nanos, int length);
+
+    /**
+     * @param nanos how long it took to find the token in the request.
+     */
+    void retrieved(TokenSource source, long nanos);
+}
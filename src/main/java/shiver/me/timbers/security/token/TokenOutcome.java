@@ -0,0 +1,54 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+/**
+ * The reasons a token can be accepted or rejected when it is parsed.
+ *
+ * @author Karl Bennett
+ */
+public enum TokenOutcome {
+
+    /**
+     * The token was accepted.
+     */
+    VALID,
+    /**
+     * The token had expired.
+     */
+    EXPIRED,
+    /**
+     * The token was rejected while it was still in date, e.g. because it had been revoked.
+     */
+    REJECTED,
+    /**
+     * The token's signature did not match its contents.
+     */
+    BAD_SIGNATURE,
+    /**
+     * The token could not be read.
+     */
+    MALFORMED,
+    /**
+     * The token is not valid yet.
+     */
+    PREMATURE,
+    /**
+     * Parsing the token failed for any other reason.
+     */
+    FAILED
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.PrematureJwtException;
+import io.jsonwebtoken.SignatureException;
+
+import java.util.Date;
+
+/**
+ * Works out why a token was rejected.
+ *
+ * @author Karl Bennett
+ */
+final class TokenOutcomes {
+
+    private TokenOutcomes() {
+    }
+
+    /**
+     * @return {@link TokenOutcome#EXPIRED} if the token that parsed to {@code null} has expired, otherwise
+     * {@link TokenOutcome#REJECTED}.
+     */
+    static TokenOutcome rejected(String token, Expiries expiries, Clock clock) {
+        try {
+            final Date expiry = expiries.expiry(token);
+            return expiry != null && !clock.now().before(expiry) ? TokenOutcome.EXPIRED : TokenOutcome.REJECTED;
+        } catch (RuntimeException e) {
+            return TokenOutcome.REJECTED;
+        }
+    }
+
+    /**
+     * @return the reason that parsing a token failed with the supplied exception.
+     */
+    static TokenOutcome failed(Exception e) {
+        if (e instanceof ExpiredJwtException) {
+            return TokenOutcome.EXPIRED;
+        }
+        if (e instanceof SignatureException) {
+            return TokenOutcome.BAD_SIGNATURE;
+        }
+        if (e instanceof PrematureJwtException) {
+            return TokenOutcome.PREMATURE;
+        }
+        if (e instanceof MalformedJwtException || e instanceof IllegalArgumentException) {
+            return TokenOutcome.MALFORMED;
+        }
+        return TokenOutcome.FAILED;
+    }
+}
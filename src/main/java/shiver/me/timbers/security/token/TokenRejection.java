@@ -0,0 +1,42 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+/**
+ * The reasons a token can fail the {@link TokenShapeCheck}.
+ *
+ * @author Karl Bennett
+ */
+public enum TokenRejection {
+
+    /**
+     * The token was longer than the maximum length.
+     */
+    TOO_LONG,
+    /**
+     * The token didn't have the right number of non empty segments.
+     */
+    BAD_SEGMENTS,
+    /**
+     * The token contained a character that isn't URL safe Base64.
+     */
+    BAD_CHARACTER,
+    /**
+     * The token didn't start with any of the known header prefixes.
+     */
+    UNKNOWN_HEADER
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+/**
+ * The result of parsing a single token in a batch. A rejected token has no entity, and if parsing it threw an
+ * exception that is kept as the failure.
+ *
+ * @author Karl Bennett
+ */
+public class TokenResult<T> {
+
+    private final T entity;
+    private final TokenOutcome outcome;
+    private final Exception failure;
+
+    public TokenResult(T entity, TokenOutcome outcome, Exception failure) {
+        this.entity = entity;
+        this.outcome = outcome;
+        this.failure = failure;
+    }
+
+    public T getEntity() {
+        return entity;
+    }
+
+    public TokenOutcome getOutcome() {
+        return outcome;
+    }
+
+    public Exception getFailure() {
+        return failure;
+    }
+
+    public boolean isValid() {
+        return outcome == TokenOutcome.VALID;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (this == object) {
+            return true;
+        }
+        if (object == null || getClass() != object.getClass()) {
+            return false;
+        }
+
+        final TokenResult<?> that = (TokenResult<?>) object;
+
+        return (entity == null ? that.entity == null : entity.equals(that.entity))
+            && outcome == that.outcome
+            && (failure == null ? that.failure == null : failure.equals(that.failure));
+    }
+
+    @Override
+    public int hashCode() {
+        int result = entity == null ? 0 : entity.hashCode();
+        result = 31 * result + (outcome == null ? 0 : outcome.hashCode());
+        result = 31 * result + (failure == null ? 0 : failure.hashCode());
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "TokenResult{entity=" + entity + ", outcome=" + outcome + ", failure=" + failure + "}";
+    }
+}
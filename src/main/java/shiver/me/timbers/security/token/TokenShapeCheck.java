@@ -0,0 +1,149 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static java.lang.String.format;
+
+/**
+ * A cheap structural check that rejects tokens that could never be valid before any Base64 decoding, JSON parsing, or
+ * cryptography is done. A token is rejected if it is too long, doesn't start with a known header prefix, contains a
+ * character that isn't URL safe Base64, or doesn't have the right number of non empty segments. The token is checked in
+ * a single scan without any allocation, and every rejection is counted by its reason.
+ *
+ * @author Karl Bennett
+ */
+public class TokenShapeCheck {
+
+    /**
+     * Every JWT header is a JSON object that starts with {@code {"} so its Base64 encoding always starts with "eyJ".
+     */
+    private static final String JWT_HEADER_PREFIX = "eyJ";
+    private static final int JWT_SEGMENTS = 3;
+    private static final boolean[] ALPHABET = new boolean[128];
+
+    static {
+        for (char c = 'A'; c <= 'Z'; c++) {
+            ALPHABET[c] = true;
+        }
+        for (char c = 'a'; c <= 'z'; c++) {
+            ALPHABET[c] = true;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            ALPHABET[c] = true;
+        }
+        ALPHABET['-'] = true;
+        ALPHABET['_'] = true;
+        ALPHABET['='] = true;
+    }
+
+    private final int maximumLength;
+    private final int segments;
+    private final String[] prefixes;
+    private final AtomicLongArray rejections = new AtomicLongArray(TokenRejection.values().length);
+
+    /**
+     * Create a check for JWT tokens.
+     */
+    public TokenShapeCheck(int maximumLength) {
+        this(maximumLength, JWT_SEGMENTS, JWT_HEADER_PREFIX);
+    }
+
+    /**
+     * @param segments the number of "." separated segments the token must have, e.g. 1 for the tokens created by the
+     *                 {@link BinaryTokenParser}.
+     * @param prefixes the token must start with one of these prefixes, if none are supplied any prefix is allowed.
+     */
+    public TokenShapeCheck(int maximumLength, int segments, String... prefixes) {
+        if (maximumLength < 1 || segments < 1) {
+            throw new IllegalArgumentException(format(
+                "The maximum length (%d) and number of segments (%d) must be greater than zero.",
+                maximumLength,
+                segments
+            ));
+        }
+        this.maximumLength = maximumLength;
+        this.segments = segments;
+        this.prefixes = prefixes.clone();
+    }
+
+    /**
+     * @return true if the token could be valid, false if it should be rejected without being parsed.
+     */
+    public boolean accepts(String token) {
+        return check(token) == null;
+    }
+
+    /**
+     * @return the reason the token should be rejected without being parsed, or {@code null} if it could be valid.
+     */
+    public TokenRejection check(String token) {
+        final TokenRejection rejection = findRejection(token);
+        if (rejection != null) {
+            rejections.incrementAndGet(rejection.ordinal());
+        }
+        return rejection;
+    }
+
+    private TokenRejection findRejection(String token) {
+        final int length = token.length();
+        if (length > maximumLength) {
+            return TokenRejection.TOO_LONG;
+        }
+        if (!hasKnownPrefix(token)) {
+            return TokenRejection.UNKNOWN_HEADER;
+        }
+
+        int separators = 0;
+        int segmentStart = 0;
+        for (int i = 0; i < length; i++) {
+            final char c = token.charAt(i);
+            if (c == '.') {
+                if (i == segmentStart || ++separators >= segments) {
+                    return TokenRejection.BAD_SEGMENTS;
+                }
+                segmentStart = i + 1;
+            } else if (c >= ALPHABET.length || !ALPHABET[c]) {
+                return TokenRejection.BAD_CHARACTER;
+            }
+        }
+        if (segmentStart == length || separators != segments - 1) {
+            return TokenRejection.BAD_SEGMENTS;
+        }
+        return null;
+    }
+
+    private boolean hasKnownPrefix(String token) {
+        if (prefixes.length == 0) {
+            return true;
+        }
+        for (String prefix : prefixes) {
+            if (token.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the number of tokens that have been rejected for the supplied reason.
+     */
+    public long getRejections(TokenRejection rejection) {
+        return rejections.get(rejection.ordinal());
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+/**
+ * Where in a request a token was found.
+ *
+ * @author Karl Bennett
+ */
+public enum TokenSource {
+
+    HEADER,
+    COOKIE,
+    /**
+     * An "Authorization: Bearer" header.
+     */
+    BEARER,
+    /**
+     * A query parameter.
+     */
+    QUERY,
+    /**
+     * A custom place that isn't one of the others.
+     */
+    OTHER,
+    /**
+     * The request didn't have a token.
+     */
+    MISSING
+}
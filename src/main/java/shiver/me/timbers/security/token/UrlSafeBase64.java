@@ -0,0 +1,259 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static java.lang.String.format;
+
+/**
+ * An unpadded URL safe Base64 implementation that encodes and decodes directly between the supplied arrays or buffers
+ * without any intermediate copies. The decoding will also accept the standard Base64 alphabet and padding so that it
+ * can still read values that were encoded by the {@link DataConverterBase64}.
+ *
+ * @author Karl Bennett
+ */
+public class UrlSafeBase64 implements Base64 {
+
+    private static final char[] ALPHABET =
+        "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".toCharArray();
+    private static final int[] VALUES = new int[128];
+    private static final char PADDING = '=';
+
+    static {
+        Arrays.fill(VALUES, -1);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            VALUES[ALPHABET[i]] = i;
+        }
+        VALUES['+'] = 62;
+        VALUES['/'] = 63;
+    }
+
+    private final ThreadLocal<char[]> buffers = new ThreadLocal<char[]>() {
+        @Override
+        protected char[] initialValue() {
+            return new char[256];
+        }
+    };
+
+    /**
+     * @return the number of characters that the supplied number of bytes will be encoded into.
+     */
+    public static int encodedLength(int length) {
+        return (length / 3) * 4 + (length % 3 == 0 ? 0 : length % 3 + 1);
+    }
+
+    /**
+     * @return the number of bytes that will be decoded from the supplied characters, ignoring any padding.
+     */
+    public static int decodedLength(CharSequence base64, int start, int end) {
+        final int length = unpaddedEnd(base64, start, end) - start;
+        if (length % 4 == 1) {
+            throw new IllegalArgumentException(format("The Base64 length (%d) is not valid.", length));
+        }
+        return (length / 4) * 3 + (length % 4 == 0 ? 0 : length % 4 - 1);
+    }
+
+    @Override
+    public String encode(byte[] bytes) {
+        final int length = encodedLength(bytes.length);
+        char[] buffer = buffers.get();
+        if (buffer.length < length) {
+            buffer = new char[length];
+            buffers.set(buffer);
+        }
+        encode(bytes, 0, bytes.length, buffer, 0);
+        return new String(buffer, 0, length);
+    }
+
+    /**
+     * Encode the bytes between the offset and length into the supplied character array.
+     *
+     * @return the number of characters that were written.
+     */
+    public int encode(byte[] bytes, int offset, int length, char[] destination, int destinationOffset) {
+        final int end = offset + length;
+        final int wholeEnd = offset + (length / 3) * 3;
+        int d = destinationOffset;
+        int i = offset;
+        while (i < wholeEnd) {
+            final int bits = (bytes[i++] & 0xff) << 16 | (bytes[i++] & 0xff) << 8 | (bytes[i++] & 0xff);
+            destination[d++] = ALPHABET[(bits >>> 18) & 0x3f];
+            destination[d++] = ALPHABET[(bits >>> 12) & 0x3f];
+            destination[d++] = ALPHABET[(bits >>> 6) & 0x3f];
+            destination[d++] = ALPHABET[bits & 0x3f];
+        }
+        final int remaining = end - i;
+        if (remaining > 0) {
+            final int bits = (bytes[i] & 0xff) << 16 | (remaining == 2 ? (bytes[i + 1] & 0xff) << 8 : 0);
+            destination[d++] = ALPHABET[(bits >>> 18) & 0x3f];
+            destination[d++] = ALPHABET[(bits >>> 12) & 0x3f];
+            if (remaining == 2) {
+                destination[d++] = ALPHABET[(bits >>> 6) & 0x3f];
+            }
+        }
+        return d - destinationOffset;
+    }
+
+    /**
+     * Encode the remaining bytes in the source buffer into the destination buffer as ASCII characters.
+     */
+    public void encode(ByteBuffer source, ByteBuffer destination) {
+        while (source.remaining() >= 3) {
+            final int bits = (source.get() & 0xff) << 16 | (source.get() & 0xff) << 8 | (source.get() & 0xff);
+            destination.put((byte) ALPHABET[(bits >>> 18) & 0x3f]);
+            destination.put((byte) ALPHABET[(bits >>> 12) & 0x3f]);
+            destination.put((byte) ALPHABET[(bits >>> 6) & 0x3f]);
+            destination.put((byte) ALPHABET[bits & 0x3f]);
+        }
+        final int remaining = source.remaining();
+        if (remaining > 0) {
+            final int bits = (source.get() & 0xff) << 16 | (remaining == 2 ? (source.get() & 0xff) << 8 : 0);
+            destination.put((byte) ALPHABET[(bits >>> 18) & 0x3f]);
+            destination.put((byte) ALPHABET[(bits >>> 12) & 0x3f]);
+            if (remaining == 2) {
+                destination.put((byte) ALPHABET[(bits >>> 6) & 0x3f]);
+            }
+        }
+    }
+
+    @Override
+    public byte[] decode(String base64) {
+        final byte[] bytes = new byte[decodedLength(base64, 0, base64.length())];
+        decode(base64, 0, base64.length(), bytes, 0);
+        return bytes;
+    }
+
+    /**
+     * Decode the characters between the start and end into the supplied byte array.
+     *
+     * @return the number of bytes that were written.
+     * @throws IllegalArgumentException if the characters are not valid Base64.
+     */
+    public int decode(CharSequence base64, int start, int end, byte[] destination, int destinationOffset) {
+        final int unpaddedEnd = unpaddedEnd(base64, start, end);
+        final int length = unpaddedEnd - start;
+        if (length % 4 == 1) {
+            throw new IllegalArgumentException(format("The Base64 length (%d) is not valid.", length));
+        }
+        final int wholeEnd = start + (length / 4) * 4;
+        int d = destinationOffset;
+        int i = start;
+        while (i < wholeEnd) {
+            final int bits = value(base64, i++) << 18 | value(base64, i++) << 12 | value(base64, i++) << 6 |
+                value(base64, i++);
+            destination[d++] = (byte) (bits >>> 16);
+            destination[d++] = (byte) (bits >>> 8);
+            destination[d++] = (byte) bits;
+        }
+        final int remaining = unpaddedEnd - i;
+        if (remaining > 0) {
+            final int bits = value(base64, i) << 18 | value(base64, i + 1) << 12 |
+                (remaining == 3 ? value(base64, i + 2) << 6 : 0);
+            destination[d++] = (byte) (bits >>> 16);
+            if (remaining == 3) {
+                destination[d++] = (byte) (bits >>> 8);
+            }
+        }
+        return d - destinationOffset;
+    }
+
+    /**
+     * Decode the characters between the start and end into the supplied byte array, only accepting the one canonical
+     * encoding of the bytes. That is the URL safe alphabet with no padding and with any unused trailing bits set to
+     * zero. This should be used for signatures so that a signature can't be changed without it failing verification.
+     *
+     * @return the number of bytes that were written.
+     * @throws IllegalArgumentException if the characters are not canonical URL safe Base64.
+     */
+    public int decodeCanonical(CharSequence base64, int start, int end, byte[] destination, int destinationOffset) {
+        checkCanonical(base64, start, end);
+        return decode(base64, start, end, destination, destinationOffset);
+    }
+
+    /**
+     * Decode the characters between the start and end into the destination buffer.
+     *
+     * @throws IllegalArgumentException if the characters are not valid Base64.
+     */
+    public void decode(CharSequence base64, int start, int end, ByteBuffer destination) {
+        if (destination.hasArray()) {
+            final int position = destination.position();
+            if (destination.remaining() < decodedLength(base64, start, end)) {
+                throw new BufferOverflowException();
+            }
+            final int written = decode(base64, start, end, destination.array(), destination.arrayOffset() + position);
+            destination.position(position + written);
+            return;
+        }
+        final int unpaddedEnd = unpaddedEnd(base64, start, end);
+        for (int i = start; i < unpaddedEnd; i += 4) {
+            final int count = Math.min(4, unpaddedEnd - i);
+            if (count == 1) {
+                throw new IllegalArgumentException(format("The Base64 length (%d) is not valid.", unpaddedEnd - start));
+            }
+            int bits = 0;
+            for (int j = 0; j < 4; j++) {
+                bits = bits << 6 | (j < count ? value(base64, i + j) : 0);
+            }
+            destination.put((byte) (bits >>> 16));
+            if (count > 2) {
+                destination.put((byte) (bits >>> 8));
+            }
+            if (count > 3) {
+                destination.put((byte) bits);
+            }
+        }
+    }
+
+    private static void checkCanonical(CharSequence base64, int start, int end) {
+        for (int i = start; i < end; i++) {
+            final char character = base64.charAt(i);
+            if (character == PADDING || character == '+' || character == '/') {
+                throw new IllegalArgumentException(
+                    format("The character (%s) at index (%d) is not canonical URL safe Base64.", character, i)
+                );
+            }
+        }
+        // The last character of a partial group carries bits that are not part of any byte, they must be zero.
+        final int remaining = (end - start) % 4;
+        if (remaining > 1 && (value(base64, end - 1) & (remaining == 2 ? 0x0f : 0x03)) != 0) {
+            throw new IllegalArgumentException("The Base64 has non-zero trailing bits.");
+        }
+    }
+
+    private static int unpaddedEnd(CharSequence base64, int start, int end) {
+        int unpaddedEnd = end;
+        while (unpaddedEnd > start && base64.charAt(unpaddedEnd - 1) == PADDING) {
+            unpaddedEnd--;
+        }
+        return unpaddedEnd;
+    }
+
+    private static int value(CharSequence base64, int index) {
+        final char character = base64.charAt(index);
+        final int value = character < VALUES.length ? VALUES[character] : -1;
+        if (value < 0) {
+            throw new IllegalArgumentException(
+                format("The character (%s) at index (%d) is not a valid Base64 character.", character, index)
+            );
+        }
+        return value;
+    }
+}
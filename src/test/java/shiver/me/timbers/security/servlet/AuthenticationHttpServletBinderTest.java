@@ -81,4 +81,37 @@ public class AuthenticationHttpServletBinderTest {
         // Then
         assertThat(actual, equalTo(expected));
     }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void Can_create_a_token_and_add_it_separately() throws Exception {
+
+        final TokenHttpServletBinder<Object> tokenBinder = mock(TokenHttpServletBinder.class);
+        final Authentication authentication = mock(Authentication.class);
+        final HttpServletResponse response = mock(HttpServletResponse.class);
+        final Object subject = new Object();
+        final String token = someString();
+
+        // Given
+        given(authenticationConverter.convert(authentication)).willReturn(subject);
+        given(tokenBinder.createToken(subject)).willReturn(token);
+        final AuthenticationHttpServletBinder<Object> binder =
+            new AuthenticationHttpServletBinder<>(tokenBinder, authenticationConverter);
+
+        // When
+        final String actual = binder.createToken(authentication);
+        binder.addToken(response, actual);
+
+        // Then
+        assertThat(actual, equalTo(token));
+        verify(tokenBinder).addToken(response, token);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void Cannot_create_a_token_on_its_own_with_a_binder_that_does_not_support_it() throws Exception {
+
+        // When
+        new AuthenticationHttpServletBinder<>(httpServletBinder, authenticationConverter)
+            .createToken(mock(Authentication.class));
+    }
 }
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.servlet;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static shiver.me.timbers.data.random.RandomStrings.someAlphaNumericString;
+
+public class BearerTokenTransportTest {
+
+    private HttpServletRequest request;
+    private BearerTokenTransport transport;
+
+    @Before
+    public void setUp() {
+        request = mock(HttpServletRequest.class);
+        transport = new BearerTokenTransport();
+    }
+
+    @Test
+    public void Can_retrieve_a_bearer_token() {
+
+        final String expected = someAlphaNumericString();
+
+        // Given
+        given(request.getHeader("Authorization")).willReturn("bearer " + expected);
+
+        // When
+        final String actual = transport.retrieve(request);
+
+        // Then
+        assertThat(actual, equalTo(expected));
+    }
+
+    @Test
+    public void Cannot_retrieve_a_token_from_any_other_authorization_scheme() {
+
+        // Given
+        given(request.getHeader("Authorization")).willReturn("Basic " + someAlphaNumericString());
+
+        // When
+        final String actual = transport.retrieve(request);
+
+        // Then
+        assertThat(actual, nullValue());
+    }
+
+    @Test
+    public void Can_add_a_token_to_a_header_the_client_can_read() {
+
+        final HttpServletResponse response = mock(HttpServletResponse.class);
+        final String token = someAlphaNumericString();
+
+        // When
+        transport.add(response, token);
+
+        // Then
+        verify(response).addHeader("X-AUTH-TOKEN", token);
+    }
+
+    @Test
+    public void Can_add_a_token_to_a_custom_header() {
+
+        final HttpServletResponse response = mock(HttpServletResponse.class);
+        final String name = someAlphaNumericString();
+        final String token = someAlphaNumericString();
+
+        // When
+        new BearerTokenTransport(name).add(response, token);
+
+        // Then
+        verify(response).addHeader(name, token);
+    }
+}
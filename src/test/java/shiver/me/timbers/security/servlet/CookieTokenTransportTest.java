@@ -0,0 +1,66 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.servlet;
+
+import org.junit.Test;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static shiver.me.timbers.data.random.RandomStrings.someAlphaNumericString;
+import static shiver.me.timbers.data.random.RandomStrings.someAlphaString;
+
+public class CookieTokenTransportTest {
+
+    @Test
+    public void Can_retrieve_a_token_from_a_cookie() {
+
+        final String name = someAlphaString();
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        final String expected = someAlphaNumericString();
+
+        // Given
+        given(request.getCookies()).willReturn(new Cookie[]{new Cookie(name, expected)});
+
+        // When
+        final String actual = new CookieTokenTransport(name).retrieve(request);
+
+        // Then
+        assertThat(actual, equalTo(expected));
+    }
+
+    @Test
+    public void Can_add_a_token_to_a_cookie_with_a_path() {
+
+        final String name = someAlphaString();
+        final String path = someAlphaNumericString();
+        final HttpServletResponse response = mock(HttpServletResponse.class);
+        final String token = someAlphaNumericString();
+
+        // When
+        new CookieTokenTransport(name).withPath(path).add(response, token);
+
+        // Then
+        verify(response).addCookie(new EqualCookie(name, token, path));
+    }
+}
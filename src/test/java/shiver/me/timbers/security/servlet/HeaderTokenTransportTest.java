@@ -0,0 +1,64 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.servlet;
+
+import org.junit.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static shiver.me.timbers.data.random.RandomStrings.someAlphaString;
+import static shiver.me.timbers.data.random.RandomStrings.someString;
+
+public class HeaderTokenTransportTest {
+
+    @Test
+    public void Can_retrieve_a_token_from_a_custom_header() {
+
+        final String name = someAlphaString();
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        final String expected = someString();
+
+        // Given
+        given(request.getHeader(name)).willReturn(expected);
+
+        // When
+        final String actual = new HeaderTokenTransport(name).retrieve(request);
+
+        // Then
+        assertThat(actual, equalTo(expected));
+    }
+
+    @Test
+    public void Can_add_a_token_to_a_custom_header() {
+
+        final String name = someAlphaString();
+        final HttpServletResponse response = mock(HttpServletResponse.class);
+        final String token = someString();
+
+        // When
+        new HeaderTokenTransport(name).add(response, token);
+
+        // Then
+        verify(response).addHeader(name, token);
+    }
+}
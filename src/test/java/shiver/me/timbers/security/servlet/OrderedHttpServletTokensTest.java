@@ -0,0 +1,113 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.servlet;
+
+import org.junit.Test;
+import shiver.me.timbers.security.token.TokenMetrics;
+import shiver.me.timbers.security.token.TokenSource;
+
+import javax.servlet.http.HttpServletRequest;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static shiver.me.timbers.data.random.RandomStrings.someAlphaNumericString;
+import static shiver.me.timbers.data.random.RandomStrings.someString;
+
+public class OrderedHttpServletTokensTest {
+
+    @Test
+    public void Can_retrieve_the_first_token_found() {
+
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        final HttpServletTokens first = mock(HttpServletTokens.class);
+        final HttpServletTokens second = mock(HttpServletTokens.class);
+        final HttpServletTokens third = mock(HttpServletTokens.class);
+
+        final String expected = someString();
+
+        // Given
+        given(first.retrieve(request)).willReturn(null);
+        given(second.retrieve(request)).willReturn(expected);
+
+        // When
+        final String actual = new OrderedHttpServletTokens(asList(first, second, third)).retrieve(request);
+
+        // Then
+        assertThat(actual, equalTo(expected));
+        verifyZeroInteractions(third);
+    }
+
+    @Test
+    public void Can_retrieve_no_token() {
+
+        // When
+        final String actual = new OrderedHttpServletTokens(asList(mock(HttpServletTokens.class)))
+            .retrieve(mock(HttpServletRequest.class));
+
+        // Then
+        assertThat(actual, nullValue());
+    }
+
+    @Test
+    public void Can_record_which_transport_each_token_was_found_in() {
+
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        final TokenMetrics metrics = mock(TokenMetrics.class);
+        final OrderedHttpServletTokens tokens = new OrderedHttpServletTokens(
+            asList(new BearerTokenTransport(), new QueryParameterTokenTransport("access_token"))
+        ).withMetrics(metrics);
+
+        // Given
+        given(request.getHeader("Authorization")).willReturn("Bearer " + someString(), null, null);
+        given(request.getQueryString()).willReturn("access_token=" + someAlphaNumericString(8), (String) null);
+
+        // When
+        tokens.retrieve(request);
+        tokens.retrieve(request);
+        tokens.retrieve(request);
+
+        // Then
+        verify(metrics).retrieved(eq(TokenSource.BEARER), anyLong());
+        verify(metrics).retrieved(eq(TokenSource.QUERY), anyLong());
+        verify(metrics).retrieved(eq(TokenSource.MISSING), anyLong());
+    }
+
+    @Test
+    public void Can_record_a_token_found_somewhere_custom() {
+
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        final HttpServletTokens custom = mock(HttpServletTokens.class);
+        final TokenMetrics metrics = mock(TokenMetrics.class);
+
+        // Given
+        given(custom.retrieve(request)).willReturn(someString());
+
+        // When
+        new OrderedHttpServletTokens(asList(custom)).withMetrics(metrics).retrieve(request);
+
+        // Then
+        verify(metrics).retrieved(eq(TokenSource.OTHER), anyLong());
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.servlet;
+
+import org.junit.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static shiver.me.timbers.data.random.RandomStrings.someAlphaNumericString;
+import static shiver.me.timbers.data.random.RandomStrings.someAlphaString;
+import static shiver.me.timbers.data.random.RandomStrings.someString;
+
+public class QueryParameterTokenTransportTest {
+
+    @Test
+    public void Can_retrieve_a_token_from_a_query_parameter() {
+
+        final String name = someAlphaString();
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        final String expected = someAlphaNumericString() + "." + someAlphaNumericString();
+
+        // Given
+        given(request.getQueryString()).willReturn("other=value&" + name + "=" + expected);
+
+        // When
+        final String actual = new QueryParameterTokenTransport(name).retrieve(request);
+
+        // Then
+        assertThat(actual, equalTo(expected));
+        verify(request, never()).getParameter(name);
+    }
+
+    @Test
+    public void Can_retrieve_an_encoded_token_from_a_query_parameter() {
+
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+
+        // Given
+        given(request.getQueryString()).willReturn("token=a%2Bb%3D");
+
+        // When
+        final String actual = new QueryParameterTokenTransport("token").retrieve(request);
+
+        // Then
+        assertThat(actual, equalTo("a+b="));
+    }
+
+    @Test
+    public void Can_retrieve_a_token_from_a_query_parameter_with_an_encoded_name() {
+
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+
+        // Given
+        given(request.getQueryString()).willReturn("access%5Ftoken=value");
+
+        // When
+        final String actual = new QueryParameterTokenTransport("access_token").retrieve(request);
+
+        // Then
+        assertThat(actual, equalTo("value"));
+    }
+
+    @Test
+    public void Can_skip_parameters_that_are_not_validly_encoded() {
+
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+
+        // Given
+        given(request.getQueryString()).willReturn("bad%zz=value&token=%zz&token=value");
+
+        // When
+        final String actual = new QueryParameterTokenTransport("token").retrieve(request);
+
+        // Then
+        assertThat(actual, equalTo("value"));
+    }
+
+    @Test
+    public void Cannot_retrieve_a_token_from_a_request_without_the_query_parameter() {
+
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+
+        // Given
+        given(request.getQueryString()).willReturn("tokens=value&token");
+
+        // When
+        final String actual = new QueryParameterTokenTransport("token").retrieve(request);
+
+        // Then
+        assertThat(actual, nullValue());
+    }
+
+    @Test
+    public void Cannot_retrieve_a_token_from_a_request_without_a_query_string() {
+
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+
+        // When
+        final String actual = new QueryParameterTokenTransport(someAlphaString()).retrieve(request);
+
+        // Then
+        assertThat(actual, nullValue());
+    }
+
+    @Test
+    public void Will_never_add_a_token_to_a_response() {
+
+        final HttpServletResponse response = mock(HttpServletResponse.class);
+
+        // When
+        new QueryParameterTokenTransport(someAlphaString()).add(response, someString());
+
+        // Then
+        verifyZeroInteractions(response);
+    }
+}
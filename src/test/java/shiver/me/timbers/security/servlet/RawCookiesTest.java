@@ -0,0 +1,88 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.servlet;
+
+import org.junit.Test;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+
+import static java.util.Collections.enumeration;
+import static java.util.Collections.singletonList;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static shiver.me.timbers.data.random.RandomStrings.someAlphaString;
+import static shiver.me.timbers.security.servlet.RawCookies.cookieValue;
+
+public class RawCookiesTest {
+
+    private static final String X_AUTH_TOKEN = "X-AUTH-TOKEN";
+
+    @Test
+    public void Can_slice_a_cookie_value_out_of_a_raw_cookie_header() {
+
+        // Then
+        assertThat(cookieValue("a=1; X-AUTH-TOKEN=abc", X_AUTH_TOKEN), equalTo("abc"));
+        assertThat(cookieValue("X-AUTH-TOKEN=abc;a=1", X_AUTH_TOKEN), equalTo("abc"));
+        assertThat(cookieValue("a=1;  X-AUTH-TOKEN = \"abc\" ;b=2", X_AUTH_TOKEN), equalTo("abc"));
+        assertThat(cookieValue("a=1; X-AUTH-TOKEN=", X_AUTH_TOKEN), equalTo(""));
+        assertThat(cookieValue("a=X-AUTH-TOKEN=abc; b=2", X_AUTH_TOKEN), nullValue());
+        assertThat(cookieValue("OLD-X-AUTH-TOKEN=abc", X_AUTH_TOKEN), nullValue());
+        assertThat(cookieValue("X-AUTH-TOKEN", X_AUTH_TOKEN), nullValue());
+        assertThat(cookieValue("", X_AUTH_TOKEN), nullValue());
+    }
+
+    @Test
+    public void Can_find_a_cookie_in_the_raw_cookie_header() {
+
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        final String name = someAlphaString();
+        final String expected = someAlphaString();
+
+        // Given
+        given(request.getHeaders("Cookie")).willReturn(enumeration(singletonList("a=1; " + name + "=" + expected)));
+
+        // When
+        final String actual = RawCookies.find(request, name);
+
+        // Then
+        assertThat(actual, equalTo(expected));
+        verify(request, never()).getCookies();
+    }
+
+    @Test
+    public void Can_find_a_cookie_in_the_parsed_cookies_if_there_is_no_raw_header() {
+
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        final String name = someAlphaString();
+        final String expected = someAlphaString();
+
+        // Given
+        given(request.getCookies()).willReturn(new Cookie[]{new Cookie(name, expected)});
+
+        // When
+        final String actual = RawCookies.find(request, name);
+
+        // Then
+        assertThat(actual, equalTo(expected));
+    }
+}
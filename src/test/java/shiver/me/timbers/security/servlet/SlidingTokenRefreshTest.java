@@ -0,0 +1,167 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.servlet;
+
+import org.junit.Before;
+import org.junit.Test;
+import shiver.me.timbers.security.token.Clock;
+import shiver.me.timbers.security.token.Expiries;
+import shiver.me.timbers.security.token.FnvDigests;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Date;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static shiver.me.timbers.security.servlet.XAuthTokenHttpServletBinder.TOKEN_ATTRIBUTE;
+import static shiver.me.timbers.data.random.RandomStrings.someString;
+
+public class SlidingTokenRefreshTest {
+
+    private static final long NOW = 1000000L;
+    private static final long WINDOW = 1000L;
+
+    private Expiries expiries;
+    private Clock dates;
+    private SlidingTokenRefresh refresh;
+    private HttpServletRequest request;
+    private String token;
+
+    @Before
+    public void setUp() {
+        expiries = mock(Expiries.class);
+        dates = mock(Clock.class);
+        refresh = new SlidingTokenRefresh(expiries, WINDOW, MILLISECONDS, 2, new FnvDigests(), dates);
+        request = mock(HttpServletRequest.class);
+        token = someString();
+
+        given(request.getAttribute(TOKEN_ATTRIBUTE)).willReturn(token);
+        given(dates.now()).willReturn(new Date(NOW));
+    }
+
+    @Test
+    public void Can_refresh_a_token_that_is_within_the_window_of_its_expiry() {
+
+        // Given
+        given(expiries.expiry(token)).willReturn(new Date(NOW + WINDOW));
+
+        // When
+        final boolean actual = refresh.shouldRefresh(request);
+
+        // Then
+        assertThat(actual, is(true));
+    }
+
+    @Test
+    public void Will_not_refresh_a_token_that_is_outside_the_window_of_its_expiry() {
+
+        // Given
+        given(expiries.expiry(token)).willReturn(new Date(NOW + WINDOW + 1));
+
+        // When
+        final boolean actual = refresh.shouldRefresh(request);
+
+        // Then
+        assertThat(actual, is(false));
+    }
+
+    @Test
+    public void Will_only_refresh_a_token_once() {
+
+        // Given
+        given(expiries.expiry(token)).willReturn(new Date(NOW + WINDOW));
+        refresh.shouldRefresh(request);
+
+        // When
+        final boolean actual = refresh.shouldRefresh(request);
+
+        // Then
+        assertThat(actual, is(false));
+    }
+
+    @Test
+    public void Will_refresh_other_tokens_after_refreshing_one() {
+
+        final HttpServletRequest otherRequest = mock(HttpServletRequest.class);
+        final String otherToken = token + someString();
+
+        // Given
+        given(otherRequest.getAttribute(TOKEN_ATTRIBUTE)).willReturn(otherToken);
+        given(expiries.expiry(token)).willReturn(new Date(NOW + WINDOW));
+        given(expiries.expiry(otherToken)).willReturn(new Date(NOW + WINDOW));
+        refresh.shouldRefresh(request);
+
+        // When
+        final boolean actual = refresh.shouldRefresh(otherRequest);
+
+        // Then
+        assertThat(actual, is(true));
+    }
+
+    @Test
+    public void Will_not_refresh_a_token_that_has_already_expired() {
+
+        // Given
+        given(expiries.expiry(token)).willReturn(new Date(NOW));
+
+        // When
+        final boolean actual = refresh.shouldRefresh(request);
+
+        // Then
+        assertThat(actual, is(false));
+    }
+
+    @Test
+    public void Will_not_refresh_a_token_that_never_expires() {
+
+        // Given
+        given(expiries.expiry(token)).willReturn(null);
+
+        // When
+        final boolean actual = refresh.shouldRefresh(request);
+
+        // Then
+        assertThat(actual, is(false));
+    }
+
+    @Test
+    public void Will_not_refresh_a_request_without_a_token() {
+
+        // Given
+        given(request.getAttribute(TOKEN_ATTRIBUTE)).willReturn(null);
+
+        // When
+        final boolean actual = refresh.shouldRefresh(request);
+
+        // Then
+        assertThat(actual, is(false));
+    }
+
+    @Test
+    public void Can_create_a_sliding_token_refresh_with_the_defaults() {
+        new SlidingTokenRefresh(expiries, 5L, MINUTES);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void Cannot_create_a_sliding_token_refresh_without_a_window_unit() {
+        new SlidingTokenRefresh(expiries, 5L, null);
+    }
+}
@@ -16,19 +16,25 @@
 
 package shiver.me.timbers.security.servlet;
 
+import io.jsonwebtoken.MalformedJwtException;
 import org.junit.Before;
 import org.junit.Test;
 import shiver.me.timbers.security.token.TokenParser;
+import shiver.me.timbers.security.token.TokenShapeCheck;
 
 import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import static java.util.Arrays.asList;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static shiver.me.timbers.data.random.RandomStrings.someAlphaNumericString;
@@ -69,6 +75,26 @@ public class XAuthTokenHttpServletBinderTest {
         verify(response).addCookie(new EqualCookie(X_AUTH_TOKEN, tokenString, "/"));
     }
 
+    @Test
+    public void Can_create_a_token_without_touching_a_response_and_add_it_later() throws Exception {
+
+        final HttpServletResponse response = mock(HttpServletResponse.class);
+
+        final String tokenString = someString();
+
+        // Given
+        given(tokenParser.create(token)).willReturn(tokenString);
+
+        // When
+        final String actual = binder.createToken(token);
+        binder.addToken(response, actual);
+
+        // Then
+        assertThat(actual, equalTo(tokenString));
+        verify(response).addHeader(X_AUTH_TOKEN, tokenString);
+        verify(response).addCookie(new EqualCookie(X_AUTH_TOKEN, tokenString, "/"));
+    }
+
     @Test
     public void Can_configure_the_cookies_path() throws Exception {
 
@@ -165,4 +191,100 @@ public class XAuthTokenHttpServletBinderTest {
         assertThat(actual, nullValue());
         verifyZeroInteractions(tokenParser);
     }
+
+    @Test
+    public void Will_reject_a_token_that_fails_the_shape_check_without_parsing_it() throws Exception {
+
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+
+        // Given
+        given(request.getHeader(X_AUTH_TOKEN)).willReturn(someAlphaNumericString());
+
+        // When
+        try {
+            binder.withShapeCheck(new TokenShapeCheck(1024)).retrieve(request);
+            fail();
+        } catch (MalformedJwtException e) {
+            // Then
+            verifyZeroInteractions(tokenParser);
+        }
+    }
+
+    @Test
+    public void Can_parse_a_token_that_passes_the_shape_check() throws Exception {
+
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        final String token = "eyJ" + someAlphaNumericString() + "." + someAlphaNumericString() + ".a";
+
+        final Object expected = new Object();
+
+        // Given
+        given(request.getHeader(X_AUTH_TOKEN)).willReturn(token);
+        given(tokenParser.parse(token)).willReturn(expected);
+
+        // When
+        final Object actual = binder.withShapeCheck(new TokenShapeCheck(1024)).retrieve(request);
+
+        // Then
+        assertThat(actual, equalTo(expected));
+    }
+
+    @Test
+    public void Can_add_a_token_to_only_the_configured_transports() throws Exception {
+
+        final HttpServletResponse response = mock(HttpServletResponse.class);
+
+        final String tokenString = someString();
+
+        // Given
+        given(tokenParser.create(token)).willReturn(tokenString);
+
+        // When
+        new XAuthTokenHttpServletBinder<>(tokenParser, asList(new BearerTokenTransport())).add(response, token);
+
+        // Then
+        verify(response).addHeader(X_AUTH_TOKEN, tokenString);
+        verify(response, never()).addCookie(any(Cookie.class));
+    }
+
+    @Test
+    public void Can_retrieve_a_token_from_the_transports_in_order() throws Exception {
+
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        final String header = someAlphaString();
+        final String token = someString();
+
+        final Object expected = new Object();
+
+        // Given
+        given(request.getHeader("Authorization")).willReturn(null);
+        given(request.getHeader(header)).willReturn(token);
+        given(tokenParser.parse(token)).willReturn(expected);
+
+        // When
+        final Object actual = new XAuthTokenHttpServletBinder<>(
+            tokenParser,
+            asList(new BearerTokenTransport(), new HeaderTokenTransport(header))
+        ).retrieve(request);
+
+        // Then
+        assertThat(actual, equalTo(expected));
+    }
+
+    @Test
+    public void Can_record_the_retrieved_token_on_the_request() throws Exception {
+
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        final String token = someAlphaNumericString();
+
+        // Given
+        given(request.getHeader("Authorization")).willReturn("Bearer " + token);
+        given(tokenParser.parse(token)).willReturn(new Object());
+
+        // When
+        new XAuthTokenHttpServletBinder<>(tokenParser, asList(new BearerTokenTransport())).retrieve(request);
+
+        // Then
+        verify(request).setAttribute(XAuthTokenHttpServletBinder.TOKEN_ATTRIBUTE, token);
+    }
 }
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.servlet;
+
+import org.junit.Before;
+import org.junit.Test;
+import shiver.me.timbers.security.token.TokenMetrics;
+import shiver.me.timbers.security.token.TokenSource;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+
+import static java.lang.String.format;
+import static java.util.Arrays.asList;
+import static java.util.Collections.enumeration;
+import static java.util.Collections.singletonList;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static shiver.me.timbers.data.random.RandomStrings.someAlphaNumericString;
+import static shiver.me.timbers.data.random.RandomStrings.someAlphaString;
+import static shiver.me.timbers.data.random.RandomStrings.someString;
+
+public class XAuthTokenHttpServletTokensTest {
+
+    private static final String X_AUTH_TOKEN = "X-AUTH-TOKEN";
+
+    private HttpServletRequest request;
+    private XAuthTokenHttpServletTokens tokens;
+
+    @Before
+    public void setUp() {
+        request = mock(HttpServletRequest.class);
+        tokens = new XAuthTokenHttpServletTokens();
+    }
+
+    @Test
+    public void Can_retrieve_the_token_from_the_header_before_the_cookie() {
+
+        final String expected = someString();
+
+        // Given
+        given(request.getHeader(X_AUTH_TOKEN)).willReturn(expected);
+        given(request.getCookies()).willReturn(new Cookie[]{new Cookie(X_AUTH_TOKEN, someString())});
+
+        // When
+        final String actual = tokens.retrieve(request);
+
+        // Then
+        assertThat(actual, equalTo(expected));
+    }
+
+    @Test
+    public void Can_retrieve_the_token_from_a_cookie() {
+
+        final String expected = someString();
+
+        // Given
+        given(request.getCookies()).willReturn(new Cookie[]{
+            new Cookie(someAlphaString(8), someString()),
+            new Cookie(X_AUTH_TOKEN, expected)
+        });
+
+        // When
+        final String actual = tokens.retrieve(request);
+
+        // Then
+        assertThat(actual, equalTo(expected));
+    }
+
+    @Test
+    public void Can_fail_to_retrieve_a_token_from_a_request_without_one() {
+
+        // When
+        final String actual = tokens.retrieve(request);
+
+        // Then
+        assertThat(actual, nullValue());
+    }
+
+    @Test
+    public void Can_retrieve_the_token_from_the_raw_cookie_header_without_parsing_the_cookies() {
+
+        final String expected = someAlphaNumericString();
+
+        // Given
+        given(request.getHeaders("Cookie")).willReturn(enumeration(asList(
+            "_ga=GA1.2.3; _gid=GA1.2.4",
+            format("theme=dark; %s=%s; _fbp=fb.1.2", X_AUTH_TOKEN, expected)
+        )));
+
+        // When
+        final String actual = tokens.retrieve(request);
+
+        // Then
+        assertThat(actual, equalTo(expected));
+        verify(request, never()).getCookies();
+    }
+
+    @Test
+    public void Can_fail_to_retrieve_the_token_from_a_raw_cookie_header_that_does_not_have_it() {
+
+        // Given
+        given(request.getHeaders("Cookie")).willReturn(enumeration(singletonList("_ga=GA1.2.3; X-AUTH-TOKENS=x")));
+
+        // When
+        final String actual = tokens.retrieve(request);
+
+        // Then
+        assertThat(actual, nullValue());
+        verify(request, never()).getCookies();
+    }
+
+    @Test
+    public void Can_record_where_the_token_was_found() {
+
+        final TokenMetrics metrics = mock(TokenMetrics.class);
+
+        // Given
+        given(request.getHeader(X_AUTH_TOKEN)).willReturn(someString(), (String) null, null);
+        given(request.getCookies()).willReturn(new Cookie[]{new Cookie(X_AUTH_TOKEN, someString())}, (Cookie[]) null);
+        tokens.withMetrics(metrics);
+
+        // When
+        tokens.retrieve(request);
+        tokens.retrieve(request);
+        tokens.retrieve(request);
+
+        // Then
+        verify(metrics).retrieved(eq(TokenSource.HEADER), anyLong());
+        verify(metrics).retrieved(eq(TokenSource.COOKIE), anyLong());
+        verify(metrics).retrieved(eq(TokenSource.MISSING), anyLong());
+    }
+}
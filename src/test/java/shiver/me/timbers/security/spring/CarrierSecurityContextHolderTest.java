@@ -0,0 +1,159 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package shiver.me.timbers.security.spring;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.security.core.context.SecurityContext;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+public class CarrierSecurityContextHolderTest {
+
+    private final CarrierSecurityContextHolder holder = new CarrierSecurityContextHolder();
+
+    @After
+    public void tearDown() {
+        holder.clearContext();
+    }
+
+    @Test
+    public void Can_get_an_empty_security_context() {
+
+        // When
+        final SecurityContext actual = holder.getContext();
+
+        // Then
+        assertThat(actual, not(nullValue()));
+        assertThat(actual.getAuthentication(), nullValue());
+        assertThat(holder.getContext(), sameInstance(actual));
+    }
+
+    @Test
+    public void Can_share_the_security_context_between_holders_on_the_same_thread() {
+
+        final SecurityContext expected = mock(SecurityContext.class);
+
+        // When
+        holder.setContext(expected);
+
+        // Then
+        assertThat(new CarrierSecurityContextHolder().getContext(), sameInstance(expected));
+    }
+
+    @Test
+    public void Can_clear_the_security_context() {
+
+        final SecurityContext context = mock(SecurityContext.class);
+
+        // Given
+        holder.setContext(context);
+
+        // When
+        holder.clearContext();
+
+        // Then
+        assertThat(holder.getContext(), not(sameInstance(context)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void Cannot_set_a_null_security_context() {
+
+        // When
+        holder.setContext(null);
+    }
+
+    @Test
+    public void Will_not_share_the_security_context_with_another_thread() throws InterruptedException {
+
+        final AtomicReference<SecurityContext> actual = new AtomicReference<>();
+        final SecurityContext context = mock(SecurityContext.class);
+
+        // Given
+        holder.setContext(context);
+
+        // When
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                actual.set(holder.getContext());
+            }
+        });
+        thread.start();
+        thread.join();
+
+        // Then
+        assertThat(actual.get(), not(sameInstance(context)));
+    }
+
+    @Test
+    public void Can_run_a_task_with_a_context_and_then_restore_the_previous_context() {
+
+        final SecurityContext previous = mock(SecurityContext.class);
+        final SecurityContext context = mock(SecurityContext.class);
+        final AtomicReference<SecurityContext> actual = new AtomicReference<>();
+
+        // Given
+        holder.setContext(previous);
+
+        // When
+        holder.run(context, new Runnable() {
+            @Override
+            public void run() {
+                actual.set(holder.getContext());
+            }
+        });
+
+        // Then
+        assertThat(actual.get(), sameInstance(context));
+        assertThat(holder.getContext(), sameInstance(previous));
+    }
+
+    @Test
+    public void Can_restore_the_previous_context_even_if_the_task_fails() {
+
+        final SecurityContext previous = mock(SecurityContext.class);
+        final RuntimeException exception = new RuntimeException();
+
+        // Given
+        holder.setContext(previous);
+
+        // When
+        try {
+            holder.run(mock(SecurityContext.class), new Runnable() {
+                @Override
+                public void run() {
+                    throw exception;
+                }
+            });
+            fail();
+        } catch (RuntimeException e) {
+            assertThat(e, sameInstance(exception));
+        }
+
+        // Then
+        assertThat(holder.getContext(), sameInstance(previous));
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.spring;
+
+import io.jsonwebtoken.SignatureException;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.core.Authentication;
+import shiver.me.timbers.security.servlet.HttpServletBinder;
+import shiver.me.timbers.security.servlet.SlidingTokenRefresh;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static shiver.me.timbers.data.random.RandomStrings.someString;
+
+public class DeferredSecurityContextTest {
+
+    private HttpServletBinder<Authentication> httpServletBinder;
+    private HttpServletRequest request;
+    private HttpServletResponse response;
+    private ExceptionMapper<ServletException> exceptionMapper;
+    private SlidingTokenRefresh tokenRefresh;
+    private DeferredSecurityContext context;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        httpServletBinder = mock(HttpServletBinder.class);
+        request = mock(HttpServletRequest.class);
+        response = mock(HttpServletResponse.class);
+        exceptionMapper = new ServletExceptionMapper();
+        tokenRefresh = mock(SlidingTokenRefresh.class);
+        context = new DeferredSecurityContext(httpServletBinder, request, response, exceptionMapper, tokenRefresh);
+    }
+
+    @Test
+    public void Will_not_retrieve_the_authentication_until_it_is_asked_for() {
+
+        // Then
+        verifyZeroInteractions(httpServletBinder);
+    }
+
+    @Test
+    public void Can_retrieve_the_authentication_only_once() throws Exception {
+
+        final Authentication expected = mock(Authentication.class);
+
+        // Given
+        given(httpServletBinder.retrieve(request)).willReturn(expected);
+
+        // When
+        context.getAuthentication();
+        final Authentication actual = context.getAuthentication();
+
+        // Then
+        verify(httpServletBinder).retrieve(request);
+        assertThat(actual, is(expected));
+    }
+
+    @Test
+    public void Can_refresh_the_token_when_the_authentication_is_retrieved() throws Exception {
+
+        final Authentication authentication = mock(Authentication.class);
+
+        // Given
+        given(httpServletBinder.retrieve(request)).willReturn(authentication);
+        given(tokenRefresh.shouldRefresh(request)).willReturn(true);
+
+        // When
+        context.getAuthentication();
+
+        // Then
+        verify(httpServletBinder).add(response, authentication);
+    }
+
+    @Test
+    public void Will_not_refresh_the_token_after_the_response_has_been_committed() throws Exception {
+
+        final Authentication authentication = mock(Authentication.class);
+
+        // Given
+        given(httpServletBinder.retrieve(request)).willReturn(authentication);
+        given(response.isCommitted()).willReturn(true);
+        given(tokenRefresh.shouldRefresh(request)).willReturn(true);
+
+        // When
+        context.getAuthentication();
+
+        // Then
+        verify(httpServletBinder, never()).add(response, authentication);
+    }
+
+    @Test
+    public void Will_throw_the_mapped_exception_every_time_if_the_token_could_not_be_parsed() throws Exception {
+
+        final SignatureException exception = new SignatureException(someString());
+
+        // Given
+        given(httpServletBinder.retrieve(request)).willThrow(exception);
+
+        // When
+        for (int i = 0; i < 2; i++) {
+            try {
+                context.getAuthentication();
+                fail();
+            } catch (SignatureException e) {
+                // Then
+                assertThat(e, is(exception));
+            }
+        }
+        verify(httpServletBinder).retrieve(request);
+    }
+
+    @Test
+    public void Will_wrap_a_checked_mapped_exception() throws Exception {
+
+        final Exception exception = new Exception(someString());
+
+        // Given
+        given(httpServletBinder.retrieve(request)).willThrow(exception);
+
+        // When
+        try {
+            context.getAuthentication();
+            fail();
+        } catch (IllegalStateException e) {
+            // Then
+            assertThat(e.getCause(), instanceOf(ServletException.class));
+            assertThat(e.getCause().getCause(), is((Throwable) exception));
+        }
+    }
+
+    @Test
+    public void Can_set_the_authentication_without_retrieving_it() {
+
+        final Authentication expected = mock(Authentication.class);
+
+        // When
+        context.setAuthentication(expected);
+        final Authentication actual = context.getAuthentication();
+
+        // Then
+        assertThat(actual, is(expected));
+        verifyZeroInteractions(httpServletBinder);
+    }
+
+    @Test
+    public void Can_clear_the_authentication() {
+
+        // When
+        context.setAuthentication(null);
+
+        // Then
+        assertThat(context.getAuthentication(), nullValue());
+    }
+}
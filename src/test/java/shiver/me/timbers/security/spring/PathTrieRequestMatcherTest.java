@@ -0,0 +1,113 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.spring;
+
+import org.junit.Test;
+
+import javax.servlet.http.HttpServletRequest;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+public class PathTrieRequestMatcherTest {
+
+    @Test
+    public void Can_match_a_literal_path() {
+
+        final PathTrieRequestMatcher matcher = new PathTrieRequestMatcher("/favicon.ico", "/login");
+
+        // Then
+        assertThat(matcher.matches(request("GET", "/favicon.ico", null)), is(true));
+        assertThat(matcher.matches(request("GET", "/login", null)), is(true));
+        assertThat(matcher.matches(request("GET", "/favicon", null)), is(false));
+        assertThat(matcher.matches(request("GET", "/login/other", null)), is(false));
+        assertThat(matcher.matches(request("GET", "/Login", null)), is(false));
+    }
+
+    @Test
+    public void Can_match_all_the_paths_under_a_directory() {
+
+        final PathTrieRequestMatcher matcher = new PathTrieRequestMatcher("/static/**");
+
+        // Then
+        assertThat(matcher.matches(request("GET", "/static", null)), is(true));
+        assertThat(matcher.matches(request("GET", "/static/", null)), is(true));
+        assertThat(matcher.matches(request("GET", "/static/css/site.css", null)), is(true));
+        assertThat(matcher.matches(request("GET", "/statics/site.css", null)), is(false));
+        assertThat(matcher.matches(request("GET", "/other/static/site.css", null)), is(false));
+    }
+
+    @Test
+    public void Can_match_the_path_info_after_the_servlet_path() {
+
+        final PathTrieRequestMatcher matcher = new PathTrieRequestMatcher("/app/public/**");
+
+        // Then
+        assertThat(matcher.matches(request("GET", "/app", "/public/page")), is(true));
+        assertThat(matcher.matches(request("GET", "/app", "/private/page")), is(false));
+    }
+
+    @Test
+    public void Can_match_every_path() {
+
+        // Then
+        assertThat(new PathTrieRequestMatcher("/**").matches(request("GET", "/any/path", null)), is(true));
+    }
+
+    @Test
+    public void Can_limit_a_path_to_an_http_method() {
+
+        final PathTrieRequestMatcher matcher = new PathTrieRequestMatcher().antPaths("GET", "/public/**", "/about");
+
+        // Then
+        assertThat(matcher.matches(request("GET", "/public/page", null)), is(true));
+        assertThat(matcher.matches(request("GET", "/about", null)), is(true));
+        assertThat(matcher.matches(request("POST", "/public/page", null)), is(false));
+        assertThat(matcher.matches(request("POST", "/about", null)), is(false));
+    }
+
+    @Test
+    public void Can_match_the_ant_patterns_that_cannot_go_in_the_trie() {
+
+        final PathTrieRequestMatcher matcher = new PathTrieRequestMatcher("/**/*.js", "/images/*.png");
+
+        // Then
+        assertThat(matcher.matches(request("GET", "/scripts/app.js", null)), is(true));
+        assertThat(matcher.matches(request("GET", "/images/logo.png", null)), is(true));
+        assertThat(matcher.matches(request("GET", "/images/logo.gif", null)), is(false));
+    }
+
+    @Test
+    public void Can_match_a_regular_expression() {
+
+        final PathTrieRequestMatcher matcher = new PathTrieRequestMatcher().regex(null, "/health(\\?.*)?");
+
+        // Then
+        assertThat(matcher.matches(request("GET", "/health", null)), is(true));
+        assertThat(matcher.matches(request("GET", "/healthy", null)), is(false));
+    }
+
+    private static HttpServletRequest request(String method, String servletPath, String pathInfo) {
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        given(request.getMethod()).willReturn(method);
+        given(request.getServletPath()).willReturn(servletPath);
+        given(request.getPathInfo()).willReturn(pathInfo);
+        return request;
+    }
+}
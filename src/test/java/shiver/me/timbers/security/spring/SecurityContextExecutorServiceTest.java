@@ -0,0 +1,112 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.spring;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class SecurityContextExecutorServiceTest {
+
+    private StaticSecurityContextHolder contextHolder;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        contextHolder = new StaticSecurityContextHolder();
+        executor = new SecurityContextExecutorService(newSingleThreadExecutor(), contextHolder);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        org.springframework.security.core.context.SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void Can_run_a_task_with_the_submitting_threads_authentication() throws Exception {
+
+        final Authentication expected = mock(Authentication.class);
+        final SecurityContext context = new SecurityContextImpl();
+
+        // Given
+        context.setAuthentication(expected);
+        contextHolder.setContext(context);
+
+        // When
+        final SecurityContext actual = executor.submit(new CurrentContext()).get();
+
+        // Then
+        assertThat(actual.getAuthentication(), sameInstance(expected));
+    }
+
+    @Test
+    public void Will_not_leave_the_submitting_threads_context_on_the_worker() throws Exception {
+
+        final Authentication authentication = mock(Authentication.class);
+        final SecurityContext context = new SecurityContextImpl();
+        final ExecutorService worker = newSingleThreadExecutor();
+
+        // Given
+        context.setAuthentication(authentication);
+        contextHolder.setContext(context);
+        new SecurityContextExecutorService(worker, contextHolder).submit(new CurrentContext()).get();
+
+        // When
+        final SecurityContext actual = worker.submit(new CurrentContext()).get();
+
+        // Then
+        try {
+            assertThat(actual.getAuthentication(), not(sameInstance(authentication)));
+        } finally {
+            worker.shutdownNow();
+        }
+    }
+
+    @Test
+    public void Can_shutdown_the_wrapped_executor() throws InterruptedException {
+
+        // When
+        executor.shutdown();
+
+        // Then
+        assertThat(executor.awaitTermination(1L, SECONDS), equalTo(true));
+        assertThat(executor.isShutdown(), equalTo(true));
+        assertThat(executor.isTerminated(), equalTo(true));
+    }
+
+    private static class CurrentContext implements Callable<SecurityContext> {
+        @Override
+        public SecurityContext call() {
+            return new StaticSecurityContextHolder().getContext();
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.spring;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class SecurityContextRunnableTest {
+
+    private Runnable task;
+    private MutableSecurityContextHolder contextHolder;
+    private SecurityContext previous;
+
+    @Before
+    public void setUp() {
+        task = mock(Runnable.class);
+        contextHolder = mock(MutableSecurityContextHolder.class);
+        previous = mock(SecurityContext.class);
+        given(previous.getAuthentication()).willReturn(mock(Authentication.class));
+    }
+
+    @Test
+    public void Can_run_a_task_with_the_captured_authentication_and_then_restore_the_previous_context() {
+
+        final SecurityContext context = mock(SecurityContext.class);
+        final Authentication authentication = mock(Authentication.class);
+        final ArgumentCaptor<SecurityContext> captor = ArgumentCaptor.forClass(SecurityContext.class);
+
+        // Given
+        given(context.getAuthentication()).willReturn(authentication);
+        given(contextHolder.getContext()).willReturn(previous);
+
+        // When
+        new SecurityContextRunnable(task, contextHolder, context).run();
+
+        // Then
+        final InOrder order = inOrder(contextHolder, task);
+        order.verify(contextHolder).setContext(captor.capture());
+        order.verify(task).run();
+        order.verify(contextHolder).setContext(previous);
+        assertThat(captor.getValue(), not(sameInstance(context)));
+        assertThat(captor.getValue().getAuthentication(), sameInstance(authentication));
+    }
+
+    @Test
+    public void Can_capture_the_authentication_of_the_creating_thread() {
+
+        final SecurityContext context = mock(SecurityContext.class);
+        final Authentication authentication = mock(Authentication.class);
+        final ArgumentCaptor<SecurityContext> captor = ArgumentCaptor.forClass(SecurityContext.class);
+
+        // Given
+        given(context.getAuthentication()).willReturn(authentication);
+        given(contextHolder.getContext()).willReturn(context, previous);
+
+        // When
+        new SecurityContextRunnable(task, contextHolder).run();
+
+        // Then
+        final InOrder order = inOrder(contextHolder, task);
+        order.verify(contextHolder).setContext(captor.capture());
+        order.verify(task).run();
+        order.verify(contextHolder).setContext(previous);
+        assertThat(captor.getValue().getAuthentication(), sameInstance(authentication));
+    }
+
+    @Test
+    public void Can_read_the_authentication_when_the_task_is_created() {
+
+        final SecurityContext context = mock(SecurityContext.class);
+
+        // When
+        new SecurityContextRunnable(task, contextHolder, context);
+
+        // Then
+        verify(context).getAuthentication();
+    }
+
+    @Test
+    public void Will_clear_the_context_of_a_worker_that_did_not_have_an_authentication() {
+
+        final SecurityContext empty = mock(SecurityContext.class);
+
+        // Given
+        given(contextHolder.getContext()).willReturn(empty);
+
+        // When
+        new SecurityContextRunnable(task, contextHolder, mock(SecurityContext.class)).run();
+
+        // Then
+        final InOrder order = inOrder(contextHolder, task);
+        order.verify(task).run();
+        order.verify(contextHolder).clearContext();
+        verify(contextHolder, never()).setContext(empty);
+    }
+
+    @Test
+    public void Will_restore_the_previous_context_if_the_task_fails() {
+
+        final RuntimeException exception = new RuntimeException();
+
+        // Given
+        given(contextHolder.getContext()).willReturn(previous);
+        willThrow(exception).given(task).run();
+
+        // When
+        try {
+            new SecurityContextRunnable(task, contextHolder, mock(SecurityContext.class)).run();
+            fail("The task's exception should have been thrown.");
+        } catch (RuntimeException e) {
+            assertThat(e, sameInstance(exception));
+        }
+
+        // Then
+        verify(contextHolder).setContext(previous);
+    }
+
+    @Test
+    public void Can_run_a_task_in_the_scope_of_a_carrier_security_context_holder() {
+
+        final CarrierSecurityContextHolder contextHolder = new CarrierSecurityContextHolder();
+        final SecurityContext context = mock(SecurityContext.class);
+        final Authentication authentication = mock(Authentication.class);
+        final Authentication[] actual = new Authentication[1];
+
+        // Given
+        given(context.getAuthentication()).willReturn(authentication);
+
+        // When
+        new SecurityContextRunnable(new Runnable() {
+            @Override
+            public void run() {
+                actual[0] = contextHolder.getContext().getAuthentication();
+            }
+        }, contextHolder, context).run();
+
+        // Then
+        assertThat(actual[0], sameInstance(authentication));
+        assertThat(contextHolder.getContext().getAuthentication(), nullValue());
+        contextHolder.clearContext();
+    }
+}
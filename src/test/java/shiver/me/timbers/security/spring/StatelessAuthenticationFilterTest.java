@@ -20,19 +20,27 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InOrder;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import shiver.me.timbers.security.servlet.HttpServletBinder;
+import shiver.me.timbers.security.servlet.SlidingTokenRefresh;
 
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 
@@ -79,6 +87,177 @@ public class StatelessAuthenticationFilterTest {
         verifyZeroInteractions(exceptionMapper);
     }
 
+    @Test
+    public void Can_refresh_the_token_of_an_authenticated_request() throws Exception {
+
+        final SlidingTokenRefresh tokenRefresh = mock(SlidingTokenRefresh.class);
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        final HttpServletResponse response = mock(HttpServletResponse.class);
+        final FilterChain filterChain = mock(FilterChain.class);
+
+        final Authentication authentication = mock(Authentication.class);
+        final SecurityContext securityContext = mock(SecurityContext.class);
+
+        // Given
+        given(contextHolder.getContext()).willReturn(securityContext);
+        given(httpServletBinder.retrieve(request)).willReturn(authentication);
+        given(tokenRefresh.shouldRefresh(request)).willReturn(true);
+
+        // When
+        new StatelessAuthenticationFilter(httpServletBinder, contextHolder, exceptionMapper, tokenRefresh)
+            .doFilter(request, response, filterChain);
+
+        // Then
+        final InOrder order = inOrder(securityContext, httpServletBinder, filterChain);
+        order.verify(securityContext).setAuthentication(authentication);
+        order.verify(httpServletBinder).add(response, authentication);
+        order.verify(filterChain).doFilter(request, response);
+    }
+
+    @Test
+    public void Will_not_refresh_a_token_that_does_not_need_it() throws Exception {
+
+        final SlidingTokenRefresh tokenRefresh = mock(SlidingTokenRefresh.class);
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        final HttpServletResponse response = mock(HttpServletResponse.class);
+        final FilterChain filterChain = mock(FilterChain.class);
+
+        // Given
+        given(contextHolder.getContext()).willReturn(mock(SecurityContext.class));
+        given(httpServletBinder.retrieve(request)).willReturn(mock(Authentication.class));
+        given(tokenRefresh.shouldRefresh(request)).willReturn(false);
+
+        // When
+        new StatelessAuthenticationFilter(httpServletBinder, contextHolder, exceptionMapper, tokenRefresh)
+            .doFilter(request, response, filterChain);
+
+        // Then
+        verify(httpServletBinder, never()).add(any(HttpServletResponse.class), any(Authentication.class));
+        verify(filterChain).doFilter(request, response);
+    }
+
+    @Test
+    public void Will_not_refresh_the_token_of_an_unauthenticated_request() throws Exception {
+
+        final SlidingTokenRefresh tokenRefresh = mock(SlidingTokenRefresh.class);
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        final HttpServletResponse response = mock(HttpServletResponse.class);
+        final FilterChain filterChain = mock(FilterChain.class);
+
+        // Given
+        given(contextHolder.getContext()).willReturn(mock(SecurityContext.class));
+        given(httpServletBinder.retrieve(request)).willReturn(null);
+
+        // When
+        new StatelessAuthenticationFilter(httpServletBinder, contextHolder, exceptionMapper, tokenRefresh)
+            .doFilter(request, response, filterChain);
+
+        // Then
+        verifyZeroInteractions(tokenRefresh);
+        verify(filterChain).doFilter(request, response);
+    }
+
+    @Test
+    public void Can_skip_a_request_without_looking_for_a_token() throws Exception {
+
+        final RequestMatcher skip = mock(RequestMatcher.class);
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        final ServletResponse response = mock(ServletResponse.class);
+        final FilterChain filterChain = mock(FilterChain.class);
+
+        // Given
+        given(skip.matches(request)).willReturn(true);
+
+        // When
+        new StatelessAuthenticationFilter(httpServletBinder, contextHolder, exceptionMapper, null, skip)
+            .doFilter(request, response, filterChain);
+
+        // Then
+        verify(filterChain).doFilter(request, response);
+        verifyZeroInteractions(httpServletBinder, contextHolder, exceptionMapper);
+    }
+
+    @Test
+    public void Can_authenticate_a_request_that_is_not_skipped() throws Exception {
+
+        final RequestMatcher skip = mock(RequestMatcher.class);
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        final ServletResponse response = mock(ServletResponse.class);
+        final FilterChain filterChain = mock(FilterChain.class);
+
+        final Authentication authentication = mock(Authentication.class);
+        final SecurityContext securityContext = mock(SecurityContext.class);
+
+        // Given
+        given(skip.matches(request)).willReturn(false);
+        given(contextHolder.getContext()).willReturn(securityContext);
+        given(httpServletBinder.retrieve(request)).willReturn(authentication);
+
+        // When
+        new StatelessAuthenticationFilter(httpServletBinder, contextHolder, exceptionMapper, null, skip)
+            .doFilter(request, response, filterChain);
+
+        // Then
+        verify(securityContext).setAuthentication(authentication);
+        verify(filterChain).doFilter(request, response);
+    }
+
+    @Test
+    public void Can_defer_authentication_until_it_is_first_asked_for() throws Exception {
+
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        final HttpServletResponse response = mock(HttpServletResponse.class);
+        final FilterChain filterChain = mock(FilterChain.class);
+
+        final Authentication authentication = mock(Authentication.class);
+        final ArgumentCaptor<SecurityContext> captor = ArgumentCaptor.forClass(SecurityContext.class);
+        final MutableSecurityContextHolder contextHolder = mock(MutableSecurityContextHolder.class);
+
+        // Given
+        given(httpServletBinder.retrieve(request)).willReturn(authentication);
+
+        // When
+        new StatelessAuthenticationFilter(httpServletBinder, contextHolder, exceptionMapper, null, null, true)
+            .doFilter(request, response, filterChain);
+
+        // Then
+        verify(contextHolder).setContext(captor.capture());
+        verify(filterChain).doFilter(request, response);
+        verify(httpServletBinder, never()).retrieve(request);
+        assertThat(captor.getValue().getAuthentication(), is(authentication));
+    }
+
+    @Test
+    public void Can_map_an_exception_thrown_by_deferred_authentication() throws Exception {
+
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        final HttpServletResponse response = mock(HttpServletResponse.class);
+        final FilterChain filterChain = mock(FilterChain.class);
+
+        final RuntimeException exception = new RuntimeException();
+        final ArgumentCaptor<SecurityContext> captor = ArgumentCaptor.forClass(SecurityContext.class);
+        final MutableSecurityContextHolder contextHolder = mock(MutableSecurityContextHolder.class);
+
+        // Given
+        given(httpServletBinder.retrieve(request)).willThrow(exception);
+
+        // When
+        new StatelessAuthenticationFilter(httpServletBinder, contextHolder, exceptionMapper, null, null, true)
+            .doFilter(request, response, filterChain);
+        verify(contextHolder).setContext(captor.capture());
+        captor.getValue().getAuthentication();
+
+        // Then
+        verify(exceptionMapper).throwMapped(exception);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void Cannot_defer_authentication_without_a_mutable_security_context_holder() {
+
+        // When
+        new StatelessAuthenticationFilter(httpServletBinder, contextHolder, exceptionMapper, null, null, true);
+    }
+
     @Test
     public void Can_map_thrown_exception() throws Exception {
 
@@ -19,21 +19,52 @@ package shiver.me.timbers.security.spring;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.InOrder;
+import org.mockito.ArgumentCaptor;
+import org.springframework.security.authentication.AuthenticationServiceException;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.web.authentication.AuthenticationFailureHandler;
 import org.springframework.security.web.authentication.SimpleUrlAuthenticationSuccessHandler;
 import shiver.me.timbers.security.servlet.HttpServletBinder;
+import shiver.me.timbers.security.servlet.TokenHttpServletBinder;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.RequestDispatcher;
+import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
 
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static javax.servlet.http.HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+import static javax.servlet.http.HttpServletResponse.SC_SERVICE_UNAVAILABLE;
+import static org.mockito.BDDMockito.given;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
 import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static shiver.me.timbers.data.random.RandomStrings.someString;
 
 public class StatelessAuthenticationSuccessHandlerTest {
 
     private HttpServletBinder<Authentication> httpServletBinder;
+    private TokenHttpServletBinder<Authentication> tokenBinder;
     private SimpleUrlAuthenticationSuccessHandler delegate;
     private StatelessAuthenticationSuccessHandler handler;
     private ExceptionMapper exceptionMapper;
@@ -42,6 +73,7 @@ public class StatelessAuthenticationSuccessHandlerTest {
     @SuppressWarnings("unchecked")
     public void setUp() {
         httpServletBinder = mock(HttpServletBinder.class);
+        tokenBinder = mock(TokenHttpServletBinder.class);
         delegate = mock(SimpleUrlAuthenticationSuccessHandler.class);
         exceptionMapper = mock(ExceptionMapper.class);
         handler = new StatelessAuthenticationSuccessHandler(httpServletBinder, delegate, exceptionMapper);
@@ -100,4 +132,281 @@ public class StatelessAuthenticationSuccessHandlerTest {
         // Then
         verify(exceptionMapper).throwMapped(error);
     }
+
+    @Test
+    public void Can_sign_the_token_asynchronously_on_the_signing_executor() throws Exception {
+
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        final HttpServletResponse response = mock(HttpServletResponse.class);
+        final Authentication authentication = mock(Authentication.class);
+        final AsyncContext asyncContext = mock(AsyncContext.class);
+        final ExecutorService executor = newSingleThreadExecutor();
+
+        final String token = someString();
+
+        // Given
+        given(request.isAsyncSupported()).willReturn(true);
+        given(request.startAsync()).willReturn(asyncContext);
+        given(tokenBinder.createToken(authentication)).willReturn(token);
+
+        // When
+        new StatelessAuthenticationSuccessHandler(tokenBinder, delegate, exceptionMapper, executor)
+            .withSigningTimeout(5L, SECONDS)
+            .onAuthenticationSuccess(request, response, authentication);
+
+        // Then
+        try {
+            verify(asyncContext, timeout(1000)).complete();
+            final InOrder order = inOrder(request, tokenBinder, delegate, asyncContext);
+            order.verify(request).startAsync();
+            order.verify(asyncContext).setTimeout(5000L);
+            order.verify(asyncContext).addListener(any(AsyncListener.class));
+            order.verify(tokenBinder).createToken(authentication);
+            order.verify(tokenBinder).addToken(response, token);
+            order.verify(delegate).onAuthenticationSuccess(request, response, authentication);
+            order.verify(asyncContext).complete();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void Will_fail_an_asynchronous_sign_in_if_the_token_cannot_be_signed() throws Exception {
+
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        final HttpServletResponse response = mock(HttpServletResponse.class);
+        final Authentication authentication = mock(Authentication.class);
+        final AsyncContext asyncContext = mock(AsyncContext.class);
+        final ExecutorService executor = newSingleThreadExecutor();
+
+        final ServletException exception = new ServletException();
+
+        // Given
+        given(request.isAsyncSupported()).willReturn(true);
+        given(request.startAsync()).willReturn(asyncContext);
+        willThrow(new Exception()).given(tokenBinder).createToken(authentication);
+        willThrow(exception).given(exceptionMapper).throwMapped(any(Throwable.class));
+
+        // When
+        new StatelessAuthenticationSuccessHandler(tokenBinder, delegate, exceptionMapper, executor)
+            .onAuthenticationSuccess(request, response, authentication);
+
+        // Then
+        try {
+            verify(asyncContext, timeout(1000)).complete();
+            verify(request).setAttribute(RequestDispatcher.ERROR_EXCEPTION, exception);
+            verify(response).sendError(SC_INTERNAL_SERVER_ERROR);
+            verifyZeroInteractions(delegate);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void Will_hand_a_failed_asynchronous_sign_in_to_the_failure_handler() throws Exception {
+
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        final HttpServletResponse response = mock(HttpServletResponse.class);
+        final Authentication authentication = mock(Authentication.class);
+        final AsyncContext asyncContext = mock(AsyncContext.class);
+        final AuthenticationFailureHandler failureHandler = mock(AuthenticationFailureHandler.class);
+        final ExecutorService executor = newSingleThreadExecutor();
+
+        final ServletException exception = new ServletException();
+        final ArgumentCaptor<AuthenticationServiceException> captor =
+            ArgumentCaptor.forClass(AuthenticationServiceException.class);
+
+        // Given
+        given(request.isAsyncSupported()).willReturn(true);
+        given(request.startAsync()).willReturn(asyncContext);
+        willThrow(new Exception()).given(tokenBinder).createToken(authentication);
+        willThrow(exception).given(exceptionMapper).throwMapped(any(Throwable.class));
+
+        // When
+        new StatelessAuthenticationSuccessHandler(tokenBinder, delegate, exceptionMapper, executor)
+            .withFailureHandler(failureHandler)
+            .onAuthenticationSuccess(request, response, authentication);
+
+        // Then
+        try {
+            verify(asyncContext, timeout(1000)).complete();
+            verify(failureHandler).onAuthenticationFailure(eq(request), eq(response), captor.capture());
+            assertThat(captor.getValue().getCause(), sameInstance((Throwable) exception));
+            verify(response, never()).sendError(SC_INTERNAL_SERVER_ERROR);
+            verifyZeroInteractions(delegate);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void Can_sign_the_token_on_the_signing_executor_if_the_request_is_not_asynchronous() throws Exception {
+
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        final HttpServletResponse response = mock(HttpServletResponse.class);
+        final Authentication authentication = mock(Authentication.class);
+        final ExecutorService executor = newSingleThreadExecutor();
+
+        final String token = someString();
+
+        // Given
+        given(request.isAsyncSupported()).willReturn(false);
+        given(tokenBinder.createToken(authentication)).willReturn(token);
+
+        // When
+        try {
+            new StatelessAuthenticationSuccessHandler(tokenBinder, delegate, exceptionMapper, executor)
+                .onAuthenticationSuccess(request, response, authentication);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Then
+        final InOrder order = inOrder(tokenBinder, delegate);
+        order.verify(tokenBinder).addToken(response, token);
+        order.verify(delegate).onAuthenticationSuccess(request, response, authentication);
+        verify(request, never()).startAsync();
+    }
+
+    @Test
+    public void Can_map_an_exception_thrown_on_the_signing_executor() throws Exception {
+
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        final HttpServletResponse response = mock(HttpServletResponse.class);
+        final Authentication authentication = mock(Authentication.class);
+        final ExecutorService executor = newSingleThreadExecutor();
+
+        final Exception exception = new Exception();
+
+        // Given
+        given(request.isAsyncSupported()).willReturn(false);
+        willThrow(exception).given(tokenBinder).createToken(authentication);
+
+        // When
+        try {
+            new StatelessAuthenticationSuccessHandler(tokenBinder, delegate, exceptionMapper, executor)
+                .onAuthenticationSuccess(request, response, authentication);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Then
+        verify(exceptionMapper).throwMapped(exception);
+    }
+
+    @Test
+    public void Will_turn_away_a_sign_in_if_the_signing_executor_is_full() throws Exception {
+
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        final HttpServletResponse response = mock(HttpServletResponse.class);
+        final Authentication authentication = mock(Authentication.class);
+        final AsyncContext asyncContext = mock(AsyncContext.class);
+        final ExecutorService executor = mock(ExecutorService.class);
+
+        // Given
+        given(request.isAsyncSupported()).willReturn(true, false);
+        given(request.startAsync()).willReturn(asyncContext);
+        willThrow(new RejectedExecutionException()).given(executor).execute(any(Runnable.class));
+        given(executor.submit(any(Callable.class))).willThrow(new RejectedExecutionException());
+        handler = new StatelessAuthenticationSuccessHandler(tokenBinder, delegate, exceptionMapper, executor);
+
+        // When
+        handler.onAuthenticationSuccess(request, response, authentication);
+        handler.onAuthenticationSuccess(request, response, authentication);
+
+        // Then
+        verify(response, times(2)).sendError(SC_SERVICE_UNAVAILABLE);
+        verify(asyncContext).complete();
+        verifyZeroInteractions(tokenBinder, delegate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void Will_turn_away_a_sign_in_that_times_out_waiting_for_its_token() throws Exception {
+
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        final HttpServletResponse response = mock(HttpServletResponse.class);
+        final Authentication authentication = mock(Authentication.class);
+        final ExecutorService executor = mock(ExecutorService.class);
+        final Future<Object> signed = mock(Future.class);
+
+        // Given
+        given(request.isAsyncSupported()).willReturn(false);
+        given(executor.submit(any(Callable.class))).willReturn(signed);
+        given(signed.get(10L, MILLISECONDS)).willThrow(new TimeoutException());
+
+        // When
+        new StatelessAuthenticationSuccessHandler(tokenBinder, delegate, exceptionMapper, executor)
+            .withSigningTimeout(10L, MILLISECONDS)
+            .onAuthenticationSuccess(request, response, authentication);
+
+        // Then
+        verify(signed).cancel(true);
+        verify(response).sendError(SC_SERVICE_UNAVAILABLE);
+        verify(tokenBinder, never()).addToken(any(HttpServletResponse.class), anyString());
+        verifyZeroInteractions(exceptionMapper, delegate);
+    }
+
+    @Test
+    public void Will_turn_away_an_asynchronous_sign_in_that_times_out_and_discard_its_token() throws Exception {
+
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        final HttpServletResponse response = mock(HttpServletResponse.class);
+        final Authentication authentication = mock(Authentication.class);
+        final AsyncContext asyncContext = mock(AsyncContext.class);
+        final ExecutorService executor = mock(ExecutorService.class);
+        final ArgumentCaptor<AsyncListener> listener = ArgumentCaptor.forClass(AsyncListener.class);
+        final ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+
+        // Given
+        given(request.isAsyncSupported()).willReturn(true);
+        given(request.startAsync()).willReturn(asyncContext);
+        given(tokenBinder.createToken(authentication)).willReturn(someString());
+        new StatelessAuthenticationSuccessHandler(tokenBinder, delegate, exceptionMapper, executor)
+            .onAuthenticationSuccess(request, response, authentication);
+        verify(asyncContext).addListener(listener.capture());
+        verify(executor).execute(task.capture());
+
+        // When
+        listener.getValue().onTimeout(new AsyncEvent(asyncContext));
+        task.getValue().run();
+
+        // Then
+        verify(response).sendError(SC_SERVICE_UNAVAILABLE);
+        verify(asyncContext).complete();
+        verify(tokenBinder, never()).addToken(any(HttpServletResponse.class), anyString());
+        verifyZeroInteractions(delegate);
+    }
+
+    @Test
+    public void Will_ignore_the_timeout_of_an_asynchronous_sign_in_that_has_already_been_written() throws Exception {
+
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        final HttpServletResponse response = mock(HttpServletResponse.class);
+        final Authentication authentication = mock(Authentication.class);
+        final AsyncContext asyncContext = mock(AsyncContext.class);
+        final ExecutorService executor = mock(ExecutorService.class);
+        final ArgumentCaptor<AsyncListener> listener = ArgumentCaptor.forClass(AsyncListener.class);
+        final ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+
+        final String token = someString();
+
+        // Given
+        given(request.isAsyncSupported()).willReturn(true);
+        given(request.startAsync()).willReturn(asyncContext);
+        given(tokenBinder.createToken(authentication)).willReturn(token);
+        new StatelessAuthenticationSuccessHandler(tokenBinder, delegate, exceptionMapper, executor)
+            .onAuthenticationSuccess(request, response, authentication);
+        verify(asyncContext).addListener(listener.capture());
+        verify(executor).execute(task.capture());
+
+        // When
+        task.getValue().run();
+        listener.getValue().onTimeout(new AsyncEvent(asyncContext));
+
+        // Then
+        verify(tokenBinder).addToken(response, token);
+        verify(response, never()).sendError(SC_SERVICE_UNAVAILABLE);
+        verify(asyncContext).complete();
+    }
 }
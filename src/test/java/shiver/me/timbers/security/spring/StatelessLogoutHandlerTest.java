@@ -0,0 +1,104 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.spring;
+
+import io.jsonwebtoken.SignatureException;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.core.Authentication;
+import shiver.me.timbers.security.servlet.HttpServletTokens;
+import shiver.me.timbers.security.token.RevocableTokenParser;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static shiver.me.timbers.data.random.RandomStrings.someString;
+
+public class StatelessLogoutHandlerTest {
+
+    private HttpServletTokens tokens;
+    private RevocableTokenParser<?> tokenParser;
+    private HttpServletRequest request;
+    private StatelessLogoutHandler handler;
+
+    @Before
+    public void setUp() {
+        tokens = mock(HttpServletTokens.class);
+        tokenParser = mock(RevocableTokenParser.class);
+        request = mock(HttpServletRequest.class);
+        handler = new StatelessLogoutHandler(tokens, tokenParser);
+    }
+
+    @Test
+    public void Can_revoke_the_token_on_logout() throws Exception {
+
+        final String token = someString();
+
+        // Given
+        given(tokens.retrieve(request)).willReturn(token);
+
+        // When
+        handler.logout(request, mock(HttpServletResponse.class), mock(Authentication.class));
+
+        // Then
+        verify(tokenParser).revoke(token);
+    }
+
+    @Test
+    public void Will_do_nothing_on_logout_if_there_is_no_token() {
+
+        // Given
+        given(tokens.retrieve(request)).willReturn(null);
+
+        // When
+        handler.logout(request, mock(HttpServletResponse.class), mock(Authentication.class));
+
+        // Then
+        verifyZeroInteractions(tokenParser);
+    }
+
+    @Test
+    public void Will_ignore_an_invalid_token_on_logout() throws Exception {
+
+        final String token = someString();
+
+        // Given
+        given(tokens.retrieve(request)).willReturn(token);
+        willThrow(new SignatureException(someString())).given(tokenParser).revoke(token);
+
+        // When
+        handler.logout(request, mock(HttpServletResponse.class), mock(Authentication.class));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void Cannot_hide_a_failure_to_revoke_a_token() throws Exception {
+
+        final String token = someString();
+
+        // Given
+        given(tokens.retrieve(request)).willReturn(token);
+        willThrow(new Exception()).given(tokenParser).revoke(token);
+
+        // When
+        handler.logout(request, mock(HttpServletResponse.class), mock(Authentication.class));
+    }
+}
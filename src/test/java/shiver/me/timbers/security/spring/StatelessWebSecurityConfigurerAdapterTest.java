@@ -1,22 +1,50 @@
 package shiver.me.timbers.security.spring;
 
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.context.annotation.Bean;
 import org.springframework.security.config.annotation.ObjectPostProcessor;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import shiver.me.timbers.security.servlet.XAuthTokenHttpServletBinder;
+import shiver.me.timbers.security.token.CachingTokenParser;
+import shiver.me.timbers.security.token.JwtSubjectTokenParser;
 import shiver.me.timbers.security.token.JwtTokenParser;
+import shiver.me.timbers.security.token.Keyring;
+import shiver.me.timbers.security.token.KeyringLoader;
+import shiver.me.timbers.security.token.Revocations;
 import shiver.me.timbers.security.token.TokenParser;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ScheduledExecutorService;
 
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertThat;
+import static org.mockito.BDDMockito.given;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.util.ReflectionTestUtils.setField;
 
 public class StatelessWebSecurityConfigurerAdapterTest {
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     private HttpSecurity http;
 
     @Before
@@ -32,7 +60,7 @@ public class StatelessWebSecurityConfigurerAdapterTest {
     @Test
     public void Can_configure_the_http_security() throws Exception {
         // When
-        new StatelessWebSecurityConfigurerAdapter().configure(http);
+        secret(new StatelessWebSecurityConfigurerAdapter()).configure(http);
     }
 
     @Test
@@ -42,12 +70,12 @@ public class StatelessWebSecurityConfigurerAdapterTest {
         final boolean[] configured = {false};
 
         // When
-        new StatelessWebSecurityConfigurerAdapter() {
+        secret(new StatelessWebSecurityConfigurerAdapter() {
             @Override
             protected void configure(JwtTokenParser tokenParser) {
                 configured[0] = true;
             }
-        }.configure(http);
+        }).configure(http);
 
         // Then
         assertThat(configured[0], is(true));
@@ -83,12 +111,12 @@ public class StatelessWebSecurityConfigurerAdapterTest {
         final boolean[] configured = {false};
 
         // When
-        new StatelessWebSecurityConfigurerAdapter() {
+        secret(new StatelessWebSecurityConfigurerAdapter() {
             @Override
             protected void configure(XAuthTokenHttpServletBinder xAuthTokenHttpServletBinder) {
                 configured[0] = true;
             }
-        }.configure(http);
+        }).configure(http);
 
         // Then
         assertThat(configured[0], is(true));
@@ -102,7 +130,7 @@ public class StatelessWebSecurityConfigurerAdapterTest {
         final boolean[] configured = {false};
 
         // When
-        new StatelessWebSecurityConfigurerAdapter() {
+        secret(new StatelessWebSecurityConfigurerAdapter() {
             @Override
             protected XAuthTokenHttpServletBinder xAuthTokenHttpServletBinder(TokenParser tokenParser) {
                 return mock(XAuthTokenHttpServletBinder.class);
@@ -112,7 +140,7 @@ public class StatelessWebSecurityConfigurerAdapterTest {
             protected void configure(XAuthTokenHttpServletBinder xAuthTokenHttpServletBinder) {
                 configured[0] = true;
             }
-        }.configure(http);
+        }).configure(http);
 
         // Then
         assertThat(configured[0], is(false));
@@ -125,14 +153,162 @@ public class StatelessWebSecurityConfigurerAdapterTest {
         final boolean[] configured = {false};
 
         // When
-        new StatelessWebSecurityConfigurerAdapter() {
+        secret(new StatelessWebSecurityConfigurerAdapter() {
             @Override
             protected void configureFurther(HttpSecurity http) throws Exception {
                 configured[0] = true;
             }
-        }.configure(http);
+        }).configure(http);
 
         // Then
         assertThat(configured[0], is(true));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void Can_cache_the_tokens_if_a_cache_size_is_set() throws Exception {
+
+        final List<TokenParser> tokenParsers = new ArrayList<>();
+        final StatelessWebSecurityConfigurerAdapter adapter = new StatelessWebSecurityConfigurerAdapter() {
+            @Override
+            protected XAuthTokenHttpServletBinder xAuthTokenHttpServletBinder(TokenParser tokenParser) {
+                tokenParsers.add(tokenParser);
+                return super.xAuthTokenHttpServletBinder(tokenParser);
+            }
+        };
+
+        // Given
+        secret(adapter);
+        setField(adapter, "cacheSize", 10);
+
+        // When
+        adapter.configure(http);
+
+        // Then
+        assertThat(tokenParsers.get(0), instanceOf(CachingTokenParser.class));
+    }
+
+    @Test
+    public void Will_not_serve_a_revoked_token_from_the_cache() throws Exception {
+
+        final Revocations revocations = mock(Revocations.class);
+        final List<TokenParser> tokenParsers = new ArrayList<>();
+        final StatelessWebSecurityConfigurerAdapter adapter = new StatelessWebSecurityConfigurerAdapter() {
+            @Override
+            protected TokenParser tokenParser(String secret) {
+                return new JwtSubjectTokenParser("c2VjcmV0").withRevocations(revocations);
+            }
+
+            @Override
+            protected XAuthTokenHttpServletBinder xAuthTokenHttpServletBinder(TokenParser tokenParser) {
+                tokenParsers.add(tokenParser);
+                return super.xAuthTokenHttpServletBinder(tokenParser);
+            }
+        };
+        setField(adapter, "cacheSize", 10);
+        adapter.configure(http);
+        @SuppressWarnings("unchecked")
+        final TokenParser<String> tokenParser = tokenParsers.get(0);
+        final String token = tokenParser.create("user");
+
+        // Given
+        tokenParser.parse(token);
+        given(revocations.isRevoked(anyString())).willReturn(true);
+
+        // When
+        final String actual = tokenParser.parse(token);
+
+        // Then
+        assertThat(actual, nullValue());
+    }
+
+    @Test
+    public void Will_not_cache_the_tokens_by_default() throws Exception {
+
+        final List<TokenParser> tokenParsers = new ArrayList<>();
+
+        // When
+        secret(new StatelessWebSecurityConfigurerAdapter() {
+            @Override
+            protected XAuthTokenHttpServletBinder xAuthTokenHttpServletBinder(TokenParser tokenParser) {
+                tokenParsers.add(tokenParser);
+                return super.xAuthTokenHttpServletBinder(tokenParser);
+            }
+        }).configure(http);
+
+        // Then
+        assertThat(tokenParsers.get(0), instanceOf(JwtTokenParser.class));
+    }
+
+    @Test
+    public void Can_sign_the_tokens_with_a_keyring_loaded_from_a_file() throws Exception {
+
+        final File file = folder.newFile();
+        final Properties properties = new Properties();
+        final List<Keyring> keyrings = new ArrayList<>();
+        final StatelessWebSecurityConfigurerAdapter adapter = new StatelessWebSecurityConfigurerAdapter() {
+            @Override
+            protected TokenParser tokenParser(Keyring keyring) {
+                keyrings.add(keyring);
+                return super.tokenParser(keyring);
+            }
+        };
+
+        // Given
+        properties.setProperty("current", "one");
+        properties.setProperty("secret.one", "c2VjcmV0");
+        try (OutputStream stream = new FileOutputStream(file)) {
+            properties.store(stream, null);
+        }
+        setField(adapter, "keyringFile", file.getPath());
+        setField(adapter, "keyringReload", 0L);
+
+        // When
+        adapter.configure(http);
+
+        // Then
+        assertThat(keyrings.get(0).currentId(), equalTo("one"));
+    }
+
+    @Test
+    public void Can_reload_the_keyring_on_the_keyring_reload_executor_bean() throws Exception {
+
+        final File file = folder.newFile();
+        final Properties properties = new Properties();
+        final ScheduledExecutorService executor = mock(ScheduledExecutorService.class);
+        final StatelessWebSecurityConfigurerAdapter adapter = new StatelessWebSecurityConfigurerAdapter() {
+            @Override
+            protected ScheduledExecutorService keyringReloadExecutor() {
+                return executor;
+            }
+        };
+
+        // Given
+        properties.setProperty("current", "one");
+        properties.setProperty("secret.one", "c2VjcmV0");
+        try (OutputStream stream = new FileOutputStream(file)) {
+            properties.store(stream, null);
+        }
+        setField(adapter, "keyringFile", file.getPath());
+        setField(adapter, "keyringReload", 30L);
+
+        // When
+        adapter.configure(http);
+
+        // Then
+        verify(executor).scheduleWithFixedDelay(any(KeyringLoader.class), eq(30L), eq(30L), eq(SECONDS));
+        final Bean bean = StatelessWebSecurityConfigurerAdapter.class.getDeclaredMethod("keyringReloadExecutor")
+            .getAnnotation(Bean.class);
+        assertThat(bean.destroyMethod(), equalTo("shutdown"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void Cannot_configure_the_http_security_without_a_secret_or_keyring() throws Exception {
+        // When
+        new StatelessWebSecurityConfigurerAdapter().configure(http);
+    }
+
+    private static <A extends StatelessWebSecurityConfigurerAdapter> A secret(A adapter) {
+        setField(adapter, "secret", "c2VjcmV0");
+        return adapter;
+    }
+}
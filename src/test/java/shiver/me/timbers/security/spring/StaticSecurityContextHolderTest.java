@@ -21,7 +21,9 @@ import org.springframework.security.core.context.SecurityContext;
 
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
 
 public class StaticSecurityContextHolderTest {
 
@@ -34,4 +36,21 @@ public class StaticSecurityContextHolderTest {
         // Then
         assertThat(actual, not(nullValue()));
     }
+
+    @Test
+    public void Can_set_the_current_security_context() {
+
+        final StaticSecurityContextHolder holder = new StaticSecurityContextHolder();
+        final SecurityContext expected = mock(SecurityContext.class);
+
+        // When
+        holder.setContext(expected);
+
+        // Then
+        try {
+            assertThat(holder.getContext(), sameInstance(expected));
+        } finally {
+            org.springframework.security.core.context.SecurityContextHolder.clearContext();
+        }
+    }
 }
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+public class BatchTokenParserTest {
+
+    private ForkJoinPool pool;
+    private BatchTokenParser<Integer> batch;
+
+    @Before
+    public void setUp() {
+        pool = new ForkJoinPool(4);
+        batch = new BatchTokenParser<>(new NumberTokenParser(), pool, 8);
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void Can_shut_down_the_pool_that_the_batch_created() throws Exception {
+
+        final BatchTokenParser<Integer> batch = new BatchTokenParser<>(new NumberTokenParser());
+
+        // Given
+        batch.close();
+
+        // When
+        batch.create(numbers(10));
+    }
+
+    @Test
+    public void Will_not_shut_down_a_supplied_pool() {
+
+        // When
+        batch.close();
+
+        // Then
+        assertThat(pool.isShutdown(), equalTo(false));
+    }
+
+    @Test
+    public void Can_create_a_batch_of_tokens_in_order() throws Exception {
+
+        final List<Integer> entities = numbers(1000);
+
+        // When
+        final List<String> actual = batch.create(entities);
+
+        // Then
+        assertThat(actual, equalTo(tokens(entities)));
+    }
+
+    @Test
+    public void Can_create_a_batch_of_tokens_from_a_linked_list() throws Exception {
+
+        final List<Integer> entities = new LinkedList<>(numbers(100));
+
+        // When
+        final List<String> actual = batch.create(entities);
+
+        // Then
+        assertThat(actual, equalTo(tokens(entities)));
+    }
+
+    @Test
+    public void Can_stream_a_batch_of_tokens() throws Exception {
+
+        final List<Integer> entities = numbers(1000);
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // When
+        batch.create(entities, output);
+
+        // Then
+        final StringBuilder expected = new StringBuilder();
+        for (String token : tokens(entities)) {
+            expected.append(token).append('\n');
+        }
+        assertThat(output.toString("US-ASCII"), equalTo(expected.toString()));
+    }
+
+    @Test
+    public void Will_throw_the_failure_if_a_token_cannot_be_created() throws Exception {
+
+        final Exception exception = new Exception();
+
+        // Given
+        batch = new BatchTokenParser<>(new NumberTokenParser() {
+            @Override
+            public String create(Integer entity) throws Exception {
+                if (entity == 500) {
+                    throw exception;
+                }
+                return super.create(entity);
+            }
+        }, pool, 8);
+
+        // When
+        try {
+            batch.create(numbers(1000));
+            fail("The token failure should have been thrown.");
+        } catch (Exception e) {
+
+            // Then
+            assertThat(e, sameInstance(exception));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void Cannot_create_a_batch_with_an_empty_chunk() {
+
+        // When
+        new BatchTokenParser<>(new NumberTokenParser(), pool, 0);
+    }
+
+    @Test
+    public void Can_parse_a_batch_of_tokens_without_throwing() {
+
+        final Expiries expiries = mock(Expiries.class);
+        final Clock dates = mock(Clock.class);
+        final Date now = new Date();
+
+        // Given
+        given(expiries.expiry("token.expired")).willReturn(new Date(now.getTime() - 1));
+        given(expiries.expiry("token.revoked")).willReturn(new Date(now.getTime() + 1));
+        given(dates.now()).willReturn(now);
+        batch = new BatchTokenParser<>(new NumberTokenParser() {
+            @Override
+            public Integer parse(String token) {
+                if (token.equals("token.expired") || token.equals("token.revoked")) {
+                    return null;
+                }
+                return super.parse(token);
+            }
+        }, pool, 8, expiries, dates);
+
+        // When
+        final List<TokenResult<Integer>> actual = batch.parse(
+            asList("token.1", "token.expired", "token.2", "token.revoked", "token.three")
+        );
+
+        // Then
+        assertThat(actual.get(0), equalTo(new TokenResult<>(1, TokenOutcome.VALID, null)));
+        assertThat(actual.get(1), equalTo(new TokenResult<Integer>(null, TokenOutcome.EXPIRED, null)));
+        assertThat(actual.get(2), equalTo(new TokenResult<>(2, TokenOutcome.VALID, null)));
+        assertThat(actual.get(3), equalTo(new TokenResult<Integer>(null, TokenOutcome.REJECTED, null)));
+        assertThat(actual.get(4).getOutcome(), equalTo(TokenOutcome.MALFORMED));
+        assertThat(actual.get(4).getFailure(), instanceOf(NumberFormatException.class));
+        assertThat(actual.get(4).isValid(), equalTo(false));
+        assertThat(actual.size(), equalTo(5));
+    }
+
+    @Test
+    public void Can_parse_a_large_batch_of_tokens_in_order() throws Exception {
+
+        final List<Integer> entities = numbers(1000);
+
+        // When
+        final List<TokenResult<Integer>> actual = batch.parse(tokens(entities));
+
+        // Then
+        for (int i = 0; i < entities.size(); i++) {
+            assertThat(actual.get(i).getEntity(), equalTo(entities.get(i)));
+        }
+    }
+
+    private static List<Integer> numbers(int size) {
+        final List<Integer> numbers = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            numbers.add(i);
+        }
+        return numbers;
+    }
+
+    private static List<String> tokens(List<Integer> entities) {
+        final List<String> tokens = new ArrayList<>(entities.size());
+        for (Integer entity : entities) {
+            tokens.add("token." + entity);
+        }
+        return tokens;
+    }
+
+    private static class NumberTokenParser implements TokenParser<Integer> {
+
+        @Override
+        public String create(Integer entity) throws Exception {
+            return "token." + entity;
+        }
+
+        @Override
+        public Integer parse(String token) {
+            return Integer.valueOf(token.substring("token.".length()));
+        }
+    }
+}
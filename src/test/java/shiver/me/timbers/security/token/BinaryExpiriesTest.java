@@ -0,0 +1,80 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import org.junit.Test;
+import org.msgpack.MessagePack;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import static io.jsonwebtoken.SignatureAlgorithm.HS256;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static shiver.me.timbers.data.random.RandomEnums.someEnum;
+import static shiver.me.timbers.data.random.RandomLongs.someLong;
+import static shiver.me.timbers.data.random.RandomStrings.someString;
+
+public class BinaryExpiriesTest {
+
+    @Test
+    public void Can_find_the_expiry_of_a_binary_token() {
+
+        final Long duration = someLong();
+        final TimeUnit unit = someEnum(TimeUnit.class);
+        final Clock dates = mock(Clock.class);
+
+        final Date expected = new Date(System.currentTimeMillis() / 1000 * 1000);
+
+        // Given
+        given(dates.nowPlus(duration, unit)).willReturn(expected);
+        final String token = tokenParser(dates).willExpireAfter(duration, unit).create(someString());
+
+        // When
+        final Date actual = new BinaryExpiries().expiry(token);
+
+        // Then
+        assertThat(actual, equalTo(expected));
+    }
+
+    @Test
+    public void Can_find_that_a_binary_token_never_expires() {
+
+        // Given
+        final String token = tokenParser(mock(Clock.class)).create(someString());
+
+        // When
+        final Date actual = new BinaryExpiries().expiry(token);
+
+        // Then
+        assertThat(actual, nullValue());
+    }
+
+    private static BinaryTokenParser<String> tokenParser(Clock dates) {
+        return new BinaryTokenParser<>(
+            String.class,
+            new SecretKeySpec(someString().getBytes(), HS256.getJcaName()),
+            new MessagePack(),
+            new UrlSafeBase64(),
+            dates
+        );
+    }
+}
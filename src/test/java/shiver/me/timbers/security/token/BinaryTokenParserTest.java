@@ -0,0 +1,270 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.SignatureException;
+import org.junit.Before;
+import org.junit.Test;
+import org.msgpack.MessagePack;
+import org.msgpack.MessageTypeException;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.security.Key;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import static io.jsonwebtoken.SignatureAlgorithm.HS256;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static shiver.me.timbers.data.random.RandomEnums.someEnum;
+import static shiver.me.timbers.data.random.RandomLongs.someLong;
+import static shiver.me.timbers.data.random.RandomStrings.someString;
+
+public class BinaryTokenParserTest {
+
+    private Key key;
+    private Clock dates;
+    private BinaryTokenParser<String> tokenParser;
+
+    @Before
+    public void setUp() {
+        key = new SecretKeySpec(someString().getBytes(), HS256.getJcaName());
+        dates = mock(Clock.class);
+        tokenParser = new BinaryTokenParser<>(String.class, key, new MessagePack(), new UrlSafeBase64(), dates);
+    }
+
+    @Test
+    public void Can_create_a_binary_token_parser_with_just_a_secret() {
+
+        final BinaryTokenParser<String> tokenParser = new BinaryTokenParser<>(
+            String.class,
+            new DataConverterBase64().encode(someString().getBytes())
+        );
+
+        // Given
+        final String expected = someString();
+
+        // When
+        final String actual = tokenParser.parse(tokenParser.create(expected));
+
+        // Then
+        assertThat(actual, equalTo(expected));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void Cannot_create_a_binary_token_parser_with_an_empty_secret() {
+        new BinaryTokenParser<>(String.class, "");
+    }
+
+    @Test
+    public void Can_parse_an_entity_from_a_token() {
+
+        // Given
+        final String expected = someString();
+
+        // When
+        final String actual = tokenParser.parse(tokenParser.create(expected));
+
+        // Then
+        assertThat(actual, equalTo(expected));
+    }
+
+    @Test
+    public void Can_create_a_token_that_is_smaller_than_a_jwt_token() {
+
+        final String entity = someString();
+
+        // When
+        final String actual = tokenParser.create(entity);
+
+        // Then
+        assertThat(
+            actual.length(),
+            lessThan(new JwtTokenParser<>(String.class, new DataConverterBase64().encode(key.getEncoded()))
+                .create(entity).length())
+        );
+    }
+
+    @Test
+    public void Can_parse_an_entity_from_a_token_that_has_not_expired() {
+
+        final Long duration = someLong();
+        final TimeUnit unit = someEnum(TimeUnit.class);
+        final Date now = new Date();
+        final Date expiry = new Date(now.getTime() + MINUTES.toMillis(1));
+
+        // Given
+        final String expected = someString();
+        given(dates.nowPlus(duration, unit)).willReturn(expiry);
+        given(dates.now()).willReturn(now);
+
+        // When
+        final String actual = tokenParser.parse(tokenParser.willExpireAfter(duration, unit).create(expected));
+
+        // Then
+        assertThat(actual, equalTo(expected));
+    }
+
+    @Test
+    public void Can_fail_to_parse_an_entity_from_a_token_that_has_expired() {
+
+        final Long duration = someLong();
+        final TimeUnit unit = someEnum(TimeUnit.class);
+        final Date expiry = new Date();
+
+        // Given
+        given(dates.nowPlus(duration, unit)).willReturn(expiry);
+        given(dates.now()).willReturn(new Date(expiry.getTime() + 1000));
+
+        // When
+        final String actual = tokenParser.parse(tokenParser.willExpireAfter(duration, unit).create(someString()));
+
+        // Then
+        assertThat(actual, nullValue());
+    }
+
+    @Test(expected = SignatureException.class)
+    public void Cannot_parse_a_token_that_has_been_tampered_with() {
+
+        final byte[] bytes = new UrlSafeBase64().decode(tokenParser.create(someString()));
+
+        // Given
+        bytes[bytes.length - BinaryTokenParser.TAG_LENGTH - 1] ^= 1;
+
+        // When
+        tokenParser.parse(new UrlSafeBase64().encode(bytes));
+    }
+
+    @Test(expected = SignatureException.class)
+    public void Cannot_parse_a_token_that_was_signed_with_a_different_key() {
+
+        // Given
+        final String token = new BinaryTokenParser<>(
+            String.class,
+            new SecretKeySpec((someString() + "other").getBytes(), HS256.getJcaName()),
+            new MessagePack(),
+            new UrlSafeBase64(),
+            dates
+        ).create(someString());
+
+        // When
+        tokenParser.parse(token);
+    }
+
+    @Test(expected = MalformedJwtException.class)
+    public void Cannot_parse_a_token_that_is_too_short() {
+
+        // When
+        tokenParser.parse("AQA");
+    }
+
+    @Test(expected = MalformedJwtException.class)
+    public void Cannot_parse_a_token_that_is_not_base64() {
+
+        // When
+        tokenParser.parse(someString() + "*.*");
+    }
+
+    @Test(expected = MalformedJwtException.class)
+    public void Cannot_parse_a_token_with_an_unsupported_version() {
+
+        final byte[] bytes = new UrlSafeBase64().decode(tokenParser.create(someString()));
+
+        // Given
+        bytes[0] = 2;
+
+        // When
+        tokenParser.parse(new UrlSafeBase64().encode(bytes));
+    }
+
+    @Test
+    public void Can_create_and_parse_a_token_when_no_template_can_be_built() throws IOException {
+
+        final MessagePack messagePack = mock(MessagePack.class);
+        final String expected = someString();
+
+        // Given
+        given(messagePack.lookup(String.class)).willThrow(new MessageTypeException());
+        given(messagePack.write(expected)).willReturn(someString().getBytes());
+        given(messagePack.read(any(byte[].class), anyInt(), anyInt(), eq(String.class))).willReturn(expected);
+        final BinaryTokenParser<String> tokenParser = new BinaryTokenParser<>(
+            String.class, key, messagePack, new UrlSafeBase64(), dates
+        );
+
+        // When
+        final String actual = tokenParser.parse(tokenParser.create(expected));
+
+        // Then
+        assertThat(actual, equalTo(expected));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void Can_fail_to_create_a_token_from_an_entity() throws IOException {
+
+        final MessagePack messagePack = mock(MessagePack.class);
+        final String entity = someString();
+
+        // Given
+        given(messagePack.write(entity)).willThrow(new IOException());
+
+        // When
+        new BinaryTokenParser<>(String.class, key, messagePack, new UrlSafeBase64(), dates).create(entity);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void Cannot_configure_an_expiration_date_with_only_a_duration() {
+
+        // When
+        tokenParser.willExpireAfter(someLong(), null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void Cannot_configure_an_expiration_date_with_only_a_unit() {
+
+        // When
+        tokenParser.willExpireAfter(null, someEnum(TimeUnit.class));
+    }
+
+    @Test
+    public void Can_write_and_read_a_varint() {
+
+        for (long value : new long[]{0, 1, 127, 128, 16383, 16384, System.currentTimeMillis(), Long.MAX_VALUE}) {
+
+            final byte[] bytes = new byte[12];
+
+            // Given
+            final int end = BinaryTokenParser.writeVarint(value, bytes, 1);
+
+            // When
+            final long actual = BinaryTokenParser.readVarint(bytes, 1, end);
+
+            // Then
+            assertThat(actual, equalTo(value));
+            assertThat(end - 1, equalTo(BinaryTokenParser.varintLength(value)));
+        }
+    }
+}
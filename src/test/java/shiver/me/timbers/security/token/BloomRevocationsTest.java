@@ -0,0 +1,210 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Date;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static shiver.me.timbers.data.random.RandomStrings.someString;
+
+public class BloomRevocationsTest {
+
+    private RevocationStore store;
+    private Clock dates;
+    private BloomRevocations revocations;
+
+    @Before
+    public void setUp() {
+        store = new InMemoryRevocationStore();
+        dates = mock(Clock.class);
+        revocations = new BloomRevocations(store, 4, 0.01, new FnvDigests(), dates);
+
+        given(dates.now()).willReturn(new Date(1000L));
+    }
+
+    @Test
+    public void Can_create_bloom_revocations_with_just_a_store() {
+        new BloomRevocations(store);
+    }
+
+    @Test
+    public void Can_revoke_a_token_id() {
+
+        final String id = someString();
+
+        // When
+        revocations.revoke(id, new Date(2000L));
+
+        // Then
+        assertThat(revocations.isRevoked(id), is(true));
+        assertThat(revocations.isRevoked(someString()), is(false));
+    }
+
+    @Test
+    public void Can_write_revocations_through_to_the_store() {
+
+        final RevocationStore store = mock(RevocationStore.class);
+        final String id = someString();
+        final Date expiry = new Date();
+
+        // Given
+        given(store.load()).willReturn(Collections.<String, Date>emptyMap());
+
+        // When
+        new BloomRevocations(store).revoke(id, expiry);
+
+        // Then
+        verify(store).add(id, expiry);
+    }
+
+    @Test
+    public void Can_revoke_a_token_id_forever() {
+
+        final String id = someString();
+
+        // Given
+        revocations.revoke(id, null);
+        given(dates.now()).willReturn(new Date(Long.MAX_VALUE - 1));
+
+        // When
+        final boolean actual = revocations.isRevoked(id);
+
+        // Then
+        assertThat(actual, is(true));
+    }
+
+    @Test
+    public void Will_forget_a_revocation_once_its_token_has_expired() {
+
+        final String id = someString();
+
+        // Given
+        revocations.revoke(id, new Date(2000L));
+        given(dates.now()).willReturn(new Date(2000L));
+
+        // When
+        final boolean actual = revocations.isRevoked(id);
+
+        // Then
+        assertThat(actual, is(false));
+    }
+
+    @Test
+    public void Can_reload_revocations_that_were_made_by_another_process() {
+
+        final String id = someString();
+
+        // Given
+        store.add(id, null);
+
+        // When
+        revocations.run();
+
+        // Then
+        assertThat(revocations.isRevoked(id), is(true));
+    }
+
+    @Test
+    public void Can_remember_a_revocation_without_writing_it_to_the_store() {
+
+        final RevocationStore store = mock(RevocationStore.class);
+        final String id = someString();
+
+        // Given
+        given(store.load()).willReturn(Collections.<String, Date>emptyMap());
+        final BloomRevocations revocations = new BloomRevocations(store, 4, 0.01, new FnvDigests(), dates);
+
+        // When
+        revocations.remember(id, new Date(2000L));
+        revocations.reload();
+
+        // Then
+        assertThat(revocations.isRevoked(id), is(true));
+        verify(store, never()).add(anyString(), any(Date.class));
+    }
+
+    @Test
+    public void Will_forget_a_remembered_revocation_once_its_token_has_expired() {
+
+        final String id = someString();
+
+        // Given
+        revocations.remember(id, new Date(2000L));
+        given(dates.now()).willReturn(new Date(2000L));
+
+        // When
+        revocations.reload();
+        given(dates.now()).willReturn(new Date(1000L));
+
+        // Then
+        assertThat(revocations.isRevoked(id), is(false));
+    }
+
+    @Test
+    public void Can_revoke_more_token_ids_than_expected() {
+
+        final String[] ids = new String[100];
+
+        // Given
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = someString();
+            revocations.revoke(ids[i], null);
+        }
+
+        // Then
+        for (String id : ids) {
+            assertThat(revocations.isRevoked(id), is(true));
+        }
+    }
+
+    @Test
+    public void Will_rarely_need_to_check_the_exact_ids_for_a_token_that_has_not_been_revoked() {
+
+        final BloomFilter filter = new BloomFilter(1000, 0.01, new FnvDigests());
+
+        // Given
+        for (int i = 0; i < 1000; i++) {
+            filter.add("revoked-" + i);
+        }
+
+        // When
+        int falsePositives = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (filter.mightContain("valid-" + i)) {
+                falsePositives++;
+            }
+        }
+
+        // Then
+        assertThat(falsePositives, lessThan(300));
+        for (int i = 0; i < 1000; i++) {
+            assertThat(filter.mightContain("revoked-" + i), is(true));
+        }
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static shiver.me.timbers.data.random.RandomStrings.someString;
+
+public class BroadcastRevocationsTest {
+
+    private Revocations revocations;
+    private RevocationChannel channel;
+    private BroadcastRevocations broadcastRevocations;
+
+    @Before
+    public void setUp() {
+        revocations = mock(Revocations.class);
+        channel = mock(RevocationChannel.class);
+        broadcastRevocations = new BroadcastRevocations(revocations, channel);
+    }
+
+    @Test
+    public void Can_subscribe_to_the_channel() {
+
+        // Then
+        verify(channel).subscribe(broadcastRevocations);
+    }
+
+    @Test
+    public void Can_revoke_locally_and_publish_all_the_revocations_in_one_batch() {
+
+        final String one = someString();
+        final String two = someString();
+        final Date expiry = new Date();
+
+        // Given
+        broadcastRevocations.revoke(one, expiry);
+        broadcastRevocations.revoke(two, null);
+
+        // When
+        broadcastRevocations.run();
+        broadcastRevocations.run();
+
+        // Then
+        verify(revocations).revoke(one, expiry);
+        verify(revocations).revoke(two, null);
+        verify(channel).publish(asList(new Revocation(one, expiry), new Revocation(two, null)));
+    }
+
+    @Test
+    public void Will_not_publish_an_empty_batch() {
+
+        // When
+        broadcastRevocations.run();
+
+        // Then
+        verify(channel, never()).publish(anyListOf(Revocation.class));
+    }
+
+    @Test
+    public void Can_retry_a_batch_that_could_not_be_published() {
+
+        final List<Revocation> batch = singletonList(new Revocation(someString(), null));
+
+        // Given
+        broadcastRevocations.revoke(batch.get(0).getId(), null);
+        willThrow(new IllegalStateException()).willNothing().given(channel).publish(batch);
+
+        // When
+        broadcastRevocations.run();
+        broadcastRevocations.run();
+
+        // Then
+        verify(channel, times(2)).publish(batch);
+        assertThat(broadcastRevocations.getFailures(), is(1L));
+    }
+
+    @Test
+    public void Will_drop_the_oldest_revocations_once_too_many_are_waiting_to_be_published() {
+
+        final BroadcastRevocations broadcastRevocations = new BroadcastRevocations(revocations, channel, 2);
+        final Revocation one = new Revocation(someString(), null);
+        final Revocation two = new Revocation(someString(), null);
+        final Revocation three = new Revocation(someString(), null);
+
+        // Given
+        broadcastRevocations.revoke(one.getId(), null);
+        broadcastRevocations.revoke(two.getId(), null);
+        willThrow(new IllegalStateException()).willNothing().given(channel).publish(asList(one, two));
+        broadcastRevocations.run();
+        broadcastRevocations.revoke(three.getId(), null);
+
+        // When
+        broadcastRevocations.run();
+
+        // Then
+        verify(channel).publish(asList(two, three));
+        assertThat(broadcastRevocations.getDropped(), is(1L));
+    }
+
+    @Test
+    public void Can_apply_received_revocations_without_publishing_them_again() {
+
+        final String id = someString();
+        final String existing = someString();
+        final Date expiry = new Date();
+
+        // Given
+        given(revocations.isRevoked(existing)).willReturn(true);
+
+        // When
+        broadcastRevocations.received(asList(new Revocation(id, expiry), new Revocation(existing, null)));
+        broadcastRevocations.run();
+
+        // Then
+        verify(revocations).revoke(id, expiry);
+        verify(revocations, never()).revoke(existing, null);
+        verify(channel, never()).publish(anyListOf(Revocation.class));
+    }
+
+    @Test
+    public void Can_propagate_a_revocation_to_another_node() {
+
+        final LoopbackRevocationChannel channel = new LoopbackRevocationChannel();
+        final BroadcastRevocations first = new BroadcastRevocations(
+            new BloomRevocations(new InMemoryRevocationStore()),
+            channel
+        );
+        final BroadcastRevocations second = new BroadcastRevocations(
+            new BloomRevocations(new InMemoryRevocationStore()),
+            channel
+        );
+        final String id = someString();
+
+        // Given
+        first.revoke(id, null);
+        assertThat(second.isRevoked(id), is(false));
+
+        // When
+        first.run();
+
+        // Then
+        assertThat(second.isRevoked(id), is(true));
+    }
+
+    @Test
+    public void Will_not_write_received_revocations_to_the_shared_store() {
+
+        final RevocationStore store = mock(RevocationStore.class);
+        final String id = someString();
+
+        // Given
+        given(store.load()).willReturn(Collections.<String, Date>emptyMap());
+        final BroadcastRevocations broadcastRevocations = new BroadcastRevocations(new BloomRevocations(store), channel);
+
+        // When
+        broadcastRevocations.received(singletonList(new Revocation(id, null)));
+
+        // Then
+        assertThat(broadcastRevocations.isRevoked(id), is(true));
+        verify(store, never()).add(id, null);
+    }
+}
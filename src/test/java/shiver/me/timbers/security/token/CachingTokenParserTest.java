@@ -0,0 +1,234 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Date;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static shiver.me.timbers.data.random.RandomLongs.someLong;
+import static shiver.me.timbers.data.random.RandomStrings.someString;
+
+public class CachingTokenParserTest {
+
+    private TokenParser<Object> tokenParser;
+    private Digests digests;
+    private Expiries expiries;
+    private Clock dates;
+    private CachingTokenParser<Object> cachingTokenParser;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        tokenParser = mock(TokenParser.class);
+        digests = mock(Digests.class);
+        expiries = mock(Expiries.class);
+        dates = mock(Clock.class);
+        cachingTokenParser = new CachingTokenParser<>(tokenParser, 2, digests, expiries, dates);
+    }
+
+    @Test
+    public void Can_create_a_caching_token_parser_with_just_a_size() {
+        new CachingTokenParser<>(tokenParser, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void Cannot_create_a_caching_token_parser_with_no_size() {
+        new CachingTokenParser<>(tokenParser, 0);
+    }
+
+    @Test
+    public void Can_delegate_token_creation() throws Exception {
+
+        final Object entity = new Object();
+
+        final String expected = someString();
+
+        // Given
+        given(tokenParser.create(entity)).willReturn(expected);
+
+        // When
+        final String actual = cachingTokenParser.create(entity);
+
+        // Then
+        assertThat(actual, equalTo(expected));
+        verifyZeroInteractions(digests, expiries, dates);
+    }
+
+    @Test
+    public void Can_parse_a_token_only_once() throws Exception {
+
+        final String token = someString();
+
+        final Object expected = new Object();
+
+        // Given
+        given(digests.digest(token)).willReturn(someLong());
+        given(tokenParser.parse(token)).willReturn(expected);
+        given(expiries.expiry(token)).willReturn(null);
+        given(dates.now()).willReturn(new Date());
+
+        // When
+        final Object first = cachingTokenParser.parse(token);
+        final Object second = cachingTokenParser.parse(token);
+
+        // Then
+        verify(tokenParser).parse(token);
+        assertThat(first, equalTo(expected));
+        assertThat(second, equalTo(expected));
+        assertThat(cachingTokenParser.getHits(), is(1L));
+        assertThat(cachingTokenParser.getMisses(), is(1L));
+    }
+
+    @Test
+    public void Will_not_return_a_cached_entity_after_its_token_has_expired() throws Exception {
+
+        final String token = someString();
+        final Date expiry = new Date();
+
+        final Object expected = new Object();
+
+        // Given
+        given(digests.digest(token)).willReturn(someLong());
+        given(tokenParser.parse(token)).willReturn(new Object(), expected);
+        given(expiries.expiry(token)).willReturn(expiry);
+        given(dates.now()).willReturn(new Date(expiry.getTime() + 1));
+
+        // When
+        cachingTokenParser.parse(token);
+        final Object actual = cachingTokenParser.parse(token);
+
+        // Then
+        verify(tokenParser, times(2)).parse(token);
+        assertThat(actual, equalTo(expected));
+        assertThat(cachingTokenParser.getHits(), is(0L));
+        assertThat(cachingTokenParser.getMisses(), is(2L));
+    }
+
+    @Test
+    public void Will_not_return_a_cached_entity_after_its_token_has_been_revoked() throws Exception {
+
+        final Revocations revocations = mock(Revocations.class);
+        final TokenIds tokenIds = mock(TokenIds.class);
+        final String token = someString();
+        final String id = someString();
+
+        // Given
+        given(digests.digest(token)).willReturn(someLong());
+        given(tokenParser.parse(token)).willReturn(new Object(), null);
+        given(expiries.expiry(token)).willReturn(null);
+        given(tokenIds.id(token)).willReturn(id);
+        given(dates.now()).willReturn(new Date());
+        given(revocations.isRevoked(id)).willReturn(true);
+
+        // When
+        cachingTokenParser.withRevocations(revocations, tokenIds).parse(token);
+        final Object actual = cachingTokenParser.parse(token);
+
+        // Then
+        verify(tokenParser, times(2)).parse(token);
+        assertThat(actual, nullValue());
+        assertThat(cachingTokenParser.getHits(), is(0L));
+        assertThat(cachingTokenParser.size(), is(0));
+    }
+
+    @Test
+    public void Will_not_return_a_cached_entity_for_a_different_token_with_the_same_digest() throws Exception {
+
+        final Long digest = someLong();
+        final String token = someString();
+        final String collision = token + someString();
+
+        final Object expected = new Object();
+
+        // Given
+        given(digests.digest(token)).willReturn(digest);
+        given(digests.digest(collision)).willReturn(digest);
+        given(tokenParser.parse(token)).willReturn(new Object());
+        given(tokenParser.parse(collision)).willReturn(expected);
+
+        // When
+        cachingTokenParser.parse(token);
+        final Object actual = cachingTokenParser.parse(collision);
+
+        // Then
+        assertThat(actual, equalTo(expected));
+        assertThat(cachingTokenParser.getHits(), is(0L));
+    }
+
+    @Test
+    public void Will_not_cache_a_token_that_could_not_be_parsed() throws Exception {
+
+        final String token = someString();
+
+        // Given
+        given(digests.digest(token)).willReturn(someLong());
+        given(tokenParser.parse(token)).willReturn(null);
+
+        // When
+        final Object first = cachingTokenParser.parse(token);
+        final Object second = cachingTokenParser.parse(token);
+
+        // Then
+        verify(tokenParser, times(2)).parse(token);
+        assertThat(first, nullValue());
+        assertThat(second, nullValue());
+        assertThat(cachingTokenParser.size(), is(0));
+    }
+
+    @Test
+    public void Can_evict_the_least_recently_used_token() throws Exception {
+
+        final String token1 = someString();
+        final String token2 = someString() + 2;
+        final String token3 = someString() + 3;
+
+        // Given
+        given(digests.digest(token1)).willReturn(1L);
+        given(digests.digest(token2)).willReturn(2L);
+        given(digests.digest(token3)).willReturn(3L);
+        given(tokenParser.parse(token1)).willReturn(new Object());
+        given(tokenParser.parse(token2)).willReturn(new Object());
+        given(tokenParser.parse(token3)).willReturn(new Object());
+        given(dates.now()).willReturn(new Date());
+
+        // When
+        cachingTokenParser.parse(token1);
+        cachingTokenParser.parse(token2);
+        cachingTokenParser.parse(token1);
+        cachingTokenParser.parse(token3);
+        cachingTokenParser.parse(token1);
+        cachingTokenParser.parse(token2);
+
+        // Then
+        verify(tokenParser).parse(token1);
+        verify(tokenParser, times(2)).parse(token2);
+        verify(tokenParser).parse(token3);
+        assertThat(cachingTokenParser.getEvictions(), is(2L));
+        assertThat(cachingTokenParser.size(), is(2));
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class CompatibleBase64Test {
+
+    @Test
+    public void Can_encode_with_the_standard_alphabet_and_decode_both_alphabets() {
+
+        final CompatibleBase64 base64 = new CompatibleBase64();
+        final byte[] bytes = {(byte) 0xfb, (byte) 0xff};
+
+        // When
+        final String actual = base64.encode(bytes);
+
+        // Then
+        assertThat(actual, equalTo("+/8="));
+        assertThat(base64.decode(actual), equalTo(bytes));
+        assertThat(base64.decode("-_8"), equalTo(bytes));
+    }
+}
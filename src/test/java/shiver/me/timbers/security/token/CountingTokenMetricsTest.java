@@ -0,0 +1,88 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class CountingTokenMetricsTest {
+
+    private CountingTokenMetrics metrics;
+
+    @Before
+    public void setUp() {
+        metrics = new CountingTokenMetrics();
+    }
+
+    @Test
+    public void Can_count_created_tokens() {
+
+        // When
+        metrics.created(10L, 200);
+        metrics.created(20L, 300);
+
+        // Then
+        assertThat(metrics.getCreatedCount(), is(2L));
+        assertThat(metrics.getCreatedNanos(), is(30L));
+        assertThat(metrics.getCreatedLengths()[8], is(1L));
+        assertThat(metrics.getCreatedLengths()[9], is(1L));
+    }
+
+    @Test
+    public void Can_count_parsed_tokens_by_outcome() {
+
+        // When
+        metrics.parsed(TokenOutcome.VALID, 10L, 1);
+        metrics.parsed(TokenOutcome.VALID, 20L, 1);
+        metrics.parsed(TokenOutcome.EXPIRED, 5L, 1);
+
+        // Then
+        assertThat(metrics.getParsedCount(TokenOutcome.VALID), is(2L));
+        assertThat(metrics.getParsedNanos(TokenOutcome.VALID), is(30L));
+        assertThat(metrics.getParsedCount(TokenOutcome.EXPIRED), is(1L));
+        assertThat(metrics.getParsedCount(TokenOutcome.BAD_SIGNATURE), is(0L));
+        assertThat(metrics.getParsedLengths()[1], is(3L));
+    }
+
+    @Test
+    public void Can_count_retrieved_tokens_by_source() {
+
+        // When
+        metrics.retrieved(TokenSource.COOKIE, 7L);
+        metrics.retrieved(TokenSource.MISSING, 3L);
+
+        // Then
+        assertThat(metrics.getRetrievedCount(TokenSource.COOKIE), is(1L));
+        assertThat(metrics.getRetrievedNanos(TokenSource.COOKIE), is(7L));
+        assertThat(metrics.getRetrievedCount(TokenSource.MISSING), is(1L));
+        assertThat(metrics.getRetrievedCount(TokenSource.HEADER), is(0L));
+    }
+
+    @Test
+    public void Can_bucket_token_lengths_by_powers_of_two() {
+
+        // Then
+        assertThat(CountingTokenMetrics.bucket(0), is(0));
+        assertThat(CountingTokenMetrics.bucket(1), is(1));
+        assertThat(CountingTokenMetrics.bucket(255), is(8));
+        assertThat(CountingTokenMetrics.bucket(256), is(9));
+        assertThat(CountingTokenMetrics.bucket(Integer.MAX_VALUE), is(31));
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+
+import static org.hamcrest.Matchers.arrayContainingInAnyOrder;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static shiver.me.timbers.data.random.RandomStrings.someAlphaNumericString;
+
+public class FileRevocationStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File file;
+    private Clock dates;
+    private FileRevocationStore store;
+
+    @Before
+    public void setUp() {
+        file = new File(folder.getRoot(), "revocations");
+        dates = mock(Clock.class);
+        store = new FileRevocationStore(file, dates);
+
+        given(dates.now()).willReturn(new Date(1000L));
+    }
+
+    @Test
+    public void Can_load_nothing_before_anything_has_been_revoked() {
+
+        // When
+        final Map<String, Date> actual = store.load();
+
+        // Then
+        assertThat(actual.isEmpty(), is(true));
+    }
+
+    @Test
+    public void Can_share_revocations_between_stores_through_the_file() {
+
+        final String id = someAlphaNumericString();
+        final String forever = someAlphaNumericString();
+        final Date expiry = new Date(2000L);
+
+        // Given
+        store.add(id, expiry);
+        store.add(forever, null);
+
+        // When
+        final Map<String, Date> actual = new FileRevocationStore(file, dates).load();
+
+        // Then
+        assertThat(actual, hasEntry(id, expiry));
+        assertThat(actual.containsKey(forever), is(true));
+        assertThat(actual.get(forever), nullValue());
+    }
+
+    @Test
+    public void Will_not_load_revocations_that_have_expired() {
+
+        final String id = someAlphaNumericString();
+
+        // Given
+        store.add(id, new Date(1000L));
+
+        // When
+        final Map<String, Date> actual = store.load();
+
+        // Then
+        assertThat(actual.containsKey(id), is(false));
+    }
+
+    @Test
+    public void Will_drop_expired_revocations_from_the_file_when_compacting_it() {
+
+        final FileRevocationStore store = new FileRevocationStore(file, dates, 2);
+        final String expired = someAlphaNumericString();
+        final String id = someAlphaNumericString();
+
+        // Given
+        store.add(expired, new Date(1500L));
+        given(dates.now()).willReturn(new Date(1600L));
+
+        // When
+        store.add(id, null);
+
+        // Then
+        given(dates.now()).willReturn(new Date(0L));
+        assertThat(store.load().containsKey(expired), is(false));
+        assertThat(store.load().size(), equalTo(1));
+        assertThat(folder.getRoot().list(), arrayContainingInAnyOrder("revocations", "revocations.lock"));
+    }
+
+    @Test
+    public void Will_keep_appending_revocations_until_it_is_time_to_compact_the_file() throws IOException {
+
+        final String expired = someAlphaNumericString();
+        final String id = someAlphaNumericString();
+
+        // Given
+        store.add(expired, new Date(1500L));
+        given(dates.now()).willReturn(new Date(1600L));
+
+        // When
+        store.add(id, null);
+
+        // Then
+        assertThat(Files.readAllLines(file.toPath(), UTF_8), contains(expired + " 1500", id + " 0"));
+    }
+
+    @Test
+    public void Can_share_the_same_file_between_many_stores_adding_at_once() throws Exception {
+
+        final int stores = 4;
+        final int ids = 50;
+        final ExecutorService executor = newFixedThreadPool(stores);
+        final List<Future<?>> futures = new ArrayList<>();
+
+        // Given
+        for (int i = 0; i < stores; i++) {
+            final FileRevocationStore store = new FileRevocationStore(file, dates, 7);
+            futures.add(executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < ids; j++) {
+                        store.add(someAlphaNumericString(), null);
+                    }
+                }
+            }));
+        }
+
+        // When
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // Then
+        assertThat(store.load().size(), equalTo(stores * ids));
+    }
+
+    @Test
+    public void Will_ignore_a_line_that_is_still_being_written() throws IOException {
+
+        final String id = someAlphaNumericString();
+
+        // Given
+        store.add(id, null);
+        Files.write(file.toPath(), "partial 12".getBytes(UTF_8), APPEND);
+
+        // When
+        final Map<String, Date> actual = store.load();
+
+        // Then
+        assertThat(actual.keySet(), contains(id));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void Cannot_revoke_an_id_that_contains_a_space() {
+
+        // When
+        store.add("some id", null);
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+import static shiver.me.timbers.data.random.RandomStrings.someString;
+
+public class FnvDigestsTest {
+
+    @Test
+    public void Can_digest_a_token() {
+
+        // When
+        final long actual = new FnvDigests().digest("a");
+
+        // Then
+        assertThat(actual, equalTo(0xaf63dc4c8601ec8cL));
+    }
+
+    @Test
+    public void Can_digest_the_same_token_to_the_same_value() {
+
+        // Given
+        final String token = someString();
+
+        // When
+        final long actual = new FnvDigests().digest(token);
+
+        // Then
+        assertThat(actual, equalTo(new FnvDigests().digest(new String(token))));
+        assertThat(actual, not(equalTo(new FnvDigests().digest(token + "a"))));
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static shiver.me.timbers.data.random.RandomStrings.someString;
+
+public class InMemoryRevocationStoreTest {
+
+    private Clock dates;
+    private InMemoryRevocationStore store;
+
+    @Before
+    public void setUp() {
+        dates = mock(Clock.class);
+        store = new InMemoryRevocationStore(dates);
+    }
+
+    @Test
+    public void Can_load_the_revocations_that_have_not_expired() {
+
+        final String id = someString();
+        final String forever = someString();
+        final String expired = someString();
+        final Date expiry = new Date(2000L);
+
+        // Given
+        given(dates.now()).willReturn(new Date(1000L));
+        store.add(id, expiry);
+        store.add(forever, null);
+        store.add(expired, new Date(1000L));
+
+        // When
+        final Map<String, Date> actual = store.load();
+
+        // Then
+        assertThat(actual, hasEntry(id, expiry));
+        assertThat(actual.containsKey(forever), is(true));
+        assertThat(actual.containsKey(expired), is(false));
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import io.jsonwebtoken.Jwts;
+import org.junit.Test;
+
+import java.util.Date;
+
+import static io.jsonwebtoken.SignatureAlgorithm.HS512;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static shiver.me.timbers.data.random.RandomStrings.someAlphaNumericString;
+
+public class JwtExpiriesTest {
+
+    @Test
+    public void Can_find_the_expiry_of_a_jwt_token() {
+
+        final Date expected = new Date(System.currentTimeMillis() / 1000 * 1000);
+
+        // Given
+        final String token = Jwts.builder().setExpiration(expected).signWith(HS512, someAlphaNumericString()).compact();
+
+        // When
+        final Date actual = new JwtExpiries().expiry(token);
+
+        // Then
+        assertThat(actual, equalTo(expected));
+    }
+
+    @Test
+    public void Can_find_that_a_jwt_token_never_expires() {
+
+        // Given
+        final String token = Jwts.builder().setSubject(someAlphaNumericString())
+            .signWith(HS512, someAlphaNumericString()).compact();
+
+        // When
+        final Date actual = new JwtExpiries().expiry(token);
+
+        // Then
+        assertThat(actual, nullValue());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void Cannot_find_the_expiry_of_a_token_that_is_not_a_jwt_token() {
+
+        // When
+        new JwtExpiries().expiry(someAlphaNumericString());
+    }
+}
@@ -0,0 +1,389 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.PrematureJwtException;
+import io.jsonwebtoken.SignatureException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import static io.jsonwebtoken.SignatureAlgorithm.HS512;
+import static java.lang.String.format;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static shiver.me.timbers.data.random.RandomEnums.someEnum;
+import static shiver.me.timbers.data.random.RandomLongs.someLong;
+import static shiver.me.timbers.data.random.RandomStrings.someAlphaNumericString;
+import static shiver.me.timbers.data.random.RandomStrings.someString;
+
+public class JwtSubjectTokenParserTest {
+
+    private Key signingKey;
+    private JwtBuilder jwtBuilder;
+    private JwsVerifier jwsVerifier;
+    private Clock dates;
+
+    private JwtSubjectTokenParser tokenParser;
+
+    @Before
+    public void setUp() {
+        final JwtBuilders jwtBuilders = mock(JwtBuilders.class);
+        signingKey = mock(Key.class);
+        jwtBuilder = mock(JwtBuilder.class);
+        jwsVerifier = mock(JwsVerifier.class);
+        dates = mock(Clock.class);
+        tokenParser = new JwtSubjectTokenParser(
+            new StaticSigningKeys(HS512, signingKey),
+            jwtBuilders,
+            jwsVerifier,
+            new UrlSafeBase64(),
+            new JsonFactory(),
+            dates
+        );
+
+        given(jwtBuilders.create()).willReturn(jwtBuilder);
+        given(dates.now()).willReturn(new Date(1000000L));
+    }
+
+    @Test
+    public void Can_create_a_basic_subject_token_parser_with_just_a_secret() {
+        new JwtSubjectTokenParser(new DataConverterBase64().encode(someString().getBytes()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void Cannot_create_a_subject_token_parser_with_an_empty_secret() {
+        new JwtSubjectTokenParser("");
+    }
+
+    @Test
+    public void Can_create_a_token_from_a_subject() {
+
+        final String subject = someString();
+
+        final JwtBuilder subjectJwtBuilder = mock(JwtBuilder.class);
+        final JwtBuilder signWithJwtBuilder = mock(JwtBuilder.class);
+
+        final String expected = someString();
+
+        // Given
+        given(jwtBuilder.setSubject(subject)).willReturn(subjectJwtBuilder);
+        given(subjectJwtBuilder.signWith(HS512, signingKey)).willReturn(signWithJwtBuilder);
+        given(signWithJwtBuilder.compact()).willReturn(expected);
+
+        // When
+        final String actual = tokenParser.create(subject);
+
+        // Then
+        assertThat(actual, equalTo(expected));
+    }
+
+    @Test
+    public void Can_configure_all_created_tokens_to_have_an_expiration_date() {
+
+        final Long duration = someLong();
+        final TimeUnit unit = someEnum(TimeUnit.class);
+        final String subject = someString();
+
+        final JwtBuilder subjectJwtBuilder = mock(JwtBuilder.class);
+        final JwtBuilder signWithJwtBuilder = mock(JwtBuilder.class);
+        final Date expiry = mock(Date.class);
+
+        final String expected = someString();
+
+        // Given
+        given(jwtBuilder.setSubject(subject)).willReturn(subjectJwtBuilder);
+        given(subjectJwtBuilder.signWith(HS512, signingKey)).willReturn(signWithJwtBuilder);
+        given(dates.nowPlus(duration, unit)).willReturn(expiry);
+        given(signWithJwtBuilder.compact()).willReturn(expected);
+
+        // When
+        final String actual = tokenParser.willExpireAfter(duration, unit).create(subject);
+
+        // Then
+        verify(signWithJwtBuilder).setExpiration(expiry);
+        assertThat(actual, equalTo(expected));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void Cannot_configure_an_expiration_date_with_only_a_duration() {
+
+        // When
+        tokenParser.willExpireAfter(someLong(), null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void Cannot_configure_an_expiration_date_with_only_a_unit() {
+
+        // When
+        tokenParser.willExpireAfter(null, someEnum(TimeUnit.class));
+    }
+
+    @Test
+    public void Can_parse_a_subject_from_a_token() {
+
+        final String expected = someString();
+
+        // Given
+        final String token = someToken(
+            format("{\"iss\":\"%s\",\"aud\":[\"%s\"],\"sub\":\"%s\",\"exp\":1001}", someAlphaNumericString(),
+                someAlphaNumericString(), expected)
+        );
+        given(jwsVerifier.verify(token)).willReturn(true);
+
+        // When
+        final String actual = tokenParser.parse(token);
+
+        // Then
+        assertThat(actual, equalTo(expected));
+    }
+
+    @Test
+    public void Can_fail_to_parse_a_subject_from_a_token_that_has_expired() {
+
+        // Given
+        final String token = someToken(format("{\"sub\":\"%s\",\"exp\":1000}", someAlphaNumericString()));
+        given(jwsVerifier.verify(token)).willReturn(true);
+
+        // When
+        final String actual = tokenParser.parse(token);
+
+        // Then
+        assertThat(actual, nullValue());
+    }
+
+    @Test(expected = PrematureJwtException.class)
+    public void Cannot_parse_a_subject_from_a_token_that_is_not_valid_yet() {
+
+        // Given
+        final String token = someToken(format("{\"sub\":\"%s\",\"nbf\":1001}", someAlphaNumericString()));
+        given(jwsVerifier.verify(token)).willReturn(true);
+
+        // When
+        tokenParser.parse(token);
+    }
+
+    @Test(expected = MalformedJwtException.class)
+    public void Cannot_parse_a_subject_from_a_token_with_a_payload_that_is_not_json() {
+
+        // Given
+        final String token = someToken(someAlphaNumericString());
+        given(jwsVerifier.verify(token)).willReturn(true);
+
+        // When
+        tokenParser.parse(token);
+    }
+
+    @Test(expected = MalformedJwtException.class)
+    public void Cannot_parse_a_subject_from_a_token_that_only_has_one_segment() {
+
+        final String token = someAlphaNumericString();
+
+        // Given
+        given(jwsVerifier.verify(token)).willReturn(true);
+
+        // When
+        tokenParser.parse(token);
+    }
+
+    @Test(expected = SignatureException.class)
+    public void Cannot_parse_a_subject_from_a_token_with_an_invalid_signature() {
+
+        final String token = someString();
+
+        // Given
+        given(jwsVerifier.verify(token)).willReturn(false);
+
+        // When
+        tokenParser.parse(token);
+    }
+
+    @Test
+    public void Can_parse_a_subject_from_a_real_token() {
+
+        final JwtSubjectTokenParser tokenParser = new JwtSubjectTokenParser(someSecret());
+
+        // Given
+        final String expected = someString();
+
+        // When
+        final String actual = tokenParser.parse(tokenParser.create(expected));
+
+        // Then
+        assertThat(actual, equalTo(expected));
+    }
+
+    @Test
+    public void Can_create_a_real_token_with_the_subject_in_the_standard_sub_claim() {
+
+        final String secret = someSecret();
+
+        // Given
+        final String expected = someString();
+
+        // When
+        final String token = new JwtSubjectTokenParser(secret).create(expected);
+
+        // Then
+        assertThat(Jwts.parser().setSigningKey(secret).parseClaimsJws(token).getBody().getSubject(), equalTo(expected));
+    }
+
+    @Test(expected = SignatureException.class)
+    public void Cannot_parse_a_subject_from_a_real_token_that_has_been_signed_with_a_different_secret() {
+
+        // Given
+        final String token = new JwtSubjectTokenParser(someSecret()).create(someString());
+
+        // When
+        new JwtSubjectTokenParser(someSecret()).parse(token);
+    }
+
+    @Test
+    public void Can_parse_a_subject_from_a_real_token_with_only_the_public_key() throws Exception {
+
+        final KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(256);
+        final KeyPair keyPair = generator.generateKeyPair();
+
+        // Given
+        final String expected = someString();
+        final String token = new JwtSubjectTokenParser(keyPair).create(expected);
+
+        // When
+        final String actual = new JwtSubjectTokenParser(keyPair.getPublic()).parse(token);
+
+        // Then
+        assertThat(actual, equalTo(expected));
+    }
+
+    @Test
+    public void Can_fail_to_parse_a_subject_from_a_token_that_has_been_revoked() {
+
+        final Revocations revocations = mock(Revocations.class);
+        final String id = someAlphaNumericString();
+
+        // Given
+        final String token = someToken(format("{\"sub\":\"%s\",\"jti\":\"%s\"}", someAlphaNumericString(), id));
+        given(jwsVerifier.verify(token)).willReturn(true);
+        given(revocations.isRevoked(id)).willReturn(true);
+
+        // When
+        final String actual = tokenParser.withRevocations(revocations).parse(token);
+
+        // Then
+        assertThat(actual, nullValue());
+    }
+
+    @Test
+    public void Can_revoke_a_token_until_it_would_have_expired() {
+
+        final Revocations revocations = mock(Revocations.class);
+        final String id = someAlphaNumericString();
+
+        // Given
+        final String token = someToken(format("{\"jti\":\"%s\",\"exp\":1001}", id));
+        given(jwsVerifier.verify(token)).willReturn(true);
+
+        // When
+        tokenParser.withRevocations(revocations).revoke(token);
+
+        // Then
+        verify(revocations).revoke(id, new Date(1001000L));
+    }
+
+    @Test
+    public void Will_not_revoke_a_token_that_has_already_expired() {
+
+        final Revocations revocations = mock(Revocations.class);
+
+        // Given
+        final String token = someToken(format("{\"jti\":\"%s\",\"exp\":1000}", someAlphaNumericString()));
+        given(jwsVerifier.verify(token)).willReturn(true);
+
+        // When
+        tokenParser.withRevocations(revocations).revoke(token);
+
+        // Then
+        verifyZeroInteractions(revocations);
+    }
+
+    @Test
+    public void Will_not_revoke_a_token_without_an_id() {
+
+        final Revocations revocations = mock(Revocations.class);
+
+        // Given
+        final String token = someToken(format("{\"sub\":\"%s\"}", someAlphaNumericString()));
+        given(jwsVerifier.verify(token)).willReturn(true);
+
+        // When
+        tokenParser.withRevocations(revocations).revoke(token);
+
+        // Then
+        verifyZeroInteractions(revocations);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void Cannot_revoke_a_token_without_any_revocations() {
+
+        // When
+        tokenParser.revoke(someString());
+    }
+
+    @Test
+    public void Can_revoke_a_real_token() {
+
+        final JwtSubjectTokenParser tokenParser = new JwtSubjectTokenParser(someSecret())
+            .withRevocations(new BloomRevocations(new InMemoryRevocationStore()));
+
+        // Given
+        final String subject = someString();
+        final String token = tokenParser.create(subject);
+        final String other = tokenParser.create(subject);
+
+        // When
+        tokenParser.revoke(token);
+
+        // Then
+        assertThat(tokenParser.parse(token), nullValue());
+        assertThat(tokenParser.parse(other), equalTo(subject));
+    }
+
+    private static String someToken(String payload) {
+        final UrlSafeBase64 base64 = new UrlSafeBase64();
+        return base64.encode("{\"alg\":\"HS512\"}".getBytes()) + "." + base64.encode(payload.getBytes()) + "." +
+            someAlphaNumericString();
+    }
+
+    private static String someSecret() {
+        return new DataConverterBase64().encode(someString().getBytes());
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static java.lang.String.format;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static shiver.me.timbers.data.random.RandomStrings.someAlphaNumericString;
+
+public class JwtTokenIdsTest {
+
+    private UrlSafeBase64 base64;
+    private JwtTokenIds tokenIds;
+
+    @Before
+    public void setUp() {
+        base64 = new UrlSafeBase64();
+        tokenIds = new JwtTokenIds();
+    }
+
+    @Test
+    public void Can_read_the_id_of_a_token() {
+
+        final String expected = someAlphaNumericString();
+
+        // Given
+        final String token = someToken(format("{\"sub\":{\"name\":\"%s\"},\"jti\":\"%s\"}", someAlphaNumericString(),
+            expected));
+
+        // When
+        final String actual = tokenIds.id(token);
+
+        // Then
+        assertThat(actual, equalTo(expected));
+    }
+
+    @Test
+    public void Can_read_no_id_from_a_token_without_one() {
+
+        // When
+        final String actual = tokenIds.id(someToken("{\"sub\":\"user\"}"));
+
+        // Then
+        assertThat(actual, nullValue());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void Cannot_read_the_id_of_a_token_that_is_not_a_jwt_token() {
+
+        // When
+        tokenIds.id(someAlphaNumericString());
+    }
+
+    @Test
+    public void Can_generate_random_ids() {
+
+        // When
+        final String actual = JwtTokenIds.randomId();
+
+        // Then
+        assertThat(actual.length(), equalTo(22));
+        assertThat(actual, not(equalTo(JwtTokenIds.randomId())));
+    }
+
+    private String someToken(String payload) {
+        return base64.encode("{\"alg\":\"HS512\"}".getBytes()) + "." + base64.encode(payload.getBytes()) + "." +
+            someAlphaNumericString();
+    }
+}
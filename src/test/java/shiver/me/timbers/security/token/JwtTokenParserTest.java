@@ -19,19 +19,37 @@ package shiver.me.timbers.security.token;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.Header;
-import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.Jwt;
 import io.jsonwebtoken.JwtBuilder;
 import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureException;
 import org.junit.Before;
 import org.junit.Test;
 import org.msgpack.MessagePack;
+import org.msgpack.MessageTypeException;
+import org.msgpack.template.Template;
 
+import javax.crypto.spec.SecretKeySpec;
 import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
+import static java.util.concurrent.Executors.newFixedThreadPool;
+
 import static io.jsonwebtoken.SignatureAlgorithm.HS512;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertThat;
 import static org.mockito.BDDMockito.given;
@@ -39,13 +57,17 @@ import static org.mockito.BDDMockito.mock;
 import static org.mockito.Mockito.verify;
 import static shiver.me.timbers.data.random.RandomEnums.someEnum;
 import static shiver.me.timbers.data.random.RandomLongs.someLong;
+import static shiver.me.timbers.data.random.RandomStrings.someAlphaNumericString;
 import static shiver.me.timbers.data.random.RandomStrings.someString;
 
 public class JwtTokenParserTest {
 
     private Class<TestType> type;
-    private String secret;
+    private Key signingKey;
+    private SigningKeys signingKeys;
+    private JwtBuilders jwtBuilders;
     private JwtBuilder jwtBuilder;
+    private JwsVerifier jwsVerifier;
     private JwtParser jwtParser;
     private MessagePack messagePack;
     private Base64 base64;
@@ -56,19 +78,53 @@ public class JwtTokenParserTest {
     @Before
     public void setUp() {
         type = TestType.class;
-        secret = someString();
+        signingKey = mock(Key.class);
+        signingKeys = new StaticSigningKeys(HS512, signingKey);
+        jwtBuilders = mock(JwtBuilders.class);
         jwtBuilder = mock(JwtBuilder.class);
+        jwsVerifier = mock(JwsVerifier.class);
         jwtParser = mock(JwtParser.class);
         messagePack = mock(MessagePack.class);
         base64 = mock(Base64.class);
 
         dates = mock(Dates.class);
-        factory = new JwtTokenParser<>(type, secret, jwtBuilder, jwtParser, messagePack, base64, dates);
+        factory = new JwtTokenParser<>(
+            type, signingKeys, jwtBuilders, jwsVerifier, jwtParser, messagePack, base64, dates
+        );
+
+        given(jwtBuilders.create()).willReturn(jwtBuilder);
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void Can_still_create_a_token_parser_with_the_old_constructor() {
+
+        final String issuer = someAlphaNumericString();
+        final String entity = someAlphaNumericString();
+
+        // Given
+        final JwtTokenParser<String> tokenParser = new JwtTokenParser<>(
+            String.class,
+            "c2VjcmV0",
+            Jwts.builder().setIssuer(issuer),
+            Jwts.parser(),
+            new MessagePack(),
+            new DataConverterBase64(),
+            new SystemDates()
+        );
+
+        // When
+        final String token = tokenParser.create(entity);
+
+        // Then
+        assertThat(tokenParser.parse(token), equalTo(entity));
+        final String unsigned = token.substring(0, token.lastIndexOf('.') + 1);
+        assertThat(Jwts.parser().parseClaimsJwt(unsigned).getBody().getIssuer(), equalTo(issuer));
     }
 
     @Test
     public void Can_create_a_basic_jwt_token_factory_with_just_a_secret() {
-        new JwtTokenParser<>(Object.class, secret);
+        new JwtTokenParser<>(Object.class, someString());
     }
 
     @Test
@@ -87,7 +143,7 @@ public class JwtTokenParserTest {
         given(messagePack.write(entity)).willReturn(bytes);
         given(base64.encode(bytes)).willReturn(entityString);
         given(jwtBuilder.claim("entity", entityString)).willReturn(entityJwtBuilder);
-        given(entityJwtBuilder.signWith(HS512, secret)).willReturn(signWithJwtBuilder);
+        given(entityJwtBuilder.signWith(HS512, signingKey)).willReturn(signWithJwtBuilder);
         given(signWithJwtBuilder.compact()).willReturn(expected);
 
         // When
@@ -97,6 +153,52 @@ public class JwtTokenParserTest {
         assertThat(actual, equalTo(expected));
     }
 
+    @Test
+    public void Can_create_a_token_with_the_id_of_the_signing_key() throws IOException {
+
+        final SigningKeys signingKeys = mock(SigningKeys.class);
+        final String keyId = someString();
+        final TestType entity = mock(TestType.class);
+
+        final byte[] bytes = {};
+        final String entityString = someString();
+        final JwtBuilder entityJwtBuilder = mock(JwtBuilder.class);
+        final JwtBuilder signWithJwtBuilder = mock(JwtBuilder.class);
+
+        final String expected = someString();
+
+        // Given
+        given(signingKeys.current()).willReturn(new SigningKey(keyId, HS512, signingKey));
+        given(messagePack.write(entity)).willReturn(bytes);
+        given(base64.encode(bytes)).willReturn(entityString);
+        given(jwtBuilder.claim("entity", entityString)).willReturn(entityJwtBuilder);
+        given(entityJwtBuilder.signWith(HS512, signingKey)).willReturn(signWithJwtBuilder);
+        given(signWithJwtBuilder.compact()).willReturn(expected);
+
+        // When
+        final String actual = new JwtTokenParser<>(
+            type, signingKeys, jwtBuilders, jwsVerifier, jwtParser, messagePack, base64, dates
+        ).create(entity);
+
+        // Then
+        verify(signWithJwtBuilder).setHeaderParam("kid", keyId);
+        assertThat(actual, equalTo(expected));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void Cannot_create_a_token_parser_with_an_empty_secret() {
+        new JwtTokenParser<>(String.class, "");
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void Cannot_create_a_token_without_a_signing_key() {
+
+        // When
+        new JwtTokenParser<>(
+            type, new StaticSigningKeys(HS512, null), jwtBuilders, jwsVerifier, jwtParser, messagePack, base64, dates
+        ).create(mock(TestType.class));
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void Can_fail_to_create_a_token_from_an_entity() throws IOException {
 
@@ -112,11 +214,11 @@ public class JwtTokenParserTest {
     @Test
     public void Can_parse_an_entity_from_a_token() throws IOException {
 
-        final String token = someString();
+        final String unsigned = someAlphaNumericString() + "." + someAlphaNumericString() + ".";
+        final String token = unsigned + someAlphaNumericString();
 
-        final JwtParser signingKeyJwtParser = mock(JwtParser.class);
         @SuppressWarnings("unchecked")
-        final Jws<Claims> jws = mock(Jws.class);
+        final Jwt<Header, Claims> jwt = mock(Jwt.class);
         final Claims body = mock(Claims.class);
         final String entityString = someString();
         final byte[] bytes = {};
@@ -124,9 +226,9 @@ public class JwtTokenParserTest {
         final TestType expected = mock(TestType.class);
 
         // Given
-        given(jwtParser.setSigningKey(secret)).willReturn(signingKeyJwtParser);
-        given(signingKeyJwtParser.parseClaimsJws(token)).willReturn(jws);
-        given(jws.getBody()).willReturn(body);
+        given(jwsVerifier.verify(token)).willReturn(true);
+        given(jwtParser.parseClaimsJwt(unsigned)).willReturn(jwt);
+        given(jwt.getBody()).willReturn(body);
         given(body.get("entity")).willReturn(entityString);
         given(base64.decode(entityString)).willReturn(bytes);
         given(messagePack.read(bytes, type)).willReturn(expected);
@@ -141,19 +243,19 @@ public class JwtTokenParserTest {
     @Test(expected = IllegalArgumentException.class)
     public void Can_fail_to_parse_an_entity_from_a_token() throws IOException {
 
-        final String token = someString();
+        final String unsigned = someAlphaNumericString() + "." + someAlphaNumericString() + ".";
+        final String token = unsigned + someAlphaNumericString();
 
-        final JwtParser signingKeyJwtParser = mock(JwtParser.class);
         @SuppressWarnings("unchecked")
-        final Jws<Claims> jws = mock(Jws.class);
+        final Jwt<Header, Claims> jwt = mock(Jwt.class);
         final Claims body = mock(Claims.class);
         final String entityString = someString();
         final byte[] bytes = {};
 
         // Given
-        given(jwtParser.setSigningKey(secret)).willReturn(signingKeyJwtParser);
-        given(signingKeyJwtParser.parseClaimsJws(token)).willReturn(jws);
-        given(jws.getBody()).willReturn(body);
+        given(jwsVerifier.verify(token)).willReturn(true);
+        given(jwtParser.parseClaimsJwt(unsigned)).willReturn(jwt);
+        given(jwt.getBody()).willReturn(body);
         given(body.get("entity")).willReturn(entityString);
         given(base64.decode(entityString)).willReturn(bytes);
         given(messagePack.read(bytes, type)).willThrow(new IOException());
@@ -181,7 +283,7 @@ public class JwtTokenParserTest {
         given(messagePack.write(entity)).willReturn(bytes);
         given(base64.encode(bytes)).willReturn(entityString);
         given(jwtBuilder.claim("entity", entityString)).willReturn(entityJwtBuilder);
-        given(entityJwtBuilder.signWith(HS512, secret)).willReturn(signWithJwtBuilder);
+        given(entityJwtBuilder.signWith(HS512, signingKey)).willReturn(signWithJwtBuilder);
         given(dates.nowPlus(duration, unit)).willReturn(expiry);
         given(signWithJwtBuilder.compact()).willReturn(expected);
 
@@ -212,13 +314,12 @@ public class JwtTokenParserTest {
     @Test
     public void Can_fail_to_parse_an_entity_from_a_token_that_has_expired() throws IOException {
 
-        final String token = someString();
-
-        final JwtParser signingKeyJwtParser = mock(JwtParser.class);
+        final String unsigned = someAlphaNumericString() + "." + someAlphaNumericString() + ".";
+        final String token = unsigned + someAlphaNumericString();
 
         // Given
-        given(jwtParser.setSigningKey(secret)).willReturn(signingKeyJwtParser);
-        given(signingKeyJwtParser.parseClaimsJws(token))
+        given(jwsVerifier.verify(token)).willReturn(true);
+        given(jwtParser.parseClaimsJwt(unsigned))
             .willThrow(new ExpiredJwtException(mock(Header.class), mock(Claims.class), someString()));
 
         // When
@@ -228,6 +329,312 @@ public class JwtTokenParserTest {
         assertThat(actual, nullValue());
     }
 
+    @Test(expected = SignatureException.class)
+    public void Cannot_parse_an_entity_from_a_token_with_an_invalid_signature() throws IOException {
+
+        final String token = someString();
+
+        // Given
+        given(jwsVerifier.verify(token)).willReturn(false);
+
+        // When
+        factory.parse(token);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void Can_create_and_parse_a_token_with_a_pre_built_template() throws IOException {
+
+        final Template<TestType> template = mock(Template.class);
+        final MessagePack messagePack = mock(MessagePack.class);
+        final TestType entity = mock(TestType.class);
+        final String unsigned = someAlphaNumericString() + "." + someAlphaNumericString() + ".";
+        final String token = unsigned + someAlphaNumericString();
+
+        final byte[] bytes = {};
+        final String entityString = someString();
+        final JwtBuilder entityJwtBuilder = mock(JwtBuilder.class);
+        final JwtBuilder signWithJwtBuilder = mock(JwtBuilder.class);
+        final Jwt<Header, Claims> jwt = mock(Jwt.class);
+        final Claims body = mock(Claims.class);
+
+        // Given
+        given(messagePack.lookup(type)).willReturn(template);
+        given(messagePack.write(entity, template)).willReturn(bytes);
+        given(base64.encode(bytes)).willReturn(entityString);
+        given(jwtBuilder.claim("entity", entityString)).willReturn(entityJwtBuilder);
+        given(entityJwtBuilder.signWith(HS512, signingKey)).willReturn(signWithJwtBuilder);
+        given(signWithJwtBuilder.compact()).willReturn(token);
+        given(jwsVerifier.verify(token)).willReturn(true);
+        given(jwtParser.parseClaimsJwt(unsigned)).willReturn(jwt);
+        given(jwt.getBody()).willReturn(body);
+        given(body.get("entity")).willReturn(entityString);
+        given(base64.decode(entityString)).willReturn(bytes);
+        given(messagePack.read(bytes, template)).willReturn(entity);
+        final JwtTokenParser<TestType> tokenParser = new JwtTokenParser<>(
+            type, signingKeys, jwtBuilders, jwsVerifier, jwtParser, messagePack, base64, dates
+        );
+
+        // When
+        final TestType actual = tokenParser.parse(tokenParser.create(entity));
+
+        // Then
+        assertThat(actual, equalTo(entity));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void Can_create_and_parse_a_token_when_no_template_can_be_built() throws IOException {
+
+        final MessagePack messagePack = mock(MessagePack.class);
+        final TestType entity = mock(TestType.class);
+        final String unsigned = someAlphaNumericString() + "." + someAlphaNumericString() + ".";
+        final String token = unsigned + someAlphaNumericString();
+
+        final byte[] bytes = {};
+        final String entityString = someString();
+        final JwtBuilder entityJwtBuilder = mock(JwtBuilder.class);
+        final JwtBuilder signWithJwtBuilder = mock(JwtBuilder.class);
+        final Jwt<Header, Claims> jwt = mock(Jwt.class);
+        final Claims body = mock(Claims.class);
+
+        // Given
+        given(messagePack.lookup(type)).willThrow(new MessageTypeException());
+        given(messagePack.write(entity)).willReturn(bytes);
+        given(base64.encode(bytes)).willReturn(entityString);
+        given(jwtBuilder.claim("entity", entityString)).willReturn(entityJwtBuilder);
+        given(entityJwtBuilder.signWith(HS512, signingKey)).willReturn(signWithJwtBuilder);
+        given(signWithJwtBuilder.compact()).willReturn(token);
+        given(jwsVerifier.verify(token)).willReturn(true);
+        given(jwtParser.parseClaimsJwt(unsigned)).willReturn(jwt);
+        given(jwt.getBody()).willReturn(body);
+        given(body.get("entity")).willReturn(entityString);
+        given(base64.decode(entityString)).willReturn(bytes);
+        given(messagePack.read(bytes, type)).willReturn(entity);
+        final JwtTokenParser<TestType> tokenParser = new JwtTokenParser<>(
+            type, signingKeys, jwtBuilders, jwsVerifier, jwtParser, messagePack, base64, dates
+        );
+
+        // When
+        final TestType actual = tokenParser.parse(tokenParser.create(entity));
+
+        // Then
+        assertThat(actual, equalTo(entity));
+    }
+
+    @Test
+    public void Can_parse_a_pojo_entity_from_a_real_token() {
+
+        final JwtTokenParser<TestPojo> tokenParser = new JwtTokenParser<>(TestPojo.class, someSecret());
+        final TestPojo expected = new TestPojo();
+        expected.name = someString();
+        expected.nested = new TestNestedPojo();
+        expected.nested.value = someString();
+
+        // When
+        final TestPojo actual = tokenParser.parse(tokenParser.create(expected));
+
+        // Then
+        assertThat(actual.name, equalTo(expected.name));
+        assertThat(actual.nested.value, equalTo(expected.nested.value));
+    }
+
+    @Test
+    public void Can_parse_an_entity_from_a_real_token() {
+
+        final JwtTokenParser<String> tokenParser = new JwtTokenParser<>(String.class, someSecret());
+
+        // Given
+        final String expected = someString();
+
+        // When
+        final String actual = tokenParser.parse(tokenParser.create(expected));
+
+        // Then
+        assertThat(actual, equalTo(expected));
+    }
+
+    @Test
+    public void Can_parse_an_entity_from_a_real_token_that_was_created_with_standard_base64() {
+
+        final String secret = someSecret();
+
+        // Given
+        final String expected = someString();
+        final String token = new JwtTokenParser<>(
+            String.class,
+            new StaticSigningKeys(
+                HS512,
+                new SecretKeySpec(new DataConverterBase64().decode(secret), HS512.getJcaName())
+            ),
+            new DefaultJwtBuilders(),
+            mock(JwsVerifier.class),
+            Jwts.parser(),
+            new MessagePack(),
+            new DataConverterBase64(),
+            new SystemDates()
+        ).create(expected);
+
+        // When
+        final String actual = new JwtTokenParser<>(String.class, secret).parse(token);
+
+        // Then
+        assertThat(actual, equalTo(expected));
+    }
+
+    @Test(expected = SignatureException.class)
+    public void Cannot_parse_an_entity_from_a_real_token_that_has_been_signed_with_a_different_secret() {
+
+        // Given
+        final String token = new JwtTokenParser<>(String.class, someSecret()).create(someString());
+
+        // When
+        new JwtTokenParser<>(String.class, someSecret()).parse(token);
+    }
+
+    @Test
+    public void Can_parse_an_entity_from_a_real_token_that_was_signed_with_an_rsa_key_pair() throws Exception {
+
+        final KeyPair keyPair = someKeyPair("RSA", 2048);
+
+        // Given
+        final String expected = someString();
+        final String token = new JwtTokenParser<>(String.class, keyPair).create(expected);
+
+        // When
+        final String actual = new JwtTokenParser<>(String.class, keyPair.getPublic()).parse(token);
+
+        // Then
+        assertThat(actual, equalTo(expected));
+    }
+
+    @Test
+    public void Can_parse_an_entity_from_a_real_token_that_was_signed_with_an_elliptic_curve_key_pair()
+        throws Exception {
+
+        final KeyPair keyPair = someKeyPair("EC", 256);
+
+        // Given
+        final String expected = someString();
+        final String token = new JwtTokenParser<>(String.class, keyPair).create(expected);
+
+        // When
+        final String actual = new JwtTokenParser<>(String.class, keyPair.getPublic()).parse(token);
+
+        // Then
+        assertThat(actual, equalTo(expected));
+    }
+
+    @Test(expected = SignatureException.class)
+    public void Cannot_parse_an_entity_from_a_real_token_that_was_signed_with_a_different_key_pair() throws Exception {
+
+        // Given
+        final String token = new JwtTokenParser<>(String.class, someKeyPair("EC", 256)).create(someString());
+
+        // When
+        new JwtTokenParser<>(String.class, someKeyPair("EC", 256).getPublic()).parse(token);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void Cannot_create_a_token_with_only_a_public_key() throws Exception {
+
+        // When
+        new JwtTokenParser<>(String.class, someKeyPair("EC", 256).getPublic()).create(someString());
+    }
+
+    @Test
+    public void Can_create_tokens_concurrently_without_any_claims_leaking_between_them() throws Exception {
+
+        final int threads = 64;
+        final int tokensPerThread = 100;
+        final JwtTokenParser<String> tokenParser = new JwtTokenParser<>(String.class, someSecret());
+        final ExecutorService executor = newFixedThreadPool(threads);
+        final CountDownLatch start = new CountDownLatch(1);
+
+        // Given
+        final List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            final String prefix = i + "-";
+            results.add(executor.submit(new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    start.await();
+                    int matches = 0;
+                    for (int j = 0; j < tokensPerThread; j++) {
+                        final String entity = prefix + j;
+                        if (entity.equals(tokenParser.parse(tokenParser.create(entity)))) {
+                            matches++;
+                        }
+                    }
+                    return matches;
+                }
+            }));
+        }
+
+        // When
+        start.countDown();
+
+        // Then
+        for (Future<Integer> result : results) {
+            assertThat(result.get(), equalTo(tokensPerThread));
+        }
+        executor.shutdown();
+    }
+
+    @Test
+    public void Can_revoke_a_real_token() throws Exception {
+
+        final JwtTokenParser<String> tokenParser = new JwtTokenParser<>(String.class, someSecret())
+            .withRevocations(new BloomRevocations(new InMemoryRevocationStore()));
+
+        // Given
+        final String entity = someString();
+        final String token = tokenParser.create(entity);
+        final String other = tokenParser.create(entity);
+
+        // When
+        tokenParser.revoke(token);
+
+        // Then
+        assertThat(tokenParser.parse(token), nullValue());
+        assertThat(tokenParser.parse(other), equalTo(entity));
+    }
+
+    @Test
+    public void Will_not_revoke_a_real_token_that_was_created_without_an_id() throws Exception {
+
+        final String secret = someSecret();
+        final InMemoryRevocationStore store = new InMemoryRevocationStore();
+
+        // Given
+        final String token = new JwtTokenParser<>(String.class, secret).create(someString());
+
+        // When
+        new JwtTokenParser<>(String.class, secret).withRevocations(new BloomRevocations(store)).revoke(token);
+
+        // Then
+        assertThat(store.load().isEmpty(), is(true));
+    }
+
+    private static KeyPair someKeyPair(String algorithm, int size) throws GeneralSecurityException {
+        final KeyPairGenerator generator = KeyPairGenerator.getInstance(algorithm);
+        generator.initialize(size);
+        return generator.generateKeyPair();
+    }
+
+    private static String someSecret() {
+        return new DataConverterBase64().encode(someString().getBytes());
+    }
+
     private interface TestType {
     }
+
+    public static class TestPojo {
+        public String name;
+        public TestNestedPojo nested;
+    }
+
+    public static class TestNestedPojo {
+        public String value;
+    }
 }
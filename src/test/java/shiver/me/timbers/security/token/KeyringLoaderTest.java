@@ -0,0 +1,269 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.util.Properties;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static shiver.me.timbers.data.random.RandomStrings.someString;
+
+public class KeyringLoaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Keyring keyring;
+    private File file;
+    private KeyringLoader loader;
+
+    @Before
+    public void setUp() throws IOException {
+        keyring = new Keyring();
+        file = folder.newFile();
+        loader = new KeyringLoader(keyring, file);
+    }
+
+    @Test
+    public void Can_load_the_keys_from_a_file() throws Exception {
+
+        final PublicKey publicKey = someRsaPublicKey();
+
+        // Given
+        write(properties(
+            "current", "two",
+            "fallback", "one",
+            "secret.one", someSecret(),
+            "secret.two", someSecret(),
+            "public.three", new DataConverterBase64().encode(publicKey.getEncoded())
+        ));
+
+        // When
+        final boolean actual = loader.load();
+
+        // Then
+        assertThat(actual, is(true));
+        assertThat(keyring.ids(), containsInAnyOrder("one", "two", "three"));
+        assertThat(keyring.currentId(), equalTo("two"));
+    }
+
+    @Test
+    public void Can_retire_and_replace_keys_by_changing_the_file() throws IOException {
+
+        final String secret = someSecret();
+        write(properties("current", "one", "secret.one", secret));
+        loader.load();
+        final String token = new JwtSubjectTokenParser(keyring).create(someString());
+
+        // Given
+        write(properties("current", "two", "secret.one", secret, "secret.two", someSecret()));
+        file.setLastModified(file.lastModified() + 1000);
+        loader.run();
+        final String rotated = new JwtSubjectTokenParser(keyring).create(someString());
+        write(properties("current", "two", "secret.two", someSecret()));
+        file.setLastModified(file.lastModified() + 2000);
+
+        // When
+        loader.run();
+
+        // Then
+        assertThat(keyring.verify(token), is(false));
+        assertThat(keyring.verify(rotated), is(false));
+        assertThat(keyring.ids(), containsInAnyOrder("two"));
+    }
+
+    @Test
+    public void Can_keep_verifying_tokens_while_both_keys_are_in_the_file() throws IOException {
+
+        final String secret = someSecret();
+        write(properties("current", "one", "secret.one", secret));
+        loader.load();
+        final String token = new JwtSubjectTokenParser(keyring).create(someString());
+
+        // Given
+        write(properties("current", "two", "secret.one", secret, "secret.two", someSecret()));
+        file.setLastModified(file.lastModified() + 1000);
+
+        // When
+        loader.load();
+
+        // Then
+        assertThat(keyring.verify(token), is(true));
+        assertThat(keyring.currentId(), equalTo("two"));
+    }
+
+    @Test
+    public void Will_not_reload_the_keys_if_the_file_has_not_changed() throws IOException {
+
+        // Given
+        write(properties("current", "one", "secret.one", someSecret()));
+        loader.load();
+
+        // When
+        final boolean actual = loader.load();
+
+        // Then
+        assertThat(actual, is(false));
+    }
+
+    @Test
+    public void Can_reload_the_keys_if_the_file_changes_without_its_modified_time_changing() throws IOException {
+
+        write(properties("current", "one", "secret.one", someSecret()));
+        loader.load();
+        final long modified = file.lastModified();
+
+        // Given
+        write(properties("current", "two", "secret.two", someSecret()));
+        file.setLastModified(modified);
+
+        // When
+        final boolean actual = loader.load();
+
+        // Then
+        assertThat(actual, is(true));
+        assertThat(keyring.currentId(), equalTo("two"));
+    }
+
+    @Test
+    public void Cannot_load_a_current_key_that_is_not_a_secret() throws Exception {
+
+        final String secret = someSecret();
+        loader.load(properties("current", "one", "secret.one", secret));
+
+        // Given
+        final Properties properties = properties(
+            "current", "two",
+            "public.two", new DataConverterBase64().encode(someRsaPublicKey().getEncoded())
+        );
+
+        // When
+        try {
+            loader.load(properties);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // Then
+            assertThat(keyring.ids(), containsInAnyOrder("one"));
+            assertThat(keyring.currentId(), equalTo("one"));
+        }
+    }
+
+    @Test
+    public void Cannot_load_an_empty_secret() {
+
+        loader.load(properties("current", "one", "secret.one", someSecret()));
+
+        // Given
+        final Properties properties = properties(
+            "current", "two",
+            "secret.one", someSecret(),
+            "secret.two", someSecret(),
+            "secret.three", ""
+        );
+
+        // When
+        try {
+            loader.load(properties);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // Then
+            assertThat(keyring.ids(), containsInAnyOrder("one"));
+            assertThat(keyring.currentId(), equalTo("one"));
+        }
+    }
+
+    @Test
+    public void Will_keep_the_current_keys_if_the_changed_file_cannot_be_loaded() throws IOException {
+
+        write(properties("current", "one", "secret.one", someSecret()));
+        loader.load();
+
+        // Given
+        write(properties("current", "two", "secret.two", ""));
+        file.setLastModified(file.lastModified() + 1000);
+
+        // When
+        loader.run();
+
+        // Then
+        assertThat(keyring.ids(), containsInAnyOrder("one"));
+        assertThat(keyring.currentId(), equalTo("one"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void Cannot_remove_the_current_key_without_replacing_it() {
+
+        // Given
+        loader.load(properties("current", "one", "secret.one", someSecret()));
+
+        // When
+        loader.load(properties("secret.two", someSecret()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void Cannot_load_a_fallback_key_that_is_not_in_the_properties() {
+
+        // When
+        loader.load(properties("current", "one", "secret.one", someSecret(), "fallback", "two"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void Cannot_load_a_public_key_that_is_not_valid() {
+
+        // When
+        loader.load(properties("public.one", someSecret()));
+    }
+
+    private void write(Properties properties) throws IOException {
+        try (OutputStream stream = new FileOutputStream(file)) {
+            properties.store(stream, null);
+        }
+    }
+
+    private static Properties properties(String... namesAndValues) {
+        final Properties properties = new Properties();
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            properties.setProperty(namesAndValues[i], namesAndValues[i + 1]);
+        }
+        return properties;
+    }
+
+    private static PublicKey someRsaPublicKey() throws Exception {
+        final KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(1024);
+        return generator.generateKeyPair().getPublic();
+    }
+
+    private static String someSecret() {
+        return new DataConverterBase64().encode(someString(16).getBytes(UTF_8));
+    }
+}
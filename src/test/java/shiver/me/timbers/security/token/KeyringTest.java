@@ -0,0 +1,302 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import io.jsonwebtoken.Jwts;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+
+import static io.jsonwebtoken.SignatureAlgorithm.ES256;
+import static io.jsonwebtoken.SignatureAlgorithm.HS512;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static shiver.me.timbers.data.random.RandomStrings.someAlphaNumericString;
+import static shiver.me.timbers.data.random.RandomStrings.someString;
+
+public class KeyringTest {
+
+    private Keyring keyring;
+
+    @Before
+    public void setUp() {
+        keyring = new Keyring();
+    }
+
+    @Test
+    public void Can_sign_tokens_with_the_current_key_and_its_id() {
+
+        final String id = someAlphaNumericString(8);
+        final String secret = someSecret();
+
+        // Given
+        keyring.add(id, secret).add(someAlphaNumericString(9), someSecret()).use(id);
+
+        // When
+        final SigningKey actual = keyring.current();
+
+        // Then
+        assertThat(actual.getId(), equalTo(id));
+        assertThat(actual.getAlgorithm(), equalTo(HS512));
+        assertThat(actual.getKey(), equalTo(SecretKeys.hmacKey(secret, HS512)));
+    }
+
+    @Test
+    public void Cannot_sign_tokens_until_a_key_has_been_used() {
+
+        // Given
+        keyring.add(someAlphaNumericString(8), someSecret());
+
+        // When
+        final SigningKey actual = keyring.current();
+
+        // Then
+        assertThat(actual, nullValue());
+    }
+
+    @Test
+    public void Can_verify_tokens_signed_by_the_previous_key_after_it_has_been_rotated() {
+
+        final JwtSubjectTokenParser tokenParser = new JwtSubjectTokenParser(keyring);
+        final String oldId = someAlphaNumericString(8);
+        final String newId = someAlphaNumericString(9);
+        keyring.add(oldId, someSecret()).use(oldId);
+        final String subject = someString();
+        final String oldToken = tokenParser.create(subject);
+
+        // Given
+        keyring.add(newId, someSecret()).use(newId);
+        final String newToken = tokenParser.create(subject);
+
+        // When
+        final String oldActual = tokenParser.parse(oldToken);
+        final String newActual = tokenParser.parse(newToken);
+
+        // Then
+        assertThat(oldActual, equalTo(subject));
+        assertThat(newActual, equalTo(subject));
+        assertThat(header(oldToken), containsString(oldId));
+        assertThat(header(newToken), containsString(newId));
+    }
+
+    @Test
+    public void Cannot_verify_tokens_signed_by_a_retired_key() {
+
+        final String oldId = someAlphaNumericString(8);
+        final String newId = someAlphaNumericString(9);
+        keyring.add(oldId, someSecret()).use(oldId);
+        final String token = new JwtSubjectTokenParser(keyring).create(someString());
+
+        // Given
+        keyring.add(newId, someSecret()).use(newId).retire(oldId);
+
+        // When
+        final boolean actual = keyring.verify(token);
+
+        // Then
+        assertThat(actual, is(false));
+    }
+
+    @Test
+    public void Cannot_verify_a_token_with_an_unknown_key_id() {
+
+        // Given
+        final String token = Jwts.builder().setHeaderParam("kid", someAlphaNumericString(8)).setSubject(someString())
+            .signWith(HS512, someSecret()).compact();
+
+        // When
+        final boolean actual = keyring.verify(token);
+
+        // Then
+        assertThat(actual, is(false));
+    }
+
+    @Test
+    public void Cannot_verify_a_token_that_has_the_right_key_id_but_the_wrong_key() {
+
+        final String id = someAlphaNumericString(8);
+
+        // Given
+        keyring.add(id, someSecret()).use(id);
+        final String token = Jwts.builder().setHeaderParam("kid", id).setSubject(someString())
+            .signWith(HS512, someSecret()).compact();
+
+        // When
+        final boolean actual = keyring.verify(token);
+
+        // Then
+        assertThat(actual, is(false));
+    }
+
+    @Test
+    public void Can_verify_a_token_that_has_its_key_id_after_its_algorithm() {
+
+        final String id = someAlphaNumericString(8);
+        final String secret = someSecret();
+
+        // Given
+        keyring.add(id, secret);
+        final String token = Jwts.builder().setHeaderParam("alg", HS512.getValue()).setHeaderParam("kid", id)
+            .setSubject(someString()).signWith(HS512, secret).compact();
+
+        // When
+        final boolean actual = keyring.verify(token);
+
+        // Then
+        assertThat(header(token), containsString("\"alg\":\"HS512\",\"kid\""));
+        assertThat(actual, is(true));
+    }
+
+    @Test
+    public void Can_verify_a_token_that_has_an_uncommon_header() {
+
+        final String id = someAlphaNumericString(8);
+        final String secret = someSecret();
+
+        // Given
+        keyring.add(id, secret);
+        final String token = Jwts.builder().setHeaderParam("typ", "JWT").setHeaderParam("kid", id)
+            .setSubject(someString()).signWith(HS512, secret).compact();
+
+        // When
+        final boolean actual = keyring.verify(token);
+
+        // Then
+        assertThat(actual, is(true));
+    }
+
+    @Test
+    public void Can_verify_a_token_without_a_key_id_with_the_fallback_key() {
+
+        final String id = someAlphaNumericString(8);
+        final String secret = someSecret();
+        final String token = new JwtSubjectTokenParser(secret).create(someString());
+
+        // Given
+        keyring.add(id, secret).fallback(id);
+
+        // When
+        final boolean actual = keyring.verify(token);
+
+        // Then
+        assertThat(actual, is(true));
+    }
+
+    @Test
+    public void Cannot_verify_a_token_without_a_key_id_if_there_is_no_fallback_key() {
+
+        final String id = someAlphaNumericString(8);
+        final String secret = someSecret();
+        final String token = new JwtSubjectTokenParser(secret).create(someString());
+
+        // Given
+        keyring.add(id, secret).use(id);
+
+        // When
+        final boolean actual = keyring.verify(token);
+
+        // Then
+        assertThat(actual, is(false));
+    }
+
+    @Test
+    public void Can_sign_with_a_key_pair_and_verify_with_its_public_key() throws Exception {
+
+        final KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(256);
+        final KeyPair keyPair = generator.generateKeyPair();
+        final String id = someAlphaNumericString(8);
+        final String expected = someString();
+
+        // Given
+        final String token = new JwtSubjectTokenParser(new Keyring().add(id, keyPair).use(id)).create(expected);
+
+        // When
+        final String actual = new JwtSubjectTokenParser(keyring.add(id, keyPair.getPublic())).parse(token);
+
+        // Then
+        assertThat(keyring.current(), nullValue());
+        assertThat(Jwts.parser().setSigningKey(keyPair.getPublic()).parseClaimsJws(token).getHeader().getAlgorithm(),
+            equalTo(ES256.getValue()));
+        assertThat(actual, equalTo(expected));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void Cannot_sign_with_a_key_that_can_only_verify() throws Exception {
+
+        final KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(1024);
+        final String id = someAlphaNumericString(8);
+
+        // Given
+        keyring.add(id, generator.generateKeyPair().getPublic());
+
+        // When
+        keyring.use(id);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void Cannot_use_a_key_that_is_not_in_the_keyring() {
+
+        // When
+        keyring.use(someAlphaNumericString(8));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void Cannot_retire_the_key_that_is_signing_tokens() {
+
+        final String id = someAlphaNumericString(8);
+
+        // Given
+        keyring.add(id, someSecret()).use(id);
+
+        // When
+        keyring.retire(id);
+    }
+
+    @Test
+    public void Can_retire_the_fallback_key() {
+
+        final String id = someAlphaNumericString(8);
+        final String secret = someSecret();
+        final String token = new JwtSubjectTokenParser(secret).create(someString());
+
+        // Given
+        keyring.add(id, secret).fallback(id).retire(id);
+
+        // When
+        final boolean actual = keyring.verify(token);
+
+        // Then
+        assertThat(actual, is(false));
+        assertThat(keyring.ids().isEmpty(), is(true));
+    }
+
+    private static String header(String token) {
+        return new String(new UrlSafeBase64().decode(token.substring(0, token.indexOf('.'))), UTF_8);
+    }
+
+    private static String someSecret() {
+        return new DataConverterBase64().encode(someString(16).getBytes(UTF_8));
+    }
+}
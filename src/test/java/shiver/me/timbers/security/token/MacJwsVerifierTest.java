@@ -0,0 +1,201 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.impl.TextCodec;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.security.Key;
+
+import static io.jsonwebtoken.SignatureAlgorithm.HS256;
+import static io.jsonwebtoken.SignatureAlgorithm.HS384;
+import static io.jsonwebtoken.SignatureAlgorithm.HS512;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static shiver.me.timbers.data.random.RandomStrings.someAlphaNumericString;
+import static shiver.me.timbers.data.random.RandomStrings.someString;
+
+public class MacJwsVerifierTest {
+
+    private Key key;
+    private MacJwsVerifier verifier;
+
+    @Before
+    public void setUp() {
+        key = new SecretKeySpec(someString().getBytes(), HS512.getJcaName());
+        verifier = new MacJwsVerifier(key);
+    }
+
+    @Test
+    public void Can_verify_hs256_hs384_and_hs512_tokens() {
+
+        for (SignatureAlgorithm algorithm : new SignatureAlgorithm[]{HS256, HS384, HS512}) {
+
+            // Given
+            final String token = Jwts.builder().setSubject(someString()).signWith(algorithm, key).compact();
+
+            // When
+            final boolean actual = verifier.verify(token);
+
+            // Then
+            assertThat(actual, is(true));
+        }
+    }
+
+    @Test
+    public void Can_verify_a_token_with_an_uncommon_header() {
+
+        // Given
+        final String token = Jwts.builder().setHeaderParam("typ", "JWT").setSubject(someString())
+            .signWith(HS512, key).compact();
+
+        // When
+        final boolean actual = verifier.verify(token);
+
+        // Then
+        assertThat(actual, is(true));
+    }
+
+    @Test
+    public void Can_verify_a_token_with_a_key_id() {
+
+        final String keyId = someAlphaNumericString(8);
+
+        // Given
+        final String token = Jwts.builder().setHeaderParam("kid", keyId).setSubject(someString())
+            .signWith(HS512, key).compact();
+
+        // When
+        final boolean actual = new MacJwsVerifier(key, keyId).verify(token);
+
+        // Then
+        assertThat(actual, is(true));
+    }
+
+    @Test
+    public void Can_verify_the_same_token_more_than_once() {
+
+        // Given
+        final String token = Jwts.builder().setSubject(someString()).signWith(HS512, key).compact();
+
+        // When
+        verifier.verify(token);
+        final boolean actual = verifier.verify(token);
+
+        // Then
+        assertThat(actual, is(true));
+    }
+
+    @Test
+    public void Cannot_verify_a_token_signed_with_a_different_key() {
+
+        // Given
+        final String token = Jwts.builder().setSubject(someString())
+            .signWith(HS512, new SecretKeySpec((someString() + "other").getBytes(), HS512.getJcaName())).compact();
+
+        // When
+        final boolean actual = verifier.verify(token);
+
+        // Then
+        assertThat(actual, is(false));
+    }
+
+    @Test
+    public void Cannot_verify_a_token_with_a_tampered_payload() {
+
+        final String token = Jwts.builder().setSubject(someString()).signWith(HS512, key).compact();
+        final String[] segments = token.split("\\.");
+
+        // Given
+        final String tampered = segments[0] + "." + TextCodec.BASE64URL.encode("{\"sub\":\"admin\"}") + "." +
+            segments[2];
+
+        // When
+        final boolean actual = verifier.verify(tampered);
+
+        // Then
+        assertThat(actual, is(false));
+    }
+
+    @Test
+    public void Cannot_verify_a_token_with_a_non_canonical_signature_encoding() {
+
+        final String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        final String token = Jwts.builder().setSubject(someString()).signWith(HS512, key).compact();
+        final int last = alphabet.indexOf(token.charAt(token.length() - 1));
+        // An HS512 signature leaves four unused bits in its last character, setting one still decodes to the same
+        // bytes.
+        final String trailingBits = token.substring(0, token.length() - 1) + alphabet.charAt(last | 1);
+
+        // Then
+        assertThat(verifier.verify(token), is(true));
+        assertThat(verifier.verify(token + "=="), is(false));
+        assertThat(verifier.verify(trailingBits), is(false));
+    }
+
+    @Test
+    public void Cannot_verify_an_unsigned_token() {
+
+        // Given
+        final String token = Jwts.builder().setSubject(someString()).compact();
+
+        // When
+        final boolean actual = verifier.verify(token);
+
+        // Then
+        assertThat(actual, is(false));
+    }
+
+    @Test
+    public void Cannot_verify_a_token_with_non_ascii_characters() {
+
+        final String token = Jwts.builder().setSubject(someString()).signWith(HS512, key).compact();
+
+        // Given
+        final int payloadStart = token.indexOf('.') + 1;
+        final String tampered = token.substring(0, payloadStart) + "\u0165" + token.substring(payloadStart);
+
+        // When
+        final boolean actual = verifier.verify(tampered);
+
+        // Then
+        assertThat(actual, is(false));
+    }
+
+    @Test(expected = MalformedJwtException.class)
+    public void Cannot_verify_a_token_without_three_segments() {
+
+        // When
+        verifier.verify(someAlphaNumericString() + "." + someAlphaNumericString());
+    }
+
+    @Test(expected = UnsupportedJwtException.class)
+    public void Cannot_verify_a_token_signed_with_an_unsupported_algorithm() {
+
+        // Given
+        final String header = TextCodec.BASE64URL.encode("{\"alg\":\"RS256\"}");
+
+        // When
+        verifier.verify(header + "." + someAlphaNumericString() + "." + someAlphaNumericString());
+    }
+}
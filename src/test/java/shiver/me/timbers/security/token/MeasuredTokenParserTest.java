@@ -0,0 +1,170 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.PrematureJwtException;
+import io.jsonwebtoken.SignatureException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Date;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static shiver.me.timbers.data.random.RandomStrings.someString;
+
+public class MeasuredTokenParserTest {
+
+    private TokenParser<Object> tokenParser;
+    private TokenMetrics metrics;
+    private Expiries expiries;
+    private Clock dates;
+    private MeasuredTokenParser<Object> measuredTokenParser;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        tokenParser = mock(TokenParser.class);
+        metrics = mock(TokenMetrics.class);
+        expiries = mock(Expiries.class);
+        dates = mock(Clock.class);
+        measuredTokenParser = new MeasuredTokenParser<>(tokenParser, metrics, expiries, dates);
+    }
+
+    @Test
+    public void Can_create_a_measured_token_parser_with_just_metrics() {
+        new MeasuredTokenParser<>(tokenParser, metrics);
+    }
+
+    @Test
+    public void Can_measure_token_creation() throws Exception {
+
+        final Object entity = new Object();
+        final String expected = someString();
+
+        // Given
+        given(tokenParser.create(entity)).willReturn(expected);
+
+        // When
+        final String actual = measuredTokenParser.create(entity);
+
+        // Then
+        assertThat(actual, equalTo(expected));
+        verify(metrics).created(anyLong(), eq(expected.length()));
+    }
+
+    @Test
+    public void Can_measure_a_valid_token() throws Exception {
+
+        final String token = someString();
+        final Object expected = new Object();
+
+        // Given
+        given(tokenParser.parse(token)).willReturn(expected);
+
+        // When
+        final Object actual = measuredTokenParser.parse(token);
+
+        // Then
+        assertThat(actual, sameInstance(expected));
+        verify(metrics).parsed(eq(TokenOutcome.VALID), anyLong(), eq(token.length()));
+        verifyZeroInteractions(expiries, dates);
+    }
+
+    @Test
+    public void Can_measure_an_expired_token() throws Exception {
+
+        final String token = someString();
+        final Date expiry = new Date();
+
+        // Given
+        given(tokenParser.parse(token)).willReturn(null);
+        given(expiries.expiry(token)).willReturn(expiry);
+        given(dates.now()).willReturn(expiry);
+
+        // When
+        measuredTokenParser.parse(token);
+
+        // Then
+        verify(metrics).parsed(eq(TokenOutcome.EXPIRED), anyLong(), eq(token.length()));
+    }
+
+    @Test
+    public void Can_measure_a_token_that_was_rejected_before_it_expired() throws Exception {
+
+        final String token = someString();
+
+        // Given
+        given(tokenParser.parse(token)).willReturn(null);
+        given(expiries.expiry(token)).willReturn(new Date(2000L));
+        given(dates.now()).willReturn(new Date(1000L));
+
+        // When
+        measuredTokenParser.parse(token);
+
+        // Then
+        verify(metrics).parsed(eq(TokenOutcome.REJECTED), anyLong(), eq(token.length()));
+    }
+
+    @Test
+    public void Can_measure_a_token_with_a_bad_signature() throws Exception {
+        Can_measure_a_failure(new SignatureException(someString()), TokenOutcome.BAD_SIGNATURE);
+    }
+
+    @Test
+    public void Can_measure_a_malformed_token() throws Exception {
+        Can_measure_a_failure(new MalformedJwtException(someString()), TokenOutcome.MALFORMED);
+    }
+
+    @Test
+    public void Can_measure_a_premature_token() throws Exception {
+        Can_measure_a_failure(new PrematureJwtException(null, null, someString()), TokenOutcome.PREMATURE);
+    }
+
+    @Test
+    public void Can_measure_any_other_failure() throws Exception {
+        Can_measure_a_failure(new IllegalStateException(), TokenOutcome.FAILED);
+    }
+
+    private void Can_measure_a_failure(Exception exception, TokenOutcome outcome) throws Exception {
+
+        final String token = someString();
+
+        // Given
+        given(tokenParser.parse(token)).willThrow(exception);
+
+        // When
+        try {
+            measuredTokenParser.parse(token);
+            fail();
+        } catch (Exception e) {
+            assertThat(e, sameInstance(exception));
+        }
+
+        // Then
+        verify(metrics).parsed(eq(outcome), anyLong(), eq(token.length()));
+    }
+}
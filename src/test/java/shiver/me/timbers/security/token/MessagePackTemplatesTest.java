@@ -0,0 +1,102 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import org.junit.Test;
+import org.msgpack.MessagePack;
+import org.msgpack.template.StringTemplate;
+import org.msgpack.template.Template;
+
+import java.io.IOException;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static shiver.me.timbers.data.random.RandomStrings.someString;
+
+public class MessagePackTemplatesTest {
+
+    @Test
+    public void Can_lookup_the_specialised_string_template() {
+
+        // When
+        final Template<String> actual = MessagePackTemplates.lookup(new MessagePack(), String.class);
+
+        // Then
+        assertThat(actual, instanceOf(StringTemplate.class));
+    }
+
+    @Test
+    public void Can_lookup_a_template_for_a_pojo_with_nested_pojos() throws IOException {
+
+        final MessagePack messagePack = new MessagePack();
+
+        final Principal expected = new Principal();
+        expected.username = someString();
+        expected.details = new Details();
+        expected.details.roles = asList(someString(), someString());
+        expected.details.groups = new Group[]{new Group()};
+        expected.details.groups[0].name = someString();
+        expected.details.level = Level.HIGH;
+
+        // When
+        final Template<Principal> template = MessagePackTemplates.lookup(messagePack, Principal.class);
+
+        // Then
+        final Principal actual = messagePack.read(messagePack.write(expected, template), template);
+        assertThat(actual.username, equalTo(expected.username));
+        assertThat(actual.details.roles, equalTo(expected.details.roles));
+        assertThat(actual.details.groups[0].name, equalTo(expected.details.groups[0].name));
+        assertThat(actual.details.level, equalTo(expected.details.level));
+    }
+
+    @Test
+    public void Cannot_lookup_a_template_for_a_type_that_message_pack_cannot_build_one_for() {
+
+        // When
+        final Template<Unbuildable> actual = MessagePackTemplates.lookup(new MessagePack(), Unbuildable.class);
+
+        // Then
+        assertThat(actual, nullValue());
+    }
+
+    public static class Principal {
+        public String username;
+        public Details details;
+    }
+
+    public static class Details {
+        public List<String> roles;
+        public Group[] groups;
+        public Level level;
+    }
+
+    public static class Group {
+        public String name;
+    }
+
+    public enum Level {
+        LOW, HIGH
+    }
+
+    public static class Unbuildable {
+        public Object value;
+    }
+}
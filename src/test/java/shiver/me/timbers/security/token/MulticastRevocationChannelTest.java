@@ -0,0 +1,133 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import org.junit.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static io.jsonwebtoken.SignatureAlgorithm.HS256;
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.singletonList;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+import static shiver.me.timbers.data.random.RandomStrings.someAlphaNumericString;
+import static shiver.me.timbers.security.token.MulticastRevocationChannel.MAXIMUM_DATAGRAM_SIZE;
+import static shiver.me.timbers.security.token.MulticastRevocationChannel.decode;
+import static shiver.me.timbers.security.token.MulticastRevocationChannel.encode;
+import static shiver.me.timbers.security.token.MulticastRevocationChannel.sign;
+import static shiver.me.timbers.security.token.MulticastRevocationChannel.verify;
+
+public class MulticastRevocationChannelTest {
+
+    @Test
+    public void Can_split_a_batch_of_revocations_across_datagrams() {
+
+        final List<Revocation> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            expected.add(new Revocation(someAlphaNumericString(30), i % 2 == 0 ? null : new Date(i)));
+        }
+
+        // When
+        final List<byte[]> datagrams = encode(expected, MAXIMUM_DATAGRAM_SIZE);
+
+        // Then
+        final List<Revocation> actual = new ArrayList<>();
+        for (byte[] datagram : datagrams) {
+            assertThat(datagram.length, lessThanOrEqualTo(MAXIMUM_DATAGRAM_SIZE));
+            actual.addAll(decode(datagram, 0, datagram.length));
+        }
+        assertThat(actual, equalTo(expected));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void Cannot_encode_an_id_that_is_too_long_for_a_datagram() {
+
+        // When
+        encode(
+            singletonList(new Revocation(someAlphaNumericString(MAXIMUM_DATAGRAM_SIZE), null)),
+            MAXIMUM_DATAGRAM_SIZE
+        );
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void Cannot_decode_a_stray_datagram() {
+
+        final byte[] datagram = someAlphaNumericString().getBytes(UTF_8);
+
+        // When
+        decode(datagram, 0, datagram.length);
+    }
+
+    @Test
+    public void Can_verify_a_signed_datagram() throws Exception {
+
+        final Mac mac = someMac(someAlphaNumericString());
+        final List<Revocation> expected = singletonList(new Revocation(someAlphaNumericString(), new Date(1L)));
+
+        // Given
+        final byte[] datagram = sign(mac, encode(expected, MAXIMUM_DATAGRAM_SIZE).get(0));
+
+        // When
+        final List<Revocation> actual = verify(mac, datagram, 0, datagram.length);
+
+        // Then
+        assertThat(actual, equalTo(expected));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void Cannot_verify_a_datagram_signed_with_a_different_secret() throws Exception {
+
+        final List<Revocation> revocations = singletonList(new Revocation(someAlphaNumericString(), null));
+        final Mac mac = someMac(someAlphaNumericString());
+
+        // Given
+        final byte[] datagram = sign(mac, encode(revocations, MAXIMUM_DATAGRAM_SIZE).get(0));
+
+        // When
+        verify(someMac(someAlphaNumericString()), datagram, 0, datagram.length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void Cannot_verify_an_unsigned_datagram() throws Exception {
+
+        final byte[] datagram = format("%s 0\n", someAlphaNumericString()).getBytes(UTF_8);
+
+        // When
+        verify(someMac(someAlphaNumericString()), datagram, 0, datagram.length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void Cannot_create_a_channel_without_a_secret() throws Exception {
+
+        // When
+        new MulticastRevocationChannel(InetAddress.getByName("239.255.42.99"), 4446, (String) null);
+    }
+
+    private static Mac someMac(String secret) throws Exception {
+        final Mac mac = Mac.getInstance(HS256.getJcaName());
+        mac.init(new SecretKeySpec(secret.getBytes(UTF_8), HS256.getJcaName()));
+        return mac;
+    }
+}
@@ -0,0 +1,318 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Header;
+import io.jsonwebtoken.PrematureJwtException;
+import io.jsonwebtoken.SignatureException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static shiver.me.timbers.data.random.RandomLongs.someLong;
+import static shiver.me.timbers.data.random.RandomStrings.someString;
+
+public class NegativeCachingTokenParserTest {
+
+    private TokenParser<Object> tokenParser;
+    private Digests digests;
+    private Clock dates;
+    private NegativeCachingTokenParser<Object> cachingTokenParser;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        tokenParser = mock(TokenParser.class);
+        digests = mock(Digests.class);
+        dates = mock(Clock.class);
+        cachingTokenParser = new NegativeCachingTokenParser<>(tokenParser, 2, 100L, MILLISECONDS, digests, dates);
+
+        given(dates.now()).willReturn(new Date(1000L));
+    }
+
+    @Test
+    public void Can_create_a_negative_caching_token_parser_with_just_a_size() {
+        new NegativeCachingTokenParser<>(tokenParser, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void Cannot_create_a_negative_caching_token_parser_with_no_size() {
+        new NegativeCachingTokenParser<>(tokenParser, 0);
+    }
+
+    @Test
+    public void Can_delegate_token_creation() throws Exception {
+
+        final Object entity = new Object();
+        final String expected = someString();
+
+        // Given
+        given(tokenParser.create(entity)).willReturn(expected);
+
+        // When
+        final String actual = cachingTokenParser.create(entity);
+
+        // Then
+        assertThat(actual, equalTo(expected));
+    }
+
+    @Test
+    public void Can_reject_a_token_that_was_rejected_before_without_parsing_it_again() throws Exception {
+
+        final String token = someString();
+
+        // Given
+        given(digests.digest(token)).willReturn(someLong());
+        given(tokenParser.parse(token)).willReturn(null);
+
+        // When
+        cachingTokenParser.parse(token);
+        final Object actual = cachingTokenParser.parse(token);
+
+        // Then
+        verify(tokenParser).parse(token);
+        assertThat(actual, nullValue());
+        assertThat(cachingTokenParser.getHits(), is(1L));
+        assertThat(cachingTokenParser.getMisses(), is(1L));
+    }
+
+    @Test
+    public void Can_throw_a_new_exception_for_a_token_that_failed_before() throws Exception {
+
+        final String token = someString();
+        final SignatureException exception = new SignatureException(someString());
+        final List<SignatureException> thrown = new ArrayList<>();
+
+        // Given
+        given(digests.digest(token)).willReturn(someLong());
+        given(tokenParser.parse(token)).willThrow(exception);
+
+        // When
+        for (int i = 0; i < 3; i++) {
+            try {
+                cachingTokenParser.parse(token);
+                fail();
+            } catch (SignatureException e) {
+                thrown.add(e);
+            }
+        }
+
+        // Then
+        verify(tokenParser).parse(token);
+        assertThat(thrown.get(0), sameInstance(exception));
+        assertThat(thrown.get(1), not(sameInstance(exception)));
+        assertThat(thrown.get(2), not(sameInstance(thrown.get(1))));
+        assertThat(thrown.get(2).getMessage(), equalTo(exception.getMessage()));
+    }
+
+    @Test
+    public void Can_throw_a_new_expired_exception_with_the_same_claims() throws Exception {
+
+        final String token = someString();
+        final Claims claims = mock(Claims.class);
+        final ExpiredJwtException exception = new ExpiredJwtException(mock(Header.class), claims, someString());
+
+        // Given
+        given(digests.digest(token)).willReturn(someLong());
+        given(tokenParser.parse(token)).willThrow(exception);
+        try {
+            cachingTokenParser.parse(token);
+            fail();
+        } catch (ExpiredJwtException e) {
+            // Expected.
+        }
+
+        // When
+        try {
+            cachingTokenParser.parse(token);
+            fail();
+        } catch (ExpiredJwtException e) {
+            // Then
+            assertThat(e, not(sameInstance(exception)));
+            assertThat(e.getClaims(), sameInstance(claims));
+        }
+    }
+
+    @Test
+    public void Will_not_remember_a_token_that_is_not_valid_yet() throws Exception {
+
+        final String token = someString();
+
+        // Given
+        given(digests.digest(token)).willReturn(someLong());
+        given(tokenParser.parse(token)).willThrow(new PrematureJwtException(null, null, someString()));
+
+        // When
+        for (int i = 0; i < 2; i++) {
+            try {
+                cachingTokenParser.parse(token);
+                fail();
+            } catch (PrematureJwtException e) {
+                // Expected.
+            }
+        }
+
+        // Then
+        verify(tokenParser, times(2)).parse(token);
+        assertThat(cachingTokenParser.size(), is(0));
+    }
+
+    @Test
+    public void Will_not_remember_a_failure_that_was_not_caused_by_the_token() throws Exception {
+
+        final String token = someString();
+
+        // Given
+        given(digests.digest(token)).willReturn(someLong());
+        given(tokenParser.parse(token)).willThrow(new IllegalStateException());
+
+        // When
+        for (int i = 0; i < 2; i++) {
+            try {
+                cachingTokenParser.parse(token);
+                fail();
+            } catch (IllegalStateException e) {
+                // Expected.
+            }
+        }
+
+        // Then
+        verify(tokenParser, times(2)).parse(token);
+    }
+
+    @Test
+    public void Will_not_remember_a_valid_token() throws Exception {
+
+        final String token = someString();
+        final Object expected = new Object();
+
+        // Given
+        given(digests.digest(token)).willReturn(someLong());
+        given(tokenParser.parse(token)).willReturn(expected);
+
+        // When
+        cachingTokenParser.parse(token);
+        final Object actual = cachingTokenParser.parse(token);
+
+        // Then
+        verify(tokenParser, times(2)).parse(token);
+        assertThat(actual, equalTo(expected));
+        assertThat(cachingTokenParser.size(), is(0));
+    }
+
+    @Test
+    public void Will_parse_a_rejected_token_again_once_it_has_been_forgotten() throws Exception {
+
+        final String token = someString();
+        final Object expected = new Object();
+
+        // Given
+        given(digests.digest(token)).willReturn(someLong());
+        given(tokenParser.parse(token)).willReturn(null, expected);
+        given(dates.now()).willReturn(new Date(1000L), new Date(1100L));
+
+        // When
+        cachingTokenParser.parse(token);
+        final Object actual = cachingTokenParser.parse(token);
+
+        // Then
+        verify(tokenParser, times(2)).parse(token);
+        assertThat(actual, equalTo(expected));
+    }
+
+    @Test
+    public void Will_parse_a_rejected_token_again_once_the_keyring_has_changed() throws Exception {
+
+        final Keyring keyring = new Keyring().add(someString(), "c2VjcmV0");
+        final String token = someString();
+
+        // Given
+        given(digests.digest(token)).willReturn(someLong());
+        given(tokenParser.parse(token)).willThrow(new SignatureException(someString()));
+        cachingTokenParser.withKeyring(keyring);
+        try {
+            cachingTokenParser.parse(token);
+            fail();
+        } catch (SignatureException e) {
+            // The unknown key has now been remembered.
+        }
+        willReturn(new Object()).given(tokenParser).parse(token);
+
+        // When
+        keyring.add(someString(), "b3RoZXI=");
+        final Object actual = cachingTokenParser.parse(token);
+
+        // Then
+        verify(tokenParser, times(2)).parse(token);
+        assertThat(actual, not(nullValue()));
+    }
+
+    @Test
+    public void Will_not_reject_a_different_token_with_the_same_digest() throws Exception {
+
+        final Long digest = someLong();
+        final String rejected = someString();
+        final String token = rejected + someString();
+        final Object expected = new Object();
+
+        // Given
+        given(digests.digest(rejected)).willReturn(digest);
+        given(digests.digest(token)).willReturn(digest);
+        given(tokenParser.parse(rejected)).willReturn(null);
+        given(tokenParser.parse(token)).willReturn(expected);
+
+        // When
+        cachingTokenParser.parse(rejected);
+        final Object actual = cachingTokenParser.parse(token);
+
+        // Then
+        assertThat(actual, equalTo(expected));
+    }
+
+    @Test
+    public void Can_evict_the_least_recently_rejected_token() throws Exception {
+
+        // Given
+        for (long i = 0; i < 3; i++) {
+            final String token = someString() + i;
+            given(digests.digest(token)).willReturn(i);
+            cachingTokenParser.parse(token);
+        }
+
+        // Then
+        assertThat(cachingTokenParser.size(), is(2));
+        assertThat(cachingTokenParser.getEvictions(), is(1L));
+    }
+}
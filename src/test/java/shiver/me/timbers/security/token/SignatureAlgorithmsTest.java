@@ -0,0 +1,79 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.Test;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+
+import static io.jsonwebtoken.SignatureAlgorithm.ES256;
+import static io.jsonwebtoken.SignatureAlgorithm.ES384;
+import static io.jsonwebtoken.SignatureAlgorithm.ES512;
+import static io.jsonwebtoken.SignatureAlgorithm.HS512;
+import static io.jsonwebtoken.SignatureAlgorithm.RS256;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static shiver.me.timbers.data.random.RandomStrings.someString;
+
+public class SignatureAlgorithmsTest {
+
+    @Test
+    public void Can_choose_rs256_for_an_rsa_key() throws GeneralSecurityException {
+
+        // When
+        final SignatureAlgorithm actual = SignatureAlgorithms.forKey(somePrivateKey("RSA", 1024));
+
+        // Then
+        assertThat(actual, equalTo(RS256));
+    }
+
+    @Test
+    public void Can_choose_the_ecdsa_algorithm_that_matches_the_curve_size() throws GeneralSecurityException {
+
+        // When
+        final SignatureAlgorithm es256 = SignatureAlgorithms.forKey(somePrivateKey("EC", 256));
+        final SignatureAlgorithm es384 = SignatureAlgorithms.forKey(somePrivateKey("EC", 384));
+        final SignatureAlgorithm es512 = SignatureAlgorithms.forKey(somePrivateKey("EC", 521));
+
+        // Then
+        assertThat(es256, equalTo(ES256));
+        assertThat(es384, equalTo(ES384));
+        assertThat(es512, equalTo(ES512));
+    }
+
+    @Test
+    public void Can_choose_hs512_for_any_other_key() {
+
+        // When
+        final SignatureAlgorithm actual = SignatureAlgorithms.forKey(
+            new SecretKeySpec(someString(1).getBytes(), HS512.getJcaName())
+        );
+
+        // Then
+        assertThat(actual, equalTo(HS512));
+    }
+
+    private static PrivateKey somePrivateKey(String algorithm, int size) throws GeneralSecurityException {
+        final KeyPairGenerator generator = KeyPairGenerator.getInstance(algorithm);
+        generator.initialize(size);
+        return generator.generateKeyPair().getPrivate();
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.UnsupportedJwtException;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+
+import static io.jsonwebtoken.SignatureAlgorithm.ES256;
+import static io.jsonwebtoken.SignatureAlgorithm.ES384;
+import static io.jsonwebtoken.SignatureAlgorithm.HS256;
+import static io.jsonwebtoken.SignatureAlgorithm.RS256;
+import static io.jsonwebtoken.SignatureAlgorithm.RS384;
+import static io.jsonwebtoken.SignatureAlgorithm.RS512;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static shiver.me.timbers.data.random.RandomStrings.someString;
+
+public class SignatureJwsVerifierTest {
+
+    private static KeyPair rsaKeyPair;
+    private static KeyPair ecKeyPair;
+
+    @BeforeClass
+    public static void setUpClass() throws GeneralSecurityException {
+        rsaKeyPair = someKeyPair("RSA", 2048);
+        ecKeyPair = someKeyPair("EC", 256);
+    }
+
+    @Test
+    public void Can_verify_rs256_rs384_and_rs512_tokens() {
+
+        final SignatureJwsVerifier verifier = new SignatureJwsVerifier(rsaKeyPair.getPublic());
+
+        for (SignatureAlgorithm algorithm : new SignatureAlgorithm[]{RS256, RS384, RS512}) {
+
+            // Given
+            final String token = Jwts.builder().setSubject(someString())
+                .signWith(algorithm, rsaKeyPair.getPrivate()).compact();
+
+            // When
+            final boolean actual = verifier.verify(token);
+
+            // Then
+            assertThat(actual, is(true));
+        }
+    }
+
+    @Test
+    public void Can_verify_an_es256_token_with_a_der_encoded_signature() {
+
+        // Given
+        final String token = Jwts.builder().setSubject(someString()).signWith(ES256, ecKeyPair.getPrivate()).compact();
+
+        // When
+        final boolean actual = new SignatureJwsVerifier(ecKeyPair.getPublic()).verify(token);
+
+        // Then
+        assertThat(actual, is(true));
+    }
+
+    @Test
+    public void Can_verify_an_es256_token_with_a_standard_jws_signature() throws GeneralSecurityException {
+
+        final UrlSafeBase64 base64 = new UrlSafeBase64();
+        final String unsigned = base64.encode("{\"alg\":\"ES256\"}".getBytes(US_ASCII)) + "." +
+            base64.encode(("{\"sub\":\"" + someString(8) + "\"}").getBytes(US_ASCII));
+        final Signature signature = Signature.getInstance(ES256.getJcaName());
+        signature.initSign(ecKeyPair.getPrivate());
+        signature.update(unsigned.getBytes(US_ASCII));
+
+        // Given
+        final String token = unsigned + "." + base64.encode(toConcatenated(signature.sign(), 32));
+
+        // When
+        final boolean actual = new SignatureJwsVerifier(ecKeyPair.getPublic()).verify(token);
+
+        // Then
+        assertThat(actual, is(true));
+    }
+
+    @Test
+    public void Can_verify_the_same_token_more_than_once() {
+
+        final SignatureJwsVerifier verifier = new SignatureJwsVerifier(ecKeyPair.getPublic());
+
+        // Given
+        final String token = Jwts.builder().setSubject(someString()).signWith(ES256, ecKeyPair.getPrivate()).compact();
+
+        // When
+        final boolean first = verifier.verify(token);
+        final boolean second = verifier.verify(token);
+
+        // Then
+        assertThat(first, is(true));
+        assertThat(second, is(true));
+    }
+
+    @Test
+    public void Can_verify_a_token_after_failing_to_verify_a_corrupt_signature() {
+
+        final SignatureJwsVerifier verifier = new SignatureJwsVerifier(ecKeyPair.getPublic());
+        final String token = Jwts.builder().setSubject(someString()).signWith(ES256, ecKeyPair.getPrivate()).compact();
+
+        // Given
+        final boolean corrupt = verifier.verify(token.substring(0, token.lastIndexOf('.') + 1) + "AAAAAAAAAAAA");
+
+        // When
+        final boolean actual = verifier.verify(token);
+
+        // Then
+        assertThat(corrupt, is(false));
+        assertThat(actual, is(true));
+    }
+
+    @Test
+    public void Cannot_verify_a_token_signed_with_a_different_key() throws GeneralSecurityException {
+
+        // Given
+        final String token = Jwts.builder().setSubject(someString())
+            .signWith(ES256, someKeyPair("EC", 256).getPrivate()).compact();
+
+        // When
+        final boolean actual = new SignatureJwsVerifier(ecKeyPair.getPublic()).verify(token);
+
+        // Then
+        assertThat(actual, is(false));
+    }
+
+    @Test
+    public void Cannot_verify_a_token_with_a_tampered_payload() {
+
+        final String token = Jwts.builder().setSubject("user").signWith(RS256, rsaKeyPair.getPrivate()).compact();
+        final UrlSafeBase64 base64 = new UrlSafeBase64();
+        final String[] segments = token.split("\\.");
+
+        // Given
+        final String tampered = segments[0] + "." + base64.encode("{\"sub\":\"admin\"}".getBytes(US_ASCII)) + "." +
+            segments[2];
+
+        // When
+        final boolean actual = new SignatureJwsVerifier(rsaKeyPair.getPublic()).verify(tampered);
+
+        // Then
+        assertThat(actual, is(false));
+    }
+
+    @Test(expected = UnsupportedJwtException.class)
+    public void Cannot_verify_an_hmac_token_that_uses_the_public_key_as_its_secret() {
+
+        // Given
+        final String token = Jwts.builder().setSubject(someString())
+            .signWith(HS256, rsaKeyPair.getPublic().getEncoded()).compact();
+
+        // When
+        new SignatureJwsVerifier(rsaKeyPair.getPublic()).verify(token);
+    }
+
+    @Test(expected = UnsupportedJwtException.class)
+    public void Cannot_verify_a_token_signed_with_an_algorithm_that_does_not_match_the_curve() throws Exception {
+
+        // Given
+        final String token = Jwts.builder().setSubject(someString())
+            .signWith(ES384, someKeyPair("EC", 384).getPrivate()).compact();
+
+        // When
+        new SignatureJwsVerifier(ecKeyPair.getPublic()).verify(token);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void Cannot_create_a_verifier_for_a_key_that_cannot_be_used_for_jws() throws GeneralSecurityException {
+
+        // When
+        new SignatureJwsVerifier(someKeyPair("DSA", 1024).getPublic());
+    }
+
+    private static KeyPair someKeyPair(String algorithm, int size) throws GeneralSecurityException {
+        final KeyPairGenerator generator = KeyPairGenerator.getInstance(algorithm);
+        generator.initialize(size);
+        return generator.generateKeyPair();
+    }
+
+    private static byte[] toConcatenated(byte[] der, int half) {
+        final byte[] concatenated = new byte[half * 2];
+        final int rLength = der[3];
+        final int sLength = der[5 + rLength];
+        copyInteger(der, 4, rLength, concatenated, half, half);
+        copyInteger(der, 6 + rLength, sLength, concatenated, half * 2, half);
+        return concatenated;
+    }
+
+    private static void copyInteger(byte[] der, int start, int length, byte[] concatenated, int end, int half) {
+        final int copy = Math.min(length, half);
+        System.arraycopy(der, start + length - copy, concatenated, end - copy, copy);
+    }
+}
@@ -14,6 +14,19 @@ import static shiver.me.timbers.data.random.RandomLongs.someLong;
 
 public class SystemDatesTest {
 
+    @Test
+    public void Can_create_a_date_for_now() {
+
+        // Given
+        final Date expected = new Date();
+
+        // When
+        final Date actual = new SystemDates().now();
+
+        // Then
+        assertThat(actual, allOf(greaterThanOrEqualTo(expected), lessThan(new Date(expected.getTime() + 500L))));
+    }
+
     @Test
     public void Can_create_a_date_a_specific_time_in_the_future() {
 
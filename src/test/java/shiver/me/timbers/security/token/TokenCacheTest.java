@@ -0,0 +1,86 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package shiver.me.timbers.security.token;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class TokenCacheTest {
+
+    @Test
+    public void Can_give_a_recently_used_entry_a_second_chance() {
+
+        final TokenCache<String> cache = new TokenCache<>(2);
+
+        // Given
+        cache.put(1L, "one");
+        cache.put(2L, "two");
+        cache.get(1L);
+
+        // When
+        cache.put(3L, "three");
+
+        // Then
+        assertThat(cache.get(1L), equalTo("one"));
+        assertThat(cache.get(2L), nullValue());
+        assertThat(cache.get(3L), equalTo("three"));
+        assertThat(cache.getEvictions(), is(1L));
+    }
+
+    @Test
+    public void Can_reuse_the_space_of_a_removed_entry_without_evicting() {
+
+        final TokenCache<String> cache = new TokenCache<>(2);
+
+        // Given
+        cache.put(1L, "one");
+        cache.put(2L, "two");
+        cache.remove(1L);
+
+        // When
+        cache.put(3L, "three");
+
+        // Then
+        assertThat(cache.get(2L), equalTo("two"));
+        assertThat(cache.get(3L), equalTo("three"));
+        assertThat(cache.getEvictions(), is(0L));
+        assertThat(cache.size(), is(2));
+    }
+
+    @Test
+    public void Can_replace_an_entry_without_using_more_space() {
+
+        final TokenCache<String> cache = new TokenCache<>(2);
+
+        // Given
+        cache.put(1L, "one");
+        cache.put(2L, "two");
+
+        // When
+        cache.put(1L, "uno");
+
+        // Then
+        assertThat(cache.get(1L), equalTo("uno"));
+        assertThat(cache.get(2L), equalTo("two"));
+        assertThat(cache.getEvictions(), is(0L));
+    }
+}
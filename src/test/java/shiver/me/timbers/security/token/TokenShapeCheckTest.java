@@ -0,0 +1,126 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static shiver.me.timbers.data.random.RandomStrings.someAlphaNumericString;
+import static shiver.me.timbers.data.random.RandomStrings.someString;
+
+public class TokenShapeCheckTest {
+
+    private TokenShapeCheck shapeCheck;
+
+    @Before
+    public void setUp() {
+        shapeCheck = new TokenShapeCheck(1024);
+    }
+
+    @Test
+    public void Can_accept_a_real_jwt_token() {
+
+        // Given
+        final String token = new JwtSubjectTokenParser(new DataConverterBase64().encode(someString().getBytes()))
+            .create(someString());
+
+        // When
+        final boolean actual = shapeCheck.accepts(token);
+
+        // Then
+        assertThat(actual, is(true));
+    }
+
+    @Test
+    public void Can_reject_a_token_that_is_too_long() {
+        Can_reject("eyJ" + someAlphaNumericString(1024) + ".a.b", TokenRejection.TOO_LONG);
+    }
+
+    @Test
+    public void Can_reject_a_token_with_an_unknown_header() {
+        Can_reject("abc.def.ghi", TokenRejection.UNKNOWN_HEADER);
+    }
+
+    @Test
+    public void Can_reject_a_token_with_a_character_that_is_not_url_safe_base64() {
+        Can_reject("eyJa.b/c.d", TokenRejection.BAD_CHARACTER);
+    }
+
+    @Test
+    public void Can_reject_a_token_with_a_character_that_is_not_ascii() {
+        Can_reject("eyJa.b\u00e9c.d", TokenRejection.BAD_CHARACTER);
+    }
+
+    @Test
+    public void Can_reject_a_token_with_too_few_segments() {
+        Can_reject("eyJa.b", TokenRejection.BAD_SEGMENTS);
+    }
+
+    @Test
+    public void Can_reject_a_token_with_too_many_segments() {
+        Can_reject("eyJa.b.c.d", TokenRejection.BAD_SEGMENTS);
+    }
+
+    @Test
+    public void Can_reject_a_token_with_an_empty_signature() {
+        Can_reject("eyJa.b.", TokenRejection.BAD_SEGMENTS);
+    }
+
+    @Test
+    public void Can_reject_a_token_with_an_empty_payload() {
+        Can_reject("eyJa..c", TokenRejection.BAD_SEGMENTS);
+    }
+
+    @Test
+    public void Can_check_a_token_with_a_single_segment_and_any_prefix() {
+
+        final TokenShapeCheck shapeCheck = new TokenShapeCheck(64, 1);
+
+        // Then
+        assertThat(shapeCheck.accepts(someAlphaNumericString(32)), is(true));
+        assertThat(shapeCheck.accepts(someAlphaNumericString(8) + "." + someAlphaNumericString(8)), is(false));
+        assertThat(shapeCheck.accepts(""), is(false));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void Cannot_create_a_check_without_any_segments() {
+        new TokenShapeCheck(64, 0);
+    }
+
+    @Test
+    public void Can_return_the_reason_a_token_was_rejected() {
+
+        // When
+        final TokenRejection actual = shapeCheck.check("abc.def.ghi");
+
+        // Then
+        assertThat(actual, is(TokenRejection.UNKNOWN_HEADER));
+        assertThat(shapeCheck.getRejections(TokenRejection.UNKNOWN_HEADER), is(1L));
+    }
+
+    private void Can_reject(String token, TokenRejection rejection) {
+
+        // When
+        final boolean actual = shapeCheck.accepts(token);
+
+        // Then
+        assertThat(actual, is(false));
+        assertThat(shapeCheck.getRejections(rejection), is(1L));
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2015 Karl Bennett
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package shiver.me.timbers.security.token;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.xml.bind.DatatypeConverter;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static shiver.me.timbers.data.random.RandomStrings.someString;
+
+public class UrlSafeBase64Test {
+
+    private UrlSafeBase64 base64;
+
+    @Before
+    public void setUp() {
+        base64 = new UrlSafeBase64();
+    }
+
+    @Test
+    public void Can_encode_into_url_safe_base64() {
+
+        for (int length = 0; length < 300; length++) {
+
+            // Given
+            final byte[] bytes = someBytes(length);
+
+            // When
+            final String actual = base64.encode(bytes);
+
+            // Then
+            assertThat(actual, equalTo(urlSafe(DatatypeConverter.printBase64Binary(bytes))));
+        }
+    }
+
+    @Test
+    public void Can_decode_from_url_safe_base64() {
+
+        for (int length = 0; length < 300; length++) {
+
+            // Given
+            final byte[] bytes = someBytes(length);
+
+            // When
+            final byte[] actual = base64.decode(urlSafe(DatatypeConverter.printBase64Binary(bytes)));
+
+            // Then
+            assertThat(actual, equalTo(bytes));
+        }
+    }
+
+    @Test
+    public void Can_decode_from_standard_base64() {
+
+        // Given
+        final byte[] bytes = someString().getBytes();
+
+        // When
+        final byte[] actual = base64.decode(DatatypeConverter.printBase64Binary(bytes));
+
+        // Then
+        assertThat(actual, equalTo(bytes));
+    }
+
+    @Test
+    public void Can_encode_part_of_an_array_into_another_array() {
+
+        final byte[] bytes = someBytes(10);
+        final char[] destination = new char[20];
+
+        // When
+        final int actual = base64.encode(bytes, 2, 5, destination, 3);
+
+        // Then
+        assertThat(actual, equalTo(7));
+        assertThat(
+            new String(destination, 3, actual),
+            equalTo(urlSafe(DatatypeConverter.printBase64Binary(Arrays.copyOfRange(bytes, 2, 7))))
+        );
+    }
+
+    @Test
+    public void Can_decode_part_of_a_string_into_an_array() {
+
+        final byte[] bytes = someBytes(7);
+        final String encoded = base64.encode(bytes);
+        final byte[] destination = new byte[12];
+
+        // When
+        final int actual = base64.decode("." + encoded + ".", 1, encoded.length() + 1, destination, 4);
+
+        // Then
+        assertThat(actual, equalTo(7));
+        assertThat(Arrays.copyOfRange(destination, 4, 11), equalTo(bytes));
+    }
+
+    @Test
+    public void Can_encode_and_decode_with_byte_buffers() {
+
+        for (ByteBuffer buffer : new ByteBuffer[]{ByteBuffer.allocate(64), ByteBuffer.allocateDirect(64)}) {
+
+            final byte[] bytes = someBytes(17);
+            final ByteBuffer encoded = ByteBuffer.allocate(UrlSafeBase64.encodedLength(bytes.length));
+
+            // Given
+            base64.encode(ByteBuffer.wrap(bytes), encoded);
+            final String base64String = new String(encoded.array());
+
+            // When
+            base64.decode(base64String, 0, base64String.length(), buffer);
+
+            // Then
+            assertThat(base64String, equalTo(base64.encode(bytes)));
+            buffer.flip();
+            final byte[] actual = new byte[buffer.remaining()];
+            buffer.get(actual);
+            assertThat(actual, equalTo(bytes));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void Cannot_decode_an_invalid_character() {
+
+        // When
+        base64.decode("ab*d");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void Cannot_decode_an_invalid_length() {
+
+        // When
+        base64.decode("abcde");
+    }
+
+    @Test
+    public void Can_decode_canonical_url_safe_base64() {
+
+        final byte[] bytes = new byte[2];
+
+        // When
+        final int actual = base64.decodeCanonical("_-A", 0, 3, bytes, 0);
+
+        // Then
+        assertThat(actual, equalTo(2));
+        assertThat(bytes, equalTo(new byte[]{(byte) 0xff, (byte) 0xe0}));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void Cannot_canonically_decode_padded_base64() {
+
+        // When
+        base64.decodeCanonical("_-A=", 0, 4, new byte[2], 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void Cannot_canonically_decode_the_standard_alphabet() {
+
+        // When
+        base64.decodeCanonical("/+A", 0, 3, new byte[2], 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void Cannot_canonically_decode_base64_with_non_zero_trailing_bits() {
+
+        // When
+        base64.decodeCanonical("_-B", 0, 3, new byte[2], 0);
+    }
+
+    private static byte[] someBytes(int length) {
+        final byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (Math.random() * 256);
+        }
+        return bytes;
+    }
+
+    private static String urlSafe(String base64) {
+        return base64.replace('+', '-').replace('/', '_').replace("=", "");
+    }
+}